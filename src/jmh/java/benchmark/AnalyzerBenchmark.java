@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.DirectAnalyzer;
+import cz.vutbr.web.domassign.StyleMap;
+
+/**
+ * Computing the styles of the test pages: the rule classification, matching and cascading
+ * of the whole document using {@link Analyzer} and the styles of the individual elements
+ * using {@link DirectAnalyzer}. The style sheets are parsed in advance.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark
+{
+    @Param({"/profiling/slate.html", "/profiling/lidovky2.html"})
+    public String page;
+
+    private final MediaSpec media = new MediaSpec("screen");
+    private Document doc;
+    private StyleSheet sheet;
+    private List<Element> elements;
+
+    @Setup
+    public void setup() throws IOException, SAXException
+    {
+        final URL url = BenchmarkUtil.getResource(page);
+        doc = BenchmarkUtil.readDocument(page);
+        sheet = CSSFactory.getUsedStyles(doc, null, url, media);
+        elements = BenchmarkUtil.getElements(doc);
+    }
+
+    @Benchmark
+    public StyleMap evaluateDOM()
+    {
+        return new Analyzer(sheet).evaluateDOM(doc, media, true);
+    }
+
+    @Benchmark
+    public StyleMap evaluateDOMNoInherit()
+    {
+        return new Analyzer(sheet).evaluateDOM(doc, media, false);
+    }
+
+    /**
+     * Computes the styles of all the elements one by one.
+     */
+    @Benchmark
+    public void getElementStyle(Blackhole bh)
+    {
+        final DirectAnalyzer analyzer = new DirectAnalyzer(sheet);
+        for (Element e : elements)
+            bh.consume(analyzer.getElementStyle(e, null, media));
+    }
+
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.RuleBlock;
+import cz.vutbr.web.css.RuleMedia;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.StyleSheet;
+import test.DOMSource;
+import test.FilesUtil;
+
+/**
+ * Loads the test documents and style sheets used by the benchmarks.
+ */
+public class BenchmarkUtil
+{
+    public static URL getResource(String name)
+    {
+        final URL ret = BenchmarkUtil.class.getResource(name);
+        if (ret == null)
+            throw new IllegalArgumentException("Resource not found: " + name);
+        return ret;
+    }
+
+    public static String readString(String name)
+    {
+        return FilesUtil.readResource(name);
+    }
+
+    public static Document readDocument(String name) throws IOException, SAXException
+    {
+        try (InputStream is = getResource(name).openStream()) {
+            return new DOMSource(is).parse();
+        }
+    }
+
+    /**
+     * Obtains all the elements of a document in the document order.
+     */
+    public static List<Element> getElements(Document doc)
+    {
+        final NodeList list = doc.getElementsByTagName("*");
+        final List<Element> ret = new ArrayList<Element>(list.getLength());
+        for (int i = 0; i < list.getLength(); i++)
+            ret.add((Element) list.item(i));
+        return ret;
+    }
+
+    /**
+     * Obtains all the declarations of the rule sets of a style sheet including the nested media rules.
+     */
+    public static List<Declaration> getDeclarations(StyleSheet sheet)
+    {
+        final List<Declaration> ret = new ArrayList<Declaration>();
+        for (RuleBlock<?> rule : sheet)
+        {
+            if (rule instanceof RuleSet)
+                ret.addAll((RuleSet) rule);
+            else if (rule instanceof RuleMedia)
+            {
+                for (RuleSet set : (RuleMedia) rule)
+                    ret.addAll(set);
+            }
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.StyleMap;
+import test.CorpusGenerator;
+
+/**
+ * Computing the styles of synthetic documents of growing size using synthetic style sheets.
+ * The default parameters cover up to a million elements; larger style sheets may be used
+ * by overriding the {@code rules} parameter (e.g. {@code -p rules=1000,10000,100000}). Note that
+ * the time grows with the product of both: there are about 50 candidate rules per element for
+ * each thousand rules with the default generator settings.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class CascadeScalingBenchmark
+{
+    @Param({"1000"})
+    public int rules;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int elements;
+
+    private final MediaSpec media = new MediaSpec("screen");
+    private Document doc;
+    private List<StyleSheet> sheets;
+
+    @Setup
+    public void setup() throws IOException, CSSException
+    {
+        final CorpusGenerator generator = new CorpusGenerator(1);
+        generator.setRuleCount(rules);
+        generator.setElementCount(elements);
+        doc = generator.generateDocument();
+        sheets = new ArrayList<StyleSheet>();
+        sheets.add(CSSFactory.parseString(generator.generateCss(), generator.getBaseUrl(), generator.getNetworkProcessor()));
+        sheets.add(CSSFactory.getUsedStyles(doc, null, generator.getBaseUrl(), media)); //inline styles
+    }
+
+    @Benchmark
+    public StyleMap evaluateDOM()
+    {
+        return new Analyzer(sheets).evaluateDOM(doc, media, true);
+    }
+
+}
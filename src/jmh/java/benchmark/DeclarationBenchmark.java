@@ -0,0 +1,73 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.Term;
+import cz.vutbr.web.csskit.DeclarationTransformer;
+import cz.vutbr.web.domassign.DeclarationTransformerImpl;
+
+/**
+ * Transforming all the declarations of a style sheet to the property values using
+ * {@link DeclarationTransformerImpl#parseDeclaration}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeclarationBenchmark
+{
+    @Param({"/profiling/slate.css", "/profiling/lidovky2.css", "/w3c/style.css"})
+    public String sheet;
+
+    private DeclarationTransformer transformer;
+    private List<Declaration> declarations;
+    private Map<String, CSSProperty> properties;
+    private Map<String, Term<?>> values;
+
+    @Setup
+    public void setup() throws IOException, CSSException
+    {
+        transformer = CSSFactory.getDeclarationTransformer();
+        declarations = BenchmarkUtil.getDeclarations(
+                CSSFactory.parseString(BenchmarkUtil.readString(sheet), null));
+        properties = new HashMap<String, CSSProperty>();
+        values = new HashMap<String, Term<?>>();
+    }
+
+    @Benchmark
+    public int parseDeclaration()
+    {
+        int cnt = 0;
+        for (Declaration d : declarations)
+        {
+            properties.clear();
+            values.clear();
+            if (transformer.parseDeclaration(d, properties, values))
+                cnt++;
+        }
+        return cnt;
+    }
+
+}
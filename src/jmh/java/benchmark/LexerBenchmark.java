@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.csskit.antlr4.CSSInputStream;
+import cz.vutbr.web.csskit.antlr4.CSSLexer;
+
+/**
+ * Lexing of the profiling style sheets without parsing. All the tokens are created and their
+ * text is obtained the same way the parser does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBenchmark
+{
+    @Param({"/profiling/slate.css", "/profiling/lidovky2.css"})
+    public String sheet;
+
+    private String css;
+
+    @Setup
+    public void setup()
+    {
+        css = BenchmarkUtil.readString(sheet);
+    }
+
+    /**
+     * Lexes the whole sheet.
+     * 
+     * @return the number of the tokens
+     */
+    @Benchmark
+    public int lex() throws IOException
+    {
+        final CSSLexer lexer = new CSSLexer(CSSInputStream.stringStream(css));
+        lexer.init();
+        lexer.removeErrorListeners();
+        int cnt = 0;
+        for (Token t = lexer.nextToken(); t.getType() != Token.EOF; t = lexer.nextToken())
+        {
+            if (t.getText() != null)
+                cnt++;
+        }
+        return cnt;
+    }
+
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.css.CSSContext;
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.domassign.QuadrupleMapNodeData;
+import cz.vutbr.web.domassign.SingleMapNodeData;
+
+/**
+ * The operations of the {@link NodeData} implementations.
+ * All the declarations of a real-world style sheet are pushed to a single node, which is
+ * then used as the parent for inheritance. The {@code inheritFrom} and {@code concretize}
+ * benchmarks include creating an empty node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NodeDataBenchmark
+{
+    @Param({"single", "quadruple"})
+    public String impl;
+
+    private CSSContext context;
+    private List<Declaration> declarations;
+    private NodeData parent;
+
+    @Setup
+    public void setup() throws IOException, CSSException
+    {
+        context = CSSContext.builder()
+                .setNodeDataFactory("single".equals(impl) ? SingleMapNodeData.FACTORY : QuadrupleMapNodeData.FACTORY)
+                .build();
+        declarations = BenchmarkUtil.getDeclarations(
+                CSSFactory.parseString(BenchmarkUtil.readString("/profiling/lidovky2.css"), null));
+        parent = push();
+    }
+
+    @Benchmark
+    public NodeData push()
+    {
+        final NodeData data = context.createNodeData();
+        for (Declaration d : declarations)
+            data.push(d);
+        return data;
+    }
+
+    @Benchmark
+    public NodeData inheritFrom()
+    {
+        return context.createNodeData().inheritFrom(parent);
+    }
+
+    @Benchmark
+    public NodeData concretize()
+    {
+        return context.createNodeData().inheritFrom(parent).concretize();
+    }
+
+}
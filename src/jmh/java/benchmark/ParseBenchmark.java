@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.StyleSheet;
+
+/**
+ * Parsing of the style sheets of the test corpora. The sheets are parsed both from the
+ * in-memory source text and from their (file) URLs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark
+{
+    @Param({"/profiling/slate.css", "/profiling/lidovky2.css", "/w3c/style.css"})
+    public String sheet;
+
+    private String css;
+    private URL url;
+
+    @Setup
+    public void setup()
+    {
+        url = BenchmarkUtil.getResource(sheet);
+        css = BenchmarkUtil.readString(sheet);
+    }
+
+    @Benchmark
+    public StyleSheet parseString() throws IOException, CSSException
+    {
+        return CSSFactory.parseString(css, url);
+    }
+
+    @Benchmark
+    public StyleSheet parseUrl() throws IOException, CSSException
+    {
+        return CSSFactory.parse(url, "UTF-8");
+    }
+
+}
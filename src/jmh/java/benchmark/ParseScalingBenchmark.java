@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.StyleSheet;
+import test.CorpusGenerator;
+
+/**
+ * Parsing of synthetic style sheets of growing size, optionally split into imported sheets.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParseScalingBenchmark
+{
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int rules;
+
+    @Param({"0", "16"})
+    public int imports;
+
+    private CorpusGenerator generator;
+    private String css;
+
+    @Setup
+    public void setup()
+    {
+        generator = new CorpusGenerator(1);
+        generator.setRuleCount(rules);
+        generator.setImportCount(imports);
+        css = generator.generateCss();
+    }
+
+    @Benchmark
+    public StyleSheet parse() throws IOException, CSSException
+    {
+        return CSSFactory.parseString(css, generator.getBaseUrl(), generator.getNetworkProcessor());
+    }
+
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.RuleBlock;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.Term;
+
+/**
+ * The time to the first result in a fresh JVM: the initialization of the factories, property
+ * tables and the parser is included. Every fork measures a single invocation; the logging
+ * framework is initialized in advance so that its configuration is not counted.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class StartupBenchmark
+{
+    private static final String CSS = "p { color: red; margin: 1px 2px; display: block }";
+
+    @Setup
+    public void setup()
+    {
+        LoggerFactory.getLogger(StartupBenchmark.class);
+    }
+
+    /**
+     * The first declaration processed without parsing any style sheet.
+     */
+    @Benchmark
+    public NodeData firstDeclaration()
+    {
+        final Declaration d = CSSFactory.getRuleFactory().createDeclaration();
+        d.setProperty("color");
+        d.replaceAll(Collections.<Term<?>>singletonList(CSSFactory.getTermFactory().createColor(255, 0, 0)));
+        final NodeData data = CSSFactory.createNodeData();
+        data.push(d);
+        return data;
+    }
+
+    /**
+     * The first style sheet parsed and its declarations processed.
+     */
+    @Benchmark
+    public NodeData firstStyleSheet() throws IOException, CSSException
+    {
+        final StyleSheet sheet = CSSFactory.parseString(CSS, null);
+        final NodeData data = CSSFactory.createNodeData();
+        for (RuleBlock<?> rule : sheet)
+        {
+            for (Declaration d : (RuleSet) rule)
+                data.push(d);
+        }
+        return data;
+    }
+
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.csskit.antlr4.CSSInputStream;
+import cz.vutbr.web.csskit.antlr4.CSSLexer;
+
+/**
+ * Creating the color and dimension terms from the text of all the hash and dimension tokens
+ * found in the test style sheets. The time per token is the score divided by the number of
+ * the hash or dimension tokens.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TermParseBenchmark
+{
+    private static final String[] SHEETS = {
+        "/abclinuxu/layout.css", "/abclinuxu/styles.css", "/abclinuxu/temp.css",
+        "/advanced/style.css", "/domassign/linked.css",
+        "/invalid/recovery2.css", "/invalid/style.css",
+        "/profiling/lidovky2.css", "/profiling/slate.css",
+        "/simple/animations.css", "/simple/charset1.css", "/simple/data.css", "/simple/fontfaces.css",
+        "/simple/imp.css", "/simple/imp_escaped.css", "/simple/impmedia.css",
+        "/simple/selectors.css", "/simple/selectors2.css", "/simple/selectors3.css",
+        "/w3c/style.css"
+    };
+
+    private TermFactory tf;
+    private String[] hashes;
+    private String[] dimensions;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        tf = CSSFactory.getTermFactory();
+        final List<String> hashList = new ArrayList<String>();
+        final List<String> dimensionList = new ArrayList<String>();
+        for (String sheet : SHEETS)
+        {
+            final CSSLexer lexer = new CSSLexer(CSSInputStream.stringStream(BenchmarkUtil.readString(sheet)));
+            lexer.init();
+            lexer.removeErrorListeners();
+            for (Token t = lexer.nextToken(); t.getType() != Token.EOF; t = lexer.nextToken())
+            {
+                if (t.getType() == CSSLexer.HASH)
+                    hashList.add(t.getText());
+                else if (t.getType() == CSSLexer.DIMENSION)
+                    dimensionList.add(t.getText());
+            }
+        }
+        hashes = hashList.toArray(new String[0]);
+        dimensions = dimensionList.toArray(new String[0]);
+    }
+
+    /**
+     * Creates the colors from all the hash tokens (the identifiers used in the ID selectors
+     * are included and give no color).
+     * 
+     * @return the number of the colors created
+     */
+    @Benchmark
+    public int createColor()
+    {
+        int cnt = 0;
+        for (String hash : hashes)
+        {
+            if (tf.createColor(hash) != null)
+                cnt++;
+        }
+        return cnt;
+    }
+
+    /**
+     * Creates the lengths, angles, times etc. from all the dimension tokens.
+     * 
+     * @return the number of the terms created
+     */
+    @Benchmark
+    public int createDimension()
+    {
+        int cnt = 0;
+        for (String dimension : dimensions)
+        {
+            if (tf.createDimension(dimension, 1) != null)
+                cnt++;
+        }
+        return cnt;
+    }
+
+}
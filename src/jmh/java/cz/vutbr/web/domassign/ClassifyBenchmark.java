@@ -0,0 +1,59 @@
+package cz.vutbr.web.domassign;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmark.BenchmarkUtil;
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.domassign.Analyzer.Holder;
+
+/**
+ * Classification of the rules of the style sheets. The benchmark is placed in the analyzer
+ * package because the classification is not a part of the public API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassifyBenchmark
+{
+    @Param({"/profiling/slate.css", "/profiling/lidovky2.css", "/w3c/style.css"})
+    public String sheet;
+
+    private final MediaSpec media = new MediaSpec("screen");
+    private List<StyleSheet> sheets;
+
+    @Setup
+    public void setup() throws IOException, CSSException
+    {
+        sheets = Collections.singletonList(CSSFactory.parseString(BenchmarkUtil.readString(sheet), null));
+    }
+
+    @Benchmark
+    public Holder classifyAllSheets()
+    {
+        final Holder rules = new Holder();
+        AnalyzerUtil.classifyAllSheets(sheets, rules, media);
+        return rules;
+    }
+
+}
@@ -0,0 +1,669 @@
+package cz.vutbr.web.css;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import cz.vutbr.web.csskit.DeclarationTransformer;
+import cz.vutbr.web.csskit.DefaultNetworkProcessor;
+import cz.vutbr.web.csskit.MatchConditionImpl;
+import cz.vutbr.web.csskit.antlr4.CSSParserFactory;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.SingleMapNodeData;
+import cz.vutbr.web.domassign.StyleMap;
+
+/**
+ * An immutable configuration of the parser and the style engine: the factories, the supported CSS
+ * properties, the declaration transformer, the element matcher, the match condition, the NodeData
+ * implementation, the network processor and the automatic import settings. Several contexts with
+ * different configurations may be used concurrently in a single JVM.
+ *
+ * <p>The static {@link CSSFactory} API uses the <em>current</em> context: the context bound to the
+ * calling thread by {@link #bind()} or the default context when no context is bound. The default
+ * context is replaced by the {@code register...} methods of {@link CSSFactory}. The parsing and
+ * styling methods of this class and the analyzers created for this context bind the context
+ * automatically.</p>
+ *
+ * <p>The components that are not configured explicitly are created on their first use using
+ * the default implementations.</p>
+ */
+public final class CSSContext
+{
+    private static final Logger log = LoggerFactory.getLogger(CSSContext.class);
+
+    private static final String DEFAULT_TERM_FACTORY = "cz.vutbr.web.csskit.TermFactoryImpl";
+    private static final String DEFAULT_SUPPORTED_CSS = "cz.vutbr.web.domassign.SupportedCSS3";
+    private static final String DEFAULT_RULE_FACTORY = "cz.vutbr.web.csskit.RuleFactoryImpl";
+    private static final String DEFAULT_DECLARATION_TRANSFORMER = "cz.vutbr.web.domassign.DeclarationTransformerImpl";
+    
+    private static final String DEFAULT_ELEMENT_MATCHER = "cz.vutbr.web.csskit.ElementMatcherSafeStd";
+
+    /** The context bound to the current thread */
+    private static final ThreadLocal<CSSContext> bound = new ThreadLocal<CSSContext>();
+
+    /** The default context */
+    private static volatile CSSContext defaultContext;
+
+    // the configured components (null means the default implementation)
+    private final CSSParserFactory parserFactory;
+    private final TermFactory termFactory;
+    private final SupportedCSS supportedCSS;
+    private final RuleFactory ruleFactory;
+    private final DeclarationTransformer transformer;
+    private final ElementMatcher matcher;
+    private final NodeDataFactory nodeDataFactory;
+    private final MatchCondition matchCondition;
+    private final NetworkProcessor networkProcessor;
+    private final MediaSpec autoImportMedia;
+    private final boolean implyPixelLengths;
+    private final StyleMetrics metrics;
+
+    // the default components created on demand
+    private volatile TermFactory defaultTermFactory;
+    private volatile SupportedCSS defaultSupportedCSS;
+    private volatile RuleFactory defaultRuleFactory;
+    private volatile DeclarationTransformer defaultTransformer;
+    private volatile ElementMatcher defaultMatcher;
+    
+    private volatile MatchCondition defaultMatchCondition;
+    private volatile NetworkProcessor defaultNetworkProcessor;
+    private volatile MediaSpec defaultAutoImportMedia;
+
+    private CSSContext(Builder b)
+    {
+        parserFactory = b.parserFactory;
+        termFactory = b.termFactory;
+        supportedCSS = b.supportedCSS;
+        ruleFactory = b.ruleFactory;
+        transformer = b.transformer;
+        matcher = b.matcher;
+        nodeDataFactory = b.nodeDataFactory;
+        matchCondition = b.matchCondition;
+        networkProcessor = b.networkProcessor;
+        autoImportMedia = b.autoImportMedia;
+        implyPixelLengths = b.implyPixelLengths;
+        metrics = b.metrics;
+    }
+
+    /**
+     * Creates a builder of a new context with the default configuration.
+     * @return the new builder
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder of a new context whose configuration is initialized from this context.
+     * @return the new builder
+     */
+    public Builder toBuilder()
+    {
+        final Builder b = new Builder();
+        b.parserFactory = parserFactory;
+        b.termFactory = termFactory;
+        b.supportedCSS = supportedCSS;
+        b.ruleFactory = ruleFactory;
+        b.transformer = transformer;
+        b.matcher = matcher;
+        b.nodeDataFactory = nodeDataFactory;
+        b.matchCondition = matchCondition;
+        b.networkProcessor = networkProcessor;
+        b.autoImportMedia = autoImportMedia;
+        b.implyPixelLengths = implyPixelLengths;
+        b.metrics = metrics;
+        return b;
+    }
+
+    //====================================================================================
+
+    /**
+     * Obtains the default context used when no context is bound to the current thread.
+     * @return the default context
+     */
+    public static CSSContext getDefault()
+    {
+        CSSContext ret = defaultContext;
+        if (ret == null)
+        {
+            synchronized (CSSContext.class)
+            {
+                ret = defaultContext;
+                if (ret == null)
+                {
+                    ret = new Builder().build();
+                    defaultContext = ret;
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Replaces the default context.
+     * @param context the new default context
+     */
+    static void setDefault(CSSContext context)
+    {
+        defaultContext = context;
+    }
+
+    /**
+     * Obtains the current context: the context bound to the current thread or the default context.
+     * @return the current context
+     */
+    public static CSSContext current()
+    {
+        final CSSContext ret = bound.get();
+        return (ret != null) ? ret : getDefault();
+    }
+
+    /**
+     * Binds this context to the current thread. The previous binding should be restored using
+     * {@link #unbind(CSSContext)} in a {@code finally} block.
+     * @return the context previously bound to the current thread or {@code null}
+     */
+    public CSSContext bind()
+    {
+        final CSSContext previous = bound.get();
+        bound.set(this);
+        return previous;
+    }
+
+    /**
+     * Restores the previous binding of the current thread.
+     * @param previous the context returned by the corresponding {@link #bind()} call
+     */
+    public static void unbind(CSSContext previous)
+    {
+        if (previous == null)
+            bound.remove();
+        else
+            bound.set(previous);
+    }
+
+    //====================================================================================
+
+    /**
+     * Obtains the parser factory.
+     * @return the parser factory
+     */
+    public CSSParserFactory getCSSParserFactory()
+    {
+        return (parserFactory != null) ? parserFactory : CSSParserFactory.getInstance();
+    }
+
+    /**
+     * Obtains the term factory.
+     * @return the term factory
+     */
+    public TermFactory getTermFactory()
+    {
+        if (termFactory != null)
+            return termFactory;
+        TermFactory ret = defaultTermFactory;
+        if (ret == null)
+        {
+            ret = (TermFactory) getDefaultInstance(DEFAULT_TERM_FACTORY, "TermFactory");
+            defaultTermFactory = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the supported CSS properties.
+     * @return the SupportedCSS instance
+     */
+    public SupportedCSS getSupportedCSS()
+    {
+        if (supportedCSS != null)
+            return supportedCSS;
+        SupportedCSS ret = defaultSupportedCSS;
+        if (ret == null)
+        {
+            ret = (SupportedCSS) getDefaultInstance(DEFAULT_SUPPORTED_CSS, "SupportedCSS");
+            defaultSupportedCSS = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the rule factory.
+     * @return the rule factory
+     */
+    public RuleFactory getRuleFactory()
+    {
+        if (ruleFactory != null)
+            return ruleFactory;
+        RuleFactory ret = defaultRuleFactory;
+        if (ret == null)
+        {
+            ret = (RuleFactory) getDefaultInstance(DEFAULT_RULE_FACTORY, "RuleFactory");
+            defaultRuleFactory = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the declaration transformer.
+     * @return the declaration transformer
+     */
+    public DeclarationTransformer getDeclarationTransformer()
+    {
+        if (transformer != null)
+            return transformer;
+        DeclarationTransformer ret = defaultTransformer;
+        if (ret == null)
+        {
+            ret = (DeclarationTransformer) getDefaultInstance(DEFAULT_DECLARATION_TRANSFORMER, "DeclarationTransformer");
+            defaultTransformer = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the element matcher.
+     * @return the element matcher
+     */
+    public ElementMatcher getElementMatcher()
+    {
+        if (matcher != null)
+            return matcher;
+        ElementMatcher ret = defaultMatcher;
+        if (ret == null)
+        {
+            try {
+                @SuppressWarnings("unchecked")
+                Class<? extends ElementMatcher> clazz = (Class<? extends ElementMatcher>) Class.forName(DEFAULT_ELEMENT_MATCHER);
+                ret = clazz.newInstance();
+                log.debug("Retrived {} as default ElementMatcher implementation.", DEFAULT_ELEMENT_MATCHER);
+            } catch (Exception e) {
+                log.error("Unable to get ElementMatcher from default", e);
+                throw new RuntimeException("No ElementMatcher implementation registered!", e);
+            }
+            defaultMatcher = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the factory of the NodeData instances.
+     * @return the NodeData factory
+     */
+    public NodeDataFactory getNodeDataFactory()
+    {
+        return (nodeDataFactory != null) ? nodeDataFactory : SingleMapNodeData.FACTORY;
+    }
+
+    /**
+     * Obtains the match condition used by the analyzers by default.
+     * @return the match condition
+     */
+    public MatchCondition getDefaultMatchCondition()
+    {
+        if (matchCondition != null)
+            return matchCondition;
+        MatchCondition ret = defaultMatchCondition;
+        if (ret == null)
+        {
+            ret = new MatchConditionImpl();
+            defaultMatchCondition = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the network processor used for loading the style sheets.
+     * @return the network processor
+     */
+    public NetworkProcessor getNetworkProcessor()
+    {
+        if (networkProcessor != null)
+            return networkProcessor;
+        NetworkProcessor ret = defaultNetworkProcessor;
+        if (ret == null)
+        {
+            ret = new DefaultNetworkProcessor();
+            defaultNetworkProcessor = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the media specification used for automatically importing the style sheets.
+     * @return the media specification
+     */
+    public MediaSpec getAutoImportMedia()
+    {
+        if (autoImportMedia != null)
+            return autoImportMedia;
+        MediaSpec ret = defaultAutoImportMedia;
+        if (ret == null)
+        {
+            ret = new MediaSpecAll();
+            defaultAutoImportMedia = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Says whether to allow lengths with no units and interpret them as pixels.
+     * @return {@code true} if the lengths with no units are allowed
+     */
+    public boolean getImplyPixelLength()
+    {
+        return implyPixelLengths;
+    }
+
+    /**
+     * Obtains the metrics listener.
+     * @return the metrics listener or {@code null} when the metrics are disabled
+     */
+    public StyleMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Creates a new instance of NodeData.
+     * @return the new NodeData instance
+     */
+    public NodeData createNodeData()
+    {
+        return getNodeDataFactory().createNodeData(this);
+    }
+
+    //====================================================================================
+
+    /**
+     * Parses text into a StyleSheet using this context.
+     * @param css Text with CSS declarations
+     * @param base The URL to be used as a base for loading external resources or {@code null}
+     * @return Parsed StyleSheet
+     * @throws IOException When exception during read occurs
+     * @throws CSSException When exception during parse occurs
+     * @see CSSFactory#parseString(String, URL)
+     */
+    public StyleSheet parseString(String css, URL base) throws IOException, CSSException
+    {
+        final CSSContext previous = bind();
+        try {
+            return CSSFactory.parseString(css, base, getNetworkProcessor());
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    /**
+     * Parses URL into a StyleSheet using this context.
+     * @param url URL of file to be parsed
+     * @param encoding Encoding of file
+     * @return Parsed StyleSheet
+     * @throws IOException When file not found
+     * @throws CSSException When exception during parse occurs
+     * @see CSSFactory#parse(URL, String)
+     */
+    public StyleSheet parse(URL url, String encoding) throws IOException, CSSException
+    {
+        final CSSContext previous = bind();
+        try {
+            return CSSFactory.parse(url, getNetworkProcessor(), encoding);
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    /**
+     * Loads all the style sheets used from the specified DOM tree using this context.
+     * @param doc DOM tree
+     * @param encoding The default encoding used for the referenced style sheets
+     * @param base Base URL against which all files are searched
+     * @param media Selected media for style sheet
+     * @return the rules of all the style sheets used in the document including the inline styles
+     * @see CSSFactory#getUsedStyles(Document, String, URL, MediaSpec)
+     */
+    public StyleSheet getUsedStyles(Document doc, String encoding, URL base, MediaSpec media)
+    {
+        final CSSContext previous = bind();
+        try {
+            return CSSFactory.getUsedStyles(doc, encoding, base, media, getNetworkProcessor());
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    /**
+     * Goes through a DOM tree and assigns the CSS declarations to the DOM elements using this context.
+     * @param doc DOM tree
+     * @param encoding The default encoding used for the referenced style sheets
+     * @param base Base URL against which all files are searched
+     * @param media Current media specification used for evaluating the media queries
+     * @param useInheritance Whether inheritance will be used to determine values
+     * @return Map between DOM element nodes and data structure containing CSS information
+     * @see CSSFactory#assignDOM(Document, String, URL, MediaSpec, boolean)
+     */
+    public StyleMap assignDOM(Document doc, String encoding, URL base, MediaSpec media, boolean useInheritance)
+    {
+        final CSSContext previous = bind();
+        try {
+            return CSSFactory.assignDOM(doc, encoding, getNetworkProcessor(), base, media, useInheritance, null);
+        } finally {
+            unbind(previous);
+        }
+    }
+
+    /**
+     * Creates an analyzer that uses this context.
+     * @param sheets the style sheets to be used
+     * @return the new analyzer
+     */
+    public Analyzer createAnalyzer(List<StyleSheet> sheets)
+    {
+        return new Analyzer(sheets, this);
+    }
+
+    //====================================================================================
+
+    private static Object getDefaultInstance(String className, String kind)
+    {
+        try {
+            Class<?> clazz = Class.forName(className);
+            Method m = clazz.getMethod("getInstance");
+            final Object ret = m.invoke(null);
+            log.debug("Retrived {} as default {} implementation.", className, kind);
+            return ret;
+        } catch (Exception e) {
+            log.error("Unable to get " + kind + " from default", e);
+            throw new RuntimeException("No " + kind + " implementation registered!");
+        }
+    }
+
+    private static Class<? extends NodeData> checkNodeDataClass(Class<? extends NodeData> clazz)
+    {
+        try {
+            @SuppressWarnings("unused")
+            NodeData test = clazz.newInstance();
+            return clazz;
+        } catch (InstantiationException e) {
+            throw new RuntimeException("NodeData implemenation ("
+                    + clazz.getName() + ") doesn't provide sole constructor", e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("NodeData implementation ("
+                    + clazz.getName() + ") is not accesible", e);
+        }
+    }
+
+    //====================================================================================
+
+    /**
+     * Creates the instances of a NodeData class. The classes that provide a constructor with
+     * a {@link CSSContext} argument obtain the context directly; the remaining ones are created
+     * with the context bound to the current thread.
+     */
+    private static final class ClassNodeDataFactory implements NodeDataFactory
+    {
+        private final Class<? extends NodeData> clazz;
+        private final Constructor<? extends NodeData> contextConstructor;
+
+        public ClassNodeDataFactory(Class<? extends NodeData> clazz)
+        {
+            this.clazz = clazz;
+            Constructor<? extends NodeData> cons;
+            try {
+                cons = clazz.getConstructor(CSSContext.class);
+            } catch (NoSuchMethodException e) {
+                cons = null;
+            }
+            this.contextConstructor = cons;
+        }
+
+        @Override
+        public NodeData createNodeData(CSSContext context)
+        {
+            try {
+                if (contextConstructor != null)
+                    return contextConstructor.newInstance(context);
+                final CSSContext previous = context.bind();
+                try {
+                    return clazz.newInstance();
+                } finally {
+                    unbind(previous);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("No NodeData implementation registered", e);
+            }
+        }
+    }
+
+    //====================================================================================
+
+    /**
+     * A builder of the contexts. The components that are not set are created using the default
+     * implementations.
+     */
+    public static final class Builder
+    {
+        private CSSParserFactory parserFactory;
+        private TermFactory termFactory;
+        private SupportedCSS supportedCSS;
+        private RuleFactory ruleFactory;
+        private DeclarationTransformer transformer;
+        private ElementMatcher matcher;
+        private NodeDataFactory nodeDataFactory;
+        private MatchCondition matchCondition;
+        private NetworkProcessor networkProcessor;
+        private MediaSpec autoImportMedia;
+        private boolean implyPixelLengths;
+        private StyleMetrics metrics;
+
+        private Builder()
+        {
+        }
+
+        public Builder setCSSParserFactory(CSSParserFactory parserFactory)
+        {
+            this.parserFactory = parserFactory;
+            return this;
+        }
+
+        public Builder setTermFactory(TermFactory termFactory)
+        {
+            this.termFactory = termFactory;
+            return this;
+        }
+
+        public Builder setSupportedCSS(SupportedCSS supportedCSS)
+        {
+            this.supportedCSS = supportedCSS;
+            return this;
+        }
+
+        public Builder setRuleFactory(RuleFactory ruleFactory)
+        {
+            this.ruleFactory = ruleFactory;
+            return this;
+        }
+
+        public Builder setDeclarationTransformer(DeclarationTransformer transformer)
+        {
+            this.transformer = transformer;
+            return this;
+        }
+
+        public Builder setElementMatcher(ElementMatcher matcher)
+        {
+            this.matcher = matcher;
+            return this;
+        }
+
+        /**
+         * Sets the NodeData implementation. The implementation must provide a no-argument constructor;
+         * a constructor with a {@link CSSContext} argument is used when available.
+         * @param nodeDataClass the implementation class
+         * @return this builder
+         */
+        public Builder setNodeDataClass(Class<? extends NodeData> nodeDataClass)
+        {
+            this.nodeDataFactory = (nodeDataClass == null) ? null : new ClassNodeDataFactory(checkNodeDataClass(nodeDataClass));
+            return this;
+        }
+
+        /**
+         * Sets the factory of the NodeData instances.
+         * @param nodeDataFactory the factory
+         * @return this builder
+         */
+        public Builder setNodeDataFactory(NodeDataFactory nodeDataFactory)
+        {
+            this.nodeDataFactory = nodeDataFactory;
+            return this;
+        }
+
+        public Builder setDefaultMatchCondition(MatchCondition matchCondition)
+        {
+            this.matchCondition = matchCondition;
+            return this;
+        }
+
+        public Builder setNetworkProcessor(NetworkProcessor networkProcessor)
+        {
+            this.networkProcessor = networkProcessor;
+            return this;
+        }
+
+        public Builder setAutoImportMedia(MediaSpec autoImportMedia)
+        {
+            this.autoImportMedia = autoImportMedia;
+            return this;
+        }
+
+        public Builder setImplyPixelLength(boolean implyPixelLengths)
+        {
+            this.implyPixelLengths = implyPixelLengths;
+            return this;
+        }
+
+        public Builder setMetrics(StyleMetrics metrics)
+        {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Creates the context.
+         * @return the new immutable context
+         */
+        public CSSContext build()
+        {
+            return new CSSContext(this);
+        }
+    }
+
+}
@@ -3,10 +3,12 @@ package cz.vutbr.web.css;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.fit.net.DataURLHandler;
 import org.slf4j.Logger;
@@ -18,12 +20,9 @@ import org.w3c.dom.Text;
 import org.w3c.dom.traversal.NodeFilter;
 
 import cz.vutbr.web.csskit.DeclarationTransformer;
-import cz.vutbr.web.csskit.DefaultNetworkProcessor;
-import cz.vutbr.web.csskit.MatchConditionImpl;
 import cz.vutbr.web.csskit.antlr4.CSSParserFactory;
 import cz.vutbr.web.csskit.antlr4.CSSParserFactory.SourceType;
 import cz.vutbr.web.domassign.Analyzer;
-import cz.vutbr.web.domassign.DeclarationTransformerImpl;
 import cz.vutbr.web.domassign.StyleMap;
 import cz.vutbr.web.domassign.Traversal;
 
@@ -46,83 +45,22 @@ import cz.vutbr.web.domassign.Traversal;
  * Whole conversion between DOM tree and mapping of CSS to DOM tree elements
  * could be done by invoking method {@code assignDOM()}
  * 
+ * All the registered implementations are kept in the default {@link CSSContext}; the
+ * {@code register...} methods replace the default context by a modified copy. The getters
+ * and the parsing methods use the context bound to the current thread, if any.
+ * 
  * @author kapy
  * 
  */
 public final class CSSFactory {
 	private static Logger log = LoggerFactory.getLogger(CSSFactory.class);
 
-	private static final String DEFAULT_TERM_FACTORY = "cz.vutbr.web.csskit.TermFactoryImpl";
-	private static final String DEFAULT_SUPPORTED_CSS = "cz.vutbr.web.domassign.SupportedCSS3";
-	private static final String DEFAULT_RULE_FACTORY = "cz.vutbr.web.csskit.RuleFactoryImpl";
-    private static final String DEFAULT_DECLARATION_TRANSFORMER = "cz.vutbr.web.domassign.DeclarationTransformerImpl";
-	private static final String DEFAULT_NODE_DATA_IMPL = "cz.vutbr.web.domassign.SingleMapNodeData";
-	private static final String DEFAULT_ELEMENT_MATCHER = "cz.vutbr.web.csskit.ElementMatcherSafeStd";
-
-	/**
-	 * Default instance of CSSParcerFactory
-	 */
-	private static CSSParserFactory pf;
-	
-	/**
-	 * Default instance of TermFactory implementation
-	 */
-	private static TermFactory tf;
-
-	/**
-	 * Default instance of SupportedCSS implementation
-	 */
-	private static SupportedCSS css;
-
-	/**
-	 * Default instance of RuleFactory implementation
-	 */
-	private static RuleFactory rf;
-
-	/**
-	 * Default instance of DeclarationTransformer
-	 */
-	private static DeclarationTransformer dt;
-	
-	/**
-	 * Used ElementMatcher instance.
-	 */
-	private static ElementMatcher matcher;
-	
-	/**
-	 * Used NodeData class
-	 */
-	private static Class<? extends NodeData> ndImpl;
-
-	/**
-	 * Default match condition
-	 */
-	private static MatchCondition dcond;
-	
-	/**
-	 * Whether to allow lengths with no units and interpret them as pixels.
-	 */
-	private static boolean implyPixelLengths = false;
-	
-	
-	/**
-	 * Media specification used for automatically importing style sheets. 
-	 */
-	private static MediaSpec autoImportMedia = null;
-
-	/**
-	 *
-	 * Default network processor
-	 *
-	 */
-	private static NetworkProcessor networkProcessor = null;
-
 	/**
 	 * Sets whether to allow lengths with no units and interpret them as pixels. The default value is {@code false}.
 	 * @param b {@code true} when the lengths with no units should be allowed.
 	 */
-	public static final void setImplyPixelLength(boolean b) {
-	    implyPixelLengths = b;
+	public static final synchronized void setImplyPixelLength(boolean b) {
+	    updateDefault(CSSContext.getDefault().toBuilder().setImplyPixelLength(b));
 	}
 	
     /**
@@ -130,7 +68,7 @@ public final class CSSFactory {
      * @return {@code true} if the lengths with no units are allowed
      */
     public static final boolean getImplyPixelLength() {
-        return implyPixelLengths;
+        return CSSContext.current().getImplyPixelLength();
     }
 
     /**
@@ -141,9 +79,7 @@ public final class CSSFactory {
      */
     public static MediaSpec getAutoImportMedia()
     {
-        if (autoImportMedia == null)
-            autoImportMedia = new MediaSpecAll();
-        return autoImportMedia;
+        return CSSContext.current().getAutoImportMedia();
     }
 
     /**
@@ -154,21 +90,17 @@ public final class CSSFactory {
      * 
      * @param autoImportMedia The media specification for checking the imports.
      */
-    public static void setAutoImportMedia(MediaSpec autoImportMedia)
+    public static synchronized void setAutoImportMedia(MediaSpec autoImportMedia)
     {
-        CSSFactory.autoImportMedia = autoImportMedia;
+        updateDefault(CSSContext.getDefault().toBuilder().setAutoImportMedia(autoImportMedia));
     }
 
     public static NetworkProcessor getNetworkProcessor() {
-		if (networkProcessor == null) {
-			networkProcessor = new DefaultNetworkProcessor();
-		}
-
-		return networkProcessor;
+		return CSSContext.current().getNetworkProcessor();
 	}
 
-    public static void setNetworkProcessor(NetworkProcessor networkProcessor) {
-    	CSSFactory.networkProcessor = networkProcessor;
+    public static synchronized void setNetworkProcessor(NetworkProcessor networkProcessor) {
+        updateDefault(CSSContext.getDefault().toBuilder().setNetworkProcessor(networkProcessor));
 	}
 
 	/**
@@ -177,8 +109,8 @@ public final class CSSFactory {
 	 * @param factory
 	 *            New CSSParserFactory
 	 */
-	public static final void registerCSSParserFactory(CSSParserFactory factory) {
-		pf = factory;
+	public static final synchronized void registerCSSParserFactory(CSSParserFactory factory) {
+		updateDefault(CSSContext.getDefault().toBuilder().setCSSParserFactory(factory));
 	}
 
 	/**
@@ -187,9 +119,7 @@ public final class CSSFactory {
 	 * @return CSSParserFactory registered
 	 */
 	private static final CSSParserFactory getCSSParserFactory() {
-		if (pf == null)
-			pf = CSSParserFactory.getInstance();
-		return pf;
+		return CSSContext.current().getCSSParserFactory();
 	}
 	
     /**
@@ -198,8 +128,8 @@ public final class CSSFactory {
 	 * @param newFactory
 	 *            New TermFactory
 	 */
-	public static final void registerTermFactory(TermFactory newFactory) {
-		tf = newFactory;
+	public static final synchronized void registerTermFactory(TermFactory newFactory) {
+		updateDefault(CSSContext.getDefault().toBuilder().setTermFactory(newFactory));
 	}
 
 	/**
@@ -208,22 +138,7 @@ public final class CSSFactory {
 	 * @return TermFactory registered
 	 */
 	public static final TermFactory getTermFactory() {
-		if (tf == null) {
-			try {
-				@SuppressWarnings("unchecked")
-				Class<? extends TermFactory> clazz = (Class<? extends TermFactory>) Class
-						.forName(DEFAULT_TERM_FACTORY);
-				Method m = clazz.getMethod("getInstance");
-				registerTermFactory((TermFactory) m.invoke(null));
-				log.debug("Retrived {} as default TermFactory implementation.",
-						DEFAULT_TERM_FACTORY);
-			} catch (Exception e) {
-				log.error("Unable to get TermFactory from default", e);
-				throw new RuntimeException(
-						"No TermFactory implementation registered!");
-			}
-		}
-		return tf;
+		return CSSContext.current().getTermFactory();
 	}
 
 	/**
@@ -232,8 +147,8 @@ public final class CSSFactory {
 	 * @param newCSS
 	 *            new SupportedCSS
 	 */
-	public static final void registerSupportedCSS(SupportedCSS newCSS) {
-		css = newCSS;
+	public static final synchronized void registerSupportedCSS(SupportedCSS newCSS) {
+		updateDefault(CSSContext.getDefault().toBuilder().setSupportedCSS(newCSS));
 	}
 
 	/**
@@ -242,23 +157,7 @@ public final class CSSFactory {
 	 * @return SupportedCSS instance
 	 */
 	public static final SupportedCSS getSupportedCSS() {
-		if (css == null) {
-			try {
-				@SuppressWarnings("unchecked")
-				Class<? extends SupportedCSS> clazz = (Class<? extends SupportedCSS>) Class
-						.forName(DEFAULT_SUPPORTED_CSS);
-				Method m = clazz.getMethod("getInstance");
-				registerSupportedCSS((SupportedCSS) m.invoke(null));
-				log.debug(
-						"Retrived {} as default SupportedCSS implementation.",
-						DEFAULT_SUPPORTED_CSS);
-			} catch (Exception e) {
-				log.error("Unable to get SupportedCSS from default", e);
-				throw new RuntimeException(
-						"No SupportedCSS implementation registered!");
-			}
-		}
-		return css;
+		return CSSContext.current().getSupportedCSS();
 	}
 
 	/**
@@ -267,8 +166,8 @@ public final class CSSFactory {
 	 * @param newRuleFactory
 	 *            New RuleFactory instance
 	 */
-	public static final void registerRuleFactory(RuleFactory newRuleFactory) {
-		rf = newRuleFactory;
+	public static final synchronized void registerRuleFactory(RuleFactory newRuleFactory) {
+		updateDefault(CSSContext.getDefault().toBuilder().setRuleFactory(newRuleFactory));
 	}
 
 	/**
@@ -277,23 +176,7 @@ public final class CSSFactory {
 	 * @return RuleFactory instance
 	 */
 	public static final RuleFactory getRuleFactory() {
-		if (rf == null) {
-			try {
-				@SuppressWarnings("unchecked")
-				Class<? extends RuleFactory> clazz = (Class<? extends RuleFactory>) Class
-						.forName(DEFAULT_RULE_FACTORY);
-				Method m = clazz.getMethod("getInstance");
-				registerRuleFactory((RuleFactory) m.invoke(null));
-				log.debug("Retrived {} as default RuleFactory implementation.",
-						DEFAULT_RULE_FACTORY);
-			} catch (Exception e) {
-				log.error("Unable to get RuleFactory from default", e);
-				throw new RuntimeException(
-						"No RuleFactory implementation registered!");
-			}
-		}
-
-		return rf;
+		return CSSContext.current().getRuleFactory();
 	}
 
     /**
@@ -302,8 +185,8 @@ public final class CSSFactory {
      * @param newDeclarationTransformer
      *            New DeclarationTransformer instance
      */
-    public static final void registerDeclarationTransformer(DeclarationTransformer newDeclarationTransformer) {
-        dt = newDeclarationTransformer;
+    public static final synchronized void registerDeclarationTransformer(DeclarationTransformer newDeclarationTransformer) {
+        updateDefault(CSSContext.getDefault().toBuilder().setDeclarationTransformer(newDeclarationTransformer));
     }
 
     /**
@@ -312,52 +195,24 @@ public final class CSSFactory {
      * @return DeclarationTransformer instance
      */
     public static final DeclarationTransformer getDeclarationTransformer() {
-        if (dt == null) {
-            try {
-                @SuppressWarnings("unchecked")
-                Class<? extends DeclarationTransformerImpl> clazz = (Class<? extends DeclarationTransformerImpl>) Class
-                        .forName(DEFAULT_DECLARATION_TRANSFORMER);
-                Method m = clazz.getMethod("getInstance");
-                registerDeclarationTransformer((DeclarationTransformerImpl) m.invoke(null));
-                log.debug("Retrived {} as default DeclarationTransformer implementation.",
-                        DEFAULT_DECLARATION_TRANSFORMER);
-            } catch (Exception e) {
-                log.error("Unable to get DeclarationTransformer from default", e);
-                throw new RuntimeException(
-                        "No DeclarationTransformer implementation registered!");
-            }
-        }
-
-        return dt;
+        return CSSContext.current().getDeclarationTransformer();
     }
     
-    public static final void registerElementMatcher(ElementMatcher newElementMatcher) {
-        matcher = newElementMatcher;
+    public static final synchronized void registerElementMatcher(ElementMatcher newElementMatcher) {
+        updateDefault(CSSContext.getDefault().toBuilder().setElementMatcher(newElementMatcher));
     }
     
     public static final ElementMatcher getElementMatcher() {
-        if (matcher == null) {
-            try {
-                @SuppressWarnings("unchecked")
-                Class<? extends ElementMatcher> clazz = (Class<? extends ElementMatcher>) Class.forName(DEFAULT_ELEMENT_MATCHER);
-                registerElementMatcher(clazz.newInstance());
-                log.debug("Retrived {} as default ElementMatcher implementation.", DEFAULT_ELEMENT_MATCHER);
-            } catch (Exception e) {
-                log.error("Unable to get ElementMatcher from default", e);
-                throw new RuntimeException(
-                        "No ElementMatcher implementation registered!", e);
-            }
-        }
-        return matcher;
+        return CSSContext.current().getElementMatcher();
     }
     
     /**
      * Registers a new default match condition to be used for matching the elements and selector parts.
      * @param newMatchCondition the new match condition
      */
-    public static final void registerDefaultMatchCondition(MatchCondition newMatchCondition)
+    public static final synchronized void registerDefaultMatchCondition(MatchCondition newMatchCondition)
     {
-        dcond = newMatchCondition;
+        updateDefault(CSSContext.getDefault().toBuilder().setDefaultMatchCondition(newMatchCondition));
     }
     
     /**
@@ -365,9 +220,24 @@ public final class CSSFactory {
      * @return the default match condition used by this factory.
      */
     public static final MatchCondition getDefaultMatchCondition() {
-        if (dcond == null)
-            dcond = new MatchConditionImpl(); //use the default match condition when nothing is registered
-        return dcond;
+        return CSSContext.current().getDefaultMatchCondition();
+    }
+    
+    /**
+     * Registers a metrics listener that receives the performance metrics of the parser and
+     * the newly created analyzers. Use {@code null} for disabling the metrics (the default).
+     * @param newMetrics the metrics listener or {@code null}
+     */
+    public static final synchronized void registerMetrics(StyleMetrics newMetrics) {
+        updateDefault(CSSContext.getDefault().toBuilder().setMetrics(newMetrics));
+    }
+
+    /**
+     * Obtains the registered metrics listener.
+     * @return the metrics listener or {@code null} when the metrics are disabled
+     */
+    public static final StyleMetrics getMetrics() {
+        return CSSContext.current().getMetrics();
     }
     
 	/**
@@ -377,20 +247,9 @@ public final class CSSFactory {
 	 * @param clazz
 	 *            Instance class
 	 */
-	public static final void registerNodeDataInstance(
+	public static final synchronized void registerNodeDataInstance(
 			Class<? extends NodeData> clazz) {
-		try {
-			@SuppressWarnings("unused")
-			NodeData test = clazz.newInstance();
-			ndImpl = clazz;
-		} catch (InstantiationException e) {
-			throw new RuntimeException("NodeData implemenation ("
-					+ clazz.getName() + ") doesn't provide sole constructor", e);
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException("NodeData implementation ("
-					+ clazz.getName() + ") is not accesible", e);
-		}
-
+		updateDefault(CSSContext.getDefault().toBuilder().setNodeDataClass(clazz));
 	}
 
 	/**
@@ -399,23 +258,15 @@ public final class CSSFactory {
 	 * @return Instance of NodeData
 	 */
 	public static final NodeData createNodeData() {
-		if (ndImpl == null) {
-			try {
-				@SuppressWarnings("unchecked")
-				Class<? extends NodeData> clazz = (Class<? extends NodeData>) Class
-						.forName(DEFAULT_NODE_DATA_IMPL);
-				registerNodeDataInstance(clazz);
-				log.debug("Registered {} as default NodeData instance.",
-						DEFAULT_NODE_DATA_IMPL);
-			} catch (Exception e) {
-			}
-		}
+		return CSSContext.current().createNodeData();
+	}
 
-		try {
-			return ndImpl.newInstance();
-		} catch (Exception e) {
-			throw new RuntimeException("No NodeData implementation registered");
-		}
+	/**
+	 * Replaces the default context by a modified one. The callers must be synchronized
+	 * on this class so that concurrent registrations are not lost.
+	 */
+	private static void updateDefault(CSSContext.Builder builder) {
+	    CSSContext.setDefault(builder.build());
 	}
 
 	/**
@@ -623,6 +474,41 @@ public final class CSSFactory {
         return getUsedStyles(doc, null, base, media);
     }
     
+    /**
+     * This is the same as {@link CSSFactory#getUsedStyles(Document, String, URL, MediaSpec, NetworkProcessor)}
+     * but the linked style sheets are not merged to the resulting style sheet. Instead, they are taken from
+     * the given cache (or parsed and added to the cache when used for the first time) so that they may be
+     * shared among multiple documents. The rules of the embedded style sheets and the inline styles are
+     * collected in separate style sheets between the linked ones in order to preserve the document order.
+     * 
+     * @param doc
+     *            DOM tree
+     * @param encoding
+     *            The default encoding used for the referenced style sheets
+     * @param base
+     *            Base URL against which all files are searched
+     * @param media
+     *            Selected media for style sheet
+     * @param network
+     *            The network processor used for obtaining the linked style sheets
+     * @param linkedCache
+     *            The parsed linked style sheets indexed by their URLs. The cached style sheets must not
+     *            be modified.
+     * @return the list of the style sheets used in the document including the inline styles
+     */
+    public static final List<StyleSheet> getUsedStyleSheets(Document doc, String encoding, URL base, MediaSpec media,
+            NetworkProcessor network, ConcurrentMap<String, StyleSheet> linkedCache)
+    {
+        SourceData pair = new SourceData(base, network, media);
+        List<StyleSheet> ret = new ArrayList<StyleSheet>();
+
+        Traversal<StyleSheet> traversal = new CSSAssignTraversal(doc, encoding,
+                pair, NodeFilter.SHOW_ELEMENT, linkedCache, ret);
+        traversal.listTraversal(null);
+        return ret;
+    }
+
+    
 	/**
 	 * Goes through a DOM tree and assigns the CSS declarations to the DOM elements.
 	 * The following style specifications are evaluated:
@@ -789,16 +675,35 @@ public final class CSSFactory {
 	 */
 	private static final class CSSAssignTraversal extends Traversal<StyleSheet> {
 
-		private static CSSParserFactory pf = getCSSParserFactory();
+		private static final int MEDIA_CACHE_SIZE = 64;
+		/** The recently used media attribute values and their compiled queries */
+		private static final ConcurrentMap<String, MediaQueryPredicate[]> mediaCache =
+		        new ConcurrentHashMap<String, MediaQueryPredicate[]>(16, 0.75f, 4);
 	    private String encoding;
+	    private final CSSParserFactory pf;
 	    private final ElementMatcher matcher;
+	    /** The cache of the parsed linked style sheets or {@code null} when the sheets are merged */
+	    private final ConcurrentMap<String, StyleSheet> linkedCache;
+	    /** The resulting list of the style sheets when the linked style sheets are cached */
+	    private final List<StyleSheet> sheets;
+	    /** The last style sheet in {@link #sheets} that accepts new rules or {@code null} */
+	    private StyleSheet open;
 	    
 		public CSSAssignTraversal(Document doc, String encoding, Object source, int whatToShow) {
+			this(doc, encoding, source, whatToShow, null, null);
+		}
+
+		public CSSAssignTraversal(Document doc, String encoding, Object source, int whatToShow,
+		        ConcurrentMap<String, StyleSheet> linkedCache, List<StyleSheet> sheets) {
 			super(doc, source, whatToShow);
 			this.encoding = encoding;
+			this.pf = getCSSParserFactory();
 			this.matcher = getElementMatcher();
+			this.linkedCache = linkedCache;
+			this.sheets = sheets;
 		}
 
+
 		@Override
 		protected void processNode(StyleSheet result, Node current,	Object source) 
 		{
@@ -813,31 +718,35 @@ public final class CSSFactory {
 			try {
 				// embedded style-sheet
 				if (isEmbeddedStyleSheet(elem, media)) {
-					result = pf.append(extractElementText(elem), network, null,
-							SourceType.EMBEDDED, result, base);
+					pf.append(extractElementText(elem), network, null,
+							SourceType.EMBEDDED, target(result), base);
 					log.debug("Matched embedded CSS style");
 				}
 				// linked style-sheet
 				else if (isLinkedStyleSheet(elem, media)) {
 				    URL uri = DataURLHandler.createURL(base, matcher.getAttribute(elem, "href"));
-					result = pf.append(uri, network, encoding, SourceType.URL,
-							result, uri);
+				    if (linkedCache != null) {
+				        sheets.add(getLinkedStyleSheet(uri, network));
+				        open = null;
+				    } else
+				        pf.append(uri, network, encoding, SourceType.URL,
+				                result, uri);
 					log.debug("Matched linked CSS style");
 				}
 				// in-line style and default style
 				else {
     				    if (elem.getAttribute("style") != null && elem.getAttribute("style").length() > 0) {
-        					result = pf.append(
+        					pf.append(
         							elem.getAttribute("style"), network,
         							null, SourceType.INLINE,
-        							elem, true, result, base);
+        							elem, true, target(result), base);
         					log.debug("Matched inline CSS style");
     				    }
                         if (elem.getAttribute("XDefaultStyle") != null && elem.getAttribute("XDefaultStyle").length() > 0) {
-                            result = pf.append(
+                            pf.append(
                                     elem.getAttribute("XDefaultStyle"), network,
                                     null, SourceType.INLINE,
-                                    elem, false, result, base);
+                                    elem, false, target(result), base);
                             log.debug("Matched default CSS style");
                         }
 				}
@@ -849,6 +758,39 @@ public final class CSSFactory {
 
 		}
 
+		/**
+		 * Obtains the style sheet the rules of the current element should be appended to.
+		 * When the linked style sheets are cached, a new style sheet is started after each
+		 * linked one so that the document order of the rules is preserved.
+		 */
+		private StyleSheet target(StyleSheet result) {
+		    if (sheets == null)
+		        return result;
+		    if (open == null) {
+		        open = (StyleSheet) getRuleFactory().createStyleSheet().unlock();
+		        sheets.add(open);
+		    }
+		    return open;
+		}
+
+		/**
+		 * Obtains a linked style sheet from the cache or parses it when it has not been used yet.
+		 * The cached style sheets are shared by all the documents and they must not be modified.
+		 */
+		private StyleSheet getLinkedStyleSheet(URL uri, NetworkProcessor network) throws IOException, CSSException {
+		    final String key = uri.toString(); //URL.equals() may resolve the host names
+		    StyleSheet ret = linkedCache.get(key);
+		    if (ret == null) {
+		        ret = pf.parse(uri, network, encoding, SourceType.URL, uri);
+		        final StyleSheet previous = linkedCache.putIfAbsent(key, ret);
+		        if (previous != null)
+		            ret = previous; //parsed concurrently
+		        else
+		            log.debug("Cached linked CSS style {}", key);
+		    }
+		    return ret;
+		}
+
 		private boolean isEmbeddedStyleSheet(Element e, MediaSpec media) {
 			return "style".equalsIgnoreCase(e.getNodeName())
 					&& isAllowedMedia(e, media);
@@ -891,26 +833,34 @@ public final class CSSFactory {
 		    {
 		        attr = attr.trim();
 		        if (attr.length() > 0)
-		        {
-		            List<MediaQuery> ql = pf.parseMediaQuery(attr);
-		            if (ql != null)
-		            {
-		                for (MediaQuery q : ql)
-		                {
-		                    if (media.matches(q))
-		                        return true; //found a matching media query
-		                }
-		                return false; //no matching media query
-		            }
-		            else
-		                return false; //no usable media queries (malformed string?)
-		        }
+		            return media.matchesOneOf(getMediaPredicates(attr)); //no match for malformed strings
 		        else
 		            return media.matchesEmpty(); //empty query string
 		    }
 		    else
 		        return media.matchesEmpty(); //no media queries
 		}
+		
+		/**
+		 * Obtains the compiled media queries for a {@code media} attribute value. The results
+		 * are memoized since the same few values are used in most documents.
+		 * 
+		 * @param attr
+		 *            The trimmed attribute value
+		 * @return The compiled media queries, an empty array when the value is malformed
+		 */
+		private static MediaQueryPredicate[] getMediaPredicates(String attr) {
+		    MediaQueryPredicate[] ret = mediaCache.get(attr);
+		    if (ret == null)
+		    {
+		        List<MediaQuery> ql = getCSSParserFactory().parseMediaQuery(attr);
+		        ret = (ql == null) ? MediaQueryPredicate.EMPTY : MediaQueryPredicate.compile(ql);
+		        if (mediaCache.size() >= MEDIA_CACHE_SIZE)
+		            mediaCache.clear(); //the cache is only a shortcut, just start again
+		        mediaCache.put(attr, ret);
+		    }
+		    return ret;
+		}
 	}
 
 	// holds source description containing the URL base, network processor and the required media
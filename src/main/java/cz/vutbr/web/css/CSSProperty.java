@@ -2,6 +2,7 @@ package cz.vutbr.web.css;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -122,9 +123,14 @@ public interface CSSProperty {
 	public static class Translator {
 
 		/**
-		 * Methods cache
+		 * Lookup tables for the individual property classes, created on first use
 		 */
-		private static Map<Class<? extends CSSProperty>, Method> translators = new HashMap<Class<? extends CSSProperty>, Method>();
+		private static final ClassValue<Table> tables = new ClassValue<Table>() {
+			@Override
+			protected Table computeValue(Class<?> type) {
+				return new Table(type);
+			}
+		};
 
 		/**
 		 * Retrieves CSSProperty by its name and class
@@ -138,18 +144,91 @@ public interface CSSProperty {
 		@SuppressWarnings("unchecked")
 		public static final <T extends CSSProperty> T valueOf(Class<T> type,
 				String value) {
-			try {
-				Method m = translators.get(type);
-				if (m == null) {
-					m = type.getMethod("valueOf", String.class);
-				}
-				return (T) m.invoke(null, value);
-			} catch (Exception e) {
+			final Table table = tables.get(type);
+			if (table.byName != null)
+				return (value == null) ? null : (T) table.byName.get(value);
+			else
+				return (T) table.invokeValueOf(value);
+		}
+		
+		/**
+		 * Retrieves CSSProperty by the CSS keyword spelling of its value (e.g. <code>left-side</code>
+		 * for <code>LEFT_SIDE</code>). The keyword is case-insensitive.
+		 * 
+		 * @param type
+		 *            Class of CSSProperty
+		 * @param keyword
+		 *            The keyword as used in the style sheet
+		 * @return CSSProperty if found, <code>null</code> elsewhere
+		 */
+		@SuppressWarnings("unchecked")
+		public static final <T extends CSSProperty> T valueOfKeyword(Class<T> type,
+				String keyword) {
+			if (keyword == null)
 				return null;
-				/*
-				throw new IllegalArgumentException("Unable to get: " + value
-						+ " for: " + type.getName(), e);
-				*/		
+			final Table table = tables.get(type);
+			if (table.byKeyword != null) {
+				CSSProperty ret = table.byKeyword.get(keyword);
+				if (ret == null && !isCanonicalKeyword(keyword))
+					ret = table.byKeyword.get(keyword.replace('_', '-').toLowerCase(Locale.ROOT));
+				return (T) ret;
+			} else
+				return (T) table.invokeValueOf(keyword.replace("-", "_").toUpperCase());
+		}
+		
+		private static boolean isCanonicalKeyword(String keyword) {
+			for (int i = 0; i < keyword.length(); i++) {
+				final char c = keyword.charAt(i);
+				if (c == '_' || Character.isUpperCase(c))
+					return false;
+			}
+			return true;
+		}
+		
+		/**
+		 * Value lookup tables for a single property class. For enums, both the tables are filled
+		 * from the enum constants; for other classes, the static <code>valueOf(String)</code>
+		 * method is used.
+		 */
+		private static class Table {
+			
+			/** Constant name to value */
+			final Map<String, CSSProperty> byName;
+			/** Keyword spelling to value */
+			final Map<String, CSSProperty> byKeyword;
+			/** The property class */
+			final Class<?> type;
+			/** valueOf method for non-enum classes */
+			Method valueOf;
+			
+			Table(Class<?> type) {
+				this.type = type;
+				final Object[] constants = type.getEnumConstants();
+				if (constants != null && CSSProperty.class.isAssignableFrom(type)) {
+					byName = new HashMap<>(constants.length * 2);
+					byKeyword = new HashMap<>(constants.length * 2);
+					for (Object c : constants) {
+						final String name = ((Enum<?>) c).name();
+						byName.put(name, (CSSProperty) c);
+						// only upper-case constants correspond to keywords, the others represent
+						// values that require additional data
+						if (name.equals(name.toUpperCase(Locale.ROOT)))
+							byKeyword.put(name.replace('_', '-').toLowerCase(Locale.ROOT), (CSSProperty) c);
+					}
+				} else {
+					byName = null;
+					byKeyword = null;
+				}
+			}
+			
+			Object invokeValueOf(String value) {
+				try {
+					if (valueOf == null)
+						valueOf = type.getMethod("valueOf", String.class);
+					return valueOf.invoke(null, value);
+				} catch (Exception e) {
+					return null;
+				}
 			}
 		}
 		
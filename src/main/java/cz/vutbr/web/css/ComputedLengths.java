@@ -0,0 +1,220 @@
+package cz.vutbr.web.css;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The lengths of a single element resolved to absolute pixel values. The values are computed
+ * from the specified values of the element, the computed font size of its parent and the
+ * viewport dimensions so that they may be obtained without walking the tree.
+ *
+ * Each length is stored as a pair of an absolute part in pixels and a fraction of a percentage
+ * base that is only known during the layout (typically the width of the containing block);
+ * e.g. {@code calc(100% - 2em)} is stored as {@code -32px} and {@code 1.0}. The lengths that
+ * cannot be resolved (e.g. {@code auto} values) are stored as {@code NaN}.
+ */
+public class ComputedLengths
+{
+    /** The names of the properties that are resolved */
+    private static final String[] NAMES = {
+        "font-size", "line-height",
+        "width", "height", "min-width", "min-height", "max-width", "max-height",
+        "margin-top", "margin-right", "margin-bottom", "margin-left",
+        "padding-top", "padding-right", "padding-bottom", "padding-left",
+        "border-top-width", "border-right-width", "border-bottom-width", "border-left-width",
+        "top", "right", "bottom", "left",
+        "text-indent", "letter-spacing", "word-spacing"
+    };
+
+    private static final List<String> NAME_LIST = Collections.unmodifiableList(Arrays.asList(NAMES));
+
+    private static final Map<String, Integer> INDEX;
+    static {
+        INDEX = new HashMap<String, Integer>(NAMES.length * 2);
+        for (int i = 0; i < NAMES.length; i++)
+            INDEX.put(NAMES[i], i);
+    }
+
+    private final float[] absolute;
+    private final float[] percentage;
+    private float rootFontSize;
+
+    /**
+     * Creates a new set of lengths with all the lengths unresolved.
+     * @param rootFontSize the computed font size of the root element used for the {@code rem} units
+     */
+    public ComputedLengths(float rootFontSize)
+    {
+        this.rootFontSize = rootFontSize;
+        absolute = new float[NAMES.length];
+        percentage = new float[NAMES.length];
+        Arrays.fill(absolute, Float.NaN);
+    }
+
+    /**
+     * Obtains the names of the properties that are resolved.
+     * @return the list of property names
+     */
+    public static List<String> getPropertyNames()
+    {
+        return NAME_LIST;
+    }
+
+    /**
+     * Obtains the index of a resolved property.
+     * @param name the property name
+     * @return the property index or {@code -1} when the property is not resolved
+     */
+    public static int indexOf(String name)
+    {
+        final Integer index = INDEX.get(name);
+        return (index == null) ? -1 : index;
+    }
+
+    /**
+     * Obtains the computed font size.
+     * @return the font size in pixels
+     */
+    public float getFontSize()
+    {
+        return absolute[0];
+    }
+
+    /**
+     * Obtains the computed font size of the root element.
+     * @return the font size in pixels
+     */
+    public float getRootFontSize()
+    {
+        return rootFontSize;
+    }
+
+    /**
+     * Sets the computed font size of the root element.
+     * @param rootFontSize the font size in pixels
+     */
+    public void setRootFontSize(float rootFontSize)
+    {
+        this.rootFontSize = rootFontSize;
+    }
+
+    /**
+     * Checks whether the length of a property has been resolved.
+     * @param name the property name
+     * @return {@code true} when the length is available (possibly depending on a percentage base)
+     */
+    public boolean isResolved(String name)
+    {
+        final int i = indexOf(name);
+        return i != -1 && !Float.isNaN(absolute[i]);
+    }
+
+    /**
+     * Checks whether the length of a property depends on a percentage base that is not known
+     * during the style computation.
+     * @param name the property name
+     * @return {@code true} when a percentage base is required
+     */
+    public boolean isRelative(String name)
+    {
+        final int i = indexOf(name);
+        return i != -1 && percentage[i] != 0.0f;
+    }
+
+    /**
+     * Obtains the absolute length of a property.
+     * @param name the property name
+     * @return the length in pixels or {@code NaN} when the length has not been resolved or
+     * it depends on a percentage base
+     */
+    public float get(String name)
+    {
+        final int i = indexOf(name);
+        if (i == -1 || percentage[i] != 0.0f)
+            return Float.NaN;
+        else
+            return absolute[i];
+    }
+
+    /**
+     * Obtains the length of a property for the given percentage base.
+     * @param name the property name
+     * @param percentBase the length that corresponds to 100% (e.g. the containing block width)
+     * @return the length in pixels or {@code NaN} when the length has not been resolved
+     */
+    public float get(String name, float percentBase)
+    {
+        final int i = indexOf(name);
+        if (i == -1)
+            return Float.NaN;
+        else
+            return absolute[i] + percentage[i] * percentBase;
+    }
+
+    /**
+     * Obtains the absolute part of a length.
+     * @param index the property index
+     * @return the absolute part in pixels or {@code NaN} when the length has not been resolved
+     * @see #indexOf(String)
+     */
+    public float getAbsolute(int index)
+    {
+        return absolute[index];
+    }
+
+    /**
+     * Obtains the relative part of a length.
+     * @param index the property index
+     * @return the fraction of the percentage base (e.g. {@code 0.5} for {@code 50%})
+     * @see #indexOf(String)
+     */
+    public float getPercentage(int index)
+    {
+        return percentage[index];
+    }
+
+    /**
+     * Sets a resolved length.
+     * @param index the property index
+     * @param absolute the absolute part in pixels or {@code NaN} for an unresolved value
+     * @param percentage the fraction of the percentage base
+     * @see #indexOf(String)
+     */
+    public void set(int index, float absolute, float percentage)
+    {
+        this.absolute[index] = absolute;
+        this.percentage[index] = percentage;
+    }
+
+    /**
+     * Copies a resolved length from another set.
+     * @param index the property index
+     * @param src the source set
+     */
+    public void copy(int index, ComputedLengths src)
+    {
+        absolute[index] = src.absolute[index];
+        percentage[index] = src.percentage[index];
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            if (!Float.isNaN(absolute[i]))
+            {
+                sb.append(NAMES[i]).append(": ").append(absolute[i]).append("px");
+                if (percentage[i] != 0.0f)
+                    sb.append(" + ").append(percentage[i] * 100.0f).append('%');
+                sb.append(";\n");
+            }
+        }
+        return sb.toString();
+    }
+
+}
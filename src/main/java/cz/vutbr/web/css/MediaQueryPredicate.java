@@ -0,0 +1,200 @@
+package cz.vutbr.web.css;
+
+import java.util.List;
+
+import cz.vutbr.web.css.MediaSpec.Feature;
+
+/**
+ * A media query compiled to a set of numeric predicates over the media features. The feature names
+ * and the expression values are parsed and converted only once during the compilation so that
+ * the predicate may be evaluated repeatedly by {@link MediaSpec#matches(MediaQueryPredicate)}
+ * without any string processing or unit conversion.
+ *
+ * The predicate is an immutable snapshot of the media query; later modifications of the
+ * source query are not reflected.
+ */
+public final class MediaQueryPredicate
+{
+    /** The required value is equal to the feature value */
+    static final byte EQ = 0;
+    /** The required value is the minimal feature value */
+    static final byte MIN = 1;
+    /** The required value is the maximal feature value */
+    static final byte MAX = 2;
+
+    /** An empty list of predicates */
+    public static final MediaQueryPredicate[] EMPTY = new MediaQueryPredicate[0];
+
+    /** Used for the value conversions during the compilation */
+    private static final MediaSpec conv = new MediaSpec("all");
+
+    /** The source media query */
+    final MediaQuery source;
+    /** The media type or {@code null} when any type matches */
+    final String type;
+    /** The NOT flag */
+    final boolean negative;
+    /** {@code false} when the query cannot match any media (e.g. an unknown feature or an invalid value) */
+    final boolean satisfiable;
+    /** The tested features */
+    final Feature[] features;
+    /** The comparison operators ({@link #EQ}, {@link #MIN} or {@link #MAX}) */
+    final byte[] ops;
+    /** The required values. Lengths are in pixels, resolutions in dpi. */
+    final float[] values;
+    /** Indicates values in dppx that must be multiplied by the current media resolution */
+    final boolean[] perPixel;
+
+    private MediaQueryPredicate(MediaQuery q)
+    {
+        source = q;
+        type = q.getType();
+        negative = q.isNegative();
+        final int n = q.size();
+        features = new Feature[n];
+        ops = new byte[n];
+        values = new float[n];
+        perPixel = new boolean[n];
+        boolean valid = !(negative && "all".equals(type)); //"NOT all" doesn't match to anything
+        for (int i = 0; i < n && valid; i++)
+            valid = compileExpression(q.get(i), i);
+        satisfiable = valid;
+    }
+
+    /**
+     * Compiles a media query.
+     * @param q The media query
+     * @return The resulting predicate
+     */
+    public static MediaQueryPredicate compile(MediaQuery q)
+    {
+        return new MediaQueryPredicate(q);
+    }
+
+    /**
+     * Compiles a list of media queries.
+     * @param queries The media queries or {@code null}
+     * @return The resulting predicates in the same order. An empty array is returned for {@code null}.
+     */
+    public static MediaQueryPredicate[] compile(List<MediaQuery> queries)
+    {
+        if (queries == null || queries.isEmpty())
+            return EMPTY;
+        final MediaQueryPredicate[] ret = new MediaQueryPredicate[queries.size()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = new MediaQueryPredicate(queries.get(i));
+        return ret;
+    }
+
+    /**
+     * Obtains the media type required by the query.
+     * @return The media type or {@code null} when no type is declared
+     */
+    public String getType()
+    {
+        return type;
+    }
+
+    /**
+     * Checks whether the query starts with NOT.
+     * @return {@code true} for a negative query
+     */
+    public boolean isNegative()
+    {
+        return negative;
+    }
+
+    /**
+     * Checks whether the query may match at least some media. Queries that test unknown features or
+     * use invalid values never match.
+     * @return {@code false} when the query never matches
+     */
+    public boolean isSatisfiable()
+    {
+        return satisfiable;
+    }
+
+    //===============================================================================================
+
+    private boolean compileExpression(MediaExpression e, int i)
+    {
+        final Feature feature = conv.getExpressionFeature(e);
+        if (feature == null)
+            return false; //results in "not all" for the whole query
+        final String fs = e.getFeature();
+        features[i] = feature;
+        ops[i] = fs.startsWith("min-") ? MIN : (fs.startsWith("max-") ? MAX : EQ);
+        switch (feature)
+        {
+            case ORIENTATION:
+                final String oid = conv.getExpressionIdentifier(e);
+                if ("portrait".equals(oid))
+                    values[i] = 1;
+                else if ("landscape".equals(oid))
+                    values[i] = 0;
+                else
+                    return false;
+                return true;
+            case SCAN:
+                final String sid = conv.getExpressionIdentifier(e);
+                if ("interlace".equals(sid))
+                    values[i] = 1;
+                else if ("progressive".equals(sid))
+                    values[i] = 0;
+                else
+                    return false;
+                return true;
+            case GRID:
+                final Integer gval = conv.getExpressionInteger(e);
+                if (gval == null || (gval != 0 && gval != 1)) //0 and 1 are the only allowed values
+                    return false;
+                values[i] = gval;
+                return true;
+            case RESOLUTION:
+                if (e.size() == 1 && e.get(0) instanceof TermResolution
+                        && ((TermResolution) e.get(0)).getUnit() == TermLength.Unit.dppx)
+                {
+                    //depends on the resolution of the evaluated media
+                    values[i] = ((TermResolution) e.get(0)).getFloatValue();
+                    perPixel[i] = true;
+                    return true;
+                }
+                return compileValue(e, i); //otherwise a plain numeric value
+            default:
+                return compileValue(e, i);
+        }
+    }
+
+    private boolean compileValue(MediaExpression e, int i)
+    {
+        final Float value = conv.getExpressionValue(e);
+        if (value == null)
+            return false;
+        values[i] = value;
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder ret = new StringBuilder();
+        if (negative) ret.append("NOT ");
+        if (type != null) ret.append(type);
+        if (!satisfiable)
+            ret.append(" [never]");
+        else
+        {
+            for (int i = 0; i < features.length; i++)
+            {
+                ret.append(" (");
+                ret.append(features[i]);
+                ret.append(ops[i] == MIN ? " >= " : (ops[i] == MAX ? " <= " : " = "));
+                ret.append(values[i]);
+                if (perPixel[i]) ret.append("dppx");
+                ret.append(')');
+            }
+        }
+        return ret.toString();
+    }
+
+}
@@ -90,6 +90,22 @@ public class MediaSpec
         featureMap.put("grid", Feature.GRID);
     }
     
+    /** Indicates the subclasses that match the source media queries instead of the compiled ones */
+    private static final ClassValue<Boolean> customMatching = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            try {
+                return type.getMethod("matches", MediaQueryPredicate.class).getDeclaringClass() == MediaSpec.class
+                        && (type.getMethod("matches", MediaQuery.class).getDeclaringClass() != MediaSpec.class
+                            || type.getMethod("matches", MediaExpression.class).getDeclaringClass() != MediaSpec.class);
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    
     
     /** Media type name (e.g. "screen") */
     protected String type;
@@ -394,6 +410,45 @@ public class MediaSpec
         return true;
     }
     
+    /**
+     * Checks if this media specification matches a given compiled media query. This gives the same result
+     * as {@link #matches(MediaQuery)} with the source query but the features are only compared numerically.
+     * When a subclass overrides {@link #matches(MediaQuery)} or {@link #matches(MediaExpression)}
+     * and not this method, the source query is matched using the overridden methods.
+     * @param q The compiled media query
+     * @return {@code true} when this media specification matches the given media query.
+     */
+    public boolean matches(MediaQueryPredicate q)
+    {
+        if (customMatching.get(getClass()))
+            return matches(q.source);
+        if (!q.satisfiable)
+            return false;
+        //match the media type
+        if (q.type != null && !q.type.equals("all") && q.type.equals(this.getType()) == q.negative)
+            return false;
+        //match the eventual expressions
+        for (int i = 0; i < q.features.length; i++)
+        {
+            final float current = getFeatureValue(q.features[i]);
+            final float required = q.perPixel[i] ? q.values[i] * getResolution() : q.values[i];
+            switch (q.ops[i])
+            {
+                case MediaQueryPredicate.MIN:
+                    if (!(current >= required)) return false;
+                    break;
+                case MediaQueryPredicate.MAX:
+                    if (!(current <= required)) return false;
+                    break;
+                default:
+                    if (current != required) return false;
+                    break;
+            }
+        }
+        //everything matched
+        return true;
+    }
+    
     /**
      * Checks if this media specification matches a given media query expression.
      * @param e The media query expression
@@ -468,6 +523,60 @@ public class MediaSpec
             return false; //results in "not all" for the whole query
     }
     
+    /**
+     * Obtains the feature tested by the given media query expression.
+     * @param e The media query expression
+     * @return The tested feature or {@code null} when the feature name is unknown or the min/max prefix
+     * is not allowed for the feature. 
+     */
+    public Feature getExpressionFeature(MediaExpression e)
+    {
+        String fs = e.getFeature();
+        boolean prefixed = false;
+        if (fs.startsWith("min-") || fs.startsWith("max-")) { prefixed = true; fs = fs.substring(4); }
+        
+        Feature feature = getFeatureByName(fs);
+        if (feature != null && (!prefixed || feature.isPrefixed()))
+            return feature;
+        else
+            return null;
+    }
+    
+    /**
+     * Obtains the numeric value required by the given media query expression. Lengths are converted
+     * to pixels and resolutions to dpi.
+     * @param e The media query expression
+     * @return The required value or {@code null} when the expression does not test a numeric feature
+     * or the value is not valid for the feature.
+     */
+    public Float getExpressionValue(MediaExpression e)
+    {
+        Feature feature = getExpressionFeature(e);
+        if (feature == null)
+            return null;
+        switch (feature)
+        {
+            case WIDTH:
+            case HEIGHT:
+            case DEVICE_WIDTH:
+            case DEVICE_HEIGHT:
+                return getExpressionLengthPx(e);
+            case ASPECT_RATIO:
+            case DEVICE_ASPECT_RATIO:
+                return getExpressionRatio(e);
+            case COLOR:
+            case COLOR_INDEX:
+            case MONOCHROME:
+            case GRID:
+                Integer ival = getExpressionInteger(e);
+                return (ival == null) ? null : ival.floatValue();
+            case RESOLUTION:
+                return getExpressionResolution(e);
+            default:
+                return null;
+        }
+    }
+    
     /**
      * Checks whether this media specification matches to at least one of the given media queries.
      * @param queries The list of media queries to be matched.
@@ -483,6 +592,21 @@ public class MediaSpec
         return false;
     }
     
+    /**
+     * Checks whether this media specification matches to at least one of the given compiled media queries.
+     * @param queries The compiled media queries to be matched.
+     * @return {@code true} when at least one query matches, {@code false} when no query matches. 
+     */
+    public boolean matchesOneOf(MediaQueryPredicate[] queries)
+    {
+        for (MediaQueryPredicate q : queries)
+        {
+            if (matches(q))
+                return true;
+        }
+        return false;
+    }
+    
     /**
      * Checks whether the media specification matches an empty or missing media query, i.e. whether the
      * media or import rules with no media queries should be accepted with this media specification.
@@ -503,6 +627,33 @@ public class MediaSpec
         return featureMap.get(name);
     }
     
+    /**
+     * Obtains the current value of a media feature as a number. Lengths are in pixels, resolutions in dpi.
+     * The orientation is 1 for portrait and 0 for landscape, the scan is 1 for interlace and 0 for progressive.
+     * @param feature The media feature
+     * @return The feature value
+     */
+    protected float getFeatureValue(Feature feature)
+    {
+        switch (feature)
+        {
+            case WIDTH: return width;
+            case HEIGHT: return height;
+            case DEVICE_WIDTH: return deviceWidth;
+            case DEVICE_HEIGHT: return deviceHeight;
+            case ORIENTATION: return isPortrait() ? 1 : 0;
+            case ASPECT_RATIO: return getAspectRatio();
+            case DEVICE_ASPECT_RATIO: return getDeviceAspectRation();
+            case COLOR: return color;
+            case COLOR_INDEX: return colorIndex;
+            case MONOCHROME: return monochrome;
+            case RESOLUTION: return resolution;
+            case SCAN: return scanInterlace ? 1 : 0;
+            case GRID: return grid;
+            default: return Float.NaN;
+        }
+    }
+    
     /**
      * Checks whether a value coresponds to the given criteria.
      * @param current the actual media value
@@ -600,7 +751,7 @@ public class MediaSpec
             Term<?> term2 = e.get(1);
             if (term1 instanceof TermInteger && term2 instanceof TermInteger
                     && (((TermInteger) term2).getOperator() == Operator.SLASH))
-                return ((TermInteger) term1).getValue() / ((TermInteger) term2).getValue();
+                return ((TermInteger) term1).getFloatValue() / ((TermInteger) term2).getFloatValue();
             else
                 return null;
         }
@@ -653,7 +804,7 @@ public class MediaSpec
      */
     protected Float pxLength(TermLength spec)
     {
-        float nval = spec.getValue();
+        float nval = spec.getFloatValue();
         TermLength.Unit unit = spec.getUnit();
         
         switch (unit)
@@ -688,7 +839,7 @@ public class MediaSpec
      */
     protected Float dpiResolution(TermResolution spec)
     {
-        float nval = spec.getValue();
+        float nval = spec.getFloatValue();
         TermLength.Unit unit = spec.getUnit();
         
         switch (unit)
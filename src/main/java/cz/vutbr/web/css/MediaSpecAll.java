@@ -35,6 +35,18 @@ public class MediaSpecAll extends MediaSpec
         return true;
     }
 
+    @Override
+    public boolean matches(MediaQueryPredicate q)
+    {
+        return true;
+    }
+
+    @Override
+    public boolean matchesOneOf(MediaQueryPredicate[] queries)
+    {
+        return queries.length > 0; //we don't match an empty list (to be consistent)
+    }
+
     @Override
     public boolean matchesOneOf(List<MediaQuery> queries)
     {
@@ -34,6 +34,18 @@ public class MediaSpecNone extends MediaSpec
         return false;
     }
 
+    @Override
+    public boolean matches(MediaQueryPredicate q)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean matchesOneOf(MediaQueryPredicate[] queries)
+    {
+        return false;
+    }
+
     @Override
     public boolean matchesOneOf(List<MediaQuery> queries)
     {
@@ -277,4 +277,21 @@ public interface NodeData {
      */
     public Declaration getSourceDeclaration(String name, boolean includeInherited);
     
+    /**
+     * Obtains the lengths resolved to absolute pixel values. The lengths are only available
+     * when the length resolution has been enabled in the analyzer.
+     * @return the resolved lengths or {@code null} when the lengths have not been resolved
+     */
+    public default ComputedLengths getComputedLengths() {
+        return null;
+    }
+    
+    /**
+     * Assigns the lengths resolved to absolute pixel values. The default implementation
+     * ignores the lengths.
+     * @param lengths the resolved lengths
+     */
+    public default void setComputedLengths(ComputedLengths lengths) {
+    }
+    
 }
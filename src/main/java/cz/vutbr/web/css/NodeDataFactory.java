@@ -0,0 +1,18 @@
+package cz.vutbr.web.css;
+
+/**
+ * A factory of the {@link NodeData} instances used by a {@link CSSContext}. The factory
+ * passes the context to the created instances directly so that no context has to be bound
+ * to the current thread and no reflection is used when creating the style of an element.
+ */
+public interface NodeDataFactory
+{
+
+    /**
+     * Creates a new empty NodeData instance.
+     * @param context the context that provides the configuration (e.g. the supported properties)
+     * @return the new instance
+     */
+    public NodeData createNodeData(CSSContext context);
+
+}
@@ -27,5 +27,14 @@ public interface RuleMedia extends RuleBlock<RuleSet>, PrettyOutput {
 	 */
 	public RuleMedia setMediaQueries(List<MediaQuery> media);	
 
+	/**
+	 * Returns the media queries compiled for repeated evaluation. The default implementation
+	 * compiles the queries on every call; the implementations may cache the result until
+	 * the media queries are changed.
+	 * @return The compiled media queries, an empty array when there are no media queries
+	 */
+	public default MediaQueryPredicate[] getMediaPredicates() {
+		return MediaQueryPredicate.compile(getMediaQueries());
+	}
 	
 }
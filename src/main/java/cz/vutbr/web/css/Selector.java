@@ -287,6 +287,21 @@ public interface Selector extends Rule<Selector.SelectorPart> {
      */
     public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond);
     
+    /**
+     * Matches simple selector against an element of a generic tree. By default, all the
+     * selector parts must match.
+     * @param node The element node
+     * @param tree The tree that contains the node
+     * @return <code>true</code> in case of match
+     */
+    public default boolean matches(int node, TreeAccess tree) {
+        for (SelectorPart item : this) {
+            if (item == null || !item.matches(node, tree))
+                return false;
+        }
+        return true;
+    }
+    
     /**
      * Interface for handling items
      * @author kapy
@@ -294,6 +309,18 @@ public interface Selector extends Rule<Selector.SelectorPart> {
      */
     public interface SelectorPart { 	
     	public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond);
+    	
+    	/**
+    	 * Matches the part against an element of a generic tree. The default implementation
+    	 * leaves the matching to the tree using {@link TreeAccess#matchesPart(int, SelectorPart)}.
+    	 * @param node The element node
+    	 * @param tree The tree that contains the node
+    	 * @return <code>true</code> in case of match
+    	 */
+    	public default boolean matches(int node, TreeAccess tree) {
+    	    return tree.matchesPart(node, this);
+    	}
+    	
     	public void computeSpecificity(CombinedSelector.Specificity spec);
     }
     
@@ -0,0 +1,68 @@
+package cz.vutbr.web.css;
+
+import java.net.URL;
+
+import org.w3c.dom.Element;
+
+/**
+ * A listener that receives the performance metrics of the parser and the style engine.
+ * The listener may be registered globally using {@link CSSFactory#registerMetrics(StyleMetrics)}
+ * or for a single analyzer. When no listener is registered, no metrics are computed at all.
+ * All the times are given in nanoseconds.
+ */
+public interface StyleMetrics
+{
+
+    /**
+     * Called when a style sheet has been parsed including its imports.
+     * @param base The base URL of the style sheet (may be {@code null})
+     * @param rules The number of rules created
+     * @param declarations The number of declarations created
+     * @param nanos The parsing time
+     */
+    public void sheetParsed(URL base, int rules, int declarations, long nanos);
+
+    /**
+     * Called when the rules of the style sheets have been classified for an analysis.
+     * @param selectors The number of classified selectors
+     * @param nanos The classification time
+     */
+    public void rulesClassified(int selectors, long nanos);
+
+    /**
+     * Called when a rule has been selected as a candidate for an element, before its selectors
+     * are tested. The default implementation does nothing.
+     * @param rule The candidate rule
+     */
+    public default void ruleCandidate(RuleSet rule)
+    {
+    }
+
+    /**
+     * Called after a combined selector has been tested against an element.
+     * @param rule The rule that contains the selector
+     * @param selector The tested selector
+     * @param matched {@code true} when the selector matched the element
+     * @param visited The number of DOM nodes visited by the combinators
+     * @param nanos The matching time
+     */
+    public void selectorTested(RuleSet rule, CombinedSelector selector, boolean matched, int visited, long nanos);
+
+    /**
+     * Called when all the candidate rules have been matched against an element.
+     * @param e The element
+     * @param candidates The number of candidate rules
+     * @param tests The number of combined selectors tested
+     * @param matches The number of matching selectors
+     */
+    public void elementMatched(Element e, int candidates, int tests, int matches);
+
+    /**
+     * Called when the resulting style of an element has been computed.
+     * @param e The element
+     * @param cascadeNanos The time spent by cascading the declarations and computing the values
+     * @param inheritNanos The time spent by inheriting the parent style
+     */
+    public void elementStyled(Element e, long cascadeNanos, long inheritNanos);
+
+}
@@ -122,4 +122,24 @@ public interface TermNumeric<T extends Number> extends Term<T> {
      */
     public TermNumeric<T> setZero();
     
+    /**
+     * Returns the value as a primitive float. Unlike {@link #getValue()}, this
+     * does not require the value to be boxed in the implementations that store
+     * a primitive value.
+     * @return the numeric value or {@code 0} when no value is set
+     */
+    public default float getFloatValue() {
+        final T value = getValue();
+        return (value == null) ? 0.0f : value.floatValue();
+    }
+
+    /**
+     * Returns the value as a primitive int. Non-integer values are truncated.
+     * @return the numeric value converted to an integer or {@code 0} when no value is set
+     */
+    public default int getIntValue() {
+        final T value = getValue();
+        return (value == null) ? 0 : value.intValue();
+    }
+    
 }
@@ -0,0 +1,183 @@
+package cz.vutbr.web.css;
+
+import java.util.Collection;
+
+import org.w3c.dom.Element;
+
+/**
+ * A read-only access to a tree of elements used for matching the selectors and computing
+ * the styles without a DOM (see {@link Selector#matches(int, TreeAccess)}). The element nodes
+ * are identified by integer handles in the range {@code 0..getNodeCount()-1};
+ * {@link #NONE} represents a missing node. Only the element nodes are visible, the text
+ * content is only reflected by {@link #hasContent(int)}.
+ *
+ * By default, the element names are compared case-insensitively, the class names, IDs and attribute
+ * values are case-sensitive (the HTML standard mode). The implementations may change the
+ * comparison by overriding {@link #matchesName(int, String)}, {@link #matchesID(int, String)}
+ * and {@link #hasClass(int, String)}.
+ */
+public interface TreeAccess
+{
+    /** A missing node */
+    public static final int NONE = -1;
+
+    /**
+     * Obtains the number of the element nodes.
+     * @return the number of nodes
+     */
+    public int getNodeCount();
+
+    /**
+     * Obtains the root element.
+     * @return the root node or {@link #NONE} for an empty tree
+     */
+    public int getRoot();
+
+    /**
+     * Obtains the parent element.
+     * @param node the node
+     * @return the parent node or {@link #NONE} for the root element
+     */
+    public int getParent(int node);
+
+    /**
+     * Obtains the first child element.
+     * @param node the node
+     * @return the first child node or {@link #NONE}
+     */
+    public int getFirstChild(int node);
+
+    /**
+     * Obtains the previous sibling element.
+     * @param node the node
+     * @return the previous sibling node or {@link #NONE}
+     */
+    public int getPreviousSibling(int node);
+
+    /**
+     * Obtains the next sibling element.
+     * @param node the node
+     * @return the next sibling node or {@link #NONE}
+     */
+    public int getNextSibling(int node);
+
+    /**
+     * Obtains the element name.
+     * @param node the node
+     * @return the element name
+     */
+    public String getTagName(int node);
+
+    /**
+     * Checks whether the element has the given name.
+     * @param node the node
+     * @param name the element name
+     * @return {@code true} when the name matches
+     */
+    public default boolean matchesName(int node, String name)
+    {
+        return name.equalsIgnoreCase(getTagName(node));
+    }
+
+
+    /**
+     * Obtains the element ID.
+     * @param node the node
+     * @return the ID or {@code null} when the element has no ID
+     */
+    public String getID(int node);
+
+    /**
+     * Checks whether the element has the given ID.
+     * @param node the node
+     * @param id the ID
+     * @return {@code true} when the ID matches
+     */
+    public default boolean matchesID(int node, String id)
+    {
+        return id.equals(getID(node));
+    }
+
+
+    /**
+     * Obtains the classes of the element.
+     * @param node the node
+     * @return the collection of class names, empty when there are no classes
+     */
+    public Collection<String> getClasses(int node);
+
+    /**
+     * Checks whether the element has the given class.
+     * @param node the node
+     * @param className the class name
+     * @return {@code true} when the element has the class
+     */
+    public boolean hasClass(int node, String className);
+
+    /**
+     * Obtains an attribute value.
+     * @param node the node
+     * @param name the attribute name
+     * @return the attribute value or {@code null} when the attribute is not present
+     */
+    public String getAttribute(int node, String name);
+
+    /**
+     * Checks whether the element has any child elements or text content (used for {@code :empty}).
+     * @param node the node
+     * @return {@code true} when the element is not empty
+     */
+    public boolean hasContent(int node);
+
+    /**
+     * Checks the non-structural pseudo-classes such as {@code :hover} or {@code :link}.
+     * The structural pseudo-classes are evaluated using the tree structure.
+     * @param node the node
+     * @param pseudo the pseudo-class selector part
+     * @return {@code true} when the pseudo-class applies to the element
+     */
+    public boolean matchesPseudoClass(int node, Selector.PseudoClass pseudo);
+
+    /**
+     * Matches a selector part that does not implement the tree matching itself (see
+     * {@link Selector.SelectorPart#matches(int, TreeAccess)}). The default implementation matches
+     * the DOM element returned by {@link #getSourceNode(int)} using the element matcher and the match
+     * condition of this tree; the nodes with no DOM element never match.
+     * @param node the node
+     * @param part the selector part
+     * @return {@code true} when the part matches the element
+     */
+    public default boolean matchesPart(int node, Selector.SelectorPart part)
+    {
+        final Object source = getSourceNode(node);
+        return (source instanceof Element)
+                && part.matches((Element) source, getElementMatcher(), getMatchCondition());
+    }
+
+    /**
+     * Obtains the element matcher used for matching the DOM elements of this tree.
+     * @return the element matcher of the current {@link CSSContext} by default
+     */
+    public default ElementMatcher getElementMatcher()
+    {
+        return CSSContext.current().getElementMatcher();
+    }
+
+    /**
+     * Obtains the match condition used for matching the DOM elements of this tree.
+     * @return the default match condition of the current {@link CSSContext} by default
+     */
+    public default MatchCondition getMatchCondition()
+    {
+        return CSSContext.current().getDefaultMatchCondition();
+    }
+
+    /**
+     * Obtains the source object that corresponds to a node (e.g. the DOM element). It is used
+     * for matching the selectors bound to particular DOM elements such as the inline styles.
+     * @param node the node
+     * @return the source object or {@code null} when not available
+     */
+    public Object getSourceNode(int node);
+
+}
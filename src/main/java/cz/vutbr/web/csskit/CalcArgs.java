@@ -39,6 +39,7 @@ public class CalcArgs extends ArrayList<Term<?>> {
     private Type utype = Type.none; //expected value type
     private boolean isint = true; //all the values are integers?
     private boolean valid = true;
+    private transient volatile CompiledCalc compiled; //compiled form created on demand
     
     public CalcArgs(List<Term<?>> terms) {
         super(terms.size());
@@ -57,6 +58,21 @@ public class CalcArgs extends ArrayList<Term<?>> {
         return valid;
     }
     
+    /**
+     * Obtains the compiled form of the expression that may be evaluated repeatedly without
+     * creating any intermediate objects. The compiled form is created on the first call.
+     * @return the compiled expression
+     * @throws IllegalArgumentException when the expression is not valid
+     */
+    public CompiledCalc compile() throws IllegalArgumentException {
+        CompiledCalc ret = compiled;
+        if (ret == null) {
+            ret = new CompiledCalc(this);
+            compiled = ret;
+        }
+        return ret;
+    }
+    
     protected void scanArguments(List<Term<?>> args) {
         //tansform expression to a postfix notation
         Deque<TermOperator> stack = new ArrayDeque<>(5);
@@ -232,7 +248,7 @@ public class CalcArgs extends ArrayList<Term<?>> {
         @Override
         public Double evaluateArgument(TermFloatValue val) {
             if (val instanceof TermNumber || val instanceof TermInteger)
-                return Double.valueOf(val.getValue());
+                return Double.valueOf(val.getFloatValue());
             else
                 return resolveValue(val);
         }
@@ -281,7 +297,7 @@ public class CalcArgs extends ArrayList<Term<?>> {
         @Override
         public Float evaluateArgument(TermFloatValue val) {
             if (val instanceof TermNumber || val instanceof TermInteger)
-                return Float.valueOf(val.getValue());
+                return Float.valueOf(val.getFloatValue());
             else
                 return resolveValue(val);
         }
@@ -0,0 +1,489 @@
+package cz.vutbr.web.csskit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import cz.vutbr.web.css.Term;
+import cz.vutbr.web.css.TermFloatValue;
+import cz.vutbr.web.css.TermInteger;
+import cz.vutbr.web.css.TermNumber;
+import cz.vutbr.web.css.TermOperator;
+import cz.vutbr.web.css.TermPercent;
+
+/**
+ * A compiled form of the calc() arguments suitable for fast repeated evaluation.
+ *
+ * Whenever possible, the expression is compiled to a linear form
+ * {@code c + k1 * u1 + k2 * u2 + ...} where {@code ui} are the values of a single unit
+ * (e.g. {@code 1px}, {@code 1em} or {@code 1%}) resolved by the evaluator. The evaluation
+ * then requires a single {@code resolveValue()} call and a multiply-add per distinct unit.
+ * This requires the evaluator to resolve the values linearly, i.e. {@code resolveValue(2em)}
+ * must be equal to {@code 2 * resolveValue(1em)}, which holds for all the unit conversions.
+ *
+ * The expressions that are not linear (a product or a quotient of two dimensions) are compiled
+ * to a flat postfix program that is interpreted without creating any intermediate objects:
+ * the resolved values and the evaluation stack are kept in a buffer reused by the current thread.
+ */
+public class CompiledCalc
+{
+    private static final byte PUSH_CONST = 0;
+    private static final byte PUSH_TERM = 1;
+    private static final byte ADD = 2;
+    private static final byte SUB = 3;
+    private static final byte MUL = 4;
+    private static final byte DIV = 5;
+    private static final byte NEG = 6;
+
+    /** The evaluation buffers shared by all the programs evaluated in the same thread */
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue()
+        {
+            return new Scratch();
+        }
+    };
+
+    /** The constant part of the linear form */
+    private final double constant;
+    /** The coefficients of the linear form */
+    private final double[] coefficients;
+    /** The terms whose values are multiplied by the coefficients */
+    private final TermFloatValue[] basis;
+
+    /** The postfix program when the expression is not linear */
+    private final byte[] code;
+    /** The operands of the program instructions */
+    private final int[] operands;
+    /** The constants used by the program */
+    private final double[] constants;
+    /** The terms used by the program */
+    private final TermFloatValue[] terms;
+    /** The maximal stack depth required by the program */
+    private final int maxDepth;
+
+    /**
+     * Compiles the calc() arguments.
+     * @param args the arguments in the postfix notation
+     * @throws IllegalArgumentException when the expression is not valid
+     */
+    public CompiledCalc(CalcArgs args) throws IllegalArgumentException
+    {
+        final Map<Object, TermFloatValue> bases = new LinkedHashMap<Object, TermFloatValue>();
+        final Map<Object, Double> result = compileLinear(args, bases);
+        if (result != null)
+        {
+            final Double c = result.remove(null);
+            constant = (c == null) ? 0.0 : c;
+            coefficients = new double[result.size()];
+            basis = new TermFloatValue[result.size()];
+            int i = 0;
+            for (Map.Entry<Object, Double> entry : result.entrySet())
+            {
+                coefficients[i] = entry.getValue();
+                basis[i] = bases.get(entry.getKey());
+                i++;
+            }
+            code = null;
+            operands = null;
+            constants = null;
+            terms = null;
+            maxDepth = 0;
+        }
+        else
+        {
+            constant = 0.0;
+            coefficients = null;
+            basis = null;
+            final int n = args.size();
+            code = new byte[n];
+            operands = new int[n];
+            final List<Double> clist = new ArrayList<Double>();
+            final List<TermFloatValue> tlist = new ArrayList<TermFloatValue>();
+            maxDepth = compileProgram(args, clist, tlist);
+            constants = new double[clist.size()];
+            for (int i = 0; i < constants.length; i++)
+                constants[i] = clist.get(i);
+            terms = tlist.toArray(new TermFloatValue[tlist.size()]);
+        }
+    }
+
+    /**
+     * Checks whether the expression has been compiled to a linear form.
+     * @return {@code true} for the linear form, {@code false} for a postfix program
+     */
+    public boolean isLinear()
+    {
+        return code == null;
+    }
+
+    /**
+     * Obtains the constant part of the linear form.
+     * @return the constant
+     */
+    public double getConstant()
+    {
+        return constant;
+    }
+
+    /**
+     * Obtains the number of the non-constant parts of the linear form.
+     * @return the number of the distinct units used in the expression
+     */
+    public int getTermCount()
+    {
+        return (basis == null) ? 0 : basis.length;
+    }
+
+    /**
+     * Obtains a coefficient of the linear form.
+     * @param index the index of the part
+     * @return the coefficient
+     */
+    public double getCoefficient(int index)
+    {
+        return coefficients[index];
+    }
+
+    /**
+     * Obtains the unit value of a part of the linear form (e.g. {@code 1px} or {@code 1%}).
+     * @param index the index of the part
+     * @return the unit value term
+     */
+    public TermFloatValue getBasis(int index)
+    {
+        return basis[index];
+    }
+
+    /**
+     * Evaluates the expression.
+     * @param eval the evaluator used for resolving the values with units
+     * @return the resulting value
+     */
+    public double evaluate(CalcArgs.DoubleEvaluator eval)
+    {
+        if (code == null)
+        {
+            double ret = constant;
+            for (int i = 0; i < basis.length; i++)
+                ret += coefficients[i] * eval.resolveValue(basis[i]);
+            return ret;
+        }
+        else
+        {
+            final Scratch local = scratch.get();
+            final int base = local.reserve(terms.length + maxDepth);
+            try {
+                for (int i = 0; i < terms.length; i++)
+                {
+                    //the evaluator may evaluate a nested expression that grows the buffer
+                    final double v = eval.resolveValue(terms[i]);
+                    local.data[base + i] = v;
+                }
+                return run(local.data, base);
+            } finally {
+                local.top = base;
+            }
+        }
+    }
+
+    /**
+     * Evaluates the expression.
+     * @param eval the evaluator used for resolving the values with units
+     * @return the resulting value
+     */
+    public float evaluate(CalcArgs.FloatEvaluator eval)
+    {
+        if (code == null)
+        {
+            double ret = constant;
+            for (int i = 0; i < basis.length; i++)
+                ret += coefficients[i] * eval.resolveValue(basis[i]);
+            return (float) ret;
+        }
+        else
+        {
+            final Scratch local = scratch.get();
+            final int base = local.reserve(terms.length + maxDepth);
+            try {
+                for (int i = 0; i < terms.length; i++)
+                {
+                    //the evaluator may evaluate a nested expression that grows the buffer
+                    final float v = eval.resolveValue(terms[i]);
+                    local.data[base + i] = v;
+                }
+                return (float) run(local.data, base);
+            } finally {
+                local.top = base;
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        if (code == null)
+        {
+            sb.append(constant);
+            for (int i = 0; i < basis.length; i++)
+                sb.append(" + ").append(coefficients[i]).append(" * ").append(basis[i]);
+        }
+        else
+        {
+            for (int i = 0; i < code.length; i++)
+            {
+                if (i > 0) sb.append(' ');
+                switch (code[i])
+                {
+                    case PUSH_CONST: sb.append(constants[operands[i]]); break;
+                    case PUSH_TERM: sb.append(terms[operands[i]]); break;
+                    case ADD: sb.append('+'); break;
+                    case SUB: sb.append('-'); break;
+                    case MUL: sb.append('*'); break;
+                    case DIV: sb.append('/'); break;
+                    case NEG: sb.append('~'); break;
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    //===========================================================================================
+
+    /**
+     * Runs the postfix program.
+     * @param stack the buffer that contains the resolved term values at {@code base}
+     * followed by the space for the evaluation stack
+     * @param base the start index of the resolved values in the buffer
+     */
+    private double run(double[] stack, int base)
+    {
+        final int bottom = base + terms.length;
+        int sp = bottom;
+        for (int i = 0; i < code.length; i++)
+        {
+            switch (code[i])
+            {
+                case PUSH_CONST: stack[sp++] = constants[operands[i]]; break;
+                case PUSH_TERM: stack[sp++] = stack[base + operands[i]]; break;
+                case ADD: sp--; stack[sp - 1] += stack[sp]; break;
+                case SUB: sp--; stack[sp - 1] -= stack[sp]; break;
+                case MUL: sp--; stack[sp - 1] *= stack[sp]; break;
+                case DIV: sp--; stack[sp - 1] /= stack[sp]; break;
+                case NEG: stack[sp - 1] = -stack[sp - 1]; break;
+            }
+        }
+        return stack[bottom];
+    }
+
+    /**
+     * Tries to compile the expression to the linear form.
+     * @param bases the map where the unit values are collected
+     * @return the linear form or {@code null} when the expression is not linear
+     */
+    private static Map<Object, Double> compileLinear(CalcArgs args, Map<Object, TermFloatValue> bases)
+    {
+        final Deque<Map<Object, Double>> stack = new ArrayDeque<Map<Object, Double>>();
+        try {
+            for (Term<?> t : args)
+            {
+                if (t instanceof TermOperator)
+                {
+                    final char op = ((TermOperator) t).getValue();
+                    if (op == '~')
+                    {
+                        stack.push(scale(stack.pop(), -1.0));
+                    }
+                    else
+                    {
+                        final Map<Object, Double> val2 = stack.pop();
+                        final Map<Object, Double> val1 = stack.pop();
+                        switch (op)
+                        {
+                            case '+':
+                                stack.push(add(val1, val2, 1.0));
+                                break;
+                            case '-':
+                                stack.push(add(val1, val2, -1.0));
+                                break;
+                            case '*':
+                                if (isConstant(val2))
+                                    stack.push(scale(val1, constantOf(val2)));
+                                else if (isConstant(val1))
+                                    stack.push(scale(val2, constantOf(val1)));
+                                else
+                                    return null;
+                                break;
+                            case '/':
+                                if (isConstant(val2) && constantOf(val2) != 0.0)
+                                    stack.push(scale(val1, 1.0 / constantOf(val2)));
+                                else
+                                    return null;
+                                break;
+                            default:
+                                throw new IllegalArgumentException("Unknown operator " + op + " in calc() expression");
+                        }
+                    }
+                }
+                else if (t instanceof TermFloatValue)
+                {
+                    final TermFloatValue val = (TermFloatValue) t;
+                    final Map<Object, Double> form = new LinkedHashMap<Object, Double>(2);
+                    if (val instanceof TermNumber || val instanceof TermInteger)
+                        form.put(null, (double) val.getFloatValue());
+                    else
+                    {
+                        final Object key = basisKey(val);
+                        if (!bases.containsKey(key))
+                            bases.put(key, createBasis(val));
+                        // the values without a known unit are resolved as a whole
+                        form.put(key, (key == val) ? 1.0 : (double) val.getFloatValue());
+                    }
+                    stack.push(form);
+                }
+            }
+            if (stack.size() != 1)
+                throw new IllegalArgumentException("Couldn't evaluate calc() expression");
+        } catch (NoSuchElementException e) {
+            throw new IllegalArgumentException("Couldn't evaluate calc() expression", e);
+        }
+
+        return stack.pop();
+    }
+
+    /**
+     * Compiles the expression to a flat postfix program stored in {@code code} and {@code operands}.
+     * @param clist the list where the constants are collected
+     * @param tlist the list where the terms are collected
+     * @return the maximal stack depth required by the program
+     */
+    private int compileProgram(CalcArgs args, List<Double> clist, List<TermFloatValue> tlist)
+    {
+        final int n = args.size();
+        int depth = 0;
+        int max = 0;
+        for (int i = 0; i < n; i++)
+        {
+            final Term<?> t = args.get(i);
+            if (t instanceof TermOperator)
+            {
+                switch (((TermOperator) t).getValue())
+                {
+                    case '+': code[i] = ADD; break;
+                    case '-': code[i] = SUB; break;
+                    case '*': code[i] = MUL; break;
+                    case '/': code[i] = DIV; break;
+                    case '~': code[i] = NEG; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown operator " + t + " in calc() expression");
+                }
+                if (code[i] != NEG)
+                    depth--;
+            }
+            else
+            {
+                final TermFloatValue val = (TermFloatValue) t;
+                if (val instanceof TermNumber || val instanceof TermInteger)
+                {
+                    code[i] = PUSH_CONST;
+                    operands[i] = clist.size();
+                    clist.add((double) val.getFloatValue());
+                }
+                else
+                {
+                    code[i] = PUSH_TERM;
+                    operands[i] = tlist.size();
+                    tlist.add(val);
+                }
+                depth++;
+                max = Math.max(max, depth);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Obtains the key that identifies the values that may be expressed as a multiple of the same basis.
+     */
+    private static Object basisKey(TermFloatValue val)
+    {
+        if (val instanceof TermPercent)
+            return TermPercent.class;
+        else if (val.getUnit() != null)
+            return val.getUnit();
+        else
+            return val; //no unit known, the value is its own basis
+    }
+
+    /**
+     * Creates the unit value for the given value.
+     */
+    private static TermFloatValue createBasis(TermFloatValue val)
+    {
+        if (basisKey(val) == val)
+            return val;
+        final TermFloatValue ret = (TermFloatValue) val.shallowClone();
+        ret.setValue(1.0f);
+        return ret;
+    }
+
+    private static boolean isConstant(Map<Object, Double> form)
+    {
+        return form.isEmpty() || (form.size() == 1 && form.containsKey(null));
+    }
+
+    private static double constantOf(Map<Object, Double> form)
+    {
+        final Double c = form.get(null);
+        return (c == null) ? 0.0 : c;
+    }
+
+    private static Map<Object, Double> scale(Map<Object, Double> form, double factor)
+    {
+        final Map<Object, Double> ret = new LinkedHashMap<Object, Double>(form.size());
+        for (Map.Entry<Object, Double> entry : form.entrySet())
+            ret.put(entry.getKey(), entry.getValue() * factor);
+        return ret;
+    }
+
+    private static Map<Object, Double> add(Map<Object, Double> form1, Map<Object, Double> form2, double factor)
+    {
+        final Map<Object, Double> ret = new LinkedHashMap<Object, Double>(form1);
+        for (Map.Entry<Object, Double> entry : form2.entrySet())
+        {
+            final Double cur = ret.get(entry.getKey());
+            final double v = entry.getValue() * factor;
+            ret.put(entry.getKey(), (cur == null) ? v : cur + v);
+        }
+        return ret;
+    }
+
+    /**
+     * A growing per-thread buffer used as a stack of evaluation frames.
+     */
+    private static final class Scratch
+    {
+        private double[] data = new double[16];
+        private int top;
+
+        /**
+         * Reserves a frame of the given size.
+         * @return the start index of the frame
+         */
+        public int reserve(int size)
+        {
+            final int base = top;
+            top += size;
+            if (top > data.length)
+                data = Arrays.copyOf(data, Math.max(top, data.length * 2));
+            return base;
+        }
+    }
+
+}
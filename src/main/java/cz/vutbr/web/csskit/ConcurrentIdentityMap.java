@@ -0,0 +1,157 @@
+package cz.vutbr.web.csskit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A concurrent map that compares its keys by identity and creates the missing values on demand.
+ * It is intended for collecting statistics (e.g. {@link java.util.concurrent.atomic.LongAdder} counters)
+ * of the style sheet objects from many threads at once: every thread keeps a cache of the values
+ * it has already obtained so that the frequent lookups take no lock and allocate nothing.
+ * The thread caches are limited to {@link #CACHE_SIZE} entries; a full cache is cleared and
+ * filled again from the shared map, so that the memory used by the caches stays limited.
+ *
+ * @param <K> the key type
+ * @param <V> the value type; the values must be thread-safe
+ */
+public abstract class ConcurrentIdentityMap<K, V>
+{
+    /** The maximal number of entries in a thread cache */
+    public static final int CACHE_SIZE = 1024;
+
+    private final ConcurrentHashMap<Key<K>, V> map;
+    private final ThreadLocal<Cache<K, V>> cache;
+    /** Incremented when the map is cleared so that the thread caches are dropped */
+    private volatile int generation;
+
+    /**
+     * Creates an empty map.
+     */
+    public ConcurrentIdentityMap()
+    {
+        map = new ConcurrentHashMap<Key<K>, V>();
+        cache = new ThreadLocal<Cache<K, V>>() {
+            @Override
+            protected Cache<K, V> initialValue()
+            {
+                return new Cache<K, V>();
+            }
+        };
+    }
+
+    /**
+     * Creates a new value for a key that is not present in the map.
+     * @param key the key
+     * @return the new value
+     */
+    protected abstract V createValue(K key);
+
+    /**
+     * Obtains the value for the given key. The value is created when the key is not present.
+     * @param key the key
+     * @return the value
+     */
+    public V get(K key)
+    {
+        final Cache<K, V> local = cache.get();
+        final int gen = generation;
+        if (local.generation != gen)
+        {
+            local.values.clear();
+            local.generation = gen;
+        }
+        V ret = local.values.get(key);
+        if (ret == null)
+        {
+            final Key<K> k = new Key<K>(key);
+            ret = map.get(k);
+            if (ret == null)
+            {
+                final V value = createValue(key);
+                ret = map.putIfAbsent(k, value);
+                if (ret == null)
+                    ret = value;
+            }
+            if (local.values.size() >= CACHE_SIZE)
+                local.values.clear();
+            local.values.put(key, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Obtains the value for the given key without creating it.
+     * @param key the key
+     * @return the value or {@code null} when the key is not present
+     */
+    public V peek(K key)
+    {
+        return map.get(new Key<K>(key));
+    }
+
+    /**
+     * Obtains a snapshot of the keys present in the map.
+     * @return the list of keys
+     */
+    public List<K> keys()
+    {
+        final List<K> ret = new ArrayList<K>(map.size());
+        for (Key<K> key : map.keySet())
+            ret.add(key.key);
+        return ret;
+    }
+
+    /**
+     * Obtains a view of the values present in the map.
+     * @return the values
+     */
+    public Collection<V> values()
+    {
+        return map.values();
+    }
+
+    /**
+     * Removes all the keys and values.
+     */
+    public synchronized void clear()
+    {
+        generation++;
+        map.clear();
+        cache.remove();
+    }
+
+    //====================================================================================
+
+    private static final class Key<K>
+    {
+        private final K key;
+
+        public Key(K key)
+        {
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return (obj instanceof Key) && ((Key<?>) obj).key == key;
+        }
+    }
+
+    private static final class Cache<K, V>
+    {
+        private final Map<K, V> values = new IdentityHashMap<K, V>();
+        private int generation;
+    }
+
+}
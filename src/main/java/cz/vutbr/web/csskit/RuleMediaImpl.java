@@ -1,9 +1,11 @@
 package cz.vutbr.web.csskit;
 
+import java.util.AbstractList;
 import java.util.Collections;
 import java.util.List;
 
 import cz.vutbr.web.css.MediaQuery;
+import cz.vutbr.web.css.MediaQueryPredicate;
 import cz.vutbr.web.css.RuleMedia;
 import cz.vutbr.web.css.RuleSet;
 import cz.vutbr.web.css.StyleSheet;
@@ -20,6 +22,36 @@ public class RuleMediaImpl extends AbstractRuleBlock<RuleSet> implements RuleMed
 	/** List of medias */
 	protected List<MediaQuery> media;
 	
+	/** Compiled media queries, created on demand */
+	protected MediaQueryPredicate[] predicates;
+	
+	/** The view of the media list that invalidates the compiled queries when modified */
+	private final List<MediaQuery> mediaView = new AbstractList<MediaQuery>() {
+		@Override
+		public MediaQuery get(int index) {
+			return media.get(index);
+		}
+		@Override
+		public int size() {
+			return media.size();
+		}
+		@Override
+		public MediaQuery set(int index, MediaQuery element) {
+			predicates = null;
+			return media.set(index, element);
+		}
+		@Override
+		public void add(int index, MediaQuery element) {
+			predicates = null;
+			media.add(index, element);
+		}
+		@Override
+		public MediaQuery remove(int index) {
+			predicates = null;
+			return media.remove(index);
+		}
+	};
+	
 	/**
 	 * Creates an empty object to be filled by interface methods
 	 */
@@ -27,17 +59,32 @@ public class RuleMediaImpl extends AbstractRuleBlock<RuleSet> implements RuleMed
 		this.media = Collections.emptyList();
 	}    
     
+	/**
+	 * Returns the list of media queries. The list may be modified; the modifications
+	 * invalidate the compiled media queries.
+	 */
 	@Override
 	public List<MediaQuery> getMediaQueries() {
-		return media;
+		return (media == null) ? null : mediaView;
 	}
 
 	@Override
 	public RuleMedia setMediaQueries(List<MediaQuery> medias) {
 		this.media = medias;
+		this.predicates = null;
 		return this;
 	}
 	
+	@Override
+	public MediaQueryPredicate[] getMediaPredicates() {
+		MediaQueryPredicate[] ret = predicates;
+		if (ret == null) {
+			ret = MediaQueryPredicate.compile(media);
+			predicates = ret;
+		}
+		return ret;
+	}
+	
     @Override
     public void setStyleSheet(StyleSheet stylesheet)
     {
@@ -14,6 +14,7 @@ import cz.vutbr.web.css.ElementMatcher;
 import cz.vutbr.web.css.MatchCondition;
 import cz.vutbr.web.css.Rule;
 import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.TreeAccess;
 import cz.vutbr.web.css.CombinedSelector.Specificity;
 import cz.vutbr.web.css.CombinedSelector.Specificity.Level;
 
@@ -162,6 +163,17 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
         return true;
     }
     
+    public boolean matches(int node, TreeAccess tree) {
+        
+        // check other items of simple selector
+        for(SelectorPart item : list) {
+            if(item == null || !item.matches(node, tree)) //null in case of syntax error (missing term)
+                return false;
+        }
+        // we passed checking
+        return true;
+    }
+    
     /**
      * Computes specificity of this selector
      */
@@ -227,6 +239,11 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
 		public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond) {
 			if(name!=null && WILDCARD.equals(name)) return true;
 			return matcher.matchesName(e, name);
+		}
+		
+		public boolean matches(int node, TreeAccess tree) {
+			if(name!=null && WILDCARD.equals(name)) return true;
+			return name != null && tree.matchesName(node, name);
 		}	
 		
 		public String getName() {
@@ -300,6 +317,10 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
     		return matcher.matchesClass(e, className);
     	}
     	
+    	public boolean matches(int node, TreeAccess tree) {
+    		return tree.hasClass(node, className);
+    	}
+    	
 		public String getClassName() {
 			return className;
 		}
@@ -384,6 +405,11 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
             return cond.isSatisfied(e, this);
         }
         
+        @Override
+        public boolean matches(int node, TreeAccess tree) {
+            return false; // page selectors never match elements
+        }
+        
         @Override
 		public String toString() {
 			StringBuilder sb = new StringBuilder();
@@ -603,6 +629,46 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
                     return cond.isSatisfied(e, this);
             }
         }
+        
+        @Override
+        public boolean matches(int node, TreeAccess tree) {
+            if (type == null) {
+                return false; // unknown or unimplemented pseudo
+            }
+            
+            switch (type) {
+                case FIRST_CHILD:
+                    return tree.getParent(node) != TreeAccess.NONE && tree.getPreviousSibling(node) == TreeAccess.NONE;
+                case LAST_CHILD:
+                    return tree.getParent(node) != TreeAccess.NONE && tree.getNextSibling(node) == TreeAccess.NONE;
+                case ONLY_CHILD:
+                    return tree.getParent(node) != TreeAccess.NONE && tree.getPreviousSibling(node) == TreeAccess.NONE
+                            && tree.getNextSibling(node) == TreeAccess.NONE;
+                case FIRST_OF_TYPE:
+                    return tree.getParent(node) != TreeAccess.NONE && countSiblingsBefore(node, tree, true) == 0;
+                case LAST_OF_TYPE:
+                    return tree.getParent(node) != TreeAccess.NONE && countSiblingsAfter(node, tree, true) == 0;
+                case ONLY_OF_TYPE:
+                    return tree.getParent(node) != TreeAccess.NONE && countSiblingsBefore(node, tree, true) == 0
+                            && countSiblingsAfter(node, tree, true) == 0;
+                case NTH_CHILD:
+                    return positionMatches(countSiblingsBefore(node, tree, false) + 1, elementIndex);
+                case NTH_LAST_CHILD:
+                    return positionMatches(countSiblingsAfter(node, tree, false) + 1, elementIndex);
+                case NTH_OF_TYPE:
+                    return positionMatches(countSiblingsBefore(node, tree, true) + 1, elementIndex);
+                case NTH_LAST_OF_TYPE:
+                    return positionMatches(countSiblingsAfter(node, tree, true) + 1, elementIndex);
+                case ROOT:
+                    return tree.getParent(node) == TreeAccess.NONE;
+                case EMPTY:
+                    return !tree.hasContent(node);
+                case NOT:
+                    return nestedSelector != null && !nestedSelector.matches(node, tree);
+                default:
+                    return tree.matchesPseudoClass(node, this);
+            }
+        }
 
         /**
 		 * Checks whether two elements have the same name.
@@ -685,6 +751,46 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
             return cnt;
         }
         
+        /**
+         * Computes the count of element siblings before the given node in a tree.
+         * @param node The node to be examined
+         * @param tree The tree that contains the node
+         * @param sameType when set to <code>true</code> only the element with the same type are considered.
+         *                 Otherwise, all elements are considered.
+         * @return the number of preceding siblings
+         */
+        protected int countSiblingsBefore(int node, TreeAccess tree, boolean sameType)
+        {
+            int cnt = 0;
+            final String name = tree.getTagName(node);
+            for (int prev = tree.getPreviousSibling(node); prev != TreeAccess.NONE; prev = tree.getPreviousSibling(prev))
+            {
+                if (!sameType || tree.matchesName(prev, name))
+                    cnt++;
+            }
+            return cnt;
+        }
+        
+        /**
+         * Computes the count of element siblings after the given node in a tree.
+         * @param node The node to be examined
+         * @param tree The tree that contains the node
+         * @param sameType when set to <code>true</code> only the element with the same type are considered.
+         *                 Otherwise, all elements are considered.
+         * @return the number of following siblings
+         */
+        protected int countSiblingsAfter(int node, TreeAccess tree, boolean sameType)
+        {
+            int cnt = 0;
+            final String name = tree.getTagName(node);
+            for (int next = tree.getNextSibling(node); next != TreeAccess.NONE; next = tree.getNextSibling(next))
+            {
+                if (!sameType || tree.matchesName(next, name))
+                    cnt++;
+            }
+            return cnt;
+        }
+        
         /**
 		 * Decodes the element index in the <code>an+b</code> form.
 		 * @param index the element index string
@@ -864,6 +970,11 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
             return true; // All pseudo-elements match
         }
         
+        @Override
+        public boolean matches(int node, TreeAccess tree) {
+            return type != null; // All known pseudo-elements match
+        }
+        
         @Override
 		public String toString() {
 			StringBuilder sb = new StringBuilder();
@@ -939,6 +1050,10 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
     		return matcher.matchesID(e, id);
     	}
     	
+    	public boolean matches(int node, TreeAccess tree) {
+    		return tree.matchesID(node, id);
+    	}
+    	
     	public ElementID setID(String id) {
     		if(id==null)
     			throw new IllegalArgumentException("Invalid element ID (null)");
@@ -1051,6 +1166,46 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
 		public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond) {
 			return matcher.matchesAttribute(e, attribute, value, operator);
 		}
+		
+		public boolean matches(int node, TreeAccess tree) {
+			final String attributeValue = tree.getAttribute(node, attribute);
+			if (attributeValue == null || operator == null)
+				return false;
+			switch (operator) {
+				case EQUALS:
+					return attributeValue.equals(value);
+				case INCLUDES:
+					return !value.isEmpty() && includesWord(attributeValue, value);
+				case DASHMATCH:
+					return attributeValue.equals(value) || attributeValue.startsWith(value + "-");
+				case CONTAINS:
+					return !value.isEmpty() && attributeValue.contains(value);
+				case STARTSWITH:
+					return !value.isEmpty() && attributeValue.startsWith(value);
+				case ENDSWITH:
+					return !value.isEmpty() && attributeValue.endsWith(value);
+				default:
+					return true;
+			}
+		}
+    	
+		/**
+		 * Checks whether a whitespace-separated list of words contains the given word.
+		 */
+		private static boolean includesWord(String list, String word) {
+			final int len = list.length();
+			int i = 0;
+			while (i < len) {
+				while (i < len && Character.isWhitespace(list.charAt(i)))
+					i++;
+				final int start = i;
+				while (i < len && !Character.isWhitespace(list.charAt(i)))
+					i++;
+				if (i - start == word.length() && list.regionMatches(start, word, 0, i - start))
+					return true;
+			}
+			return false;
+		}
     	
 		public String getValue() {
 			return value;
@@ -1162,6 +1317,11 @@ public class SelectorImpl extends AbstractRule<Selector.SelectorPart> implements
 		public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond) {
 			return elem.equals(e);
 		}
+		
+		public boolean matches(int node, TreeAccess tree) {
+			final Object source = tree.getSourceNode(node);
+			return source != null && elem.equals(source);
+		}
 
 		/* (non-Javadoc)
 		 * @see java.lang.Object#hashCode()
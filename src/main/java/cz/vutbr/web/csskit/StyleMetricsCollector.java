@@ -0,0 +1,414 @@
+package cz.vutbr.web.csskit;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.w3c.dom.Element;
+
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.StyleMetrics;
+
+/**
+ * A metrics listener that aggregates the received metrics to counters and timers that may
+ * be read at any time, e.g. for exporting them to a monitoring system. The statistics of
+ * the individual selectors are kept as well so that the most expensive selectors may be found.
+ * The collector is thread-safe; the metrics reported by concurrent threads are summed
+ * without locking.
+ */
+public class StyleMetricsCollector implements StyleMetrics
+{
+    private final LongAdder sheets = new LongAdder();
+    private final LongAdder rules = new LongAdder();
+    private final LongAdder declarations = new LongAdder();
+    private final LongAdder parseTime = new LongAdder();
+
+    private final LongAdder classifications = new LongAdder();
+    private final LongAdder classifiedSelectors = new LongAdder();
+    private final LongAdder classificationTime = new LongAdder();
+
+    private final LongAdder matchedElements = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder selectorTests = new LongAdder();
+    private final LongAdder selectorMatches = new LongAdder();
+    private final LongAdder matchTime = new LongAdder();
+
+    private final LongAdder styledElements = new LongAdder();
+    private final LongAdder cascadeTime = new LongAdder();
+    private final LongAdder inheritTime = new LongAdder();
+
+    private final ConcurrentIdentityMap<CombinedSelector, SelectorCounters> selectorStats;
+
+    /**
+     * Creates an empty collector.
+     */
+    public StyleMetricsCollector()
+    {
+        selectorStats = new ConcurrentIdentityMap<CombinedSelector, SelectorCounters>() {
+            @Override
+            protected SelectorCounters createValue(CombinedSelector key)
+            {
+                return new SelectorCounters();
+            }
+        };
+    }
+
+    @Override
+    public void sheetParsed(URL base, int rules, int declarations, long nanos)
+    {
+        this.sheets.increment();
+        this.rules.add(rules);
+        this.declarations.add(declarations);
+        this.parseTime.add(nanos);
+    }
+
+    @Override
+    public void rulesClassified(int selectors, long nanos)
+    {
+        classifications.increment();
+        classifiedSelectors.add(selectors);
+        classificationTime.add(nanos);
+    }
+
+    @Override
+    public void ruleCandidate(RuleSet rule)
+    {
+        for (CombinedSelector selector : rule.getSelectors())
+            getCounters(rule, selector).candidates.increment();
+    }
+
+    @Override
+    public void selectorTested(RuleSet rule, CombinedSelector selector, boolean matched, int visited, long nanos)
+    {
+        final SelectorCounters stats = getCounters(rule, selector);
+        stats.tests.increment();
+        if (matched)
+            stats.matches.increment();
+        stats.visited.add(visited);
+        stats.time.add(nanos);
+        matchTime.add(nanos);
+    }
+
+    @Override
+    public void elementMatched(Element e, int candidates, int tests, int matches)
+    {
+        matchedElements.increment();
+        this.candidates.add(candidates);
+        this.selectorTests.add(tests);
+        this.selectorMatches.add(matches);
+    }
+
+    @Override
+    public void elementStyled(Element e, long cascadeNanos, long inheritNanos)
+    {
+        styledElements.increment();
+        cascadeTime.add(cascadeNanos);
+        inheritTime.add(inheritNanos);
+    }
+
+    /**
+     * Clears all the collected metrics. The metrics reported concurrently with the reset
+     * may be lost.
+     */
+    public void reset()
+    {
+        for (LongAdder counter : new LongAdder[] {sheets, rules, declarations, parseTime,
+                classifications, classifiedSelectors, classificationTime,
+                matchedElements, candidates, selectorTests, selectorMatches, matchTime,
+                styledElements, cascadeTime, inheritTime})
+            counter.reset();
+        selectorStats.clear();
+    }
+
+    //====================================================================================
+
+    /** @return the number of parsed style sheets */
+    public long getSheets()
+    {
+        return sheets.sum();
+    }
+
+    /** @return the number of rules created by the parser */
+    public long getRules()
+    {
+        return rules.sum();
+    }
+
+    /** @return the number of declarations created by the parser */
+    public long getDeclarations()
+    {
+        return declarations.sum();
+    }
+
+    /** @return the total parsing time in nanoseconds */
+    public long getParseTime()
+    {
+        return parseTime.sum();
+    }
+
+    /** @return the number of rule classifications performed */
+    public long getClassifications()
+    {
+        return classifications.sum();
+    }
+
+    /** @return the total number of classified selectors */
+    public long getClassifiedSelectors()
+    {
+        return classifiedSelectors.sum();
+    }
+
+    /** @return the total classification time in nanoseconds */
+    public long getClassificationTime()
+    {
+        return classificationTime.sum();
+    }
+
+    /** @return the number of elements the rules have been matched against */
+    public long getMatchedElements()
+    {
+        return matchedElements.sum();
+    }
+
+    /** @return the total number of candidate rules of all the elements */
+    public long getCandidates()
+    {
+        return candidates.sum();
+    }
+
+    /** @return the total number of selector tests */
+    public long getSelectorTests()
+    {
+        return selectorTests.sum();
+    }
+
+    /** @return the total number of successful selector tests */
+    public long getSelectorMatches()
+    {
+        return selectorMatches.sum();
+    }
+
+    /** @return the total selector matching time in nanoseconds */
+    public long getMatchTime()
+    {
+        return matchTime.sum();
+    }
+
+    /** @return the average number of candidate rules per element */
+    public double getCandidatesPerElement()
+    {
+        final long elements = matchedElements.sum();
+        return (elements == 0) ? 0.0 : (double) candidates.sum() / elements;
+    }
+
+    /** @return the average number of selector tests per element */
+    public double getTestsPerElement()
+    {
+        final long elements = matchedElements.sum();
+        return (elements == 0) ? 0.0 : (double) selectorTests.sum() / elements;
+    }
+
+    /** @return the number of elements whose style has been computed */
+    public long getStyledElements()
+    {
+        return styledElements.sum();
+    }
+
+    /** @return the total cascading time in nanoseconds */
+    public long getCascadeTime()
+    {
+        return cascadeTime.sum();
+    }
+
+    /** @return the total inheritance time in nanoseconds */
+    public long getInheritTime()
+    {
+        return inheritTime.sum();
+    }
+
+    /**
+     * Obtains the statistics of a selector.
+     * @param selector the selector
+     * @return the statistics or {@code null} when the selector has not been tested
+     */
+    public SelectorStats getSelectorStats(CombinedSelector selector)
+    {
+        final SelectorCounters stats = selectorStats.peek(selector);
+        return (stats == null) ? null : stats.snapshot(selector);
+    }
+
+    /**
+     * Computes the match rate of a rule, i.e. the ratio of the successful tests of all its selectors.
+     * @param rule the rule
+     * @return the match rate between 0 and 1 (0 when the rule has not been tested)
+     */
+    public double getMatchRate(RuleSet rule)
+    {
+        long tests = 0, matches = 0;
+        for (CombinedSelector s : rule.getSelectors())
+        {
+            final SelectorCounters stats = selectorStats.peek(s);
+            if (stats != null)
+            {
+                tests += stats.tests.sum();
+                matches += stats.matches.sum();
+            }
+        }
+        return (tests == 0) ? 0.0 : (double) matches / tests;
+    }
+
+    /**
+     * Obtains the selectors with the greatest total matching time. The selectors with equal times
+     * are ordered by the number of visited nodes.
+     * @param count the maximal number of selectors to return
+     * @return the statistics of the selectors sorted by the total time in the descending order
+     */
+    public List<SelectorStats> getMostExpensiveSelectors(int count)
+    {
+        final List<SelectorStats> ret = new ArrayList<SelectorStats>();
+        for (CombinedSelector s : selectorStats.keys())
+        {
+            final SelectorStats stats = getSelectorStats(s);
+            if (stats != null)
+                ret.add(stats);
+        }
+        Collections.sort(ret, new Comparator<SelectorStats>() {
+            @Override
+            public int compare(SelectorStats o1, SelectorStats o2)
+            {
+                if (o1.time != o2.time)
+                    return Long.compare(o2.time, o1.time);
+                else
+                    return Long.compare(o2.visited, o1.visited);
+            }
+        });
+        return (ret.size() > count) ? new ArrayList<SelectorStats>(ret.subList(0, count)) : ret;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "sheets=" + sheets + " rules=" + rules + " declarations=" + declarations
+                + " parseTime=" + parseTime
+                + " classifiedSelectors=" + classifiedSelectors + " classificationTime=" + classificationTime
+                + " elements=" + matchedElements + " candidates=" + candidates
+                + " tests=" + selectorTests + " matches=" + selectorMatches + " matchTime=" + matchTime
+                + " cascadeTime=" + cascadeTime + " inheritTime=" + inheritTime;
+    }
+
+    private SelectorCounters getCounters(RuleSet rule, CombinedSelector selector)
+    {
+        final SelectorCounters ret = selectorStats.get(selector);
+        if (ret.rule == null)
+            ret.rule = rule;
+        return ret;
+    }
+
+    //====================================================================================
+
+    /**
+     * The counters of a single selector updated concurrently.
+     */
+    private static final class SelectorCounters
+    {
+        private volatile RuleSet rule;
+        private final LongAdder candidates = new LongAdder();
+        private final LongAdder tests = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder visited = new LongAdder();
+        private final LongAdder time = new LongAdder();
+
+        private SelectorStats snapshot(CombinedSelector selector)
+        {
+            final SelectorStats ret = new SelectorStats(rule, selector);
+            ret.candidates = candidates.sum();
+            ret.tests = tests.sum();
+            ret.visited = visited.sum();
+            ret.matches = matches.sum();
+            ret.time = time.sum();
+            return ret;
+        }
+    }
+
+    //====================================================================================
+
+    /**
+     * The collected statistics of a single selector.
+     */
+    public static class SelectorStats
+    {
+        private final RuleSet rule;
+        private final CombinedSelector selector;
+        private long candidates;
+        private long tests;
+        private long matches;
+        private long visited;
+        private long time;
+
+        protected SelectorStats(RuleSet rule, CombinedSelector selector)
+        {
+            this.rule = rule;
+            this.selector = selector;
+        }
+
+        /** @return the rule that contains the selector */
+        public RuleSet getRule()
+        {
+            return rule;
+        }
+
+        /** @return the selector */
+        public CombinedSelector getSelector()
+        {
+            return selector;
+        }
+
+        /** @return the number of times the rule has been a candidate for an element */
+        public long getCandidates()
+        {
+            return candidates;
+        }
+
+        /** @return the number of times the selector has been tested */
+        public long getTests()
+        {
+            return tests;
+        }
+
+        /** @return the number of successful tests */
+        public long getMatches()
+        {
+            return matches;
+        }
+
+        /** @return the number of DOM nodes visited by the combinators */
+        public long getVisited()
+        {
+            return visited;
+        }
+
+        /** @return the total matching time in nanoseconds */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /** @return the ratio of the successful tests */
+        public double getMatchRate()
+        {
+            return (tests == 0) ? 0.0 : (double) matches / tests;
+        }
+
+        @Override
+        public String toString()
+        {
+            return selector + " candidates=" + candidates + " tests=" + tests
+                    + " visited=" + visited + " matches=" + matches + " time=" + time;
+        }
+    }
+
+}
@@ -101,9 +101,9 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
     }
     
     /**
-     * Creates color from string in form #ABC or #AABBCC, or
-     * just simply ABC and AABBCC.
-     * where A, B, C are hexadecimal digits. 
+     * Creates color from string in form #ABC, #ABCD, #AABBCC or #AABBCCDD, or
+     * just simply ABC, ABCD, AABBCC and AABBCCDD
+     * where A, B, C, D are hexadecimal digits and D is the optional alpha value. 
      * @param hash Hash string
      * @return Created color or <code>null</code> in case of error
      */
@@ -112,25 +112,47 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
     	if(hash==null)
     		throw new IllegalArgumentException("Invalid hash value (null) for color construction");
     	
-    	// lowercase and remove hash character, if any
-    	hash = hash.toLowerCase().replaceAll("^#", "");
+    	// skip the hash character, if any
+    	final int start = (hash.length() > 0 && hash.charAt(0) == '#') ? 1 : 0;
+    	final int len = hash.length() - start;
+    	if (len != 3 && len != 4 && len != 6 && len != 8)
+    	    return null;
     	
-    	// color written in #ABC format
-        if(hash.matches("^[0-9a-f]{3}$")) {
-            String r = hash.substring(0, 1);
-            String g = hash.substring(1, 2);
-            String b = hash.substring(2, 3);
-            return new TermColorImpl(Integer.parseInt(r+r, 16), Integer.parseInt(g+g, 16), Integer.parseInt(b+b, 16));
-        }
-        // color written in #AABBCC format
-        else if(hash.matches("^[0-9a-f]{6}$")) {
-            String r = hash.substring(0, 2);
-            String g = hash.substring(2, 4);
-            String b = hash.substring(4, 6);
-            return new TermColorImpl(Integer.parseInt(r, 16), Integer.parseInt(g, 16), Integer.parseInt(b, 16));
-        }
-        // invalid hash
-        return null;
+    	// decode all the digits at once; 8 digits exactly fit in an int
+    	int v = 0;
+    	for (int i = start; i < hash.length(); i++) {
+    	    final int d = hexDigit(hash.charAt(i));
+    	    if (d < 0)
+    	        return null; // invalid hash
+    	    v = (v << 4) | d;
+    	}
+    	
+    	switch (len) {
+    	    case 3: // color written in #ABC format
+    	        return new TermColorImpl(((v >> 8) & 0xf) * 17, ((v >> 4) & 0xf) * 17, (v & 0xf) * 17);
+    	    case 4: // color written in #ABCD format
+    	        return new TermColorImpl(((v >> 12) & 0xf) * 17, ((v >> 8) & 0xf) * 17, ((v >> 4) & 0xf) * 17, (v & 0xf) * 17);
+    	    case 6: // color written in #AABBCC format
+    	        return new TermColorImpl((v >> 16) & 0xff, (v >> 8) & 0xff, v & 0xff);
+    	    default: // color written in #AABBCCDD format
+    	        return new TermColorImpl((v >>> 24), (v >> 16) & 0xff, (v >> 8) & 0xff, v & 0xff);
+    	}
+    }
+    
+    /**
+     * Converts a hexadecimal digit (case insensitive) to its value.
+     * @param c the digit character
+     * @return the digit value or -1 when the character is not a hexadecimal digit
+     */
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        else if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        else if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        else
+            return -1;
     }
     
     /**
@@ -158,7 +180,7 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
         			}
         			// term is percent
         			else if(term instanceof TermPercent) {
-        				final int value = ((TermPercent) term).getValue().intValue();
+        				final int value = ((TermPercent) term).getIntValue();
         				rgb[i] = (value * MAX_VALUE) / PERCENT_CONVERSION;
         				percVals = true;
         			}
@@ -210,7 +232,7 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
     
                 Term<?> sterm = args.get(1);
                 if (sterm instanceof TermPercent) {
-                    int is = ((TermPercent) sterm).getValue().intValue();
+                    int is = ((TermPercent) sterm).getIntValue();
                     if (is > 100) is = 100;
                     else if (is < 0) is = 0;
                     s = is / 100.0f;
@@ -220,7 +242,7 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
         	    
                 Term<?> lterm = args.get(2);
                 if (lterm instanceof TermPercent) {
-                    int il = ((TermPercent) lterm).getValue().intValue();
+                    int il = ((TermPercent) lterm).getIntValue();
                     if (il > 100) il = 100;
                     else if (il < 0) il = 0;
                     l = il / 100.0f;
@@ -258,9 +280,9 @@ public class TermColorImpl extends TermImpl<Color> implements TermColor {
     private static float getFloatValue(Term<?> term)
     {
         if (term instanceof TermNumber)
-            return ((TermNumber) term).getValue().floatValue();
+            return ((TermNumber) term).getFloatValue();
         else if (term instanceof TermInteger)
-            return ((TermInteger) term).getValue().floatValue();
+            return ((TermInteger) term).getFloatValue();
         else
             return 0;
     }
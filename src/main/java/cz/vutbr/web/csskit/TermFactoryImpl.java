@@ -1,6 +1,7 @@
 package cz.vutbr.web.csskit;
 
 import java.net.URL;
+import java.util.Arrays;
 import java.util.List;
 
 import cz.vutbr.web.css.CSSFactory;
@@ -229,10 +230,16 @@ public class TermFactoryImpl implements TermFactory {
 
 	public TermNumeric<?> createNumeric(String value, int unary) {
 
-		try {
+		if (isShortInteger(value)) {
 			return createInteger(value, unary);
-		} catch (IllegalArgumentException e) {
-			return createNumber(value, unary);
+		} else if (value.indexOf('.') != -1) {
+			return createNumber(value, unary); //cannot be an integer
+		} else {
+			try {
+				return createInteger(value, unary);
+			} catch (IllegalArgumentException e) {
+				return createNumber(value, unary);
+			}
 		}
 	}
 
@@ -252,31 +259,35 @@ public class TermFactoryImpl implements TermFactory {
             valend--;
         //split the number and the unit
         if (valend >= 0 && valend < value.length() - 1) {
-            final String upart = value.substring(valend + 1);
-            final TermNumeric.Unit unit = TermNumeric.Unit.findByValue(upart.toLowerCase());
+            final TermNumeric.Unit unit = findUnit(value, valend + 1, value.length());
             if (unit != null) {
-                final String vpart = value.substring(0, valend + 1);
-                Float f;
-                try {
-                    f = Float.parseFloat(vpart) * unary;
-                } catch (NumberFormatException e) {
+                final float f = parseNumber(value, 0, valend + 1);
+                if (Float.isNaN(f))
                     return null; //not a float number
-                }
                 
+                final TermFloatValueImpl term;
                 switch (unit.getType()) {
                     case angle:
-                        return (TermNumeric<Float>) (new TermAngleImpl()).setUnit(unit).setValue(f);
+                        term = new TermAngleImpl();
+                        break;
                     case frequency:
-                        return (TermNumeric<Float>) (new TermFrequencyImpl()).setUnit(unit).setValue(f);
+                        term = new TermFrequencyImpl();
+                        break;
                     case length:
-                        return (TermNumeric<Float>) (new TermLengthImpl()).setUnit(unit).setValue(f);
+                        term = new TermLengthImpl();
+                        break;
                     case resolution:
-                        return (TermNumeric<Float>) (new TermResolutionImpl()).setUnit(unit).setValue(f);
+                        term = new TermResolutionImpl();
+                        break;
                     case time:
-                        return (TermNumeric<Float>) (new TermTimeImpl()).setUnit(unit).setValue(f);
+                        term = new TermTimeImpl();
+                        break;
                     default:
                         return null;
                 }
+                term.setUnit(unit);
+                term.setValue(f * unary);
+                return term;
             }
             else
                 return null; //unknown unit
@@ -384,23 +395,28 @@ public class TermFactoryImpl implements TermFactory {
 	protected Float convertFloat(String value, String unit, int unary)
 			throws IllegalArgumentException {
 
-		try {
-            if (unit != null)
-            {
-    			// trim & lowercase
-    			value = value.trim().toLowerCase();
-    			// trim units from value
-                if (value.endsWith(unit))
-                    value = value.substring(0, value.length() - unit.length());
-            }
-
-			return Float.parseFloat(value) * unary;
-		} catch (NumberFormatException e) {
-			throw new IllegalArgumentException(
-					"Invalid number format " + value, e);
-		} catch (NullPointerException e) {
+		if (value == null)
 			throw new IllegalArgumentException("Invalid null format");
+		
+		int start = 0;
+		int end = value.length();
+		if (unit != null)
+		{
+			// trim
+			while (start < end && value.charAt(start) <= ' ')
+				start++;
+			while (end > start && value.charAt(end - 1) <= ' ')
+				end--;
+			// trim units from value
+			if (end - start >= unit.length()
+					&& value.regionMatches(true, end - unit.length(), unit, 0, unit.length()))
+				end -= unit.length();
 		}
+		
+		final float f = parseNumber(value, start, end);
+		if (Float.isNaN(f))
+			throw new IllegalArgumentException("Invalid number format " + value);
+		return f * unary;
 	}
 
 	protected Integer convertInteger(String value, String unit, int unary)
@@ -416,7 +432,7 @@ public class TermFactoryImpl implements TermFactory {
         		    value = value.substring(0, value.length() - unit.length());
 		    }
 
-			long lval = Long.valueOf(value) * unary;
+			long lval = isShortInteger(value) ? parseShortInteger(value) * unary : Long.valueOf(value) * unary;
 			if (lval > Integer.MAX_VALUE)
 			    return Integer.MAX_VALUE;
 			else if (lval < Integer.MIN_VALUE)
@@ -431,6 +447,126 @@ public class TermFactoryImpl implements TermFactory {
 		}
 	}
 	
+	/** Powers of ten that are exactly representable as a float */
+	private static final float[] FLOAT_POW10 = {
+	    1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+	
+	/** The greatest integer mantissa that is exactly representable as a float */
+	private static final long MAX_EXACT_MANTISSA = 1L << 24;
+	
+	/** Units indexed by the first letter of their name */
+	private static final TermNumeric.Unit[][] UNITS_BY_LETTER = new TermNumeric.Unit[26][];
+	static {
+	    for (TermNumeric.Unit u : TermNumeric.Unit.values()) {
+	        if (!u.value().isEmpty()) {
+	            final int i = u.value().charAt(0) - 'a';
+	            final TermNumeric.Unit[] cur = UNITS_BY_LETTER[i];
+	            if (cur == null) {
+	                UNITS_BY_LETTER[i] = new TermNumeric.Unit[] {u};
+	            } else {
+	                UNITS_BY_LETTER[i] = Arrays.copyOf(cur, cur.length + 1);
+	                UNITS_BY_LETTER[i][cur.length] = u;
+	            }
+	        }
+	    }
+	}
+	
+	/**
+	 * Parses a part of a string as a decimal number. Plain decimal numbers as produced
+	 * by the lexer ({@code 12}, {@code 1.5}, {@code .5}) with a small number of
+	 * significant digits are decoded directly from the characters with the same
+	 * result as {@link Float#parseFloat(String)}; other inputs are passed to
+	 * {@link Float#parseFloat(String)}.
+	 * @param value the source string
+	 * @param start the start index (inclusive)
+	 * @param end the end index (exclusive)
+	 * @return the parsed value or {@code NaN} when the value is not a valid number
+	 */
+	protected static float parseNumber(String value, int start, int end) {
+	    long mantissa = 0;
+	    int digits = 0;
+	    int fraction = -1; //number of digits after the decimal point, -1 when there is no point
+	    for (int i = start; i < end; i++) {
+	        final char c = value.charAt(i);
+	        if (c >= '0' && c <= '9') {
+	            if (mantissa > MAX_EXACT_MANTISSA)
+	                return parseNumberSlow(value, start, end);
+	            mantissa = mantissa * 10 + (c - '0');
+	            digits++;
+	            if (fraction >= 0)
+	                fraction++;
+	        } else if (c == '.' && fraction < 0) {
+	            fraction = 0;
+	        } else {
+	            return parseNumberSlow(value, start, end);
+	        }
+	    }
+	    if (digits == 0 || fraction == 0 || fraction >= FLOAT_POW10.length || mantissa > MAX_EXACT_MANTISSA)
+	        return parseNumberSlow(value, start, end);
+	    // both the operands are exact so the division is correctly rounded
+	    return (fraction <= 0) ? (float) mantissa : (float) mantissa / FLOAT_POW10[fraction];
+	}
+	
+	private static float parseNumberSlow(String value, int start, int end) {
+	    try {
+	        return Float.parseFloat(value.substring(start, end));
+	    } catch (NumberFormatException e) {
+	        return Float.NaN;
+	    }
+	}
+	
+	/**
+	 * Finds a unit by its name in a part of a string. The comparison is case-insensitive.
+	 * @param value the source string
+	 * @param start the start index of the unit name (inclusive)
+	 * @param end the end index of the unit name (exclusive)
+	 * @return the unit or {@code null} when no such unit exists
+	 */
+	protected static TermNumeric.Unit findUnit(String value, int start, int end) {
+	    final int len = end - start;
+	    if (len == 0)
+	        return null;
+	    // unit names are lowercase ASCII letters so setting the 0x20 bit folds the case
+	    final int first = (value.charAt(start) | 0x20) - 'a';
+	    if (first < 0 || first >= UNITS_BY_LETTER.length || UNITS_BY_LETTER[first] == null)
+	        return null;
+	    for (TermNumeric.Unit u : UNITS_BY_LETTER[first]) {
+	        final String uname = u.value();
+	        if (uname.length() == len) {
+	            int i = 1;
+	            while (i < len && (value.charAt(start + i) | 0x20) == uname.charAt(i))
+	                i++;
+	            if (i == len)
+	                return u;
+	        }
+	    }
+	    return null;
+	}
+	
+	/**
+	 * Checks whether the value consists of digits only and it is short enough
+	 * to be parsed without a risk of an overflow.
+	 */
+	private static boolean isShortInteger(String value) {
+	    final int len = value.length();
+	    if (len == 0 || len > 18)
+	        return false;
+	    for (int i = 0; i < len; i++) {
+	        final char c = value.charAt(i);
+	        if (c < '0' || c > '9')
+	            return false;
+	    }
+	    return true;
+	}
+	
+	private static long parseShortInteger(String value) {
+	    long ret = 0;
+	    for (int i = 0; i < value.length(); i++)
+	        ret = ret * 10 + (value.charAt(i) - '0');
+	    return ret;
+	}
+	
 	protected TermFunction createFunctionByName(String name, List<Term<?>> args)
 	{
 	    TermFunction fn;
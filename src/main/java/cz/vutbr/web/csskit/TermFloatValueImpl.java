@@ -5,26 +5,96 @@ import cz.vutbr.web.css.TermFloatValue;
 import cz.vutbr.web.css.TermNumeric;
 
 /**
+ * A float value term. The value is stored in a primitive field; the boxed
+ * {@code value} field inherited from {@link TermImpl} is not used and
+ * {@link #getValue()} is only kept for compatibility.
  *
  * @author burgetr
  */
 public class TermFloatValueImpl extends TermNumericImpl<Float> implements TermFloatValue
 {
+    protected float floatValue;
 
     @Override
     public TermNumeric<Float> setZero()
     {
-        super.setValue(0.0f);
+        floatValue = 0.0f;
         return this;
     }
 
+    @Override
+    public Float getValue()
+    {
+        return floatValue;
+    }
+
+    @Override
+    public float getFloatValue()
+    {
+        return floatValue;
+    }
+
+    @Override
+    public int getIntValue()
+    {
+        return (int) floatValue;
+    }
+
     @Override
     public Term<Float> setValue(Float value)
+    {
+        if (value == null)
+            throw new IllegalArgumentException("Null value for a numeric term");
+        return setValue(value.floatValue());
+    }
+
+    /**
+     * Sets the value without boxing.
+     * @param value the new value
+     * @return Modified object to allow chaining
+     */
+    public TermFloatValue setValue(float value)
     {
         if (value == -0.0f) //avoid negative zeroes in CSS
-            return super.setValue(0.0f);
+            floatValue = 0.0f;
         else
-            return super.setValue(value);
+            floatValue = value;
+        return this;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        if (operator != null) sb.append(operator.value());
+        if ((int) floatValue == floatValue)
+            sb.append((int) floatValue);
+        else
+            sb.append(floatValue);
+        if (unit != null) sb.append(unit.value());
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        final int prime = 31;
+        int result = super.hashCode();
+        result = prime * result + Float.floatToIntBits(floatValue);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!super.equals(obj))
+            return false;
+        if (!(obj instanceof TermFloatValueImpl))
+            return false;
+        TermFloatValueImpl other = (TermFloatValueImpl) obj;
+        return Float.floatToIntBits(floatValue) == Float.floatToIntBits(other.floatValue);
     }
 
 }
@@ -9,10 +9,17 @@ public class TermFrequencyImpl extends TermFloatValueImpl implements TermFrequen
 	
 	@Override
 	public TermFrequency setValue(Float value) {
+		if(value==null)
+			throw new IllegalArgumentException("Null or negative value for CSS time");
+		return setValue(value.floatValue());
+	}
+	
+	@Override
+	public TermFrequency setValue(float value) {
 		// value is negative
-		if(value==null || (new Float(0.0f)).compareTo(value) > 0)
-				throw new IllegalArgumentException("Null or negative value for CSS time");
-		this.value = value;
+		if(value < 0.0f)
+			throw new IllegalArgumentException("Null or negative value for CSS time");
+		super.setValue(value);
 		return this;
 	}
 	
@@ -96,7 +96,7 @@ public class TermFunctionImpl extends TermListImpl implements TermFunction {
         
         if (term instanceof TermFloatValue) { // includes TermAngle, TermLength, etc.
             TermFloatValue floatT = (TermFloatValue) term;
-            floatT.setValue(-1 * floatT.getValue());
+            floatT.setValue(-1 * floatT.getFloatValue());
             merged = true;
         } else if (term instanceof TermIdent) {
             TermIdent ident = (TermIdent) term;
@@ -140,7 +140,7 @@ public class TermFunctionImpl extends TermListImpl implements TermFunction {
                     if (curOp != null) {
                         if (curVal instanceof TermFloatValue) {
                             if (curOp.getValue() == '-') {
-                                Float newVal = -((TermFloatValue) curVal).getValue();
+                                Float newVal = -((TermFloatValue) curVal).getFloatValue();
                                 curVal = (TermFloatValue) curVal.shallowClone();
                                 ((TermFloatValue) curVal).setValue(newVal);
                             } else if (curOp.getValue() != '+') {
@@ -180,7 +180,7 @@ public class TermFunctionImpl extends TermListImpl implements TermFunction {
             if (curOp != null) {
                 if (curVal instanceof TermFloatValue) {
                     if (curOp.getValue() == '-') {
-                        Float newVal = -((TermFloatValue) curVal).getValue();
+                        Float newVal = -((TermFloatValue) curVal).getFloatValue();
                         curVal = (TermFloatValue) curVal.shallowClone();
                         ((TermFloatValue) curVal).setValue(newVal);
                     } else if (curOp.getValue() != '+') {
@@ -213,7 +213,7 @@ public class TermFunctionImpl extends TermListImpl implements TermFunction {
                 TermFloatValue curVal = (TermFloatValue) t;
                 if (curOp != null) {
                     if (curOp.getValue() == '-') {
-                        Float newVal = -curVal.getValue();
+                        Float newVal = -curVal.getFloatValue();
                         curVal = (TermFloatValue) curVal.shallowClone();
                         curVal.setValue(newVal);
                     } else if (curOp.getValue() != '+') {
@@ -299,9 +299,9 @@ public class TermFunctionImpl extends TermListImpl implements TermFunction {
 
     protected float getNumberArg(Term<?> term) {
         if (term instanceof TermNumber)
-            return ((TermNumber) term).getValue();
+            return ((TermNumber) term).getFloatValue();
         else
-            return ((TermInteger) term).getValue();
+            return ((TermInteger) term).getFloatValue();
     }
 	
     protected TermAngle getAngleArg(Term<?> term) {
@@ -8,12 +8,8 @@ public class TermIntegerImpl extends TermLengthImpl implements TermInteger {
 	    setUnit(Unit.none);
 	}
 
-    public int getIntValue() {
-        return getValue().intValue();
-    }
-
     public TermInteger setValue(int value) {
-        setValue(Float.valueOf(value));
+        setValue((float) value);
         return this;
     }
 
@@ -21,6 +21,14 @@ public abstract class TermNumericImpl<T extends Number> extends TermImpl<T> impl
 		return this;
 	}
 
+	public float getFloatValue() {
+		return (value == null) ? 0.0f : value.floatValue();
+	}
+
+	public int getIntValue() {
+		return (value == null) ? 0 : value.intValue();
+	}
+
 	@Override
     public String toString() {
 		StringBuilder sb = new StringBuilder();
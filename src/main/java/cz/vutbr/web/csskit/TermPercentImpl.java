@@ -20,7 +20,7 @@ public class TermPercentImpl extends TermFloatValueImpl implements TermPercent {
 		StringBuilder sb = new StringBuilder();
 		
 		if(operator!=null) sb.append(operator.value());
-		sb.append(value).append(OutputUtil.PERCENT_SIGN);
+		sb.append(floatValue).append(OutputUtil.PERCENT_SIGN);
 
 		return sb.toString();
 	}
@@ -45,6 +45,16 @@ public class CSSLexerState {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        int result = curlyNest;
+        result = 31 * result + parenNest;
+        result = 31 * result + sqNest;
+        result = 31 * result + (quotOpen ? 1 : 0);
+        result = 31 * result + (aposOpen ? 1 : 0);
+        return result;
+    }
+
     /**
      * Checks whether all pair characters (single and double quotatation marks,
      * curly braces) are balanced
@@ -32,7 +32,7 @@ public class CSSParserFactory {
     /**
      * singleton instance
      */
-    private static CSSParserFactory instance;
+    private static final CSSParserFactory instance = new CSSParserFactory();
 
     /**
      * dummy constructor for singleton
@@ -46,8 +46,6 @@ public class CSSParserFactory {
      * @return CSS Parser Factory
      */
     public static CSSParserFactory getInstance() {
-        if (instance == null)
-            instance = new CSSParserFactory();
         return instance;
     }
 
@@ -68,8 +66,8 @@ public class CSSParserFactory {
         StyleSheet sheet = (StyleSheet) CSSFactory.getRuleFactory()
                 .createStyleSheet().unlock();
 
-        Preparator preparator = new SimplePreparator(inline, inlinePriority);
-        return parseAndImport(source, network, encoding, type, sheet, preparator, base, null);
+        SimplePreparator preparator = new SimplePreparator(inline, inlinePriority);
+        return parseAndMeasure(source, network, encoding, type, sheet, preparator, base);
     }
 
 
@@ -110,8 +108,8 @@ public class CSSParserFactory {
     public StyleSheet append(Object source, NetworkProcessor network, String encoding, SourceType type,
                              Element inline, boolean inlinePriority, StyleSheet sheet, URL base) throws IOException, CSSException {
 
-        Preparator preparator = new SimplePreparator(inline, inlinePriority);
-        return parseAndImport(source, network, encoding, type, sheet, preparator, base, null);
+        SimplePreparator preparator = new SimplePreparator(inline, inlinePriority);
+        return parseAndMeasure(source, network, encoding, type, sheet, preparator, base);
     }
 
     /**
@@ -136,6 +134,23 @@ public class CSSParserFactory {
         return append(source, network, encoding, type, null, false, sheet, base);
     }
 
+    /**
+     * Parses the source including the imports and reports the parsing metrics to the
+     * registered metrics listener (if any).
+     */
+    private StyleSheet parseAndMeasure(Object source, NetworkProcessor network, String encoding, SourceType type,
+                                       StyleSheet sheet, SimplePreparator preparator, URL base)
+            throws CSSException, IOException {
+        final StyleMetrics metrics = CSSFactory.getMetrics();
+        if (metrics == null)
+            return parseAndImport(source, network, encoding, type, sheet, preparator, base, null);
+
+        final long start = System.nanoTime();
+        final StyleSheet ret = parseAndImport(source, network, encoding, type, sheet, preparator, base, null);
+        metrics.sheetParsed(base, preparator.getRuleCount(), preparator.getDeclarationCount(), System.nanoTime() - start);
+        return ret;
+    }
+
     /**
      * Parses the source using the given infrastructure and returns the resulting style sheet.
      * The imports are handled recursively.
@@ -150,8 +165,9 @@ public class CSSParserFactory {
             String path = extractor.getImportPaths().get(i);
             List<MediaQuery> imedia = extractor.getImportMedia().get(i);
 
-            if (((imedia == null || imedia.isEmpty()) && CSSFactory.getAutoImportMedia().matchesEmpty()) //no media query specified
-                    || CSSFactory.getAutoImportMedia().matchesOneOf(imedia)) //or some media query matches to the autoload media spec
+            final MediaSpec autoImportMedia = CSSFactory.getAutoImportMedia();
+            if (((imedia == null || imedia.isEmpty()) && autoImportMedia.matchesEmpty()) //no media query specified
+                    || autoImportMedia.matchesOneOf(imedia)) //or some media query matches to the autoload media spec
             {
                 URL url = DataURLHandler.createURL(base, path);
                 try {
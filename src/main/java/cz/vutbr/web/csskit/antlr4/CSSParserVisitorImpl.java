@@ -48,6 +48,9 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
     //prevent imports inside the style sheet
     private boolean preventImports = false;
 
+    // canonical instances of the identifiers
+    private final SymbolTable symbols = new SymbolTable();
+
     private void logEnter(String entry) {
         if (log.isTraceEnabled())
             log.trace("Enter: {}{}", generateSpaces(spacesCounter), entry);
@@ -64,7 +67,14 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
     }
 
     private String extractTextUnescaped(String text) {
-        return org.unbescape.css.CssEscape.unescapeCss(text);
+        return SymbolTable.unescape(text);
+    }
+
+    /**
+     * Unescapes an identifier and obtains its canonical instance from the symbol table.
+     */
+    private String extractIdentUnescaped(String text) {
+        return symbols.internUnescaped(text);
     }
 
     private Declaration.Source extractSource(CSSToken ct) {
@@ -87,7 +97,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
      */
     private String extractIdUnescaped(String id) {
         if (!id.isEmpty() && !Character.isDigit(id.charAt(0))) {
-            return org.unbescape.css.CssEscape.unescapeCss(id);
+            return symbols.internUnescaped(id);
         }
         return null;
     }
@@ -611,7 +621,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
     public Object visitMedia_term(CSSParser.Media_termContext ctx) {
         //IDENT
         if (ctx.IDENT() != null) {
-            String m = extractTextUnescaped(ctx.IDENT().getText());
+            String m = extractIdentUnescaped(ctx.IDENT().getText());
             MediaQueryState state = mq.state;
             if (m.equalsIgnoreCase("ONLY") && state == MediaQueryState.START) {
                 mq.state = MediaQueryState.TYPEOREXPR;
@@ -672,7 +682,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
         declaration_stack.peek().d = decl = rf.createDeclaration();
         declaration_stack.peek().invalid = false;
 
-        String property = extractTextUnescaped(ctx.IDENT().getText());
+        String property = extractIdentUnescaped(ctx.IDENT().getText());
         decl.setProperty(property);
         Token token = ctx.IDENT().getSymbol();
         decl.setSource(extractSource((CSSToken) token));
@@ -940,7 +950,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
     public Object visitProperty(CSSParser.PropertyContext ctx) {
         logEnter("property");
 
-        String property = extractTextUnescaped(ctx.IDENT().getText());
+        String property = extractIdentUnescaped(ctx.IDENT().getText());
         if (ctx.MINUS() != null) {
             property = ctx.MINUS().getText() + property;
         }
@@ -1042,7 +1052,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             return null;
         }
         Term<?> ret = null;
-        final String fname = extractTextUnescaped(ctx.FUNCTION().getText()).toLowerCase();
+        final String fname = symbols.intern(SymbolTable.unescape(ctx.FUNCTION().getText()).toLowerCase());
         if (ctx.funct_args() != null)
         {
             List<Term<?>> t = visitFunct_args(ctx.funct_args());
@@ -1102,7 +1112,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             if (log.isDebugEnabled()) {
                 log.debug("VP - ident");
             }
-            terms_stack.peek().term = tf.createIdent(extractTextUnescaped(ctx.IDENT().getText()), terms_stack.peek().dash);
+            terms_stack.peek().term = tf.createIdent(extractIdentUnescaped(ctx.IDENT().getText()), terms_stack.peek().dash);
         } else if (ctx.HASH() != null) {
             if (log.isDebugEnabled()) {
                 log.debug("VP - hash");
@@ -1276,7 +1286,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             if (log.isDebugEnabled()) {
                 log.debug("FA - ident");
             }
-            funct_args_stack.peek().term = tf.createIdent(extractTextUnescaped(ctx.IDENT().getText()));
+            funct_args_stack.peek().term = tf.createIdent(extractIdentUnescaped(ctx.IDENT().getText()));
         } else if (ctx.PERCENTAGE() != null) {
             if (log.isDebugEnabled()) {
                 log.debug("FA - percentage");
@@ -1369,7 +1379,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             if (log.isDebugEnabled()) {
                 log.debug("VP - ident item");
             }
-            return tf.createIdent(extractTextUnescaped(ctx.IDENT().getText()), dash);
+            return tf.createIdent(extractIdentUnescaped(ctx.IDENT().getText()), dash);
         }
         else
             return null;
@@ -1467,7 +1477,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
         if (ctx.IDENT() != null || ctx.ASTERISK() != null) {
             cz.vutbr.web.css.Selector.ElementName en = rf.createElement(cz.vutbr.web.css.Selector.ElementName.WILDCARD);
             if (ctx.IDENT() != null) {
-                en.setName(extractTextUnescaped(ctx.IDENT().getText()));
+                en.setName(extractIdentUnescaped(ctx.IDENT().getText()));
             }
             //log.debug("Adding element name: {}.", en.getName());
             selector_stack.peek().s.add(en);
@@ -1502,7 +1512,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             }
 
         } else if (ctx.CLASSKEYWORD() != null) {
-            selector_stack.peek().s.add(rf.createClass(extractTextUnescaped(ctx.CLASSKEYWORD().getText())));
+            selector_stack.peek().s.add(rf.createClass(extractIdentUnescaped(ctx.CLASSKEYWORD().getText())));
         } else if (ctx.attribute() != null) {
             Selector.ElementAttribute ea = visitAttribute(ctx.attribute());
             selector_stack.peek().s.add(ea);
@@ -1540,7 +1550,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
         // see http://www.w3.org/TR/CSS2/selector.html#attribute-selectors
         logEnter("attribute: ", ctx);
         //initialize attribute
-        String attributeName = extractTextUnescaped(ctx.children.get(0).getText());
+        String attributeName = extractIdentUnescaped(ctx.children.get(0).getText());
         String value = null;
         boolean isStringValue = false;
         Selector.Operator op = Selector.Operator.NO_OPERATOR;
@@ -1612,7 +1622,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
         String name;
         if (ctx.FUNCTION() != null) {
             // function
-            name = extractTextUnescaped(ctx.FUNCTION().getText());
+            name = extractIdentUnescaped(ctx.FUNCTION().getText());
             if (ctx.selector() != null) {
                 Selector sel = visitSelector(ctx.selector());
                 pseudo = (isPseudoElem ? rf.createPseudoElement(name, sel) : rf.createPseudoClass(name, sel));
@@ -1631,7 +1641,7 @@ public class CSSParserVisitorImpl implements CSSParserVisitor<Object>, CSSParser
             }
         } else if (ctx.IDENT() != null) {
             // ident
-            name = extractTextUnescaped(ctx.IDENT().getText());
+            name = extractIdentUnescaped(ctx.IDENT().getText());
             if (ctx.MINUS() != null) {
                 name = ctx.MINUS().getText() + name;
             }
@@ -4,8 +4,7 @@ import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.misc.Pair;
 
 import java.net.URL;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  * Token with encapsulation of LexerState during parse.
@@ -23,7 +22,7 @@ public class CSSToken extends CommonToken {
 	private static final long serialVersionUID = 3L;
 
 	/**
-	 * Current lexer state
+	 * Current lexer state. The state may be shared by several tokens and it must not be modified.
 	 */
 	protected CSSLexerState ls;
 
@@ -42,6 +41,9 @@ public class CSSToken extends CommonToken {
     public static final int UNCLOSED_URI = 7;
 
 	private final TypeMapper typeMapper;
+	
+	/** The model view of the token text computed by {@link #getText()} */
+	private String extracted;
 
 	/**
 	 * Creates CSSToken, this is base {@code emit()} constructor
@@ -209,21 +211,48 @@ public class CSSToken extends CommonToken {
 
 	/**
 	 * Returns common text stored in token. Content is not modified.
+	 * The text is computed on the first call only.
 	 * @return Model view of text in token
 	 */
 	@Override
 	public String getText() {
+		if (extracted == null)
+			extracted = extractText();
+		return extracted;
+	}
+
+	@Override
+	public void setText(String text) {
+		super.setText(text);
+		extracted = null;
+	}
+
+	@Override
+	public void setType(int type) {
+		super.setType(type);
+		extracted = null;
+	}
+
+	@Override
+	public void setStartIndex(int start) {
+		super.setStartIndex(start);
+		extracted = null;
+	}
+
+	@Override
+	public void setStopIndex(int stop) {
+		super.setStopIndex(stop);
+		extracted = null;
+	}
+
+	private String extractText() {
 
 		// sets text from input if not text directly available
 		text = super.getText();
+		if (text == null)
+			return null;
 
-		int t;
-		try {
-			t = typeMapper.inverse().get(type);
-		} catch (NullPointerException e) {
-			return text;
-		}
-		switch (t) {
+		switch (typeMapper.inverse().get(type, 0)) {
 			case FUNCTION:
 				return text.substring(0, text.length()-1);
 			case URI:
@@ -257,33 +286,65 @@ public class CSSToken extends CommonToken {
 
 	/**
 	 * Convert between type values defined in two classes.
+	 * The mapping is stored in a flat array indexed by the (non-negative) type values.
 	 */
 	public static class TypeMapper {
-		private final Map<Integer,Integer> map;
+		private static final int UNMAPPED = Integer.MIN_VALUE;
+		private final int[] map;
 		private final TypeMapper inverse;
-		private TypeMapper(Map<Integer,Integer> map, TypeMapper inverse) {
+		private TypeMapper(int[] map, TypeMapper inverse) {
 			this.map = map;
 			this.inverse = inverse;
 		}
 		public TypeMapper(Class<?> classA, Class<?> classB, String... fieldNames) {
-			map = new TreeMap<Integer,Integer>();
-			Map<Integer,Integer> inverseMap = new TreeMap<Integer,Integer>();
-			for (String f : fieldNames) {
+			final int[] a = new int[fieldNames.length];
+			final int[] b = new int[fieldNames.length];
+			int maxA = -1, maxB = -1;
+			for (int i = 0; i < fieldNames.length; i++) {
 				try {
-					int a = classA.getField(f).getInt(null);
-					int b = classB.getField(f).getInt(null);
-					map.put(a, b);
-					inverseMap.put(b, a);
+					a[i] = classA.getField(fieldNames[i]).getInt(null);
+					b[i] = classB.getField(fieldNames[i]).getInt(null);
+					maxA = Math.max(maxA, a[i]);
+					maxB = Math.max(maxB, b[i]);
 				} catch (IllegalAccessException e) {
 					throw new RuntimeException(e);
 				} catch (NoSuchFieldException e) {
 					throw new RuntimeException(e);
 				}
 			}
+			map = new int[maxA + 1];
+			final int[] inverseMap = new int[maxB + 1];
+			Arrays.fill(map, UNMAPPED);
+			Arrays.fill(inverseMap, UNMAPPED);
+			for (int i = 0; i < fieldNames.length; i++) {
+				map[a[i]] = b[i];
+				inverseMap[b[i]] = a[i];
+			}
 			inverse = new TypeMapper(inverseMap, this);
 		}
+		/**
+		 * Maps a type value.
+		 * @param type the type value to be mapped
+		 * @return the mapped value
+		 * @throws NullPointerException when there is no mapping for the given type
+		 */
 		public int get(int type) throws NullPointerException {
-			return map.get(type);
+			final int ret = get(type, UNMAPPED);
+			if (ret == UNMAPPED)
+				throw new NullPointerException("No mapping for type " + type);
+			return ret;
+		}
+		/**
+		 * Maps a type value.
+		 * @param type the type value to be mapped
+		 * @param defaultValue the value returned when there is no mapping for the given type
+		 * @return the mapped value or the default value
+		 */
+		public int get(int type, int defaultValue) {
+			if (type < 0 || type >= map.length)
+				return defaultValue;
+			final int ret = map[type];
+			return (ret == UNMAPPED) ? defaultValue : ret;
 		}
 		public TypeMapper inverse() {
 			return inverse;
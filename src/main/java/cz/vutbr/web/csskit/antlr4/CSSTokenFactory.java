@@ -13,7 +13,8 @@ public class CSSTokenFactory {
     private final Lexer lexer;
     private final CSSLexerState ls;
     private final TypeMapper typeMapper;
-
+    /** The last lexer state snapshot; shared by all the tokens created in the same state */
+    private CSSLexerState snapshot;
 
     public CSSTokenFactory(Pair<TokenSource, CharStream> input, Lexer lexer, CSSLexerState ls, Class<? extends Lexer> lexerClass) {
         this.input = input;
@@ -29,8 +30,10 @@ public class CSSTokenFactory {
         t.setCharPositionInLine(lexer._tokenStartCharPositionInLine);
         t.setBase(((CSSInputStream) input.b).getBase());
 
-        // clone lexer state
-        t.setLexerState(new CSSLexerState(ls));
+        // the lexer state changes only at some tokens, create a new snapshot only when it changes
+        if (snapshot == null || !snapshot.equals(ls))
+            snapshot = new CSSLexerState(ls);
+        t.setLexerState(snapshot);
         return t;
     }
 }
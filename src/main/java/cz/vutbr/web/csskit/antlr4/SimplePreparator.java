@@ -27,14 +27,36 @@ public class SimplePreparator implements Preparator {
 	protected static final Logger log = LoggerFactory
 			.getLogger(SimplePreparator.class);
 
-	private static RuleFactory rf = CSSFactory.getRuleFactory();
+	private final RuleFactory rf;
 
 	private Element elem;
 	private boolean inlinePriority;
+	
+	/** The number of rules created */
+	private int ruleCount;
+	/** The number of declarations contained in the created rules */
+	private int declarationCount;
 
 	public SimplePreparator(Element e, boolean inlinePriority) {
 		this.elem = e;
 		this.inlinePriority = inlinePriority;
+		this.rf = CSSFactory.getRuleFactory();
+	}
+
+	/**
+	 * Obtains the number of rules created by this preparator.
+	 * @return the number of rules
+	 */
+	public int getRuleCount() {
+		return ruleCount;
+	}
+
+	/**
+	 * Obtains the number of declarations contained in the rules created by this preparator.
+	 * @return the number of declarations
+	 */
+	public int getDeclarationCount() {
+		return declarationCount;
 	}
 
 	public RuleBlock<?> prepareRuleSet(List<CombinedSelector> cslist,
@@ -53,7 +75,8 @@ public class SimplePreparator implements Preparator {
 		RuleSet rs = rf.createSet();
 		rs.setSelectors(cslist);
 		rs.replaceAll(dlist);
-		log.info("Created RuleSet as with:\n{}", rs);
+		log.debug("Created RuleSet as with:\n{}", rs);
+		countRule(dlist);
 
 		// wrap
 		if (wrap) {
@@ -90,7 +113,8 @@ public class SimplePreparator implements Preparator {
 		if (media != null && !media.isEmpty())
 			rm.setMediaQueries(media);
 
-		log.info("Create @media as with:\n{}", rm);
+		log.debug("Create @media as with:\n{}", rm);
+		countRule(null);
 
 		return (RuleBlock<?>) rm;
 	}
@@ -116,7 +140,8 @@ public class SimplePreparator implements Preparator {
         rp.setName(name);
 		
 		rp.setPseudo(pseudo);
-		log.info("Create @page as with:\n{}", rp);
+		log.debug("Create @page as with:\n{}", rp);
+		countRule(declarations);
 
 		return (RuleBlock<?>) rp;
 	}
@@ -134,7 +159,8 @@ public class SimplePreparator implements Preparator {
         RuleMargin rm = rf.createMargin(area);
         rm.replaceAll(decl);
 
-        log.info("Create @" + area + " with:\n" + rm);
+        log.debug("Create @{} with:\n{}", area, rm);
+        countRule(decl);
 
         return rm;
     }
@@ -150,7 +176,8 @@ public class SimplePreparator implements Preparator {
 
         RuleViewport rp = rf.createViewport();
         rp.replaceAll(decl);
-        log.info("Create @viewport as {}th with:\n{}", rp);
+        log.debug("Create @viewport as with:\n{}", rp);
+        countRule(decl);
 
         return (RuleBlock<?>) rp;
     }
@@ -166,7 +193,8 @@ public class SimplePreparator implements Preparator {
 
         RuleFontFace rp = rf.createFontFace();
         rp.replaceAll(decl);
-        log.info("Create @font-face as with:\n{}", rp);
+        log.debug("Create @font-face as with:\n{}", rp);
+        countRule(decl);
 
         return (RuleBlock<?>) rp;
     }
@@ -194,7 +222,8 @@ public class SimplePreparator implements Preparator {
 		rs.replaceAll(dlist);
 		rs.setSelectors(Arrays.asList(cs));
 		
-		log.info("Create inline ruleset as with:\n{}", rs);
+		log.debug("Create inline ruleset as with:\n{}", rs);
+		countRule(dlist);
 		
 		return (RuleBlock<?>) rs;
 	}
@@ -219,9 +248,16 @@ public class SimplePreparator implements Preparator {
         rk.replaceAll(rules);
         rk.setName(name);
 
-        log.info("Create @keyframes as with:\n{}", rk);
+        log.debug("Create @keyframes as with:\n{}", rk);
+        countRule(null);
 
         return (RuleBlock<?>) rk;
     }
 
+    private void countRule(List<Declaration> decl) {
+        ruleCount++;
+        if (decl != null)
+            declarationCount += decl.size();
+    }
+
 }
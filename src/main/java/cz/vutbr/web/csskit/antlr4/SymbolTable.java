@@ -0,0 +1,112 @@
+package cz.vutbr.web.csskit.antlr4;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import cz.vutbr.web.css.CSSContext;
+import cz.vutbr.web.css.SupportedCSS;
+
+/**
+ * A table of canonical instances of the identifiers (property names, keywords, element and class names, etc.)
+ * used during parsing of a single style sheet. Equal identifiers share a single string instance,
+ * which reduces the memory used by large style sheets and lets the subsequent hash map lookups
+ * succeed on the identity check. The names of the supported properties are shared by all the tables
+ * so that they are identical to the keys used by the {@link cz.vutbr.web.css.SupportedCSS} implementation.
+ */
+public class SymbolTable {
+
+    private final Map<String, String> symbols;
+    /** The global property names; obtained on first use */
+    private Map<String, String> propertyNames;
+
+
+    /**
+     * Creates an empty table.
+     */
+    public SymbolTable() {
+        symbols = new HashMap<String, String>();
+    }
+
+    /**
+     * Obtains the canonical instance of a string.
+     * @param s the string
+     * @return an equal string that is shared by all the equal strings interned in this table
+     */
+    public String intern(String s) {
+        if (s == null)
+            return null;
+        if (propertyNames == null)
+            propertyNames = Global.getPropertyNames();
+        final String known = propertyNames.get(s);
+        if (known != null)
+            return known;
+        final String ret = symbols.get(s);
+        if (ret != null)
+            return ret;
+        symbols.put(s, s);
+        return s;
+    }
+
+    /**
+     * Obtains the number of the identifiers stored in the table (not including the global ones).
+     * @return the number of identifiers
+     */
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * Unescapes the CSS escape sequences in an identifier and returns its canonical instance.
+     * The unescaping is skipped when the identifier does not contain any backslash.
+     * @param text the identifier text
+     * @return the canonical unescaped identifier
+     */
+    public String internUnescaped(String text) {
+        return intern(unescape(text));
+    }
+
+    /**
+     * Unescapes the CSS escape sequences in a string.
+     * @param text the source text
+     * @return the unescaped text or the same instance when the text contains no escapes
+     */
+    public static String unescape(String text) {
+        if (text == null || text.indexOf('\\') == -1)
+            return text;
+        else
+            return org.unbescape.css.CssEscape.unescapeCss(text);
+    }
+
+    //================================================================================
+
+    /**
+     * The names of the properties supported by the global default context. The names are obtained
+     * on first use and again whenever the default supported CSS implementation changes.
+     */
+    private static final class Global {
+        private static volatile Global current;
+
+        private final SupportedCSS source;
+        private final Map<String, String> names;
+
+        private Global(SupportedCSS source) {
+            this.source = source;
+            final Map<String, String> names = new HashMap<String, String>();
+            for (String name : source.getDefinedPropertyNames())
+                names.put(name, name);
+            this.names = Collections.unmodifiableMap(names);
+        }
+
+        public static Map<String, String> getPropertyNames() {
+            final SupportedCSS css = CSSContext.getDefault().getSupportedCSS();
+            Global ret = current;
+            if (ret == null || ret.source != css) {
+                ret = new Global(css);
+                current = ret;
+            }
+            return ret.names;
+        }
+    }
+
+}
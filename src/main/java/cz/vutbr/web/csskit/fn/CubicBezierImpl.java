@@ -68,7 +68,7 @@ public class CubicBezierImpl extends TermFunctionImpl implements TermFunction.Cu
         if (argTerms.size() == 1) {
             Term<?> t = argTerms.get(0);
             if (t instanceof TermNumber) {
-                float value = ((TermNumber) t).getValue();
+                float value = ((TermNumber) t).getFloatValue();
                 if (index == 1
                         || index == 3
                         || value >= 0 && value <= 1) {
@@ -40,7 +40,7 @@ public class GenericFilterFunction extends TermFunctionImpl {
                 amount = getNumberArg(args.get(0));
                 setValid(true);
             } else if (arg instanceof TermPercent) {
-                amount = ((TermPercent) arg).getValue() / 100.0f;
+                amount = ((TermPercent) arg).getFloatValue() / 100.0f;
                 setValid(true);
             }
         }
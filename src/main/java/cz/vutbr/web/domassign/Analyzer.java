@@ -1,9 +1,16 @@
 package cz.vutbr.web.domassign;
 
 import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,16 +23,20 @@ import org.w3c.dom.Node;
 import org.w3c.dom.traversal.NodeFilter;
 import org.w3c.dom.traversal.TreeWalker;
 
-import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.CombinedSelector;
 import cz.vutbr.web.css.Declaration;
 import cz.vutbr.web.css.ElementMatcher;
 import cz.vutbr.web.css.MatchCondition;
 import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.MediaSpecAll;
 import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.RuleMedia;
 import cz.vutbr.web.css.RuleSet;
 import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.Selector.PseudoClassType;
 import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.StyleMetrics;
 import cz.vutbr.web.css.StyleSheet;
 
 /**
@@ -45,6 +56,9 @@ public class Analyzer {
 	/** The style sheets to be processed. */
 	protected List<StyleSheet> sheets;
 	
+	/** The context that provides the configuration */
+	private final CSSContext context;
+
 	/** Rule order counter */
 	protected int currentOrder;
 	
@@ -56,16 +70,53 @@ public class Analyzer {
 
 	private MatchCondition matchCond;
 	private ElementMatcher matcher;
+	/** The metrics listener or {@code null} when the metrics are disabled */
+	private StyleMetrics metrics;
+	
+
+	/** The rule coverage or {@code null} when the coverage is not recorded */
+	private RuleCoverage coverage;
+
+	/** Create {@link CompactStyleMap}s instead of the hash-based style maps */
+	private boolean compactStyleMaps;
+	
+	/** Resolve the lengths to absolute values after computing the styles */
+	private boolean resolveLengths;
+	/** The rules of the leading style sheets classified in advance or {@code null} */
+	private SharedRules sharedRules;
+	/** The length resolver used by the current evaluation or {@code null} */
+	private LengthResolver lengthResolver;
+	/** The ancestor buffer reused by the tree walker based matching */
+	private Node[] walkerAncestors = new Node[16];
+	/** The visited node counter reused by the measured matching */
+	private final int[] visits = new int[1];
+
+
+	/** Keep the state of the last single-media evaluation for restyling */
+	private boolean restylable;
+	/** The document processed by the last single-media evaluation (used for restyling) */
+	private Document lastDocument;
+	/** The declarations assigned by the last single-media evaluation */
+	private DeclarationMap lastDeclarations;
+	/** The style map created by the last single-media evaluation */
+	private StyleMap lastStyles;
+	/** The inheritance flag of the last single-media evaluation */
+	private boolean lastInherit;
+	/** The dependencies of the selectors, created on the first restyling */
+	private SelectorDependencies dependencies;
+	/**
+	 * The pseudo-classes used by the candidate rules of the elements in the last single-media evaluation:
+	 * the masks of the pseudo-classes that apply to the element itself and to its ancestors or siblings.
+	 * Only the elements with non-empty masks are included; {@code null} when restyling is disabled.
+	 */
+	private Map<Element, long[]> pseudoDependencies;
 
 	/**
 	 * Creates the analyzer for a single style sheet.
 	 * @param sheet The stylesheet that will be used as the source of rules.
 	 */
 	public Analyzer(StyleSheet sheet) {
-	    sheets = new ArrayList<StyleSheet>(1);
-	    sheets.add(sheet);
-	    matchCond = CSSFactory.getDefaultMatchCondition();
-	    matcher = CSSFactory.getElementMatcher();
+	    this(new ArrayList<StyleSheet>(Collections.singletonList(sheet)), CSSContext.current());
 	}
 
 	/**
@@ -73,9 +124,30 @@ public class Analyzer {
 	 * @param sheets A list of stylesheets that will be used as the source of rules.
 	 */
 	public Analyzer(List<StyleSheet> sheets) {
+	    this(sheets, CSSContext.current());
+	}
+	
+	/**
+	 * Creates the analyzer for multiple style sheets that uses the given context.
+	 * @param sheets A list of stylesheets that will be used as the source of rules.
+	 * @param context The context that provides the element matcher, the match condition,
+	 *            the metrics listener and the NodeData implementation.
+	 */
+	public Analyzer(List<StyleSheet> sheets, CSSContext context) {
 	    this.sheets = sheets;
-        matchCond = CSSFactory.getDefaultMatchCondition();
-        matcher = CSSFactory.getElementMatcher();
+	    this.context = context;
+	    matchCond = context.getDefaultMatchCondition();
+	    matcher = context.getElementMatcher();
+	    metrics = context.getMetrics();
+	}
+	
+	/**
+	 * Obtains the context used by this analyzer.
+	 * 
+	 * @return the context
+	 */
+	public final CSSContext getContext() {
+	    return context;
 	}
 	
 	/**
@@ -119,6 +191,129 @@ public class Analyzer {
         return matcher;
     }
 
+    /**
+     * Registers a metrics listener that receives the classification, matching and cascading
+     * metrics of this analyzer. The listener of the analyzer context is used by default.
+     *
+     * @param metrics
+     *            the metrics listener or {@code null} for disabling the metrics
+     */
+    public final void registerMetrics(StyleMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Obtains the metrics listener used by this analyzer.
+     *
+     * @return the metrics listener or {@code null} when the metrics are disabled
+     */
+    public final StyleMetrics getMetrics() {
+        return metrics;
+    }
+
+    
+
+    /**
+     * Enables recording the rule coverage. When registered, all the selectors that match an element
+     * are recorded so that the unused rules may be found and pruned later.
+     *
+     * @param coverage
+     *            the coverage or {@code null} for disabling the recording (the default)
+     */
+    public final void setRuleCoverage(RuleCoverage coverage) {
+        this.coverage = coverage;
+    }
+
+    /**
+     * Obtains the rule coverage used by this analyzer.
+     *
+     * @return the coverage or {@code null} when the coverage is not recorded
+     */
+    public final RuleCoverage getRuleCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Configures the storage of the resulting style maps. When enabled, {@link CompactStyleMap}s are
+     * created that store the styles in arrays indexed by the element traversal order and look up the
+     * elements by their identity. This reduces the memory overhead for large documents and avoids
+     * calling the DOM {@code hashCode()} and {@code equals()} implementations.
+     *
+     * @param compact
+     *            {@code true} for using the compact style maps
+     */
+    public final void setCompactStyleMaps(boolean compact) {
+        this.compactStyleMaps = compact;
+    }
+
+    /**
+     * Checks whether the compact style maps are created.
+     *
+     * @return {@code true} when {@link CompactStyleMap}s are created
+     */
+    public final boolean isCompactStyleMaps() {
+        return compactStyleMaps;
+    }
+
+    /**
+     * Enables the resolution of the lengths. When enabled, the lengths of the elements are resolved
+     * to absolute pixel values top-down after their styles have been computed, using the computed
+     * font size of the parent element and the display area dimensions of the media specification.
+     * The results are available using {@link NodeData#getComputedLengths()}.
+     *
+     * @param resolve
+     *            {@code true} for resolving the lengths
+     */
+    public final void setResolveLengths(boolean resolve) {
+        this.resolveLengths = resolve;
+    }
+
+    /**
+     * Checks whether the lengths are resolved to absolute values.
+     *
+     * @return {@code true} when the lengths are resolved
+     */
+    public final boolean isResolveLengths() {
+        return resolveLengths;
+    }
+
+    /**
+     * Uses the rules classified in advance for the leading style sheets of this analyzer. When
+     * a document is evaluated for the same media specification, only the remaining style sheets
+     * are classified. The shared rules are not modified so that they may be used by multiple
+     * analyzers concurrently.
+     *
+     * @param shared
+     *            the classified rules or {@code null} for classifying all the style sheets
+     */
+    final void setSharedRules(SharedRules shared) {
+        this.sharedRules = shared;
+    }
+
+    /**
+     * Enables the incremental restyling of the style maps. When enabled, the analyzer keeps the document,
+     * the assigned declarations and the pseudo-class dependencies of the elements after each
+     * single-media {@link #evaluateDOM(Document, MediaSpec, boolean)} call so that the resulting style map
+     * may be updated later using the {@code restyle()} methods. The state is not kept by default.
+     *
+     * @param restylable
+     *            {@code true} for keeping the state needed for restyling
+     */
+    public final void setRestylable(boolean restylable) {
+        this.restylable = restylable;
+        if (!restylable)
+            clearRestyleState();
+    }
+
+    /**
+     * Checks whether the state needed for restyling is kept after the evaluation.
+     *
+     * @return {@code true} when the style maps may be restyled
+     */
+    public final boolean isRestylable() {
+        return restylable;
+    }
+
 	/**
 	 * Evaluates CSS properties of DOM tree
 	 * 
@@ -131,48 +326,152 @@ public class Analyzer {
 	 * @return Map where each element contains its CSS properties
 	 */
 	public StyleMap evaluateDOM(Document doc, MediaSpec media, final boolean inherit) {
+		final CSSContext previous = context.bind();
+		try {
+			DeclarationMap declarations = assingDeclarationsToDOM(doc, media, inherit);
+			lengthResolver = resolveLengths ? new LengthResolver(media) : null;
+			StyleMap styles = evaluateDeclarations(doc, declarations, inherit);
+			if (restylable) {
+				// keep the results for restyling
+				lastDocument = doc;
+				lastDeclarations = declarations;
+				lastStyles = styles;
+				lastInherit = inherit;
+			}
+			return styles;
+		} finally {
+			CSSContext.unbind(previous);
+		}
+	}
 
-		DeclarationMap declarations = assingDeclarationsToDOM(doc, media, inherit);
+   public StyleMap evaluateDOM(Document doc, String media, final boolean inherit) {
+       return evaluateDOM(doc, new MediaSpec(media), inherit);
+   }
 
-		StyleMap nodes = new StyleMap(declarations.size());
+	/**
+	 * Evaluates CSS properties of DOM tree for multiple media at once. The media
+	 * specifications are partitioned to groups that match the same media rules of the
+	 * style sheets (e.g. the viewport widths that lie between the same pair of breakpoints).
+	 * The selectors are matched only once for all the media; the declarations are then
+	 * cascaded once per group.
+	 * 
+	 * @param doc
+	 *            Document tree
+	 * @param media
+	 *            The list of media specifications to be used
+	 * @param inherit
+	 *            Use inheritance
+	 * @return The list of style maps corresponding to the individual media specifications.
+	 *         The media specifications that belong to the same group share the same
+	 *         style map instance.
+	 * @see AnalyzerUtil#getMediaBreakpoints(List, MediaSpec.Feature)
+	 */
+	public List<StyleMap> evaluateDOM(Document doc, List<MediaSpec> media, final boolean inherit) {
+		final CSSContext previous = context.bind();
+		try {
+			// partition the media by the media rules they match
+			final List<RuleMedia> mediaRules = AnalyzerUtil.getMediaRules(sheets);
+			final Map<BitSet, Integer> groupIndex = new LinkedHashMap<BitSet, Integer>();
+			final int[] specGroups = new int[media.size()];
+			for (int i = 0; i < media.size(); i++) {
+				final BitSet signature = AnalyzerUtil.getMediaSignature(mediaRules, media.get(i));
+				Integer gi = groupIndex.get(signature);
+				if (gi == null) {
+					gi = groupIndex.size();
+					groupIndex.put(signature, gi);
+				}
+				specGroups[i] = gi;
+			}
+			final BitSet[] signatures = groupIndex.keySet().toArray(new BitSet[groupIndex.size()]);
+			log.debug("{} media specifications partitioned to {} groups", media.size(), signatures.length);
+		
+			final StyleMap[] maps = new StyleMap[signatures.length];
+			if (signatures.length == 1) {
+				maps[0] = evaluateDOM(doc, media.get(0), inherit);
+			} else if (signatures.length > 1) {
+				// the media rule index of the rule sets contained in media rules
+				final Map<RuleSet, Integer> mediaIndex = new IdentityHashMap<RuleSet, Integer>();
+				for (int i = 0; i < mediaRules.size(); i++) {
+					for (RuleSet rule : mediaRules.get(i))
+						mediaIndex.put(rule, i);
+				}
+				// classify all the rules regardless on the media
+				classifyAllSheets(new MediaSpecAll());
+				clearRestyleState(); // the rules are not classified for a single media, no restyling
+
+				final DeclarationMap[] declarations = new DeclarationMap[signatures.length];
+				for (int i = 0; i < declarations.length; i++)
+					declarations[i] = new DeclarationMap();
+				if (rules != null && !rules.isEmpty()) {
+					Traversal<DeclarationMap[]> traversal = new Traversal<DeclarationMap[]>(
+							doc, (Object) rules, NodeFilter.SHOW_ELEMENT) {
+						protected void processNode(DeclarationMap[] result,
+								Node current, Object source) {
+							assignDeclarationsToElement(result, signatures, mediaIndex,
+									ancestors, depth, (Element) current, (Holder) source);
+						}
+					};
+					traversal.listTraversal(declarations);
+				}
+				for (int i = 0; i < maps.length; i++) {
+					lengthResolver = resolveLengths ? new LengthResolver(getGroupMedia(media, specGroups, i)) : null;
+					maps[i] = evaluateDeclarations(doc, declarations[i], inherit);
+				}
+			}
+		
+			final List<StyleMap> ret = new ArrayList<StyleMap>(media.size());
+			for (int i = 0; i < specGroups.length; i++)
+				ret.add(maps[specGroups[i]]);
+			return ret;
+		} finally {
+			CSSContext.unbind(previous);
+		}
+	}
+	
+	/**
+	 * Obtains the media specification used for resolving the viewport units of a group of media
+	 * specifications that share the same style map.
+	 * 
+	 * @return the first specification of the group or {@code null} when the display area
+	 *         dimensions differ within the group
+	 */
+	private MediaSpec getGroupMedia(List<MediaSpec> media, int[] specGroups, int group) {
+		MediaSpec ret = null;
+		for (int i = 0; i < specGroups.length; i++) {
+			if (specGroups[i] == group) {
+				final MediaSpec spec = media.get(i);
+				if (ret == null)
+					ret = spec;
+				else if (ret.getWidth() != spec.getWidth() || ret.getHeight() != spec.getHeight())
+					return null;
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * Computes the resulting style of the individual elements from the declarations
+	 * assigned to them.
+	 * 
+	 * @param doc
+	 *            Document tree
+	 * @param declarations
+	 *            The declarations assigned to the elements
+	 * @param inherit
+	 *            Use inheritance
+	 * @return Map where each element contains its CSS properties
+	 */
+	protected StyleMap evaluateDeclarations(Document doc, DeclarationMap declarations, final boolean inherit) {
+
+		StyleMap nodes = createStyleMap(declarations.size());
 
 		Traversal<StyleMap> traversal = new Traversal<StyleMap>(
 				doc, (Object) declarations, NodeFilter.SHOW_ELEMENT) {
 			
 			@Override
 			protected void processNode(StyleMap result, Node current, Object source) {
-
-			    NodeData main = CSSFactory.createNodeData();
-			    
-				// for all declarations available in the main list (pseudo=null)
-				List<Declaration> declarations = ((DeclarationMap) source).get((Element) current, null);
-				if (declarations != null) 
-				{
-					for (Declaration d : declarations) {
-						main.push(d);
-					}
-					if (inherit)
-						main.inheritFrom(result.get((Element) walker.parentNode(), null));
-				}
-				// concretize values and store them
-				result.put((Element) current, null, main.concretize());
-				
-				//repeat for the pseudo classes (if any)
-				for (PseudoElementType pseudo : ((DeclarationMap) source).pseudoSet((Element) current))
-				{
-				    NodeData pdata = CSSFactory.createNodeData();
-	                declarations = ((DeclarationMap) source).get((Element) current, pseudo);
-	                if (declarations != null) 
-	                {
-	                    for (Declaration d : declarations) {
-	                        pdata.push(d);
-	                    }
-                        pdata.inheritFrom(main); //always inherit from the main element style
-	                }
-	                // concretize values and store them
-	                result.put((Element) current, pseudo, pdata.concretize());
-				}
-				
+				evaluateElement(result, (DeclarationMap) source, (Element) current,
+						depth > 0 ? (Element) ancestors[depth - 1] : null, inherit);
 			}
 		};
 
@@ -181,9 +480,451 @@ public class Analyzer {
 		return nodes;
 	}
 
-   public StyleMap evaluateDOM(Document doc, String media, final boolean inherit) {
-       return evaluateDOM(doc, new MediaSpec(media), inherit);
-   }
+	/**
+	 * Creates an empty style map.
+	 * 
+	 * @param size
+	 *            The expected number of elements
+	 * @return The new style map
+	 */
+	protected StyleMap createStyleMap(int size) {
+		if (compactStyleMaps)
+			return new CompactStyleMap(size);
+		else
+			return new StyleMap(size);
+	}
+	
+	/**
+	 * Computes the resulting style of a single element and its pseudo-elements and stores it
+	 * in the style map.
+	 * 
+	 * @param result
+	 *            The style map to store the style to
+	 * @param declarations
+	 *            The declarations assigned to the elements
+	 * @param e
+	 *            The element to be processed
+	 * @param parent
+	 *            The parent element whose style has already been computed or {@code null}
+	 *            for the root element
+	 * @param inherit
+	 *            Use inheritance
+	 */
+	protected void evaluateElement(StyleMap result, DeclarationMap declarations,
+			Element e, Element parent, boolean inherit) {
+
+	    final StyleMetrics metrics = this.metrics;
+		final long start = (metrics != null) ? System.nanoTime() : 0;
+		long inheritTime = 0;
+		
+	    NodeData main = context.createNodeData();
+	    
+		// for all declarations available in the main list (pseudo=null)
+		List<Declaration> decls = declarations.get(e, null);
+		if (decls != null) 
+		{
+			for (Declaration d : decls) {
+				main.push(d);
+			}
+			if (inherit) {
+				if (metrics != null) {
+					final long istart = System.nanoTime();
+					main.inheritFrom(result.get(parent, null));
+					inheritTime = System.nanoTime() - istart;
+				} else
+					main.inheritFrom(result.get(parent, null));
+			}
+		}
+		// concretize values and store them
+		result.put(e, null, main.concretize());
+		final LengthResolver resolver = lengthResolver;
+		if (resolver != null) {
+			final NodeData pdata = (parent == null) ? null : result.get(parent, null);
+			main.setComputedLengths(resolver.resolve(main, (pdata == null) ? null : pdata.getComputedLengths()));
+		}
+
+		//repeat for the pseudo classes (if any)
+		for (PseudoElementType pseudo : declarations.pseudoSet(e))
+		{
+		    NodeData pdata = context.createNodeData();
+            decls = declarations.get(e, pseudo);
+            if (decls != null) 
+            {
+                for (Declaration d : decls) {
+                    pdata.push(d);
+                }
+                pdata.inheritFrom(main); //always inherit from the main element style
+            }
+            // concretize values and store them
+            result.put(e, pseudo, pdata.concretize());
+            if (resolver != null)
+                pdata.setComputedLengths(resolver.resolve(pdata, main.getComputedLengths()));
+		}
+		
+		if (metrics != null)
+			metrics.elementStyled(e, System.nanoTime() - start - inheritTime, inheritTime);
+	}
+
+	/**
+	 * Updates a style map created by the last {@link #evaluateDOM(Document, MediaSpec, boolean)} call
+	 * after some modifications of the document. Only the elements whose matching rules or
+	 * inherited values may be affected by the changes are matched and evaluated again; they are
+	 * determined from the class names, IDs, attribute names and structural relations
+	 * used by the selectors of the style sheets. The declarations of the removed elements
+	 * are removed from the map.
+	 * 
+	 * <p>Changes of the inline styles (the {@code style} attributes) are not reflected because the
+	 * inline styles are parsed to the style sheets before the analysis.</p>
+	 * 
+	 * @param styles
+	 *            The style map to be updated. It must be the map returned by the last single-media
+	 *            evaluation of this analyzer.
+	 * @param changes
+	 *            The changes of the document elements since the last evaluation or restyling
+	 * @return The set of elements whose styles have been recomputed
+	 * @throws IllegalStateException when restyling has not been enabled using {@link #setRestylable(boolean)}
+	 *            or the style map has not been created by the last single-media evaluation of this analyzer
+	 */
+	public Set<Element> restyle(StyleMap styles, Collection<ElementChange> changes) {
+		final CSSContext previous = context.bind();
+		try {
+		
+			checkRestyle(styles);
+			final DeclarationMap declarations = lastDeclarations;
+		
+			// the elements that must be matched again and the roots of the subtrees to be matched again
+			final Set<Element> rematch = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			final Set<Element> subtrees = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			for (ElementChange change : changes) {
+				final Element e = change.getElement();
+				if (dependencies.isUnsupported()) {
+					// the selectors cannot be analyzed, restyle everything
+					subtrees.add(lastDocument.getDocumentElement());
+					if (change.getKind() == ElementChange.Kind.REMOVED)
+						removeSubtree(styles, declarations, e);
+					continue;
+				}
+				switch (change.getKind()) {
+					case REMOVED:
+						removeSubtree(styles, declarations, e);
+						if (change.getParent() != null)
+							addChildrenChange(change.getParent(), rematch, subtrees);
+						break;
+					case INSERTED:
+						subtrees.add(e);
+						if (e.getParentNode() instanceof Element)
+							addChildrenChange((Element) e.getParentNode(), rematch, subtrees);
+						break;
+					case CHILDREN:
+						addChildrenChange(e, rematch, subtrees);
+						break;
+					default:
+						if (affects(change, SelectorDependencies.SIBLING))
+							addWithFollowingSiblings(e, subtrees);
+						else if (affects(change, SelectorDependencies.ANCESTOR))
+							subtrees.add(e);
+						else if (affects(change, SelectorDependencies.SUBJECT))
+							rematch.add(e);
+						break;
+				}
+			}
+		
+			// the complete set of elements to be matched (only those that remain in the document)
+			final Set<Element> matched = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			for (Element e : rematch) {
+				if (isInDocument(e, lastDocument))
+					matched.add(e);
+			}
+			for (Element root : subtrees) {
+				if (isInDocument(root, lastDocument))
+					addSubtree(root, matched);
+			}
+			log.debug("{} changes, {} elements to be matched", changes.size(), matched.size());
+			return restyleElements(styles, matched);
+		} finally {
+			CSSContext.unbind(previous);
+		}
+	}
+	
+	/**
+	 * Updates a style map created by the last {@link #evaluateDOM(Document, MediaSpec, boolean)} call
+	 * after the state of a dynamic pseudo-class (e.g. {@code :hover} or {@code :focus}) of an element
+	 * has changed in the match condition used by this analyzer. Only the elements whose candidate
+	 * rules use the pseudo-class for this element, its ancestors or its preceding siblings are
+	 * matched again; with inheritance, their subtrees are evaluated again.
+	 * 
+	 * @param styles
+	 *            The style map to be updated. It must be the map returned by the last single-media
+	 *            evaluation of this analyzer.
+	 * @param e
+	 *            The element whose pseudo-class state has changed
+	 * @param pseudoClass
+	 *            The pseudo-class whose state has changed
+	 * @return The set of elements whose styles have been recomputed
+	 * @throws IllegalStateException when restyling has not been enabled using {@link #setRestylable(boolean)}
+	 *            or the style map has not been created by the last single-media evaluation of this analyzer
+	 * @see #registerMatchCondition(MatchCondition)
+	 */
+	public Set<Element> restyle(StyleMap styles, Element e, PseudoClassType pseudoClass) {
+		final CSSContext previous = context.bind();
+		try {
+		
+			checkRestyle(styles);
+			final long bit = OrderedRule.pseudoClassBit(pseudoClass);
+			final Set<Element> matched = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			final long[] masks = pseudoDependencies.get(e);
+			if (masks != null && (masks[0] & bit) != 0)
+				matched.add(e);
+			// the pseudo-class may be tested on the descendants and the following siblings
+			final Set<Element> candidates = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+			addSubtree(e, candidates);
+			candidates.remove(e);
+			if (dependencies.hasSiblingCombinators()) {
+				for (Node n = e.getNextSibling(); n != null; n = n.getNextSibling()) {
+					if (n.getNodeType() == Node.ELEMENT_NODE)
+						addSubtree((Element) n, candidates);
+				}
+			}
+			for (Element c : candidates) {
+				final long[] cmasks = pseudoDependencies.get(c);
+				if (cmasks != null && (cmasks[1] & bit) != 0)
+					matched.add(c);
+			}
+			log.debug(":{} changed, {} elements to be matched", pseudoClass.getName(), matched.size());
+			return restyleElements(styles, matched);
+		} finally {
+			CSSContext.unbind(previous);
+		}
+	}
+	
+	private void checkRestyle(StyleMap styles) {
+		if (!restylable)
+			throw new IllegalStateException("Restyling is not enabled for this analyzer, see setRestylable()");
+		if (styles == null || styles != lastStyles)
+			throw new IllegalStateException("The style map has not been created by the last evaluateDOM() call of this analyzer");
+		if (dependencies == null)
+			dependencies = new SelectorDependencies(sheets);
+	}
+	
+	private void clearRestyleState() {
+		lastDocument = null;
+		lastDeclarations = null;
+		lastStyles = null;
+		pseudoDependencies = null;
+	}
+	
+	/**
+	 * Matches the given elements again and recomputes the affected styles.
+	 */
+	private Set<Element> restyleElements(StyleMap styles, Set<Element> matched) {
+		
+		final DeclarationMap declarations = lastDeclarations;
+		// assign the declarations again
+		if (rules != null && !rules.isEmpty()) {
+			final DeclarationMap[] dest = new DeclarationMap[] {declarations};
+			final Element docRoot = lastDocument.getDocumentElement();
+			for (Element e : matched) {
+				if (!lastInherit && e == docRoot)
+					continue; // consistent with the list traversal in assingDeclarationsToDOM()
+				declarations.remove(e);
+				final Node[] ancestors = ancestorsOf(e);
+				assignDeclarationsToElement(dest, null, null, ancestors, ancestors.length, e, rules);
+			}
+		}
+		
+		// evaluate the styles; with inheritance, whole subtrees of the matched elements are affected
+		final Set<Element> restyled = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+		if (lastInherit) {
+			for (Element root : findRoots(matched))
+				evaluateSubtree(styles, declarations, root, restyled);
+		} else {
+			for (Element e : matched) {
+				styles.remove(e);
+				evaluateElement(styles, declarations, e, parentElement(e), false);
+				restyled.add(e);
+			}
+		}
+		return restyled;
+	}
+	
+	/**
+	 * Checks whether a change may affect the matching of a simple selector at the given position.
+	 */
+	private boolean affects(ElementChange change, int position) {
+		final String name = change.getName();
+		switch (change.getKind()) {
+			case CLASS:
+				return dependencies.dependsOnClass(position, name);
+			case ID:
+				return dependencies.dependsOnID(position, name);
+			default:
+				if ("class".equalsIgnoreCase(name))
+					return dependencies.dependsOnClass(position, null);
+				else if ("id".equalsIgnoreCase(name))
+					return dependencies.dependsOnID(position, null);
+				else
+					return dependencies.dependsOnAttribute(position, name);
+		}
+	}
+	
+	/**
+	 * Adds the elements affected by adding or removing child nodes of an element.
+	 */
+	private void addChildrenChange(Element parent, Set<Element> rematch, Set<Element> subtrees) {
+		// :empty
+		if (dependencies.dependsOnChildren(SelectorDependencies.SIBLING))
+			addWithFollowingSiblings(parent, subtrees);
+		else if (dependencies.dependsOnChildren(SelectorDependencies.ANCESTOR))
+			subtrees.add(parent);
+		else if (dependencies.dependsOnChildren(SelectorDependencies.SUBJECT))
+			rematch.add(parent);
+		// the positions of the remaining children
+		final boolean deep = dependencies.hasSiblingCombinators()
+				|| dependencies.isStructural(SelectorDependencies.ANCESTOR)
+				|| dependencies.isStructural(SelectorDependencies.SIBLING);
+		if (deep || dependencies.isStructural(SelectorDependencies.SUBJECT)) {
+			for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+				if (n.getNodeType() == Node.ELEMENT_NODE) {
+					if (deep)
+						subtrees.add((Element) n);
+					else
+						rematch.add((Element) n);
+				}
+			}
+		}
+	}
+	
+	private void addWithFollowingSiblings(Element e, Set<Element> subtrees) {
+		subtrees.add(e);
+		for (Node n = e.getNextSibling(); n != null; n = n.getNextSibling()) {
+			if (n.getNodeType() == Node.ELEMENT_NODE)
+				subtrees.add((Element) n);
+		}
+	}
+	
+	private void addSubtree(Element root, Set<Element> dest) {
+		final Deque<Element> stack = new ArrayDeque<Element>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			final Element e = stack.pop();
+			if (dest.add(e)) {
+				for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+					if (n.getNodeType() == Node.ELEMENT_NODE)
+						stack.push((Element) n);
+				}
+			}
+		}
+	}
+	
+	private void removeSubtree(StyleMap styles, DeclarationMap declarations, Element root) {
+		final Set<Element> removed = Collections.newSetFromMap(new IdentityHashMap<Element, Boolean>());
+		addSubtree(root, removed);
+		for (Element e : removed) {
+			styles.remove(e);
+			declarations.remove(e);
+			pseudoDependencies.remove(e);
+		}
+	}
+	
+	/**
+	 * Evaluates the styles of a subtree in the document order so that the parent styles
+	 * are always evaluated before their children.
+	 */
+	private void evaluateSubtree(StyleMap styles, DeclarationMap declarations, Element root, Set<Element> restyled) {
+		final Deque<Element> stack = new ArrayDeque<Element>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			final Element e = stack.pop();
+			styles.remove(e);
+			evaluateElement(styles, declarations, e, parentElement(e), true);
+			restyled.add(e);
+			for (Node n = e.getLastChild(); n != null; n = n.getPreviousSibling()) {
+				if (n.getNodeType() == Node.ELEMENT_NODE)
+					stack.push((Element) n);
+			}
+		}
+	}
+	
+	private static Element parentElement(Element e) {
+		final Node parent = e.getParentNode();
+		return (parent != null && parent.getNodeType() == Node.ELEMENT_NODE) ? (Element) parent : null;
+	}
+	
+	/**
+	 * Finds the elements of a set that have no ancestor in the same set. The result of every
+	 * visited ancestor is remembered so that each node is examined once only.
+	 */
+	private static List<Element> findRoots(Set<Element> elements) {
+		// for the visited nodes: whether there is an element of the set among their ancestors or themselves
+		final Map<Element, Boolean> covered = new IdentityHashMap<Element, Boolean>();
+		final List<Element> path = new ArrayList<Element>();
+		final List<Element> ret = new ArrayList<Element>();
+		for (Element e : elements) {
+			boolean inside = false;
+			path.clear();
+			for (Element p = parentElement(e); p != null; p = parentElement(p)) {
+				final Boolean known = covered.get(p);
+				if (known != null) {
+					inside = known;
+					break;
+				}
+				if (elements.contains(p)) {
+					inside = true;
+					break;
+				}
+				path.add(p);
+			}
+			for (Element p : path)
+				covered.put(p, inside);
+			covered.put(e, Boolean.TRUE);
+			if (!inside)
+				ret.add(e);
+		}
+		return ret;
+	}
+	
+	private static boolean isInDocument(Element e, Document doc) {
+		Node n = e;
+		while (n.getParentNode() != null)
+			n = n.getParentNode();
+		return n == doc;
+	}
+	
+	/**
+	 * Obtains the ancestor elements of an element in the top-down order.
+	 */
+	private static Node[] ancestorsOf(Element e) {
+		int n = 0;
+		for (Element p = parentElement(e); p != null; p = parentElement(p))
+			n++;
+		final Node[] ret = new Node[n];
+		for (Element p = parentElement(e); p != null; p = parentElement(p))
+			ret[--n] = p;
+		return ret;
+	}
+	
+	/**
+	 * Stores the ancestors of the current walker node to {@link #walkerAncestors} in the top-down order.
+	 * The buffer is reused by the subsequent calls. The walker position is not changed.
+	 * 
+	 * @return the number of the ancestors stored
+	 */
+	private int walkerAncestors(TreeWalker w) {
+		final Node current = w.getCurrentNode();
+		int n = 0;
+		for (Node p = w.parentNode(); p != null; p = w.parentNode()) {
+			if (n == walkerAncestors.length)
+				walkerAncestors = Arrays.copyOf(walkerAncestors, n * 2);
+			walkerAncestors[n++] = p;
+		}
+		w.setCurrentNode(current);
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			final Node tmp = walkerAncestors[i];
+			walkerAncestors[i] = walkerAncestors[j];
+			walkerAncestors[j] = tmp;
+		}
+		return n;
+	}
 
 	/**
 	 * Creates map of declarations assigned to each element of a DOM tree
@@ -200,6 +941,7 @@ public class Analyzer {
 
 		// classify the rules
 	    classifyAllSheets(media);
+	    pseudoDependencies = restylable ? new IdentityHashMap<Element, long[]>() : null;
 		
 		// resulting map
 		DeclarationMap declarations = new DeclarationMap();
@@ -211,8 +953,8 @@ public class Analyzer {
     				doc, (Object) rules, NodeFilter.SHOW_ELEMENT) {
     			protected void processNode(DeclarationMap result,
     					Node current, Object source) {
-    				assignDeclarationsToElement(result, walker, (Element) current,
-    						(Holder) source);
+    				assignDeclarationsToElement(new DeclarationMap[] {result}, null, null,
+    						ancestors, depth, (Element) current, (Holder) source);
     			}
     		};
     
@@ -243,107 +985,166 @@ public class Analyzer {
 	protected void assignDeclarationsToElement(
 			DeclarationMap declarations, TreeWalker walker,
 			Element e, Holder holder) {
+		assignDeclarationsToElement(new DeclarationMap[] {declarations}, null, null, walker, e, holder);
+	}
+
+	/**
+	 * Assigns declarations to one element for several groups of media at once. Each selector
+	 * is only matched once; the declarations of the matching rules are then assigned in each
+	 * group where the rule applies.
+	 * 
+	 * @param declarations
+	 *            Declarations of all processed elements, one map for each media group
+	 * @param signatures
+	 *            The media signatures of the groups (the indices of the applicable
+	 *            media rules) or {@code null} when all the rules apply
+	 * @param mediaIndex
+	 *            The index of the media rule for the rule sets that are contained in
+	 *            media rules or {@code null} when all the rules apply
+	 * @param walker
+	 *            Tree walker
+	 * @param e
+	 *            DOM Element
+	 * @param holder
+	 *            Wrap
+	 */
+	protected void assignDeclarationsToElement(
+			DeclarationMap[] declarations, BitSet[] signatures, Map<RuleSet, Integer> mediaIndex,
+			TreeWalker walker, Element e, Holder holder) {
+		final int depth = walkerAncestors(walker);
+		assignDeclarationsToElement(declarations, signatures, mediaIndex, walkerAncestors, depth, e, holder);
+	}
+
+	/**
+	 * Assigns declarations to one element for several groups of media at once. The combinators
+	 * are evaluated using the given array of ancestors instead of a tree walker.
+	 * 
+	 * @param declarations
+	 *            Declarations of all processed elements, one map for each media group
+	 * @param signatures
+	 *            The media signatures of the groups (the indices of the applicable
+	 *            media rules) or {@code null} when all the rules apply
+	 * @param mediaIndex
+	 *            The index of the media rule for the rule sets that are contained in
+	 *            media rules or {@code null} when all the rules apply
+	 * @param ancestors
+	 *            The ancestor elements of the element in the top-down order
+	 * @param depth
+	 *            The number of valid ancestors in the array; the parent is at {@code depth - 1}
+	 * @param e
+	 *            DOM Element
+	 * @param holder
+	 *            Wrap
+	 */
+	protected void assignDeclarationsToElement(
+			DeclarationMap[] declarations, BitSet[] signatures, Map<RuleSet, Integer> mediaIndex,
+			Node[] ancestors, int depth, Element e, Holder holder) {
 
 		if(log.isDebugEnabled()) {
 			log.debug("Traversal of {} {}.", e.getNodeName(), e.getNodeValue());
 		}
 		
-		// create set of possible candidates applicable to given element
-		// set is automatically filtered to not contain duplicates
-		Set<OrderedRule> candidates = new HashSet<OrderedRule>();
-
-		// match element classes
-		for (String cname : matcher.elementClasses(e)) {
-			// holder contains rule with given class
-			List<OrderedRule> rules = holder.get(HolderItem.CLASS, cname.toLowerCase());
-			if (rules != null)
-				candidates.addAll(rules);
-		}
-		log.trace("After CLASSes {} total candidates.", candidates.size());
-
-		// match IDs
-		String id = matcher.elementID(e);
-		if (id != null && id.length() != 0) {
-			List<OrderedRule> rules = holder.get(HolderItem.ID, id.toLowerCase());
-			if (rules != null)
-				candidates.addAll(rules);
-		}
-		log.trace("After IDs {} total candidates.", candidates.size());
+		// rules that may apply to given element sorted in order as they were found in CSS definition
+		List<OrderedRule> clist = holder.getCandidates(matcher.elementClasses(e), matcher.elementID(e), matcher.elementName(e), e);
 		
-		// match elements
-		String name = matcher.elementName(e);
-		if (name != null) {
-			List<OrderedRule> rules = holder.get(HolderItem.ELEMENT, name.toLowerCase());
-			if (rules != null)
-				candidates.addAll(rules);
-		}
-		log.trace("After ELEMENTs {} total candidates.", candidates.size());
-
-		// others
-		candidates.addAll(holder.get(HolderItem.OTHER, null));
-		
-	    // transform to list to speed up traversal
-		// and sort rules in order as they were found in CSS definition
-		List<OrderedRule> clist = new ArrayList<OrderedRule>(candidates);
-		Collections.sort(clist);
-		
-		log.debug("Totally {} candidates.", candidates.size());
+		log.debug("Totally {} candidates.", clist.size());
 		log.trace("With values: {}", clist);
+		
+		// remember the pseudo-classes used by the candidates
+		if (pseudoDependencies != null) {
+			long subject = 0, context = 0;
+			for (OrderedRule orule : clist) {
+				subject |= orule.getSubjectPseudoClasses();
+				context |= orule.getContextPseudoClasses();
+			}
+			if (subject != 0 || context != 0)
+				pseudoDependencies.put(e, new long[] {subject, context});
+			else
+				pseudoDependencies.remove(e);
+		}
 
-		// resulting list of declaration for this element with no pseudo-selectors (main list)(local cache)
-		List<Declaration> eldecl = new ArrayList<Declaration>();
+		// resulting lists of declaration for this element with no pseudo-selectors (main list)(local cache)
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<Declaration>[] eldecl = new List[declarations.length];
+		for (int g = 0; g < eldecl.length; g++)
+			eldecl[g] = new ArrayList<Declaration>();
 		
 		// existing pseudo selectors found
 		Set<PseudoElementType> pseudos = new HashSet<>();
 
+		// metrics of matching
+		final StyleMetrics metrics = this.metrics;
+		final RuleCoverage coverage = this.coverage;
+		int tests = 0, matches = 0;
+
 		// for all candidates
 		for (OrderedRule orule : clist) {
 		    
 			final RuleSet rule = orule.getRule();
-			StyleSheet sheet = rule.getStyleSheet();
-			if (sheet == null)
-			    log.warn("No source style sheet set for rule: {}", rule.toString());
-			StyleSheet.Origin origin = (sheet == null) ? StyleSheet.Origin.AGENT : sheet.getOrigin();
+			final Integer mindex = (mediaIndex == null) ? null : mediaIndex.get(rule);
+			if (metrics != null)
+				metrics.ruleCandidate(rule);
 			
 			// for all selectors inside
-			for (CombinedSelector s : rule.getSelectors()) {
-				// this method does automatic rewind of walker
-				if (!matchSelector(s, e, walker)) {
+			final CombinedSelector[] selectors = rule.getSelectors();
+			for (int si = 0; si < selectors.length; si++) {
+				final CombinedSelector s = selectors[si];
+				final boolean matched;
+				if (metrics != null) {
+					matched = matchMeasured(rule, s, e, ancestors, depth, metrics);
+					tests++;
+					if (matched)
+						matches++;
+				} else
+					matched = matchSelector(s, e, ancestors, depth);
+				if (!matched) {
 					log.trace("CombinedSelector \"{}\" NOT matched!", s);
 					continue;
 				}
 
 				log.trace("CombinedSelector \"{}\" matched", s);
-				
+				if (coverage != null)
+					coverage.matched(s);
+
 				PseudoElementType pseudo = s.getPseudoElementType();
-                CombinedSelector.Specificity spec = s.computeSpecificity();
-				if (pseudo == null)
-				{
-    				// add to main list
-    				for (Declaration d : rule)
-    					eldecl.add(new AssignedDeclaration(d, spec, origin));
-				}
-				else
-				{
-				    // remember the pseudo element
-				    pseudos.add(pseudo);
-				    // add to pseudo lists
-                    for (Declaration d : rule)
-                        declarations.addDeclaration(e, pseudo, new AssignedDeclaration(d, spec, origin));
-				}
+                AssignedDeclaration[] assigned = orule.getAssignedDeclarations(si);
+                for (int g = 0; g < declarations.length; g++) {
+                    // skip the groups where the containing media rule does not apply
+                    if (mindex != null && !signatures[g].get(mindex))
+                        continue;
+    				if (pseudo == null)
+    				{
+        				// add to main list
+        				for (AssignedDeclaration d : assigned)
+        					eldecl[g].add(d);
+    				}
+    				else
+    				{
+    				    // remember the pseudo element
+    				    pseudos.add(pseudo);
+    				    // add to pseudo lists
+                        for (AssignedDeclaration d : assigned)
+                            declarations[g].addDeclaration(e, pseudo, d);
+    				}
+                }
 
 			}
 		}
 
-		// sort declarations
-		Collections.sort(eldecl); //sort the main list
-		log.debug("Sorted {} declarations.", eldecl.size());
-		log.trace("With values: {}", eldecl);
-		for (PseudoElementType p : pseudos)
-		    declarations.sortDeclarations(e, p); //sort pseudos
-		
-		// set the main list
-		declarations.put(e, null, eldecl);
+		if (metrics != null)
+			metrics.elementMatched(e, clist.size(), tests, matches);
+
+		for (int g = 0; g < declarations.length; g++) {
+    		// sort declarations
+    		CascadeKey.sort(eldecl[g]); //sort the main list
+    		log.debug("Sorted {} declarations.", eldecl[g].size());
+    		log.trace("With values: {}", eldecl[g]);
+    		for (PseudoElementType p : pseudos)
+    		    declarations[g].sortDeclarations(e, p); //sort pseudos
+    		
+    		// set the main list
+    		declarations[g].put(e, null, eldecl[g]);
+		}
 	}
 
 	protected boolean elementSelectorMatches(final Selector s, final Element e) {
@@ -351,43 +1152,85 @@ public class Analyzer {
 	}
 
 	protected boolean matchSelector(CombinedSelector sel, Element e, TreeWalker w) {
+		final int depth = walkerAncestors(w);
+		return matchSelector(sel, e, walkerAncestors, depth);
+	}
+
+	/**
+	 * Matches a combined selector against an element. The ancestors are read from the given
+	 * array; the siblings are obtained from the DOM.
+	 * 
+	 * @param sel
+	 *            The selector to be matched
+	 * @param e
+	 *            The element
+	 * @param ancestors
+	 *            The ancestor elements of the element in the top-down order
+	 * @param depth
+	 *            The number of valid ancestors in the array; the parent is at {@code depth - 1}
+	 * @return {@code true} when the selector matches the element
+	 */
+	protected boolean matchSelector(CombinedSelector sel, Element e, Node[] ancestors, int depth) {
+		return matchSelector(sel, e, ancestors, depth, null);
+	}
 
-		// store current walker position
-		Node current = w.getCurrentNode();
+	/**
+	 * Matches a combined selector against an element and counts the nodes visited by the combinators.
+	 * 
+	 * @param sel
+	 *            The selector to be matched
+	 * @param e
+	 *            The element
+	 * @param ancestors
+	 *            The ancestor elements of the element in the top-down order
+	 * @param depth
+	 *            The number of valid ancestors in the array; the parent is at {@code depth - 1}
+	 * @param visits
+	 *            A single-element array whose value is increased by the number of visited nodes
+	 *            or {@code null} when the visits should not be counted
+	 * @return {@code true} when the selector matches the element
+	 */
+	protected boolean matchSelector(CombinedSelector sel, Element e, Node[] ancestors, int depth, int[] visits) {
 
 		boolean retval = false;
 		Selector.Combinator combinator = null;
+		Element current = e;
+		int level = depth; // the ancestors of current are at 0..level-1
 		// traverse simple selector backwards
 		for (int i = sel.size() - 1; i >= 0; i--) {
 			// last simple selector
 			Selector s = sel.get(i);
-			//log.trace("Iterating loop with selector {}, combinator {}",	s, combinator);
 
 			// decide according to combinator anti-pattern
 			if (combinator == null) {
 				retval = this.elementSelectorMatches(s, e);
 			} else if (combinator == Selector.Combinator.ADJACENT) {
-				Element adjacent = (Element) w.previousSibling();
+				current = previousElementSibling(current);
 				retval = false;
-				if (adjacent != null)
-					retval = this.elementSelectorMatches(s, adjacent);
+				if (current != null) {
+					if (visits != null) visits[0]++;
+					retval = this.elementSelectorMatches(s, current);
+				}
             } else if (combinator == Selector.Combinator.PRECEDING) {
-                Element preceding;
                 retval = false;
-                while (!retval && (preceding = (Element) w.previousSibling()) != null) {
-                    retval = this.elementSelectorMatches(s, preceding);
+                while (!retval && (current = previousElementSibling(current)) != null) {
+                    if (visits != null) visits[0]++;
+                    retval = this.elementSelectorMatches(s, current);
                 }
 			} else if (combinator == Selector.Combinator.DESCENDANT) {
-                Element ancestor;
                 retval = false;
-                while (!retval && (ancestor = (Element) w.parentNode()) != null) {
-                    retval = this.elementSelectorMatches(s, ancestor);
+                while (!retval && level > 0) {
+                    current = (Element) ancestors[--level];
+                    if (visits != null) visits[0]++;
+                    retval = this.elementSelectorMatches(s, current);
                 }
 			} else if (combinator == Selector.Combinator.CHILD) {
-                Element parent = (Element) w.parentNode();
                 retval = false;
-                if (parent != null)
-                    retval = this.elementSelectorMatches(s, parent);
+                if (level > 0) {
+                    current = (Element) ancestors[--level];
+                    if (visits != null) visits[0]++;
+                    retval = this.elementSelectorMatches(s, current);
+                }
 			}
 
 			// set combinator for next loop
@@ -398,10 +1241,29 @@ public class Analyzer {
 				break;
 		}
 
-		// restore walker position
-		w.setCurrentNode(current);
 		return retval;
 	}
+	
+	/**
+	 * Matches a selector and reports the time and the visited nodes to the metrics listener.
+	 */
+	private boolean matchMeasured(RuleSet rule, CombinedSelector s, Element e, Node[] ancestors, int depth,
+			StyleMetrics metrics) {
+		final int[] visits = this.visits;
+		visits[0] = 0;
+		final long start = System.nanoTime();
+		final boolean matched = matchSelector(s, e, ancestors, depth, visits);
+		final long time = System.nanoTime() - start;
+		metrics.selectorTested(rule, s, matched, visits[0], time);
+		return matched;
+	}
+
+	private static Element previousElementSibling(Element e) {
+		Node n = e.getPreviousSibling();
+		while (n != null && n.getNodeType() != Node.ELEMENT_NODE)
+			n = n.getPreviousSibling();
+		return (Element) n;
+	}
 
 	/**
 	 * Classifies the rules in all the style sheets.
@@ -409,9 +1271,77 @@ public class Analyzer {
 	 */
 	protected void classifyAllSheets(MediaSpec mediaspec)
 	{
+	    if (sharedRules != null && sharedRules.appliesTo(sheets, mediaspec)) {
+	        classifyOwnSheets(mediaspec);
+	        return;
+	    }
 	    rules = new Holder();
 
-	    AnalyzerUtil.classifyAllSheets(sheets, rules, mediaspec);
+	    if (metrics != null) {
+	        final long start = System.nanoTime();
+	        final int count = AnalyzerUtil.classifyAllSheets(sheets, rules, mediaspec);
+	        metrics.rulesClassified(count, System.nanoTime() - start);
+	    } else
+	        AnalyzerUtil.classifyAllSheets(sheets, rules, mediaspec);
+	}
+	
+	/**
+	 * Classifies the rules in the style sheets that follow the shared ones and merges them with
+	 * the shared rules.
+	 * @param mediaspec The specification of the media for evaluating the media queries.
+	 */
+	private void classifyOwnSheets(MediaSpec mediaspec)
+	{
+	    final List<StyleSheet> own = sheets.subList(sharedRules.sheets.size(), sheets.size());
+	    final Holder ownRules = new Holder();
+	    if (metrics != null) {
+	        final long start = System.nanoTime();
+	        final int count = AnalyzerUtil.classifyAllSheets(own, ownRules, mediaspec, sharedRules.count);
+	        rules = Holder.union(sharedRules.rules, ownRules);
+	        metrics.rulesClassified(count, System.nanoTime() - start);
+	    } else {
+	        AnalyzerUtil.classifyAllSheets(own, ownRules, mediaspec, sharedRules.count);
+	        rules = Holder.union(sharedRules.rules, ownRules);
+	    }
+	}
+	
+	/**
+	 * The rules of a list of style sheets classified for a media specification in advance.
+	 * The instances are immutable and they may be shared by multiple analyzers whose lists
+	 * of style sheets start with the same style sheets.
+	 */
+	static final class SharedRules {
+	    private final List<StyleSheet> sheets;
+	    private final MediaSpec media;
+	    private final Holder rules;
+	    private final int count;
+	    
+	    public SharedRules(List<StyleSheet> sheets, MediaSpec media) {
+	        this.sheets = new ArrayList<StyleSheet>(sheets);
+	        this.media = media;
+	        this.rules = new Holder();
+	        this.count = AnalyzerUtil.classifyAllSheets(this.sheets, rules, media);
+	    }
+	    
+	    /**
+	     * Checks whether the rules may be used for the given style sheets and media.
+	     */
+	    public boolean appliesTo(List<StyleSheet> other, MediaSpec mediaspec) {
+	        if (mediaspec != media || other.size() < sheets.size())
+	            return false;
+	        for (int i = 0; i < sheets.size(); i++)
+	            if (other.get(i) != sheets.get(i))
+	                return false;
+	        return true;
+	    }
+	    
+	    public List<StyleSheet> getSheets() {
+	        return sheets;
+	    }
+	    
+	    public MediaSpec getMedia() {
+	        return media;
+	    }
 	}
 	
 	/**
@@ -420,7 +1350,7 @@ public class Analyzer {
 	 * @author kapy
 	 */
 	protected enum HolderItem {
-		ELEMENT(0), ID(1), CLASS(2), OTHER(3);
+		ELEMENT(0), ID(1), CLASS(2), OTHER(3), ELEMENT_DOM(4);
 
 		private int type;
 
@@ -443,11 +1373,17 @@ public class Analyzer {
 	protected static class HolderSelector {
 		public HolderItem item;
 		public String key;
+		public Element element;
 
 		public HolderSelector(HolderItem item, String key) {
 			this.item = item;
 			this.key = key;
 		}
+		
+		public HolderSelector(Element element) {
+			this.item = HolderItem.ELEMENT_DOM;
+			this.element = element;
+		}
 	}
 
 	/**
@@ -458,10 +1394,48 @@ public class Analyzer {
 	public static final class OrderedRule implements Comparable<OrderedRule> {
 	    private final RuleSet rule;
         private final int order;
+        /** specificities of the rule selectors */
+        private final CombinedSelector.Specificity[] specificities;
+        /** packed specificities of the rule selectors */
+        private final int[] packedSpecificities;
+        /** the rule declarations assigned with the specificity of each selector */
+        private final AssignedDeclaration[][] assigned;
+        /** the pseudo-classes used in the last simple selectors (bit mask of the type ordinals) */
+        private final long subjectPseudoClasses;
+        /** the pseudo-classes used in the remaining simple selectors (bit mask of the type ordinals) */
+        private final long contextPseudoClasses;
 	    
         public OrderedRule(RuleSet rule, int order) {
             this.rule = rule;
             this.order = order;
+            this.specificities = computeSpecificities(rule);
+            this.packedSpecificities = CascadeKey.packSpecificities(specificities);
+            this.assigned = assignDeclarations(rule, specificities, packedSpecificities);
+            long subject = 0, context = 0;
+            for (CombinedSelector cs : rule.getSelectors()) {
+                for (int i = 0; i < cs.size(); i++) {
+                    if (i == cs.size() - 1)
+                        subject |= pseudoClassMask(cs.get(i));
+                    else
+                        context |= pseudoClassMask(cs.get(i));
+                }
+            }
+            this.subjectPseudoClasses = subject;
+            this.contextPseudoClasses = context;
+        }
+        
+        /**
+         * Creates an ordered rule for the same rule set as the given template with a different order.
+         * The precomputed specificities and assigned declarations are shared with the template.
+         */
+        OrderedRule(OrderedRule template, int order) {
+            this.rule = template.rule;
+            this.order = order;
+            this.specificities = template.specificities;
+            this.packedSpecificities = template.packedSpecificities;
+            this.assigned = template.assigned;
+            this.subjectPseudoClasses = template.subjectPseudoClasses;
+            this.contextPseudoClasses = template.contextPseudoClasses;
         }
 
         public RuleSet getRule() {
@@ -472,6 +1446,129 @@ public class Analyzer {
             return order;
         }
 
+        /**
+         * Obtains the specificity of a selector of the rule.
+         * @param index the index of the selector in {@link RuleSet#getSelectors()}
+         * @return the specificity
+         */
+        public CombinedSelector.Specificity getSpecificity(int index) {
+            return specificities[index];
+        }
+        
+        /**
+         * Obtains the packed specificity of a selector of the rule.
+         * @param index the index of the selector in {@link RuleSet#getSelectors()}
+         * @return the specificity packed by {@link CascadeKey#packSpecificity(CombinedSelector.Specificity)}
+         */
+        public int getPackedSpecificity(int index) {
+            return packedSpecificities[index];
+        }
+        
+        /**
+         * Obtains the declarations of the rule assigned with the specificity of the given selector.
+         * The declarations are created once for the rule and shared by all the matching elements,
+         * they must not be modified.
+         * @param index the index of the selector in {@link RuleSet#getSelectors()}
+         * @return the assigned declarations in the order of the rule
+         */
+        public AssignedDeclaration[] getAssignedDeclarations(int index) {
+            return assigned[index];
+        }
+        
+        /**
+         * Checks whether the pseudo-class is used in the last simple selector of any selector of the rule,
+         * i.e. whether the rule matching may depend on the pseudo-class state of the styled element.
+         * Unlike {@link AnalyzerUtil#hasPseudoSelector(OrderedRule[], Element, MatchCondition, PseudoClassType)},
+         * the pseudo-classes nested in negations (e.g. {@code :not(:hover)}) are included as well.
+         * @param type the pseudo-class type
+         * @return {@code true} when the pseudo-class is used
+         */
+        public boolean hasSubjectPseudoClass(PseudoClassType type) {
+            return (subjectPseudoClasses & pseudoClassBit(type)) != 0;
+        }
+        
+        /**
+         * Checks whether the pseudo-class is used in a simple selector that applies to an ancestor or a sibling
+         * of the styled element, including the pseudo-classes nested in negations.
+         * @param type the pseudo-class type
+         * @return {@code true} when the pseudo-class is used
+         */
+        public boolean hasContextPseudoClass(PseudoClassType type) {
+            return (contextPseudoClasses & pseudoClassBit(type)) != 0;
+        }
+        
+        long getSubjectPseudoClasses() {
+            return subjectPseudoClasses;
+        }
+        
+        long getContextPseudoClasses() {
+            return contextPseudoClasses;
+        }
+        
+        /**
+         * Creates a bit mask that represents a pseudo-class type.
+         * @param type the pseudo-class type (there are less than 64 types)
+         * @return the mask
+         */
+        static long pseudoClassBit(PseudoClassType type) {
+            return 1L << type.ordinal();
+        }
+        
+        /**
+         * Computes the mask of the pseudo-classes used in a simple selector including the negations.
+         */
+        private static long pseudoClassMask(Selector sel) {
+            long ret = 0;
+            for (Selector.SelectorPart part : sel) {
+                if (part instanceof Selector.PseudoClass) {
+                    final Selector.PseudoClass pc = (Selector.PseudoClass) part;
+                    if (pc.getType() != null)
+                        ret |= pseudoClassBit(pc.getType());
+                    if (pc.getNestedSelector() != null)
+                        ret |= pseudoClassMask(pc.getNestedSelector());
+                }
+            }
+            return ret;
+        }
+        
+        /**
+         * Computes the specificities of all the selectors of a rule set.
+         * @param rule the rule set
+         * @return the specificities in the order of the selectors
+         */
+        static CombinedSelector.Specificity[] computeSpecificities(RuleSet rule) {
+            final CombinedSelector[] selectors = rule.getSelectors();
+            final CombinedSelector.Specificity[] ret = new CombinedSelector.Specificity[selectors.length];
+            for (int i = 0; i < selectors.length; i++)
+                ret[i] = selectors[i].computeSpecificity();
+            return ret;
+        }
+        
+        /**
+         * Creates the assigned declarations of a rule set for all its selectors. The selectors with the
+         * same specificity share the same declarations.
+         */
+        private static AssignedDeclaration[][] assignDeclarations(RuleSet rule, CombinedSelector.Specificity[] specs, int[] packed) {
+            final StyleSheet sheet = rule.getStyleSheet();
+            if (sheet == null)
+                log.warn("No source style sheet set for rule: {}", rule.toString());
+            final StyleSheet.Origin origin = (sheet == null) ? StyleSheet.Origin.AGENT : sheet.getOrigin();
+            
+            final AssignedDeclaration[][] ret = new AssignedDeclaration[specs.length][];
+            for (int i = 0; i < specs.length; i++) {
+                for (int j = 0; j < i && ret[i] == null; j++) {
+                    if (packed[j] == packed[i] && specs[j].equals(specs[i]))
+                        ret[i] = ret[j];
+                }
+                if (ret[i] == null) {
+                    ret[i] = new AssignedDeclaration[rule.size()];
+                    for (int k = 0; k < ret[i].length; k++)
+                        ret[i][k] = new AssignedDeclaration(rule.get(k), specs[i], packed[i], origin);
+                }
+            }
+            return ret;
+        }
+
         public int compareTo(OrderedRule o) {
             return getOrder() - o.getOrder();
         }
@@ -497,16 +1594,21 @@ public class Analyzer {
 
 		/** OTHER rules are stored there */
 		private List<OrderedRule> others;
+		
+		/** ELEMENT_DOM rules (inline styles) are stored there by their element identity */
+		private Map<Element, List<OrderedRule>> domItems;
 
 		public Holder() {
 			// create list of items
-			this.items = new ArrayList<Map<String, List<OrderedRule>>>(HolderItem.values().length - 1);
+			this.items = new ArrayList<Map<String, List<OrderedRule>>>(HolderItem.values().length - 2);
 
 			// fill maps in list
 			for (HolderItem hi : HolderItem.values()) {
-				// this is special case, it is not map
+				// these are special cases, they are not string maps
 				if (hi == HolderItem.OTHER)
 					others = new ArrayList<OrderedRule>();
+				else if (hi == HolderItem.ELEMENT_DOM)
+					domItems = new IdentityHashMap<Element, List<OrderedRule>>();
 				else
 					items.add(new HashMap<String, List<OrderedRule>>());
 			}
@@ -517,6 +1619,9 @@ public class Analyzer {
 				if(hi == HolderItem.OTHER) { 
 					if(!others.isEmpty()) return false;
 				}
+				else if(hi == HolderItem.ELEMENT_DOM) {
+					if(!domItems.isEmpty()) return false;
+				}
 				else if(!items.get(hi.type).isEmpty())
 					return false;
 			}			
@@ -535,6 +1640,16 @@ public class Analyzer {
 					union.others.addAll(one.others);
 					union.others.addAll(two.others);
 				}
+				else if(hi == HolderItem.ELEMENT_DOM) {
+					union.domItems.putAll(one.domItems);
+					for(Map.Entry<Element, List<OrderedRule>> entry: two.domItems.entrySet()) {
+						List<OrderedRule> list = union.domItems.get(entry.getKey());
+						if(list != null)
+							union.domItems.put(entry.getKey(), concat(list, entry.getValue()));
+						else
+							union.domItems.put(entry.getKey(), entry.getValue());
+					}
+				}
 				else {
 					
 					Map<String, List<OrderedRule>> oneMap, twoMap, unionMap;
@@ -546,7 +1661,7 @@ public class Analyzer {
 					for(String key: twoMap.keySet()) {
 						// map already contains this as key, append to list
 						if(unionMap.containsKey(key)) {
-							unionMap.get(key).addAll(twoMap.get(key));
+							unionMap.put(key, concat(unionMap.get(key), twoMap.get(key)));
 						}
 						// we could directly add elements
 						else {
@@ -559,6 +1674,14 @@ public class Analyzer {
 			return union;
 		}
 		
+		// creates a new list so that the source holders are not modified
+		private static List<OrderedRule> concat(List<OrderedRule> first, List<OrderedRule> second) {
+			final List<OrderedRule> ret = new ArrayList<OrderedRule>(first.size() + second.size());
+			ret.addAll(first);
+			ret.addAll(second);
+			return ret;
+		}
+		
 		/**
 		 * Inserts Ruleset into group identified by HolderType, and optionally
 		 * by key value
@@ -577,6 +1700,8 @@ public class Analyzer {
 				others.add(value);
 				return;
 			}
+			else if (item == HolderItem.ELEMENT_DOM)
+				throw new IllegalArgumentException("ELEMENT_DOM rules are inserted by element");
 
 			// create list if empty
 			Map<String, List<OrderedRule>> map = items.get(item.type);
@@ -605,10 +1730,91 @@ public class Analyzer {
 			// check others
 			if (item == HolderItem.OTHER)
 				return others;
+			else if (item == HolderItem.ELEMENT_DOM)
+				return null;
 
 			return items.get(item.type()).get(key);
 		}
 		
+		/**
+		 * Inserts a Ruleset whose selector is bound to a particular DOM element
+		 * (e.g. an inline style) to the ELEMENT_DOM group
+		 * 
+		 * @param key
+		 *            The element the ruleset belongs to
+		 * @param value
+		 *            Value to be store inside
+		 */
+		public void insert(Element key, OrderedRule value) {
+			List<OrderedRule> list = domItems.get(key);
+			if (list == null) {
+				list = new ArrayList<OrderedRule>(1);
+				domItems.put(key, list);
+			}
+			list.add(value);
+		}
+		
+		/**
+		 * Returns the list of rules bound to the given DOM element
+		 * 
+		 * @param key
+		 *            The element
+		 * @return List of rules or <code>null</code> if there are no rules for the element
+		 */
+		public List<OrderedRule> get(Element key) {
+			return domItems.get(key);
+		}
+		
+		/**
+		 * Obtains the rules that may apply to an element with the given properties
+		 * sorted in the order as they were found in the style sheets.
+		 * 
+		 * @param classes
+		 *            The element classes
+		 * @param id
+		 *            The element ID or {@code null}
+		 * @param name
+		 *            The element name or {@code null}
+		 * @param e
+		 *            The DOM element for obtaining the rules bound to the element or {@code null}
+		 * @return The list of candidate rules
+		 */
+		public List<OrderedRule> getCandidates(Collection<String> classes, String id, String name, Element e) {
+			// the set is automatically filtered to not contain duplicates
+			final Set<OrderedRule> candidates = new HashSet<OrderedRule>();
+			// match element classes
+			for (String cname : classes) {
+				final List<OrderedRule> rules = get(HolderItem.CLASS, cname.toLowerCase());
+				if (rules != null)
+					candidates.addAll(rules);
+			}
+			// match IDs
+			if (id != null && id.length() != 0) {
+				final List<OrderedRule> rules = get(HolderItem.ID, id.toLowerCase());
+				if (rules != null)
+					candidates.addAll(rules);
+			}
+			// match elements
+			if (name != null) {
+				final List<OrderedRule> rules = get(HolderItem.ELEMENT, name.toLowerCase());
+				if (rules != null)
+					candidates.addAll(rules);
+			}
+			// inline styles of this element
+			if (e != null) {
+				final List<OrderedRule> rules = get(e);
+				if (rules != null)
+					candidates.addAll(rules);
+			}
+			// others
+			candidates.addAll(others);
+			
+			final List<OrderedRule> clist = new ArrayList<OrderedRule>(candidates);
+			Collections.sort(clist);
+			return clist;
+		}
+
+		
 		
 		public String contentCount(){
 			StringBuilder sb = new StringBuilder();
@@ -620,6 +1826,12 @@ public class Analyzer {
 					  .append(others.size())
 					  .append(" ");
 				}
+				else if(hi == HolderItem.ELEMENT_DOM) {
+					sb.append(hi.name())
+					  .append(":")
+					  .append(domItems.size())
+					  .append(" ");
+				}
 				else {
 					sb.append(hi.name())
 					  .append(":")
@@ -644,6 +1856,13 @@ public class Analyzer {
 					  .append("): ")
 					  .append(others).append("\n");	
 				}
+				else if(hi == HolderItem.ELEMENT_DOM) {
+					sb.append(hi.name())
+					  .append(" (")
+					  .append(domItems.size())
+					  .append("): ")
+					  .append(domItems.values()).append("\n");
+				}
 				else {
 					sb.append(hi.name())
 					  .append(" (")
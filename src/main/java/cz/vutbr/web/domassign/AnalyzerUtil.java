@@ -2,21 +2,26 @@ package cz.vutbr.web.domassign;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.CSSFactory;
 import cz.vutbr.web.css.CombinedSelector;
 import cz.vutbr.web.css.Declaration;
 import cz.vutbr.web.css.ElementMatcher;
 import cz.vutbr.web.css.MatchCondition;
+import cz.vutbr.web.css.MediaExpression;
 import cz.vutbr.web.css.MediaQuery;
 import cz.vutbr.web.css.MediaSpec;
 import cz.vutbr.web.css.NodeData;
@@ -26,6 +31,7 @@ import cz.vutbr.web.css.RuleSet;
 import cz.vutbr.web.css.Selector;
 import cz.vutbr.web.css.Selector.PseudoClassType;
 import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.StyleMetrics;
 import cz.vutbr.web.css.StyleSheet;
 import cz.vutbr.web.domassign.Analyzer.Holder;
 import cz.vutbr.web.domassign.Analyzer.HolderItem;
@@ -51,8 +57,15 @@ public final class AnalyzerUtil {
      * @return
      */
     public static OrderedRule[] getApplicableRules(final List<StyleSheet> sheets, final Element element, final MediaSpec mediaspec) {
+	    return getApplicableRules(sheets, element, mediaspec, CSSFactory.getElementMatcher());
+    }
+
+    /**
+     * Returns all applicable rules for an element using the given element matcher.
+     */
+    public static OrderedRule[] getApplicableRules(final List<StyleSheet> sheets, final Element element, final MediaSpec mediaspec, final ElementMatcher matcher) {
 	    final Holder rules = getClassifiedRules(sheets, mediaspec);
-	    return getApplicableRules(element, rules, null);
+	    return getApplicableRules(element, rules, null, matcher);
     }
 
     public static Holder getClassifiedRules(final List<StyleSheet> sheets, final MediaSpec mediaspec) {
@@ -63,17 +76,31 @@ public final class AnalyzerUtil {
 
     public static NodeData getElementStyle(Element el, PseudoElementType pseudo, final ElementMatcher matcher, MatchCondition matchCond, OrderedRule[] applicableRules)
     {
-    	return makeNodeData(computeDeclarations(el, pseudo, applicableRules, matcher, matchCond));
+    	return makeNodeData(computeDeclarations(el, pseudo, applicableRules, matcher, matchCond, null));
+    }
+
+    /**
+     * Computes the style of an element in the given context and reports the matching of the individual
+     * selectors to a metrics listener.
+     */
+    public static NodeData getElementStyle(Element el, PseudoElementType pseudo, final ElementMatcher matcher, MatchCondition matchCond, OrderedRule[] applicableRules, StyleMetrics metrics, CSSContext context)
+    {
+    	return makeNodeData(computeDeclarations(el, pseudo, applicableRules, matcher, matchCond, metrics), context);
     }
 
 	public static OrderedRule[] getApplicableRules(final Element e, final Holder holder, final RuleSet[] elementRuleSets)
+	{
+	    return getApplicableRules(e, holder, elementRuleSets, CSSFactory.getElementMatcher());
+	}
+
+	public static OrderedRule[] getApplicableRules(final Element e, final Holder holder, final RuleSet[] elementRuleSets, final ElementMatcher matcher)
 	{
         // create set of possible candidates applicable to given element
         // set is automatically filtered to not contain duplicates
         final Set<OrderedRule> candidates = new HashSet<OrderedRule>();
 
         // match element classes
-        for (final String cname : CSSFactory.getElementMatcher().elementClasses(e)) {
+        for (final String cname : matcher.elementClasses(e)) {
             // holder contains rule with given class
             final List<OrderedRule> classRules = holder.get(HolderItem.CLASS, cname.toLowerCase());
             if (classRules != null)
@@ -82,7 +109,7 @@ public final class AnalyzerUtil {
         // log.trace("After CLASSes {} total candidates.", candidates.size());
 
         // match IDs
-        final String id = CSSFactory.getElementMatcher().elementID(e);
+        final String id = matcher.elementID(e);
         if (id != null && id.length() != 0) {
             final List<OrderedRule> idRules = holder.get(HolderItem.ID, id.toLowerCase());
             if (idRules != null)
@@ -91,7 +118,7 @@ public final class AnalyzerUtil {
         // log.trace("After IDs {} total candidates.", candidates.size());
         
         // match elements
-        final String name = CSSFactory.getElementMatcher().elementName(e);
+        final String name = matcher.elementName(e);
         if (name != null) {
             final List<OrderedRule> nameRules = holder.get(HolderItem.ELEMENT, name.toLowerCase());
             if (nameRules != null)
@@ -99,6 +126,11 @@ public final class AnalyzerUtil {
         }
         // log.trace("After ELEMENTs {} total candidates.", candidates.size());
 
+        // inline styles of this element
+        final List<OrderedRule> domRules = holder.get(e);
+        if (domRules != null)
+            candidates.addAll(domRules);
+
         // others
         candidates.addAll(holder.get(HolderItem.OTHER, null));
 
@@ -128,7 +160,12 @@ public final class AnalyzerUtil {
 
 	static NodeData makeNodeData(final List<Declaration> decls)
 	{
-		final NodeData main = CSSFactory.createNodeData();
+		return makeNodeData(decls, CSSContext.current());
+	}
+
+	static NodeData makeNodeData(final List<Declaration> decls, final CSSContext context)
+	{
+		final NodeData main = context.createNodeData();
         for (final Declaration d : decls)
             main.push(d);
         
@@ -138,12 +175,26 @@ public final class AnalyzerUtil {
 	/**
 	 * Classifies the rules in all the style sheets.
 	 * @param mediaspec The specification of the media for evaluating the media queries.
+	 * @return The number of classified selectors
 	 */
-	static void classifyAllSheets(final List<StyleSheet> sheets, final Holder rules, final MediaSpec mediaspec)
+	static int classifyAllSheets(final List<StyleSheet> sheets, final Holder rules, final MediaSpec mediaspec)
 	{
-		final Counter orderCounter = new Counter();
+	    return classifyAllSheets(sheets, rules, mediaspec, 0);
+	}
+	
+	/**
+	 * Classifies the rules in all the style sheets starting with the given rule order. This is used
+	 * when the sheets follow other sheets that have been classified separately.
+	 * @param mediaspec The specification of the media for evaluating the media queries.
+	 * @param firstOrder The order of the first classified rule.
+	 * @return The number of classified selectors
+	 */
+	static int classifyAllSheets(final List<StyleSheet> sheets, final Holder rules, final MediaSpec mediaspec, final int firstOrder)
+	{
+		final Counter orderCounter = new Counter(firstOrder);
 	    for (final StyleSheet sheet : sheets)
 	        classifyRules(sheet, mediaspec, rules, orderCounter);
+	    return orderCounter.count - firstOrder;
 	}
 	
 	static boolean elementSelectorMatches(final Selector s, final Element e, final ElementMatcher matcher, final MatchCondition matchCond) {
@@ -158,7 +209,7 @@ public final class AnalyzerUtil {
         }
     }
     
-	static List<Declaration> computeDeclarations(final Element e, final PseudoElementType pseudo, final OrderedRule[] clist, final ElementMatcher matcher, final MatchCondition matchCond) {
+	static List<Declaration> computeDeclarations(final Element e, final PseudoElementType pseudo, final OrderedRule[] clist, final ElementMatcher matcher, final MatchCondition matchCond, final StyleMetrics metrics) {
 		// resulting list of declaration for this element with no pseudo-selectors (main list)(local cache)
         final List<Declaration> eldecl = new ArrayList<Declaration>();
         
@@ -166,13 +217,23 @@ public final class AnalyzerUtil {
         for (final OrderedRule orule : clist) {
             
             final RuleSet rule = orule.getRule();
-            final StyleSheet sheet = rule.getStyleSheet();
-            final StyleSheet.Origin origin = (sheet == null) ? StyleSheet.Origin.AGENT : sheet.getOrigin();
+            if (metrics != null)
+                metrics.ruleCandidate(rule);
             
             // for all selectors inside
-            for (final CombinedSelector s : rule.getSelectors()) {
+            final CombinedSelector[] selectors = rule.getSelectors();
+            for (int si = 0; si < selectors.length; si++) {
+                final CombinedSelector s = selectors[si];
                 
-                if (!AnalyzerUtil.matchSelector(s, e, matcher, matchCond)) {
+                final boolean matched;
+                if (metrics != null) {
+                    final int[] visits = new int[1];
+                    final long start = System.nanoTime();
+                    matched = AnalyzerUtil.matchSelector(s, e, matcher, matchCond, visits);
+                    metrics.selectorTested(rule, s, matched, visits[0], System.nanoTime() - start);
+                } else
+                    matched = AnalyzerUtil.matchSelector(s, e, matcher, matchCond, null);
+                if (!matched) {
                     log.trace("CombinedSelector \"{}\" NOT matched!", s);
                     continue;
                 }
@@ -183,15 +244,14 @@ public final class AnalyzerUtil {
                 if (ptype == pseudo)
                 {
                     // add to the resulting list
-                    final CombinedSelector.Specificity spec = s.computeSpecificity();
-                    for (final Declaration d : rule)
-                        eldecl.add(new AssignedDeclaration(d, spec, origin));
+                    for (final AssignedDeclaration d : orule.getAssignedDeclarations(si))
+                        eldecl.add(d);
                 }
             }
         }
 
         // sort declarations
-        Collections.sort(eldecl); //sort the main list
+        CascadeKey.sort(eldecl); //sort the main list
         log.debug("Sorted {} declarations.", eldecl.size());
         log.trace("With values: {}", eldecl);
         
@@ -303,6 +363,15 @@ public final class AnalyzerUtil {
     }
 
     protected static boolean matchSelector(final CombinedSelector sel, final Element e, final ElementMatcher matcher, final MatchCondition matchCond)
+    {
+        return matchSelector(sel, e, matcher, matchCond, null);
+    }
+
+    /**
+     * Matches a selector and counts the DOM nodes visited by the combinators in the first element
+     * of the {@code visits} array (if not {@code null}).
+     */
+    protected static boolean matchSelector(final CombinedSelector sel, final Element e, final ElementMatcher matcher, final MatchCondition matchCond, final int[] visits)
     {
         boolean retval = false;
         Selector.Combinator combinator = null;
@@ -321,6 +390,7 @@ public final class AnalyzerUtil {
                 Node adjacent = current;
                 do {
                     adjacent = adjacent.getPreviousSibling();
+                    if (visits != null && adjacent != null) visits[0]++;
                 } while (adjacent != null && adjacent.getNodeType() != Node.ELEMENT_NODE);
                 retval = false;
                 if (adjacent != null && adjacent.getNodeType() == Node.ELEMENT_NODE)
@@ -335,6 +405,7 @@ public final class AnalyzerUtil {
                 {
                     if (preceding != null)
                     {
+                        if (visits != null) visits[0]++;
                         if (nodeSelectorMatches(s, preceding, matcher, matchCond))
                         {
                             current = (Element) preceding;
@@ -351,6 +422,7 @@ public final class AnalyzerUtil {
                 {
                     if (ancestor != null)
                     {
+                        if (visits != null) visits[0]++;
                         if (nodeSelectorMatches(s, ancestor, matcher, matchCond))
                         {
                             current = (Element) ancestor;
@@ -365,6 +437,7 @@ public final class AnalyzerUtil {
                 retval = false;
                 if (parent != null && parent.getNodeType() == Node.ELEMENT_NODE)
                 {
+                    if (visits != null) visits[0]++;
                     current = (Element) parent;
                     retval = elementSelectorMatches(s, current, matcher, matchCond);
                 }
@@ -395,6 +468,14 @@ public final class AnalyzerUtil {
 			// last simple selector decided about all selector
 			final Selector last = selector.getLastSelector();
 
+			// bound to a single DOM element (inline styles)
+			for (final Selector.SelectorPart part : last) {
+				if (part instanceof Selector.ElementDOM) {
+					hs.add(new HolderSelector(((Selector.ElementDOM) part).getElement()));
+					return hs;
+				}
+			}
+
 			// is element or other (wildcard)
 			final String element = last.getElementName();
 			if (element != null) {
@@ -431,16 +512,117 @@ public final class AnalyzerUtil {
 		}
 	}
 
+	/**
+	 * Checks whether the rules contained in a media rule apply to the given media.
+	 * @param rulemedia the media rule
+	 * @param mediaspec the media specification
+	 * @return {@code true} when the media rule applies
+	 */
+	static boolean isMediaValid(final RuleMedia rulemedia, final MediaSpec mediaspec) {
+        if(rulemedia.getMediaQueries()==null || rulemedia.getMediaQueries().isEmpty()) {
+            //no media queries actually
+            return mediaspec.matchesEmpty();
+        } else {
+            //find a matching query
+            return mediaspec.matchesOneOf(rulemedia.getMediaPredicates());
+        }
+	}
+	
+	/**
+	 * Obtains all the media rules of the given style sheets in the order of their appearance.
+	 * @param sheets the style sheets
+	 * @return the list of media rules
+	 */
+	public static List<RuleMedia> getMediaRules(final List<StyleSheet> sheets) {
+	    final List<RuleMedia> ret = new ArrayList<RuleMedia>();
+	    for (final StyleSheet sheet : sheets) {
+	        for (final Rule<?> rule : sheet) {
+	            if (rule instanceof RuleMedia)
+	                ret.add((RuleMedia) rule);
+	        }
+	    }
+	    return ret;
+	}
+	
+	/**
+	 * Computes a media signature of the given media specification: the set of indices of the
+	 * media rules (as returned by {@link #getMediaRules(List)}) that apply to the media.
+	 * Two media specifications with equal signatures produce the same style for any document.
+	 * @param mediaRules the list of media rules
+	 * @param mediaspec the media specification
+	 * @return the signature
+	 */
+	public static BitSet getMediaSignature(final List<RuleMedia> mediaRules, final MediaSpec mediaspec) {
+	    final BitSet ret = new BitSet(mediaRules.size());
+	    for (int i = 0; i < mediaRules.size(); i++) {
+	        if (isMediaValid(mediaRules.get(i), mediaspec))
+	            ret.set(i);
+	    }
+	    return ret;
+	}
+	
+	/**
+	 * Obtains the breakpoints of the given numeric media feature, i.e. all the distinct values that are compared
+	 * with the feature in the media queries of the style sheets. The media specifications whose feature
+	 * values lie between the same pair of successive breakpoints (or are equal to the same breakpoint)
+	 * match the same media queries with respect to this feature.
+	 * @param sheets the style sheets
+	 * @param feature the media feature (e.g. {@code WIDTH})
+	 * @return the sorted array of breakpoints. Lengths are in pixels, resolutions in dpi.
+	 */
+	public static float[] getMediaBreakpoints(final List<StyleSheet> sheets, final MediaSpec.Feature feature) {
+	    final MediaSpec conv = new MediaSpec("all");
+	    final SortedSet<Float> values = new TreeSet<Float>();
+	    for (final RuleMedia rulemedia : getMediaRules(sheets)) {
+	        if (rulemedia.getMediaQueries() != null) {
+	            for (final MediaQuery q : rulemedia.getMediaQueries()) {
+	                for (final MediaExpression e : q) {
+	                    if (conv.getExpressionFeature(e) == feature) {
+	                        final Float value = conv.getExpressionValue(e);
+	                        if (value != null)
+	                            values.add(value);
+	                    }
+	                }
+	            }
+	        }
+	    }
+	    final float[] ret = new float[values.size()];
+	    int i = 0;
+	    for (Float value : values)
+	        ret[i++] = value;
+	    return ret;
+	}
+	
 	private static class Counter {
-		private int count = 0;
+		private int count;
+		public Counter(int start) {
+			count = start;
+		}
+
 		public int getAndIncrement() {
 			return count++;
 		}
 	}
 
-	private static void insertClassified(final Holder holder, final List<HolderSelector> hs, final RuleSet value, final Counter orderCounter) {
-		for (final HolderSelector h : hs)
-			holder.insert(h.item, h.key, new OrderedRule(value, orderCounter.getAndIncrement()));
+	/**
+	 * Classifies all the selectors of a rule set. The selector specificities and the assigned
+	 * declarations are created once here and shared by all the resulting ordered rules.
+	 */
+	private static void classifyRuleSet(final Holder holder, final RuleSet ruleset, final Counter orderCounter) {
+		final OrderedRule template = new OrderedRule(ruleset, 0);
+		for (final CombinedSelector s : ruleset.getSelectors()) {
+			insertClassified(holder, classifySelector(s), template, orderCounter);
+		}
+	}
+
+	private static void insertClassified(final Holder holder, final List<HolderSelector> hs, final OrderedRule template, final Counter orderCounter) {
+		for (final HolderSelector h : hs) {
+			final OrderedRule orule = new OrderedRule(template, orderCounter.getAndIncrement());
+			if (h.item == HolderItem.ELEMENT_DOM)
+				holder.insert(h.element, orule);
+			else
+				holder.insert(h.item, h.key, orule);
+		}
 	}
 
 	/**
@@ -456,37 +638,17 @@ public final class AnalyzerUtil {
 		for (final Rule<?> rule : sheet) {
 			// this rule conforms to all media
 			if (rule instanceof RuleSet) {
-				final RuleSet ruleset = (RuleSet) rule;
-				for (final CombinedSelector s : ruleset.getSelectors()) {
-					insertClassified(rules, classifySelector(s), ruleset, orderCounter);
-				}
+				classifyRuleSet(rules, (RuleSet) rule, orderCounter);
 			}
 			// this rule conforms to different media
 			else if (rule instanceof RuleMedia) {
 				final RuleMedia rulemedia = (RuleMedia) rule;
-
-				boolean mediaValid = false;
-                if(rulemedia.getMediaQueries()==null || rulemedia.getMediaQueries().isEmpty()) {
-                    //no media queries actually
-                    mediaValid = mediaspec.matchesEmpty();
-                } else {
-                    //find a matching query
-    				for (final MediaQuery media : rulemedia.getMediaQueries()) {
-                        if (mediaspec.matches(media)) {
-                            mediaValid = true;
-                            break;
-                        }
-    				}
-                }
-				
-                if (mediaValid)
+                if (isMediaValid(rulemedia, mediaspec))
                 {
     				// for all rules in media set
     				for (final RuleSet ruleset : rulemedia) {
     					// for all selectors in there
-    					for (final CombinedSelector s : ruleset.getSelectors()) {
-   							insertClassified(rules, classifySelector(s), ruleset, orderCounter);
-    					}
+    					classifyRuleSet(rules, ruleset, orderCounter);
     				}
                 }
 			}
@@ -16,6 +16,8 @@ public class AssignedDeclaration extends DeclarationImpl implements Declaration
 	
 	protected CombinedSelector.Specificity spec;
 	protected StyleSheet.Origin origin;
+	/** The specificity packed by {@link CascadeKey#packSpecificity(CombinedSelector.Specificity)} */
+	protected int packedSpec;
 
 	/**
 	 * Creates assigned declaration from specificity and shallow copy of declaration
@@ -23,8 +25,19 @@ public class AssignedDeclaration extends DeclarationImpl implements Declaration
 	 * @param spec Specificity
 	 */
 	public AssignedDeclaration(Declaration d, CombinedSelector.Specificity spec, StyleSheet.Origin origin) {
+		this(d, spec, CascadeKey.packSpecificity(spec), origin);
+	}
+	
+	/**
+	 * Creates assigned declaration from a precomputed specificity and shallow copy of declaration
+	 * @param d Declaration to be shallow-copied
+	 * @param spec Specificity
+	 * @param packedSpec The specificity packed by {@link CascadeKey#packSpecificity(CombinedSelector.Specificity)}
+	 */
+	AssignedDeclaration(Declaration d, CombinedSelector.Specificity spec, int packedSpec, StyleSheet.Origin origin) {
 		super(d);
 		this.spec = spec;
+		this.packedSpec = packedSpec;
 		this.origin = origin;
 	}
 	
@@ -44,12 +57,26 @@ public class AssignedDeclaration extends DeclarationImpl implements Declaration
 			return super.compareTo(other);
 		
 		AssignedDeclaration o = (AssignedDeclaration) other;
-
-		int res = getOriginOrder() - o.getOriginOrder();
-		if (res == 0)
-			return this.spec.compareTo(o.spec);
-		else
-			return res;
+		if (CascadeKey.isSaturated(packedSpec) || CascadeKey.isSaturated(o.packedSpec)) {
+			int res = getOriginOrder() - o.getOriginOrder();
+			if (res == 0)
+				return this.spec.compareTo(o.spec);
+			else
+				return res;
+		}
+		return Integer.compare(getPriority(), o.getPriority());
+	}
+	
+	/**
+	 * Obtains the cascade priority of the declaration that combines its origin, importance and
+	 * specificity. Declarations with greater priorities override the ones with lower priorities.
+	 * The priority is exact only when the packed specificity is not saturated
+	 * (see {@link CascadeKey#isSaturated(int)}).
+	 * @return the priority
+	 */
+	public int getPriority()
+	{
+		return CascadeKey.priority(origin, important, packedSpec);
 	}
 
 	/**
@@ -59,6 +86,17 @@ public class AssignedDeclaration extends DeclarationImpl implements Declaration
 	 * @see <a href="http://www.w3.org/TR/CSS21/cascade.html#cascading-order">http://www.w3.org/TR/CSS21/cascade.html#cascading-order</a>
 	 */
 	public int getOriginOrder()
+	{
+		return getOriginOrder(origin, important);
+	}
+	
+	/**
+	 * Computes the priority order of a declaration based on its origin and importance.
+	 * @param origin The origin of the declaration
+	 * @param important The importance of the declaration
+	 * @return The priority order (1..5).
+	 */
+	public static int getOriginOrder(StyleSheet.Origin origin, boolean important)
 	{
 		if (important)
 		{
@@ -4,8 +4,10 @@
  */
 package cz.vutbr.web.domassign;
 
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.CSSFactory;
 import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.ComputedLengths;
 import cz.vutbr.web.css.NodeData;
 import cz.vutbr.web.css.SupportedCSS;
 import cz.vutbr.web.css.Term;
@@ -22,8 +24,30 @@ import cz.vutbr.web.csskit.DeclarationTransformer;
  */
 public abstract class BaseNodeDataImpl implements NodeData {
     
-    protected static DeclarationTransformer transformer = CSSFactory.getDeclarationTransformer();
-    protected static SupportedCSS css = CSSFactory.getSupportedCSS();
+    /** The declaration transformer of the context the data was created in */
+    protected final DeclarationTransformer transformer;
+    /** The supported properties of the context the data was created in */
+    protected final SupportedCSS css;
+    
+    /** The resolved lengths or {@code null} when not resolved */
+    private ComputedLengths computedLengths;
+    
+    /**
+     * Creates the data configured by the current context.
+     */
+    protected BaseNodeDataImpl() {
+        this(CSSContext.current());
+    }
+    
+    /**
+     * Creates the data configured by the given context.
+     * @param context the context that provides the declaration transformer and the supported properties
+     */
+    protected BaseNodeDataImpl(CSSContext context) {
+        this.transformer = context.getDeclarationTransformer();
+        this.css = context.getSupportedCSS();
+    }
+
     
     @Override
     public <T extends CSSProperty> T getSpecifiedProperty(String name) {
@@ -119,4 +143,14 @@ public abstract class BaseNodeDataImpl implements NodeData {
             return 0;
     }
     
+    @Override
+    public ComputedLengths getComputedLengths() {
+        return computedLengths;
+    }
+    
+    @Override
+    public void setComputedLengths(ComputedLengths lengths) {
+        this.computedLengths = lengths;
+    }
+    
 }
@@ -0,0 +1,567 @@
+package cz.vutbr.web.domassign;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import cz.vutbr.web.css.CSSContext;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.StyleSheet;
+
+/**
+ * Computes the styles of a large number of documents that share the same style sheets
+ * (e.g. the default style sheet of a browser or the style sheets of a site).
+ *
+ * <p>The shared style sheets are classified once for the media specification and the
+ * resulting rule index is used for all the documents; only the style sheets of the documents
+ * themselves are classified for each document. The style sheets linked from the documents are
+ * parsed once and cached by their URLs.</p>
+ *
+ * <p>The documents are styled in parallel using an executor service. By default, a fixed thread
+ * pool with one thread per available processor is created for each batch. Any executor may be
+ * used instead, e.g. a virtual thread per task executor on the Java versions that support it.
+ * At most {@link #getMaxPending()} documents are submitted to the executor at the same time;
+ * the caller thread waits until some of them are finished before taking the next document
+ * from the input so that the input documents and their styles need not be kept in memory.</p>
+ *
+ * <p>The configuration methods must not be called while a batch is being processed.</p>
+ */
+public class BatchStyler
+{
+    private static final Logger log = LoggerFactory.getLogger(BatchStyler.class);
+
+    private final CSSContext context;
+    private final MediaSpec media;
+    /** The shared style sheets classified for the media */
+    private final Analyzer.SharedRules sharedRules;
+    /** The parsed linked style sheets indexed by their URLs */
+    private final ConcurrentMap<String, StyleSheet> linkedCache;
+
+    private ExecutorService executor;
+    private int maxPending;
+    private boolean inherit;
+    private boolean documentStyles;
+    private boolean compactStyleMaps;
+    private boolean resolveLengths;
+    private RuleCoverage coverage;
+
+    private String encoding;
+
+    /**
+     * Creates a batch styler for the given shared style sheets and media using the current context.
+     * @param sheets the style sheets used for all the documents
+     * @param media the media specification used for evaluating the media queries
+     */
+    public BatchStyler(List<StyleSheet> sheets, MediaSpec media)
+    {
+        this(sheets, media, CSSContext.current());
+    }
+
+    /**
+     * Creates a batch styler for the given shared style sheets and media.
+     * @param sheets the style sheets used for all the documents
+     * @param media the media specification used for evaluating the media queries
+     * @param context the context used for parsing the document style sheets and computing the styles
+     */
+    public BatchStyler(List<StyleSheet> sheets, MediaSpec media, CSSContext context)
+    {
+        this.context = context;
+        this.media = media;
+        this.linkedCache = new ConcurrentHashMap<String, StyleSheet>();
+        this.maxPending = 2 * Runtime.getRuntime().availableProcessors();
+        this.inherit = true;
+        this.documentStyles = true;
+        final CSSContext previous = context.bind();
+        try {
+            this.sharedRules = new Analyzer.SharedRules(sheets, media);
+        } finally {
+            CSSContext.unbind(previous);
+        }
+    }
+
+    /**
+     * Obtains the context used for styling the documents.
+     * @return the context
+     */
+    public CSSContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * Obtains the media specification used for evaluating the media queries.
+     * @return the media specification
+     */
+    public MediaSpec getMedia()
+    {
+        return media;
+    }
+
+    /**
+     * Obtains the shared style sheets.
+     * @return the unmodifiable list of the style sheets
+     */
+    public List<StyleSheet> getSheets()
+    {
+        return Collections.unmodifiableList(sharedRules.getSheets());
+    }
+
+    /**
+     * Sets the executor used for styling the documents. The executor is not shut down by the
+     * styler.
+     * @param executor the executor or {@code null} for creating a fixed thread pool for each batch
+     */
+    public void setExecutor(ExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Obtains the executor used for styling the documents.
+     * @return the executor or {@code null} when a thread pool is created for each batch
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Sets the maximal number of the documents submitted to the executor and not finished yet.
+     * The default value is twice the number of the available processors.
+     * @param maxPending the maximal number of documents (at least 1)
+     */
+    public void setMaxPending(int maxPending)
+    {
+        if (maxPending < 1)
+            throw new IllegalArgumentException("At least one pending document must be allowed");
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Obtains the maximal number of the documents submitted to the executor and not finished yet.
+     * @return the maximal number of documents
+     */
+    public int getMaxPending()
+    {
+        return maxPending;
+    }
+
+    /**
+     * Configures the inheritance of the property values. The default value is {@code true}.
+     * @param inherit {@code true} when the inheritance should be used
+     */
+    public void setInherit(boolean inherit)
+    {
+        this.inherit = inherit;
+    }
+
+    /**
+     * Checks whether the inheritance of the property values is used.
+     * @return {@code true} when the inheritance is used
+     */
+    public boolean isInherit()
+    {
+        return inherit;
+    }
+
+    /**
+     * Configures the use of the style sheets included in the documents (the embedded and linked
+     * style sheets and the inline styles). The default value is {@code true}.
+     * @param documentStyles {@code false} when only the shared style sheets should be used
+     */
+    public void setDocumentStyles(boolean documentStyles)
+    {
+        this.documentStyles = documentStyles;
+    }
+
+    /**
+     * Checks whether the style sheets included in the documents are used.
+     * @return {@code true} when the document style sheets are used
+     */
+    public boolean isDocumentStyles()
+    {
+        return documentStyles;
+    }
+
+    /**
+     * Configures the creation of the compact style maps.
+     * @param compact {@code true} for creating {@link CompactStyleMap}s
+     * @see Analyzer#setCompactStyleMaps(boolean)
+     */
+    public void setCompactStyleMaps(boolean compact)
+    {
+        this.compactStyleMaps = compact;
+    }
+
+    /**
+     * Checks whether the compact style maps are created.
+     * @return {@code true} when {@link CompactStyleMap}s are created
+     */
+    public boolean isCompactStyleMaps()
+    {
+        return compactStyleMaps;
+    }
+
+    /**
+     * Enables the resolution of the lengths to absolute values.
+     * @param resolve {@code true} for resolving the lengths
+     * @see Analyzer#setResolveLengths(boolean)
+     */
+    public void setResolveLengths(boolean resolve)
+    {
+        this.resolveLengths = resolve;
+    }
+
+    /**
+     * Checks whether the lengths are resolved to absolute values.
+     * @return {@code true} when the lengths are resolved
+     */
+    public boolean isResolveLengths()
+    {
+        return resolveLengths;
+    }
+
+    /**
+     * Enables recording the rule coverage over all the styled documents.
+     * @param coverage the coverage or {@code null} for disabling the recording
+     * @see Analyzer#setRuleCoverage(RuleCoverage)
+     */
+    public void setRuleCoverage(RuleCoverage coverage)
+    {
+        this.coverage = coverage;
+    }
+
+    /**
+     * Obtains the rule coverage used for the styled documents.
+     * @return the coverage or {@code null} when the coverage is not recorded
+     */
+    public RuleCoverage getRuleCoverage()
+    {
+        return coverage;
+    }
+
+    /**
+     * Sets the default encoding of the linked style sheets.
+     * @param encoding the encoding name or {@code null} for the default encoding
+     */
+    public void setEncoding(String encoding)
+    {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Obtains the default encoding of the linked style sheets.
+     * @return the encoding name or {@code null} for the default encoding
+     */
+    public String getEncoding()
+    {
+        return encoding;
+    }
+
+    /**
+     * Obtains the number of the linked style sheets parsed so far.
+     * @return the number of cached style sheets
+     */
+    public int getCachedSheetCount()
+    {
+        return linkedCache.size();
+    }
+
+    /**
+     * Discards the cached linked style sheets.
+     */
+    public void clearCache()
+    {
+        linkedCache.clear();
+    }
+
+    //===========================================================================================
+
+    /**
+     * Styles all the documents and returns the results in the order of the input documents.
+     * @param documents the documents to be styled
+     * @return the list of results
+     * @throws InterruptedException when the calling thread is interrupted while waiting for the documents
+     */
+    public List<Result> styleAll(Iterable<Source> documents) throws InterruptedException
+    {
+        final List<Result> ret = new ArrayList<Result>();
+        final Listener collector = new Listener() {
+            @Override
+            public void documentStyled(Result result)
+            {
+                synchronized (ret)
+                {
+                    while (ret.size() <= result.getIndex())
+                        ret.add(null);
+                    ret.set(result.getIndex(), result);
+                }
+            }
+        };
+        styleAll(documents.iterator(), collector);
+        return ret;
+    }
+
+    /**
+     * Styles all the documents and passes the results to a listener as soon as they are available.
+     * The documents are taken from the input only when the number of pending documents falls below
+     * the limit. The method returns when all the documents have been styled.
+     * @param documents the documents to be styled
+     * @param listener the listener that receives the results. It is called from the worker threads
+     * and it must be thread-safe.
+     * @throws InterruptedException when the calling thread is interrupted while waiting for the documents.
+     * The documents that have been already submitted are still processed.
+     */
+    public void styleAll(Iterator<Source> documents, Listener listener) throws InterruptedException
+    {
+        final int limit = maxPending;
+        final Semaphore pending = new Semaphore(limit);
+        final ExecutorService exec = (executor != null) ? executor
+                : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            int index = 0;
+            while (documents.hasNext())
+            {
+                pending.acquire();
+                boolean submitted = false;
+                try {
+                    exec.execute(new StyleTask(index++, documents.next(), listener, pending));
+                    submitted = true;
+                } finally {
+                    if (!submitted)
+                        pending.release();
+                }
+            }
+            // wait for the remaining documents
+            pending.acquire(limit);
+            pending.release(limit);
+        } finally {
+            if (exec != executor)
+                exec.shutdown();
+        }
+    }
+
+    /**
+     * Styles a single document in the calling thread.
+     * @param source the document to be styled
+     * @return the result
+     */
+    public Result style(Source source)
+    {
+        return style(0, source);
+    }
+
+    private Result style(int index, Source source)
+    {
+        final long start = System.nanoTime();
+        final CSSContext previous = context.bind();
+        try {
+            final List<StyleSheet> sheets = new ArrayList<StyleSheet>(sharedRules.getSheets());
+            if (documentStyles)
+                sheets.addAll(CSSFactory.getUsedStyleSheets(source.getDocument(), encoding, source.getBase(),
+                        media, context.getNetworkProcessor(), linkedCache));
+            final long parsed = System.nanoTime();
+
+            final Analyzer analyzer = new Analyzer(sheets, context);
+            analyzer.setSharedRules(sharedRules);
+            analyzer.setCompactStyleMaps(compactStyleMaps);
+            analyzer.setResolveLengths(resolveLengths);
+            analyzer.setRuleCoverage(coverage);
+
+            final StyleMap styles = analyzer.evaluateDOM(source.getDocument(), media, inherit);
+            final long end = System.nanoTime();
+            return new Result(index, source, styles, null, parsed - start, end - parsed);
+        } catch (RuntimeException e) {
+            log.error("Couldn't style document {}: {}", source.getBase(), e.getMessage(), e);
+            return new Result(index, source, null, e, System.nanoTime() - start, 0);
+        } finally {
+            CSSContext.unbind(previous);
+        }
+    }
+
+    private class StyleTask implements Runnable
+    {
+        private final int index;
+        private final Source source;
+        private final Listener listener;
+        private final Semaphore pending;
+
+        public StyleTask(int index, Source source, Listener listener, Semaphore pending)
+        {
+            this.index = index;
+            this.source = source;
+            this.listener = listener;
+            this.pending = pending;
+        }
+
+        @Override
+        public void run()
+        {
+            try {
+                listener.documentStyled(style(index, source));
+            } catch (RuntimeException e) {
+                log.error("Listener failed for document {}", source.getBase(), e);
+            } finally {
+                pending.release();
+            }
+        }
+    }
+
+    //===========================================================================================
+
+    /**
+     * A document to be styled together with its base URL.
+     */
+    public static class Source
+    {
+        private final Document document;
+        private final URL base;
+
+        /**
+         * Creates a new document source.
+         * @param document the DOM document
+         * @param base the base URL of the document used for resolving the linked style sheets or {@code null}
+         */
+        public Source(Document document, URL base)
+        {
+            this.document = document;
+            this.base = base;
+        }
+
+        public Document getDocument()
+        {
+            return document;
+        }
+
+        public URL getBase()
+        {
+            return base;
+        }
+    }
+
+    /**
+     * The styles computed for a document and the time spent on it.
+     */
+    public static class Result
+    {
+        private final int index;
+        private final Source source;
+        private final StyleMap styles;
+        private final RuntimeException error;
+        private final long parseTime;
+        private final long styleTime;
+
+        protected Result(int index, Source source, StyleMap styles, RuntimeException error,
+                long parseTime, long styleTime)
+        {
+            this.index = index;
+            this.source = source;
+            this.styles = styles;
+            this.error = error;
+            this.parseTime = parseTime;
+            this.styleTime = styleTime;
+        }
+
+        /**
+         * Obtains the position of the document in the input.
+         * @return the zero-based index
+         */
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public Source getSource()
+        {
+            return source;
+        }
+
+        public Document getDocument()
+        {
+            return source.getDocument();
+        }
+
+        public URL getBase()
+        {
+            return source.getBase();
+        }
+
+        /**
+         * Obtains the computed styles.
+         * @return the style map or {@code null} when the styling failed
+         */
+        public StyleMap getStyles()
+        {
+            return styles;
+        }
+
+        /**
+         * Obtains the exception that caused the styling to fail.
+         * @return the exception or {@code null} when the document has been styled successfully
+         */
+        public RuntimeException getError()
+        {
+            return error;
+        }
+
+        /**
+         * Obtains the time spent on collecting and parsing the style sheets of the document.
+         * @return the time in nanoseconds
+         */
+        public long getParseTime()
+        {
+            return parseTime;
+        }
+
+        /**
+         * Obtains the time spent on computing the styles of the document.
+         * @return the time in nanoseconds
+         */
+        public long getStyleTime()
+        {
+            return styleTime;
+        }
+
+        /**
+         * Obtains the total time spent on the document (not including the time spent waiting
+         * in the executor queue).
+         * @return the time in nanoseconds
+         */
+        public long getTotalTime()
+        {
+            return parseTime + styleTime;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Result [index=" + index + ", base=" + source.getBase() + ", parse=" + parseTime / 1000
+                    + "us, style=" + styleTime / 1000 + "us" + (error != null ? ", error=" + error : "") + "]";
+        }
+    }
+
+    /**
+     * A listener that receives the results of the styled documents.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when a document has been styled (successfully or not).
+         * @param result the result
+         */
+        public void documentStyled(Result result);
+    }
+
+}
@@ -0,0 +1,148 @@
+package cz.vutbr.web.domassign;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.CombinedSelector.Specificity.Level;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.StyleSheet;
+
+/**
+ * Packs the cascade priority of an assigned declaration to a single {@code long} value, so that
+ * the declarations assigned to an element may be sorted by a primitive sort. The key consists of
+ * (from the most significant bits):
+ * <ul>
+ * <li>the origin order (3 bits, see {@link AssignedDeclaration#getOriginOrder()}),</li>
+ * <li>the packed selector specificity (28 bits, 7 bits per level),</li>
+ * <li>the sequence number of the declaration in the element's list (32 bits) that keeps
+ * the order of declarations with equal priorities.</li>
+ * </ul>
+ * A specificity level that does not fit to 7 bits is saturated and the packed value is marked
+ * as {@link #isSaturated(int) saturated}. Such values do not preserve the order of the specificities;
+ * the declarations are compared using the exact specificities in this case.
+ */
+final class CascadeKey
+{
+    private static final int LEVEL_BITS = 7;
+    private static final int LEVEL_MAX = (1 << LEVEL_BITS) - 1;
+    private static final int SPEC_BITS = 4 * LEVEL_BITS;
+    private static final long SEQUENCE_MASK = 0xffffffffL;
+
+    private CascadeKey()
+    {
+    }
+
+    /**
+     * Packs a specificity to an integer with the same ordering. The individual levels
+     * are saturated to 7 bits.
+     * @param spec the specificity
+     * @return the packed specificity
+     */
+    public static int packSpecificity(CombinedSelector.Specificity spec)
+    {
+        return (level(spec, Level.A) << (3 * LEVEL_BITS))
+                | (level(spec, Level.B) << (2 * LEVEL_BITS))
+                | (level(spec, Level.C) << LEVEL_BITS)
+                | level(spec, Level.D);
+    }
+
+    /**
+     * Checks whether some level of a packed specificity has been saturated, i.e. the packed value
+     * cannot be used for comparing the specificities.
+     * @param spec the packed specificity
+     * @return {@code true} when the exact specificity must be used for the comparison
+     */
+    public static boolean isSaturated(int spec)
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            if (((spec >>> (i * LEVEL_BITS)) & LEVEL_MAX) == LEVEL_MAX)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Packs an array of specificities.
+     * @param specs the specificities
+     * @return the packed specificities in the same order
+     */
+    public static int[] packSpecificities(CombinedSelector.Specificity[] specs)
+    {
+        final int[] ret = new int[specs.length];
+        for (int i = 0; i < specs.length; i++)
+            ret[i] = packSpecificity(specs[i]);
+        return ret;
+    }
+
+    /**
+     * Computes the priority of a declaration based on its origin, importance and specificity
+     * without the sequence number.
+     * @param origin the origin of the style sheet
+     * @param important the declaration importance
+     * @param spec the packed specificity
+     * @return the priority
+     */
+    public static int priority(StyleSheet.Origin origin, boolean important, int spec)
+    {
+        return (AssignedDeclaration.getOriginOrder(origin, important) << SPEC_BITS) | spec;
+    }
+
+    /**
+     * Creates the cascade key.
+     * @param priority the priority obtained by {@link #priority(StyleSheet.Origin, boolean, int)}
+     * @param sequence the sequence number of the declaration
+     * @return the cascade key
+     */
+    public static long key(int priority, int sequence)
+    {
+        return ((long) priority << 32) | (sequence & SEQUENCE_MASK);
+    }
+
+    /**
+     * Obtains the sequence number from a cascade key.
+     * @param key the cascade key
+     * @return the sequence number
+     */
+    public static int sequence(long key)
+    {
+        return (int) (key & SEQUENCE_MASK);
+    }
+
+    /**
+     * Sorts a list of declarations by their cascade keys. The order of the declarations with
+     * equal priorities is preserved. Lists that contain other declarations than
+     * {@link AssignedDeclaration}s or saturated specificities are sorted using their natural ordering.
+     * @param list the list to be sorted
+     */
+    public static void sort(List<Declaration> list)
+    {
+        final int n = list.size();
+        if (n < 2)
+            return;
+        final Declaration[] decls = list.toArray(new Declaration[n]);
+        final long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+        {
+            if (!(decls[i] instanceof AssignedDeclaration)
+                    || isSaturated(((AssignedDeclaration) decls[i]).packedSpec))
+            {
+                Collections.sort(list);
+                return;
+            }
+            keys[i] = key(((AssignedDeclaration) decls[i]).getPriority(), i);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++)
+            list.set(i, decls[sequence(keys[i])]);
+    }
+
+    private static int level(CombinedSelector.Specificity spec, Level level)
+    {
+        final int v = spec.get(level);
+        return (v > LEVEL_MAX) ? LEVEL_MAX : v;
+    }
+
+}
@@ -0,0 +1,353 @@
+package cz.vutbr.web.domassign;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.w3c.dom.Element;
+
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.Selector.PseudoElementType;
+
+/**
+ * A style map optimized for large documents. Each element is assigned a dense index when it
+ * is first stored in the map (i.e. in the order of the traversal during the analysis)
+ * and the styles are stored in flat arrays indexed by the element index. The styles of the
+ * pseudo-elements are stored in small side arrays of the element. The elements are looked up
+ * by their identity using an open addressing hash table, so that the {@code hashCode()} and
+ * {@code equals()} implementations of the DOM are never used.
+ */
+public class CompactStyleMap extends StyleMap
+{
+    private static final int MIN_CAPACITY = 16;
+
+    /** The elements by their index */
+    private Element[] elements;
+    /** The main styles by the element index */
+    private NodeData[] main;
+    /** The pseudo-elements available for each element index or {@code null} */
+    private PseudoElementType[][] pseudoTypes;
+    /** The pseudo-element styles corresponding to {@link #pseudoTypes} */
+    private NodeData[][] pseudoData;
+    /** The number of assigned indices */
+    private int count;
+    /** The number of elements with a main style */
+    private int size;
+
+    /** The identity hash table of the elements */
+    private Element[] table;
+    /** The element indices corresponding to {@link #table} */
+    private int[] tableIndices;
+
+    /**
+     * Creates an empty map
+     * @param size the expected number of elements
+     */
+    public CompactStyleMap(int size)
+    {
+        super(0);
+        final int capacity = Math.max(size, MIN_CAPACITY);
+        elements = new Element[capacity];
+        main = new NodeData[capacity];
+        pseudoTypes = new PseudoElementType[capacity][];
+        pseudoData = new NodeData[capacity][];
+        int tsize = MIN_CAPACITY;
+        while (tsize < 2 * capacity)
+            tsize <<= 1;
+        table = new Element[tsize];
+        tableIndices = new int[tsize];
+    }
+
+    /**
+     * Obtains the index assigned to an element.
+     * @param el the element
+     * @return the element index or -1 when the element has never been stored in the map
+     */
+    public int indexOf(Element el)
+    {
+        final int mask = table.length - 1;
+        for (int i = hash(el) & mask; table[i] != null; i = (i + 1) & mask)
+        {
+            if (table[i] == el)
+                return tableIndices[i];
+        }
+        return -1;
+    }
+
+    /**
+     * Obtains the number of assigned element indices. The indices are in the range
+     * {@code 0..getIndexCount()-1}.
+     * @return the number of indices
+     */
+    public int getIndexCount()
+    {
+        return count;
+    }
+
+    /**
+     * Obtains the element with the given index.
+     * @param index the element index
+     * @return the element
+     */
+    public Element getElement(int index)
+    {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * Obtains the main style of the element with the given index.
+     * @param index the element index
+     * @return the style or {@code null} when no style is stored for the element
+     */
+    public NodeData getData(int index)
+    {
+        checkIndex(index);
+        return main[index];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public NodeData get(Element el, PseudoElementType pseudo)
+    {
+        final int index = indexOf(el);
+        if (index == -1)
+            return null;
+        if (pseudo == null)
+            return main[index];
+        final int pi = pseudoIndex(index, pseudo);
+        return (pi == -1) ? null : pseudoData[index][pi];
+    }
+
+    @Override
+    public NodeData get(Element el)
+    {
+        final int index = indexOf(el);
+        return (index == -1) ? null : main[index];
+    }
+
+    @Override
+    public NodeData getOrCreate(Element el, PseudoElementType pseudo)
+    {
+        NodeData ret = get(el, pseudo);
+        if (ret == null)
+        {
+            ret = createDataInstance();
+            put(el, pseudo, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public void put(Element el, PseudoElementType pseudo, NodeData data)
+    {
+        final int index = index(el);
+        if (pseudo == null)
+        {
+            if (main[index] == null && data != null)
+                size++;
+            else if (main[index] != null && data == null)
+                size--;
+            main[index] = data;
+        }
+        else
+        {
+            final int pi = pseudoIndex(index, pseudo);
+            if (pi != -1)
+                pseudoData[index][pi] = data;
+            else if (pseudoTypes[index] == null)
+            {
+                pseudoTypes[index] = new PseudoElementType[] {pseudo};
+                pseudoData[index] = new NodeData[] {data};
+            }
+            else
+            {
+                final int n = pseudoTypes[index].length;
+                pseudoTypes[index] = Arrays.copyOf(pseudoTypes[index], n + 1);
+                pseudoData[index] = Arrays.copyOf(pseudoData[index], n + 1);
+                pseudoTypes[index][n] = pseudo;
+                pseudoData[index][n] = data;
+            }
+        }
+    }
+
+    /**
+     * Removes the data of the specified element for all the pseudo-elements. The element
+     * keeps its index.
+     * @param el the element
+     */
+    @Override
+    public void remove(Element el)
+    {
+        final int index = indexOf(el);
+        if (index != -1)
+        {
+            if (main[index] != null)
+                size--;
+            main[index] = null;
+            pseudoTypes[index] = null;
+            pseudoData[index] = null;
+        }
+    }
+
+    @Override
+    public Set<Element> keySet()
+    {
+        return new KeySet();
+    }
+
+    @Override
+    public Set<PseudoElementType> pseudoSet(Element el)
+    {
+        final int index = indexOf(el);
+        if (index == -1 || pseudoTypes[index] == null)
+            return Collections.emptySet();
+        final Set<PseudoElementType> ret = EnumSet.noneOf(PseudoElementType.class);
+        Collections.addAll(ret, pseudoTypes[index]);
+        return ret;
+    }
+
+    @Override
+    public boolean hasPseudo(Element el, PseudoElementType pseudo)
+    {
+        final int index = indexOf(el);
+        return index != -1 && pseudoIndex(index, pseudo) != -1;
+    }
+
+    //===============================================================================================
+
+    private static int hash(Element el)
+    {
+        final int h = System.identityHashCode(el);
+        return h ^ (h >>> 16);
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index: " + index + ", count: " + count);
+    }
+
+    private int pseudoIndex(int index, PseudoElementType pseudo)
+    {
+        final PseudoElementType[] types = pseudoTypes[index];
+        if (types != null)
+        {
+            for (int i = 0; i < types.length; i++)
+                if (types[i] == pseudo)
+                    return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Obtains the index of an element. A new index is assigned when the element is not present.
+     */
+    private int index(Element el)
+    {
+        final int mask = table.length - 1;
+        int i = hash(el) & mask;
+        for (; table[i] != null; i = (i + 1) & mask)
+        {
+            if (table[i] == el)
+                return tableIndices[i];
+        }
+        // a new element
+        if (count == elements.length)
+        {
+            final int capacity = elements.length * 2;
+            elements = Arrays.copyOf(elements, capacity);
+            main = Arrays.copyOf(main, capacity);
+            pseudoTypes = Arrays.copyOf(pseudoTypes, capacity);
+            pseudoData = Arrays.copyOf(pseudoData, capacity);
+        }
+        final int index = count++;
+        elements[index] = el;
+        if (2 * count > table.length)
+            rehash(table.length * 2);
+        else
+        {
+            table[i] = el;
+            tableIndices[i] = index;
+        }
+        return index;
+    }
+
+    private void rehash(int tsize)
+    {
+        table = new Element[tsize];
+        tableIndices = new int[tsize];
+        final int mask = tsize - 1;
+        for (int index = 0; index < count; index++)
+        {
+            int i = hash(elements[index]) & mask;
+            while (table[i] != null)
+                i = (i + 1) & mask;
+            table[i] = elements[index];
+            tableIndices[i] = index;
+        }
+    }
+
+    /**
+     * A view of the elements that have a main style.
+     */
+    private class KeySet extends AbstractSet<Element>
+    {
+        @Override
+        public Iterator<Element> iterator()
+        {
+            return new Iterator<Element>() {
+                private int next = advance(0);
+
+                private int advance(int from)
+                {
+                    int i = from;
+                    while (i < count && main[i] == null)
+                        i++;
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext()
+                {
+                    return next < count;
+                }
+
+                @Override
+                public Element next()
+                {
+                    if (next >= count)
+                        throw new NoSuchElementException();
+                    final Element ret = elements[next];
+                    next = advance(next + 1);
+                    return ret;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            if (!(o instanceof Element))
+                return false;
+            final int index = indexOf((Element) o);
+            return index != -1 && main[index] != null;
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+package cz.vutbr.web.domassign;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.ElementMatcher;
+import cz.vutbr.web.css.MatchCondition;
+import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.TreeAccess;
+
+/**
+ * A {@link TreeAccess} adapter for a W3C DOM document. The elements are indexed in the document
+ * order when the adapter is created and the tree structure is stored in arrays, so that the
+ * navigation does not use the DOM. The element names, IDs, classes and attributes are obtained
+ * and compared using an {@link ElementMatcher}
+ * and the non-structural pseudo-classes are evaluated by a {@link MatchCondition}.
+ * The adapter reflects the state of the document at the time of its creation.
+ */
+public class DOMTreeAccess implements TreeAccess
+{
+    private final ElementMatcher matcher;
+    private final MatchCondition matchCond;
+
+    private Element[] elements;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] previousSibling;
+    private int[] nextSibling;
+    private int count;
+    private final Map<Element, Integer> index;
+
+    /**
+     * Creates the adapter using the default element matcher and match condition
+     * registered in {@link CSSFactory}.
+     * @param doc the document
+     */
+    public DOMTreeAccess(Document doc)
+    {
+        this(doc, CSSFactory.getElementMatcher(), CSSFactory.getDefaultMatchCondition());
+    }
+
+    /**
+     * Creates the adapter.
+     * @param doc the document
+     * @param matcher the element matcher used for obtaining the element properties
+     * @param matchCond the match condition used for the non-structural pseudo-classes
+     */
+    public DOMTreeAccess(Document doc, ElementMatcher matcher, MatchCondition matchCond)
+    {
+        this.matcher = matcher;
+        this.matchCond = matchCond;
+        final int capacity = 64;
+        elements = new Element[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        previousSibling = new int[capacity];
+        nextSibling = new int[capacity];
+        index = new IdentityHashMap<Element, Integer>();
+        if (doc.getDocumentElement() != null)
+            build(doc.getDocumentElement());
+    }
+
+    /**
+     * Obtains the node that corresponds to a DOM element.
+     * @param e the element
+     * @return the node or {@link TreeAccess#NONE} when the element is not contained in the tree
+     */
+    public int indexOf(Element e)
+    {
+        final Integer ret = index.get(e);
+        return (ret == null) ? NONE : ret;
+    }
+
+    /**
+     * Obtains the DOM element that corresponds to a node.
+     * @param node the node
+     * @return the element
+     */
+    public Element getElement(int node)
+    {
+        return elements[node];
+    }
+
+    @Override
+    public int getNodeCount()
+    {
+        return count;
+    }
+
+    @Override
+    public int getRoot()
+    {
+        return (count == 0) ? NONE : 0;
+    }
+
+    @Override
+    public int getParent(int node)
+    {
+        return parent[node];
+    }
+
+    @Override
+    public int getFirstChild(int node)
+    {
+        return firstChild[node];
+    }
+
+    @Override
+    public int getPreviousSibling(int node)
+    {
+        return previousSibling[node];
+    }
+
+    @Override
+    public int getNextSibling(int node)
+    {
+        return nextSibling[node];
+    }
+
+    @Override
+    public String getTagName(int node)
+    {
+        return matcher.elementName(elements[node]);
+    }
+
+    @Override
+    public boolean matchesName(int node, String name)
+    {
+        return matcher.matchesName(elements[node], name);
+    }
+
+    @Override
+    public String getID(int node)
+    {
+        final String id = matcher.elementID(elements[node]);
+        return (id == null || id.isEmpty()) ? null : id;
+    }
+
+    @Override
+    public boolean matchesID(int node, String id)
+    {
+        return matcher.matchesID(elements[node], id);
+    }
+
+    @Override
+    public Collection<String> getClasses(int node)
+    {
+        return matcher.elementClasses(elements[node]);
+    }
+
+    @Override
+    public boolean hasClass(int node, String className)
+    {
+        return matcher.matchesClass(elements[node], className);
+    }
+
+    @Override
+    public String getAttribute(int node, String name)
+    {
+        final Element e = elements[node];
+        return e.hasAttribute(name) ? matcher.getAttribute(e, name) : null;
+    }
+
+    @Override
+    public boolean hasContent(int node)
+    {
+        for (Node n = elements[node].getFirstChild(); n != null; n = n.getNextSibling())
+        {
+            final short t = n.getNodeType();
+            if (t == Node.ELEMENT_NODE || t == Node.TEXT_NODE
+                    || t == Node.CDATA_SECTION_NODE || t == Node.ENTITY_REFERENCE_NODE)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean matchesPseudoClass(int node, Selector.PseudoClass pseudo)
+    {
+        return matchCond.isSatisfied(elements[node], pseudo);
+    }
+
+    @Override
+    public Object getSourceNode(int node)
+    {
+        return elements[node];
+    }
+
+    @Override
+    public ElementMatcher getElementMatcher()
+    {
+        return matcher;
+    }
+
+    @Override
+    public MatchCondition getMatchCondition()
+    {
+        return matchCond;
+    }
+
+    //===============================================================================================
+
+    /**
+     * Indexes the elements in the document order.
+     */
+    private void build(Element root)
+    {
+        final Deque<Element> stack = new ArrayDeque<Element>();
+        stack.push(root);
+        while (!stack.isEmpty())
+        {
+            final Element e = stack.pop();
+            final int node = add(e);
+            final Node p = e.getParentNode();
+            final Integer pnode = (p == null || p.getNodeType() != Node.ELEMENT_NODE) ? null : index.get(p);
+            parent[node] = (pnode == null) ? NONE : pnode;
+            // push the children in the reverse order
+            for (Node n = e.getLastChild(); n != null; n = n.getPreviousSibling())
+            {
+                if (n.getNodeType() == Node.ELEMENT_NODE)
+                    stack.push((Element) n);
+            }
+        }
+        // link the siblings and the first children
+        Arrays.fill(firstChild, 0, count, NONE);
+        Arrays.fill(previousSibling, 0, count, NONE);
+        Arrays.fill(nextSibling, 0, count, NONE);
+        final int[] lastChild = new int[count];
+        Arrays.fill(lastChild, NONE);
+        for (int node = 1; node < count; node++)
+        {
+            final int p = parent[node];
+            if (p == NONE)
+                continue;
+            if (lastChild[p] == NONE)
+                firstChild[p] = node;
+            else
+            {
+                nextSibling[lastChild[p]] = node;
+                previousSibling[node] = lastChild[p];
+            }
+            lastChild[p] = node;
+        }
+    }
+
+    private int add(Element e)
+    {
+        if (count == elements.length)
+        {
+            final int capacity = elements.length * 2;
+            elements = Arrays.copyOf(elements, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            previousSibling = Arrays.copyOf(previousSibling, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        elements[count] = e;
+        index.put(e, count);
+        return count++;
+    }
+
+}
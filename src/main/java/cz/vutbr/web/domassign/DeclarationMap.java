@@ -6,7 +6,6 @@
 package cz.vutbr.web.domassign;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.w3c.dom.Element;
@@ -44,7 +43,7 @@ public class DeclarationMap extends MultiMap<Element, PseudoElementType, List<De
     {
         List<Declaration> list = get(el, pseudo);
         if (list != null)
-            Collections.sort(list);
+            CascadeKey.sort(list);
     }
 
 	@Override
@@ -1,7 +1,5 @@
 package cz.vutbr.web.domassign;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
@@ -54,11 +52,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 	private static final Logger log = LoggerFactory
 			.getLogger(DeclarationTransformerImpl.class);
 
-	/**
-	 * Cache of parsing methods
-	 */
-	private Map<String, Method> methods;
-
 	/**
 	 * Singleton instance
 	 */
@@ -134,26 +127,11 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 			return false;
 
 		try {
-			Method m = methods.get(propertyName);
-			if (m != null) {
-				boolean result = (Boolean) m
-						.invoke(this, d, properties, values);
-				log.debug("Parsing /{}/ {}", result, d);
-				return result;
-			}
-			else
-			{
-			    boolean result = processAdditionalCSSGenericProperty(d, properties, values);
-			    log.debug("Parsing with proxy /{}/ {}", result, d);
-			    return result; 
-			}			
-		} catch (IllegalArgumentException e) {
-			log.warn("Illegal argument", e);
-		} catch (IllegalAccessException e) {
-			log.warn("Illegal access", e);
-		} catch (InvocationTargetException e) {
-			log.warn("Invocation target", e);
-			log.warn("Invotation target cause", e.getCause());
+			boolean result = processProperty(propertyName, d, properties, values);
+			log.debug("Parsing /{}/ {}", result, d);
+			return result;
+		} catch (RuntimeException e) {
+			log.warn("Failed to process declaration " + d, e);
 		}
 
 		return false;
@@ -163,46 +141,193 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 	 * Sole constructor
 	 */
 	private DeclarationTransformerImpl() {
-		this.methods = parsingMethods();
 	}
 
-	protected Map<String, Method> parsingMethods() {
-
-		Map<String, Method> map = new HashMap<String, Method>(css
-				.getTotalProperties(), 1.0f);
-
-		for (String key : css.getDefinedPropertyNames()) {
-			try {
-				Method m = DeclarationTransformerImpl.class.getDeclaredMethod(
-						DeclarationTransformerImpl.camelCase("process-" + key),
-						Declaration.class, Map.class, Map.class);
-				map.put(key, m);
-			} catch (Exception e) {
-				log.warn("Unable to find method for property {}.", key);
-			}
+	/**
+	 * Calls the processing method of the given property. The table contains a {@code processXxx}
+	 * method for every supported property that has one (the method name is the {@link #camelCase(String)}
+	 * form of {@code "process-" + property}), the remaining properties are processed as generic ones.
+	 * A plain switch is used instead of looking the methods up by reflection in order to avoid the
+	 * start-up costs and to keep the class friendly to ahead-of-time compilation.
+	 */
+	private boolean processProperty(String property, Declaration d,
+			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
+		switch (property) {
+			case "color": return processColor(d, properties, values);
+			case "opacity": return processOpacity(d, properties, values);
+			case "font": return processFont(d, properties, values);
+			case "font-family": return processFontFamily(d, properties, values);
+			case "font-size": return processFontSize(d, properties, values);
+			case "font-style": return processFontStyle(d, properties, values);
+			case "font-variant": return processFontVariant(d, properties, values);
+			case "font-weight": return processFontWeight(d, properties, values);
+			case "text-decoration": return processTextDecoration(d, properties, values);
+			case "text-transform": return processTextTransform(d, properties, values);
+			case "white-space": return processWhiteSpace(d, properties, values);
+			case "text-align": return processTextAlign(d, properties, values);
+			case "text-indent": return processTextIndent(d, properties, values);
+			case "line-height": return processLineHeight(d, properties, values);
+			case "word-spacing": return processWordSpacing(d, properties, values);
+			case "letter-spacing": return processLetterSpacing(d, properties, values);
+			case "vertical-align": return processVerticalAlign(d, properties, values);
+			case "direction": return processDirection(d, properties, values);
+			case "unicode-bidi": return processUnicodeBidi(d, properties, values);
+			case "tab-size": return processTabSize(d, properties, values);
+			case "margin": return processMargin(d, properties, values);
+			case "margin-top": return processMarginTop(d, properties, values);
+			case "margin-right": return processMarginRight(d, properties, values);
+			case "margin-bottom": return processMarginBottom(d, properties, values);
+			case "margin-left": return processMarginLeft(d, properties, values);
+			case "padding": return processPadding(d, properties, values);
+			case "padding-top": return processPaddingTop(d, properties, values);
+			case "padding-right": return processPaddingRight(d, properties, values);
+			case "padding-bottom": return processPaddingBottom(d, properties, values);
+			case "padding-left": return processPaddingLeft(d, properties, values);
+			case "border": return processBorder(d, properties, values);
+			case "border-top": return processBorderTop(d, properties, values);
+			case "border-right": return processBorderRight(d, properties, values);
+			case "border-bottom": return processBorderBottom(d, properties, values);
+			case "border-left": return processBorderLeft(d, properties, values);
+			case "border-width": return processBorderWidth(d, properties, values);
+			case "border-top-width": return processBorderTopWidth(d, properties, values);
+			case "border-right-width": return processBorderRightWidth(d, properties, values);
+			case "border-bottom-width": return processBorderBottomWidth(d, properties, values);
+			case "border-left-width": return processBorderLeftWidth(d, properties, values);
+			case "border-style": return processBorderStyle(d, properties, values);
+			case "border-top-style": return processBorderTopStyle(d, properties, values);
+			case "border-right-style": return processBorderRightStyle(d, properties, values);
+			case "border-bottom-style": return processBorderBottomStyle(d, properties, values);
+			case "border-left-style": return processBorderLeftStyle(d, properties, values);
+			case "border-color": return processBorderColor(d, properties, values);
+			case "border-top-color": return processBorderTopColor(d, properties, values);
+			case "border-right-color": return processBorderRightColor(d, properties, values);
+			case "border-bottom-color": return processBorderBottomColor(d, properties, values);
+			case "border-left-color": return processBorderLeftColor(d, properties, values);
+			case "border-radius": return processBorderRadius(d, properties, values);
+			case "border-top-left-radius": return processBorderTopLeftRadius(d, properties, values);
+			case "border-top-right-radius": return processBorderTopRightRadius(d, properties, values);
+			case "border-bottom-right-radius": return processBorderBottomRightRadius(d, properties, values);
+			case "border-bottom-left-radius": return processBorderBottomLeftRadius(d, properties, values);
+			case "width": return processWidth(d, properties, values);
+			case "min-width": return processMinWidth(d, properties, values);
+			case "max-width": return processMaxWidth(d, properties, values);
+			case "height": return processHeight(d, properties, values);
+			case "min-height": return processMinHeight(d, properties, values);
+			case "max-height": return processMaxHeight(d, properties, values);
+			case "overflow": return processOverflow(d, properties, values);
+			case "overflow-x": return processOverflowX(d, properties, values);
+			case "overflow-y": return processOverflowY(d, properties, values);
+			case "clip": return processClip(d, properties, values);
+			case "box-sizing": return processBoxSizing(d, properties, values);
+			case "box-shadow": return processBoxShadow(d, properties, values);
+			case "display": return processDisplay(d, properties, values);
+			case "position": return processPosition(d, properties, values);
+			case "top": return processTop(d, properties, values);
+			case "right": return processRight(d, properties, values);
+			case "bottom": return processBottom(d, properties, values);
+			case "left": return processLeft(d, properties, values);
+			case "float": return processFloat(d, properties, values);
+			case "clear": return processClear(d, properties, values);
+			case "z-index": return processZIndex(d, properties, values);
+			case "visibility": return processVisibility(d, properties, values);
+			case "transform": return processTransform(d, properties, values);
+			case "transform-origin": return processTransformOrigin(d, properties, values);
+			case "background": return processBackground(d, properties, values);
+			case "background-attachment": return processBackgroundAttachment(d, properties, values);
+			case "background-color": return processBackgroundColor(d, properties, values);
+			case "background-image": return processBackgroundImage(d, properties, values);
+			case "background-position": return processBackgroundPosition(d, properties, values);
+			case "background-size": return processBackgroundSize(d, properties, values);
+			case "background-repeat": return processBackgroundRepeat(d, properties, values);
+			case "background-origin": return processBackgroundOrigin(d, properties, values);
+			case "list-style": return processListStyle(d, properties, values);
+			case "list-style-type": return processListStyleType(d, properties, values);
+			case "list-style-position": return processListStylePosition(d, properties, values);
+			case "list-style-image": return processListStyleImage(d, properties, values);
+			case "border-collapse": return processBorderCollapse(d, properties, values);
+			case "border-spacing": return processBorderSpacing(d, properties, values);
+			case "empty-cells": return processEmptyCells(d, properties, values);
+			case "table-layout": return processTableLayout(d, properties, values);
+			case "caption-side": return processCaptionSide(d, properties, values);
+			case "content": return processContent(d, properties, values);
+			case "quotes": return processQuotes(d, properties, values);
+			case "counter-increment": return processCounterIncrement(d, properties, values);
+			case "counter-reset": return processCounterReset(d, properties, values);
+			case "filter": return processFilter(d, properties, values);
+			case "backdrop-filter": return processBackdropFilter(d, properties, values);
+			case "cursor": return processCursor(d, properties, values);
+			case "outline": return processOutline(d, properties, values);
+			case "outline-width": return processOutlineWidth(d, properties, values);
+			case "outline-style": return processOutlineStyle(d, properties, values);
+			case "outline-color": return processOutlineColor(d, properties, values);
+			case "page-break-before": return processPageBreakBefore(d, properties, values);
+			case "page-break-after": return processPageBreakAfter(d, properties, values);
+			case "page-break-inside": return processPageBreakInside(d, properties, values);
+			case "widows": return processWidows(d, properties, values);
+			case "orphans": return processOrphans(d, properties, values);
+			case "flex": return processFlex(d, properties, values);
+			case "flex-flow": return processFlexFlow(d, properties, values);
+			case "flex-direction": return processFlexDirection(d, properties, values);
+			case "flex-wrap": return processFlexWrap(d, properties, values);
+			case "flex-basis": return processFlexBasis(d, properties, values);
+			case "flex-grow": return processFlexGrow(d, properties, values);
+			case "flex-shrink": return processFlexShrink(d, properties, values);
+			case "order": return processOrder(d, properties, values);
+			case "justify-content": return processJustifyContent(d, properties, values);
+			case "align-content": return processAlignContent(d, properties, values);
+			case "align-items": return processAlignItems(d, properties, values);
+			case "align-self": return processAlignSelf(d, properties, values);
+			case "grid": return processGrid(d, properties, values);
+			case "grid-gap": return processGridGap(d, properties, values);
+			case "grid-row-gap": return processGridRowGap(d, properties, values);
+			case "grid-column-gap": return processGridColumnGap(d, properties, values);
+			case "grid-area": return processGridArea(d, properties, values);
+			case "grid-row": return processGridRow(d, properties, values);
+			case "grid-column": return processGridColumn(d, properties, values);
+			case "grid-row-start": return processGridRowStart(d, properties, values);
+			case "grid-column-start": return processGridColumnStart(d, properties, values);
+			case "grid-row-end": return processGridRowEnd(d, properties, values);
+			case "grid-column-end": return processGridColumnEnd(d, properties, values);
+			case "grid-template": return processGridTemplate(d, properties, values);
+			case "grid-template-areas": return processGridTemplateAreas(d, properties, values);
+			case "grid-template-rows": return processGridTemplateRows(d, properties, values);
+			case "grid-template-columns": return processGridTemplateColumns(d, properties, values);
+			case "grid-auto-flow": return processGridAutoFlow(d, properties, values);
+			case "grid-auto-rows": return processGridAutoRows(d, properties, values);
+			case "grid-auto-columns": return processGridAutoColumns(d, properties, values);
+			case "animation": return processAnimation(d, properties, values);
+			case "animation-delay": return processAnimationDelay(d, properties, values);
+			case "animation-direction": return processAnimationDirection(d, properties, values);
+			case "animation-duration": return processAnimationDuration(d, properties, values);
+			case "animation-fill-mode": return processAnimationFillMode(d, properties, values);
+			case "animation-iteration-count": return processAnimationIterationCount(d, properties, values);
+			case "animation-name": return processAnimationName(d, properties, values);
+			case "animation-play-state": return processAnimationPlayState(d, properties, values);
+			case "animation-timing-function": return processAnimationTimingFunction(d, properties, values);
+			case "transition": return processTransition(d, properties, values);
+			case "transition-delay": return processTransitionDelay(d, properties, values);
+			case "transition-duration": return processTransitionDuration(d, properties, values);
+			case "transition-property": return processTransitionProperty(d, properties, values);
+			case "transition-timing-function": return processTransitionTimingFunction(d, properties, values);
+			default: return processAdditionalCSSGenericProperty(d, properties, values);
 		}
-		log.info("Totally found {} parsing methods", map.size());
-		return map;
 	}
 
 	// =============================================================
 	// processing methods
 
-	@SuppressWarnings("unused")
 	private boolean processColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrColor(Color.class, Color.color, d, properties,
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackground(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator background = new BackgroundVariator();
 		return background.varyList(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackgroundAttachment(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator background = new BackgroundVariator();
@@ -210,7 +335,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values, BackgroundAttachment.nested_list);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackgroundColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator background = new BackgroundVariator();
@@ -218,7 +342,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackgroundImage(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator background = new BackgroundVariator();
@@ -226,7 +349,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values, BackgroundImage.nested_list);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackgroundRepeat(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator background = new BackgroundVariator();
@@ -234,7 +356,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values, BackgroundRepeat.nested_list);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBackgroundPosition(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator background = new BackgroundVariator();
@@ -242,7 +363,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values, BackgroundPosition.nested_list);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processBackgroundSize(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         final Variator background = new BackgroundVariator();
@@ -250,7 +370,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
                 properties, values, BackgroundSize.nested_list);
     }
 
-    @SuppressWarnings("unused")
     private boolean processBackgroundOrigin(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         final Variator background = new BackgroundVariator();
@@ -258,7 +377,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
                 properties, values, BackgroundOrigin.nested_list);
     }
 
-	@SuppressWarnings("unused")
 	private boolean processBorder(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator border = new BorderVariator();
@@ -267,13 +385,11 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return border.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderCollapse(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(BorderCollapse.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderTopColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("top");
@@ -281,7 +397,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderRightColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("right");
@@ -289,7 +404,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderBottomColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("bottom");
@@ -297,7 +411,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderLeftColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("left");
@@ -305,7 +418,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderTopStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("top");
@@ -313,7 +425,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderRightStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("right");
@@ -321,7 +432,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderBottomStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("bottom");
@@ -329,7 +439,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderLeftStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("left");
@@ -337,7 +446,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderSpacing(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -380,21 +488,18 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return false;
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Repeater borderColor = new BorderColorRepeater();
 		return borderColor.repeatOverFourTermDeclaration(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Repeater borderStyle = new BorderStyleRepeater();
 		return borderStyle.repeatOverFourTermDeclaration(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderTopWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("top");
@@ -402,7 +507,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderRightWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("right");
@@ -410,7 +514,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderBottomWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("bottom");
@@ -418,7 +521,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderLeftWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator borderSide = new BorderSideVariator("left");
@@ -426,14 +528,12 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Repeater borderWidth = new BorderWidthRepeater();
 		return borderWidth.repeatOverFourTermDeclaration(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderTop(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator borderSide = new BorderSideVariator("top");
@@ -442,7 +542,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return borderSide.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderRight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator borderSide = new BorderSideVariator("right");
@@ -451,7 +550,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return borderSide.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderBottom(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator borderSide = new BorderSideVariator("bottom");
@@ -460,7 +558,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return borderSide.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBorderLeft(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator borderSide = new BorderSideVariator("left");
@@ -469,42 +566,36 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return borderSide.vary(properties, values);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processBorderTopLeftRadius(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericTwoIdentsOrLengthsOrPercents(BorderRadius.class,
                 BorderRadius.list_values, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
 	
-    @SuppressWarnings("unused")
     private boolean processBorderTopRightRadius(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericTwoIdentsOrLengthsOrPercents(BorderRadius.class,
                 BorderRadius.list_values, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processBorderBottomRightRadius(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericTwoIdentsOrLengthsOrPercents(BorderRadius.class,
                 BorderRadius.list_values, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processBorderBottomLeftRadius(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericTwoIdentsOrLengthsOrPercents(BorderRadius.class,
                 BorderRadius.list_values, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processBorderRadius(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         BorderRadiusRepeater radius = new BorderRadiusRepeater();
         return radius.repeatOverMultiTermDeclaration(d, properties, values);
     }
 	
-	@SuppressWarnings("unused")
 	private boolean processBoxShadow(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		if (d.size() == 1 && Decoder.genericOneIdent(BoxShadow.class, d, properties)) {
@@ -559,13 +650,11 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return true;
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBoxSizing(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(BoxSizing.class, d, properties);
     }
     
-	@SuppressWarnings("unused")
 	private boolean processFontFamily(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -573,7 +662,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values, d.toArray(new Term<?>[0]));
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFontSize(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -581,7 +669,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFontStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -589,7 +676,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				.tryOneTermVariant(FontVariator.STYLE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFontVariant(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -597,7 +683,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFontWeight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -605,7 +690,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFont(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator font = new FontVariator();
@@ -614,7 +698,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return font.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processLineHeight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator font = new FontVariator();
@@ -622,42 +705,36 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processTabSize(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericIntegerOrLength(TabSize.class, TabSize.integer,
                 TabSize.length, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
 
-	@SuppressWarnings("unused")
 	private boolean processTop(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Top.class, Top.length,
 				Top.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processRight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Right.class, Right.length,
 				Right.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processBottom(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Bottom.class, Bottom.length,
 				Bottom.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processLeft(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Left.class, Left.length,
 				Left.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processTransform(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -684,7 +761,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         }
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransformOrigin(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         
@@ -798,33 +874,28 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
             return false; //invalid number of arguments
     }
     
-	@SuppressWarnings("unused")
 	private boolean processWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Width.class, Width.length,
 				Width.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processHeight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Height.class, Height.length,
 				Height.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processCaptionSide(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(CaptionSide.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processClear(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(Clear.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processClip(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -846,7 +917,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return false;
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processCounterIncrement(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -868,7 +938,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		}
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processCounterReset(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -918,7 +987,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return ret;
     }
 
-	@SuppressWarnings("unused")
 	private boolean processCursor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -954,31 +1022,26 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		}
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processDirection(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(Direction.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processDisplay(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(Display.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processEmptyCells(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(EmptyCells.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFloat(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(CSSProperty.Float.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processListStyleImage(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator listStyle = new ListStyleVariator();
@@ -986,7 +1049,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processListStylePosition(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator listStyle = new ListStyleVariator();
@@ -994,7 +1056,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processListStyleType(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator listStyle = new ListStyleVariator();
@@ -1002,7 +1063,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processListStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator listStyle = new ListStyleVariator();
@@ -1011,42 +1071,36 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return listStyle.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMarginTop(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Margin.class, Margin.length,
 				Margin.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMarginRight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Margin.class, Margin.length,
 				Margin.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMarginBottom(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Margin.class, Margin.length,
 				Margin.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMarginLeft(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Margin.class, Margin.length,
 				Margin.percentage, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMargin(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Repeater margin = new MarginRepeater();
 		return margin.repeatOverFourTermDeclaration(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMaxHeight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(MaxHeight.class,
@@ -1054,7 +1108,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMaxWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(MaxWidth.class,
@@ -1062,7 +1115,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMinHeight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(MinHeight.class,
@@ -1070,7 +1122,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processMinWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(MinWidth.class,
@@ -1078,21 +1129,18 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processOpacity(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdentOrIntegerOrNumber(Opacity.class, Opacity.number, Opacity.number, ValueRange.TRUNCATE_NEGATIVE, d,
                 properties, values);
     }
 
-	@SuppressWarnings("unused")
 	private boolean processOrphans(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrInteger(Orphans.class, Orphans.integer, ValueRange.DISALLOW_NEGATIVE,
 				d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processOutlineColor(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator outline = new OutlineVariator();
@@ -1100,7 +1148,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processOutlineStyle(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator outline = new OutlineVariator();
@@ -1108,7 +1155,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processOutlineWidth(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		final Variator outline = new OutlineVariator();
@@ -1116,7 +1162,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processOutline(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Variator outline = new OutlineVariator();
@@ -1125,7 +1170,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		return outline.vary(properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processOverflow(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 	    
@@ -1142,78 +1186,66 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 	        return false;
 	}
 
-    @SuppressWarnings("unused")
     private boolean processOverflowX(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(Overflow.class, d, properties);
     }
 
-    @SuppressWarnings("unused")
     private boolean processOverflowY(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(Overflow.class, d, properties);
     }
 
-	@SuppressWarnings("unused")
 	private boolean processPaddingTop(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Padding.class, Padding.length,
 				Padding.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPaddingRight(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Padding.class, Padding.length,
 				Padding.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPaddingBottom(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Padding.class, Padding.length,
 				Padding.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPaddingLeft(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(Padding.class, Padding.length,
 				Padding.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPadding(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		Repeater padding = new PaddingRepeater();
 		return padding.repeatOverFourTermDeclaration(d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPageBreakAfter(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(PageBreak.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPageBreakBefore(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(PageBreak.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPageBreakInside(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(PageBreakInside.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processPosition(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(Position.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processQuotes(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -1240,19 +1272,16 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		}
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processTableLayout(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(TableLayout.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processTextAlign(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(TextAlign.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processTextDecoration(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -1286,7 +1315,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		}
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processTextIndent(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(TextIndent.class,
@@ -1294,13 +1322,11 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processTextTransform(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(TextTransform.class, d, properties);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processUnicodeBidi(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(UnicodeBidi.class, d, properties);
@@ -1329,7 +1355,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		    return false;
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processVerticalAlign(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(VerticalAlign.class,
@@ -1337,40 +1362,34 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processVisibility(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(Visibility.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processWhiteSpace(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(WhiteSpace.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processWidows(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrInteger(Widows.class, Widows.integer, ValueRange.DISALLOW_NEGATIVE, d,
 				properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processWordSpacing(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLength(WordSpacing.class, WordSpacing.length,
 				ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processLetterSpacing(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLength(LetterSpacing.class,
 				LetterSpacing.length, ValueRange.ALLOW_ALL, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processZIndex(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrInteger(ZIndex.class, ZIndex.integer, ValueRange.ALLOW_ALL, d,
@@ -1408,7 +1427,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
     	}
     }          
 	
-    @SuppressWarnings("unused")
     private boolean processFlex(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         Variator variator = new FlexVariator();
         variator.assignTermsFromDeclaration(d);
@@ -1416,7 +1434,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return variator.vary(properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processFlexFlow(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         Variator variator = new FlexFlowVariator();
         variator.assignTermsFromDeclaration(d);
@@ -1424,57 +1441,46 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return variator.vary(properties, values);
     }
     
-	@SuppressWarnings("unused")
 	private boolean processFlexBasis(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdentOrLengthOrPercent(FlexBasis.class, FlexBasis.length, FlexBasis.percentage, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFlexDirection(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(FlexDirection.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFlexWrap(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(FlexWrap.class, d, properties);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processFlexGrow(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdentOrIntegerOrNumber(FlexGrow.class, FlexGrow.number, FlexGrow.number, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 	
-	@SuppressWarnings("unused")
 	private boolean processFlexShrink(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdentOrIntegerOrNumber(FlexShrink.class, FlexShrink.number, FlexShrink.number, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 	
-	@SuppressWarnings("unused")
 	private boolean processJustifyContent(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 		return Decoder.genericOneIdent(JustifyContent.class, d, properties);
 	}
 
-    @SuppressWarnings("unused")
     private boolean processAlignContent(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(AlignContent.class, d, properties);
     }
 
-    @SuppressWarnings("unused")
     private boolean processAlignItems(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(AlignItems.class, d, properties);
     }
 
-    @SuppressWarnings("unused")
     private boolean processAlignSelf(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdent(AlignSelf.class, d, properties);
     }
 
-	@SuppressWarnings("unused")
 	private boolean processOrder(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericInteger(Order.class, Order.integer, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
 	}
 
-	@SuppressWarnings("unused")
 	private boolean processContent(Declaration d,
 			Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -1515,7 +1521,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 		}
 	}
 
-    @SuppressWarnings("unused")
     private boolean processFilter(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -1544,7 +1549,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         }
     }
     
-    @SuppressWarnings("unused")
     private boolean processBackdropFilter(Declaration d,
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
@@ -1573,7 +1577,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         }
     }
     
-    @SuppressWarnings("unused")
     private boolean processGrid(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         // <'grid-template'> 
         // | <'grid-template-rows'> / [ auto-flow && dense? ] <'grid-auto-columns'>?
@@ -1644,7 +1647,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
                 || processGridTemplateColumns(templateColumnsDecl, properties, values));
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridGap(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         Term<?> rowGapTerm, columnGapTerm;
         switch (d.size()) {
@@ -1666,27 +1668,22 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
                 || Decoder.genericTerm(TermPercent.class, columnGapTerm, "grid-column-gap", GridGap.length, ValueRange.DISALLOW_NEGATIVE, properties, values));
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridRowGap(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdentOrLengthOrPercent(GridGap.class, GridGap.length, GridGap.length, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridColumnGap(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return Decoder.genericOneIdentOrLengthOrPercent(GridGap.class, GridGap.length, GridGap.length, ValueRange.DISALLOW_NEGATIVE, d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridArea(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processNStartEnds(4, new String[]{"grid-row-start", "grid-column-start", "grid-row-end", "grid-column-end"}, d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridRow(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processNStartEnds(2, new String[]{"grid-row-start", "grid-row-end"}, d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridColumn(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processNStartEnds(2, new String[]{"grid-column-start", "grid-column-end"}, d, properties, values);
     }
@@ -1779,22 +1776,18 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return setStartEndProperties(propertyNames[0], lists[0], properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processGridRowStart(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processGridStartEnd(d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridRowEnd(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processGridStartEnd(d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridColumnStart(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processGridStartEnd(d, properties, values);
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridColumnEnd(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processGridStartEnd(d, properties, values);
     }
@@ -1869,8 +1862,9 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
     }
 
     private boolean processGridTemplate(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
-        d.setProperty("grid-template-areas");
-        if (Decoder.genericOneIdent(GridTemplateAreas.class, d, properties)) {
+        Declaration areasDecl = rf.createDeclaration(d);
+        areasDecl.setProperty("grid-template-areas");
+        if (Decoder.genericOneIdent(GridTemplateAreas.class, areasDecl, properties)) {
             return true;
         }
         // none 
@@ -1979,7 +1973,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return false;
     }
 
-    @SuppressWarnings("unused")
     private boolean processGridTemplateAreas(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if (Decoder.genericOneIdent(GridTemplateAreas.class, d, properties)) {
             return true;
@@ -2141,15 +2134,15 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
 
     private static boolean isPositive(Term<?> t) {
         if (t instanceof TermLengthOrPercent) {
-            if (((TermLengthOrPercent) t).getValue() < 0) {
+            if (((TermLengthOrPercent) t).getFloatValue() < 0) {
                 return false;
             }
         } else if (t instanceof TermFloatValue) {
-            if (((TermFloatValue) t).getValue() < 0) {
+            if (((TermFloatValue) t).getFloatValue() < 0) {
                 return false;
             }
         } else if (t instanceof TermTime) {
-            if (((TermTime) t).getValue() < 0) {
+            if (((TermTime) t).getFloatValue() < 0) {
                 return false;
             }
         } else {
@@ -2158,7 +2151,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
 
-    @SuppressWarnings("unused")
     private boolean processAnimation(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processPropertiesInList(new String[]{
             "animation-duration",
@@ -2172,7 +2164,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         }, d, properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationDelay(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if (Decoder.genericTime(AnimationDelay.class, AnimationDelay.time, ValueRange.DISALLOW_NEGATIVE, d, properties, values)) {
             return true;
@@ -2194,7 +2185,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationDirection(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(AnimationDirection.class, d, properties)) {
             return true;
@@ -2217,7 +2207,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationDuration(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if (Decoder.genericTime(AnimationDuration.class, AnimationDuration.time, ValueRange.DISALLOW_NEGATIVE, d, properties, values)) {
             return true;
@@ -2239,7 +2228,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationFillMode(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(AnimationFillMode.class, d, properties)) {
             return true;
@@ -2262,7 +2250,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationIterationCount(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdentOrInteger(AnimationIterationCount.class, AnimationIterationCount.number, ValueRange.DISALLOW_NEGATIVE, d, properties, values)) {
             return true;
@@ -2292,7 +2279,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationName(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(AnimationName.class, d, properties)) {
             return true;
@@ -2315,7 +2301,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processAnimationPlayState(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(AnimationPlayState.class, d, properties)) {
             return true;
@@ -2338,7 +2323,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
 
-    @SuppressWarnings("unused")
     private boolean processAnimationTimingFunction(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(AnimationTimingFunction.class, d, properties)) {
             return true;
@@ -2411,7 +2395,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransition(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         return processPropertiesInList(new String[]{
             "transition-duration",
@@ -2421,7 +2404,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         }, d, properties, values);
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransitionDelay(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if (Decoder.genericTime(TransitionDelay.class, TransitionDelay.time, ValueRange.DISALLOW_NEGATIVE, d, properties, values)) {
             return true;
@@ -2443,7 +2425,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransitionDuration(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if (Decoder.genericTime(TransitionDuration.class, TransitionDuration.time, ValueRange.DISALLOW_NEGATIVE, d, properties, values)) {
             return true;
@@ -2465,7 +2446,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransitionProperty(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(TransitionProperty.class, d, properties)) {
             return true;
@@ -2493,7 +2473,6 @@ public class DeclarationTransformerImpl implements DeclarationTransformer {
         return true;
     }
     
-    @SuppressWarnings("unused")
     private boolean processTransitionTimingFunction(Declaration d, Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
         if(Decoder.genericOneIdent(TransitionTimingFunction.class, d, properties)) {
             return true;
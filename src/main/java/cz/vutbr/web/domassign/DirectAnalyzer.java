@@ -11,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.MediaSpec;
 import cz.vutbr.web.css.NodeData;
 import cz.vutbr.web.css.Selector.PseudoElementType;
@@ -47,6 +48,16 @@ public class DirectAnalyzer extends Analyzer
         super(sheets);
     }
 
+    /**
+     * Creates the analyzer for multiple style sheets that uses the given context.
+     * @param sheets A list of stylesheets that will be used as the source of rules.
+     * @param context The context that provides the configuration.
+     */
+    public DirectAnalyzer(List<StyleSheet> sheets, CSSContext context)
+    {
+        super(sheets, context);
+    }
+
     /**
      * Computes the style of an element with an eventual pseudo element for the given media.
      * @param el The DOM element.
@@ -56,8 +67,8 @@ public class DirectAnalyzer extends Analyzer
      */
     public NodeData getElementStyle(Element el, PseudoElementType pseudo, MediaSpec media)
     {
-        final OrderedRule[] applicableRules = AnalyzerUtil.getApplicableRules(sheets, el, media);
-        return AnalyzerUtil.getElementStyle(el, pseudo, getElementMatcher(), getMatchCondition(), applicableRules);
+        final OrderedRule[] applicableRules = AnalyzerUtil.getApplicableRules(sheets, el, media, getElementMatcher());
+        return AnalyzerUtil.getElementStyle(el, pseudo, getElementMatcher(), getMatchCondition(), applicableRules, getMetrics(), getContext());
     }
 
     /**
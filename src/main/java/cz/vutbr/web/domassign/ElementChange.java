@@ -0,0 +1,99 @@
+package cz.vutbr.web.domassign;
+
+import org.w3c.dom.Element;
+
+/**
+ * A modification of a DOM element reported to {@link Analyzer#restyle(StyleMap, java.util.Collection)}.
+ */
+public class ElementChange
+{
+    /**
+     * The kind of the change.
+     */
+    public enum Kind
+    {
+        /** A class has been added or removed. The name is the class name or {@code null} when unknown. */
+        CLASS,
+        /** The element ID has changed. The name is the old or the new ID or {@code null} when unknown. */
+        ID,
+        /** An attribute has been added, removed or modified. The name is the attribute name or {@code null} when unknown. */
+        ATTRIBUTE,
+        /** Child nodes (elements or text) have been added to or removed from the element. */
+        CHILDREN,
+        /** The element has been inserted to the document. */
+        INSERTED,
+        /** The element has been removed from the document. */
+        REMOVED
+    }
+
+    private Element element;
+    private Kind kind;
+    private String name;
+    private Element parent;
+
+    /**
+     * Creates a change with no name.
+     * @param element the changed element
+     * @param kind the kind of the change
+     */
+    public ElementChange(Element element, Kind kind)
+    {
+        this(element, kind, null);
+    }
+
+    /**
+     * Creates a change.
+     * @param element the changed element
+     * @param kind the kind of the change
+     * @param name the changed class name, ID or attribute name depending on the kind of the change
+     */
+    public ElementChange(Element element, Kind kind, String name)
+    {
+        this.element = element;
+        this.kind = kind;
+        this.name = name;
+    }
+
+    /**
+     * Creates a {@link Kind#REMOVED} change.
+     * @param element the removed element
+     * @param parent the element the removed element has been removed from
+     */
+    public ElementChange(Element element, Element parent)
+    {
+        this.element = element;
+        this.kind = Kind.REMOVED;
+        this.parent = parent;
+    }
+
+    public Element getElement()
+    {
+        return element;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Obtains the former parent of a removed element.
+     * @return the parent element or {@code null} for the other kinds of changes
+     */
+    public Element getParent()
+    {
+        return parent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return kind + (name == null ? "" : "(" + name + ")") + " " + element.getNodeName();
+    }
+
+}
@@ -0,0 +1,296 @@
+package cz.vutbr.web.domassign;
+
+import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.CSSProperty.BorderStyle;
+import cz.vutbr.web.css.CSSProperty.BorderWidth;
+import cz.vutbr.web.css.CSSProperty.FontSize;
+import cz.vutbr.web.css.CSSProperty.LetterSpacing;
+import cz.vutbr.web.css.CSSProperty.WordSpacing;
+import cz.vutbr.web.css.ComputedLengths;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.Term;
+import cz.vutbr.web.css.TermCalc;
+import cz.vutbr.web.css.TermFloatValue;
+import cz.vutbr.web.css.TermInteger;
+import cz.vutbr.web.css.TermLength;
+import cz.vutbr.web.css.TermNumber;
+import cz.vutbr.web.css.TermNumeric.Unit;
+import cz.vutbr.web.css.TermPercent;
+import cz.vutbr.web.csskit.CalcArgs;
+import cz.vutbr.web.csskit.CompiledCalc;
+
+/**
+ * Resolves the lengths of the elements to absolute pixel values. The elements must be
+ * resolved top-down so that the computed font size of the parent element is always known.
+ * The viewport units are resolved using the display area dimensions of the media specification.
+ *
+ * The resolver is not thread-safe.
+ */
+public class LengthResolver
+{
+    /** The font size scale of the absolute font size keywords (xx-small to xx-large) */
+    private static final float[] FONT_SCALE = {3f/5f, 3f/4f, 8f/9f, 1f, 6f/5f, 3f/2f, 2f};
+    /** The font size ratio of the {@code larger} and {@code smaller} keywords */
+    private static final float FONT_RATIO = 1.2f;
+
+    private static final int FONT_SIZE = ComputedLengths.indexOf("font-size");
+    private static final int LINE_HEIGHT = ComputedLengths.indexOf("line-height");
+
+    /** The names of the resolved properties indexed by the property index */
+    private static final String[] NAMES;
+    /** The names of the corresponding border style properties for the border widths, {@code null} for the other properties */
+    private static final String[] STYLE_NAMES;
+    static {
+        NAMES = ComputedLengths.getPropertyNames().toArray(new String[0]);
+        STYLE_NAMES = new String[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            if (NAMES[i].startsWith("border-") && NAMES[i].endsWith("-width"))
+                STYLE_NAMES[i] = NAMES[i].replace("-width", "-style");
+        }
+    }
+
+    private final MediaSpec media;
+    private final PxEvaluator evaluator;
+
+    /** The absolute part of the last value resolved by {@link #resolveValue} */
+    private float resolvedAbs;
+    /** The percentage fraction of the last value resolved by {@link #resolveValue} */
+    private float resolvedPct;
+
+    /**
+     * Creates a resolver for the given media.
+     * @param media the media specification that provides the viewport dimensions or {@code null}
+     * when the viewport units should not be resolved
+     */
+    public LengthResolver(MediaSpec media)
+    {
+        this.media = media;
+        this.evaluator = new PxEvaluator();
+    }
+
+    /**
+     * Obtains the media specification used for the viewport units.
+     * @return the media specification or {@code null}
+     */
+    public MediaSpec getMedia()
+    {
+        return media;
+    }
+
+    /**
+     * Resolves the lengths of an element.
+     * @param data the style of the element (concretized)
+     * @param parent the resolved lengths of the parent element or {@code null} for the root element
+     * @return the resolved lengths
+     */
+    public ComputedLengths resolve(NodeData data, ComputedLengths parent)
+    {
+        final float parentFont = (parent == null) ? MediaSpec.em : parent.getFontSize();
+        final float rootFont = (parent == null) ? MediaSpec.em : parent.getRootFontSize();
+        final ComputedLengths ret = new ComputedLengths(rootFont);
+
+        // font size first; the em units of the other properties use it
+        final float font = resolveFontSize(data, parentFont, rootFont);
+        ret.set(FONT_SIZE, font, 0.0f);
+        if (parent == null)
+            ret.setRootFontSize(font);
+
+        for (int i = 0; i < NAMES.length; i++)
+        {
+            if (i != FONT_SIZE)
+            {
+                final String name = NAMES[i];
+                final CSSProperty prop = data.getSpecifiedProperty(name);
+                if (parent != null && prop != null && prop.inherited()
+                        && data.getProperty(name, false) == null
+                        && !(data.getValue(name, true) instanceof TermNumber))
+                {
+                    // inherited computed value (the numbers are multiplied by the own font size)
+                    ret.copy(i, parent);
+                }
+                else
+                    resolveProperty(data, name, prop, i, font, ret);
+            }
+        }
+        return ret;
+    }
+
+    //===========================================================================================
+
+    private float resolveFontSize(NodeData data, float parentFont, float rootFont)
+    {
+        final FontSize prop = data.getProperty("font-size", false);
+        if (prop == null)
+            return parentFont; //inherited
+        switch (prop)
+        {
+            case XX_SMALL: return FONT_SCALE[0] * MediaSpec.em;
+            case X_SMALL: return FONT_SCALE[1] * MediaSpec.em;
+            case SMALL: return FONT_SCALE[2] * MediaSpec.em;
+            case MEDIUM: return FONT_SCALE[3] * MediaSpec.em;
+            case LARGE: return FONT_SCALE[4] * MediaSpec.em;
+            case X_LARGE: return FONT_SCALE[5] * MediaSpec.em;
+            case XX_LARGE: return FONT_SCALE[6] * MediaSpec.em;
+            case LARGER: return parentFont * FONT_RATIO;
+            case SMALLER: return parentFont / FONT_RATIO;
+            case length:
+            case percentage:
+                // both em and % refer to the parent font size
+                if (resolveValue(data.getValue("font-size", true), parentFont, rootFont))
+                    return resolvedAbs + resolvedPct * parentFont;
+                else
+                    return parentFont;
+            default:
+                return parentFont;
+        }
+    }
+
+    private void resolveProperty(NodeData data, String name, CSSProperty prop, int index, float font, ComputedLengths dest)
+    {
+        if (prop instanceof BorderWidth)
+        {
+            final BorderStyle style = data.getSpecifiedProperty(STYLE_NAMES[index]);
+            if (style == BorderStyle.NONE || style == BorderStyle.HIDDEN)
+            {
+                dest.set(index, 0.0f, 0.0f);
+                return;
+            }
+            switch ((BorderWidth) prop)
+            {
+                case THIN: dest.set(index, 1.0f, 0.0f); return;
+                case MEDIUM: dest.set(index, 3.0f, 0.0f); return;
+                case THICK: dest.set(index, 5.0f, 0.0f); return;
+                default: break;
+            }
+        }
+        else if (prop == LetterSpacing.NORMAL || prop == WordSpacing.NORMAL)
+        {
+            dest.set(index, 0.0f, 0.0f);
+            return;
+        }
+
+        final Term<?> value = data.getSpecifiedValue(name);
+        if (index == LINE_HEIGHT && (value instanceof TermNumber || value instanceof TermInteger))
+        {
+            dest.set(index, ((TermFloatValue) value).getFloatValue() * font, 0.0f);
+            return;
+        }
+        if (!resolveValue(value, font, dest.getRootFontSize()))
+            dest.set(index, Float.NaN, 0.0f);
+        else if (index == LINE_HEIGHT)
+            dest.set(index, resolvedAbs + resolvedPct * font, 0.0f); //percentages of the own font size
+        else
+            dest.set(index, resolvedAbs, resolvedPct);
+    }
+
+    /**
+     * Resolves a length value. The absolute part and the percentage fraction are stored
+     * in {@code resolvedAbs} and {@code resolvedPct}.
+     * @return {@code false} when the value cannot be resolved
+     */
+    private boolean resolveValue(Term<?> value, float font, float rootFont)
+    {
+        if (value instanceof TermCalc)
+        {
+            final CalcArgs args = ((TermCalc) value).getArgs();
+            final CompiledCalc calc;
+            try {
+                calc = args.compile();
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            evaluator.font = font;
+            evaluator.rootFont = rootFont;
+            if (calc.isLinear())
+            {
+                double abs = calc.getConstant();
+                double pct = 0.0;
+                for (int i = 0; i < calc.getTermCount(); i++)
+                {
+                    final TermFloatValue basis = calc.getBasis(i);
+                    if (basis instanceof TermPercent)
+                        pct += calc.getCoefficient(i) * basis.getFloatValue() / 100.0;
+                    else
+                        abs += calc.getCoefficient(i) * evaluator.resolveValue(basis);
+                }
+                return setResolved((float) abs, (float) pct);
+            }
+            else
+            {
+                for (Term<?> t : args)
+                    if (t instanceof TermPercent)
+                        return false; //percentages in a nonlinear expression
+                return setResolved((float) calc.evaluate(evaluator), 0.0f);
+            }
+        }
+        else if (value instanceof TermPercent)
+        {
+            return setResolved(0.0f, ((TermPercent) value).getFloatValue() / 100.0f);
+        }
+        else if (value instanceof TermLength)
+        {
+            return setResolved(toPx((TermLength) value, font, rootFont), 0.0f);
+        }
+        else
+            return false;
+    }
+
+    private boolean setResolved(float abs, float pct)
+    {
+        if (Float.isNaN(abs))
+            return false;
+        resolvedAbs = abs;
+        resolvedPct = pct;
+        return true;
+    }
+
+    /**
+     * Converts a length to pixels.
+     * @return the length in pixels or {@code NaN} for unsupported units
+     */
+    private float toPx(TermFloatValue value, float font, float rootFont)
+    {
+        final float v = value.getFloatValue();
+        final Unit unit = value.getUnit();
+        if (unit == null)
+            return v;
+        switch (unit)
+        {
+            case none:
+            case px: return v;
+            case in: return v * MediaSpec.dpi;
+            case cm: return v * MediaSpec.dpi / 2.54f;
+            case mm: return v * MediaSpec.dpi / 25.4f;
+            case q: return v * MediaSpec.dpi / 101.6f;
+            case pt: return v * MediaSpec.dpi / 72.0f;
+            case pc: return v * MediaSpec.dpi / 6.0f;
+            case em: return v * font;
+            case ex:
+            case ch: return v * font * MediaSpec.ex / MediaSpec.em;
+            case rem: return v * rootFont;
+            case vw: return (media == null) ? Float.NaN : v * media.getWidth() / 100.0f;
+            case vh: return (media == null) ? Float.NaN : v * media.getHeight() / 100.0f;
+            case vmin: return (media == null) ? Float.NaN : v * Math.min(media.getWidth(), media.getHeight()) / 100.0f;
+            case vmax: return (media == null) ? Float.NaN : v * Math.max(media.getWidth(), media.getHeight()) / 100.0f;
+            default: return Float.NaN;
+        }
+    }
+
+    /**
+     * Evaluates the non-percentage terms of calc() expressions.
+     */
+    private class PxEvaluator extends CalcArgs.DoubleEvaluator
+    {
+        private float font;
+        private float rootFont;
+
+        @Override
+        public double resolveValue(TermFloatValue val)
+        {
+            return toPx(val, font, rootFont);
+        }
+    }
+
+}
@@ -147,6 +147,16 @@ public abstract class MultiMap<E, P, D>
         }
     }
     
+    /**
+     * Removes the data of the specified element for all the pseudo-elements.
+     * @param el the element
+     */
+    public void remove(E el)
+    {
+        mainMap.remove(el);
+        pseudoMaps.remove(el);
+    }
+    
     /**
      * Gets all the keys (elements) of the main map.
      * @return A set of elements contained in the map.
@@ -0,0 +1,310 @@
+package cz.vutbr.web.domassign;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.Selector.PseudoClassType;
+import cz.vutbr.web.css.TreeAccess;
+
+/**
+ * A compact array-based tree of elements that may be styled by the {@link TreeAnalyzer} without
+ * building a DOM. The nodes are created by {@link #addElement(int, String)} and their properties
+ * are stored in parallel arrays indexed by the node handle.
+ */
+public class NodeStore implements TreeAccess
+{
+    private static final String[] NO_STRINGS = new String[0];
+
+    private int count;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] previousSibling;
+    private int[] nextSibling;
+    private String[] tagNames;
+    private String[] ids;
+    private String[][] classes;
+    /** Attribute names and values interleaved */
+    private String[][] attributes;
+    private boolean[] content;
+    /** Active pseudo-classes (bit mask of the type ordinals) */
+    private long[] pseudoClasses;
+
+    /**
+     * Creates an empty store.
+     */
+    public NodeStore()
+    {
+        this(64);
+    }
+
+    /**
+     * Creates an empty store.
+     * @param capacity the expected number of elements
+     */
+    public NodeStore(int capacity)
+    {
+        final int n = Math.max(capacity, 1);
+        parent = new int[n];
+        firstChild = new int[n];
+        lastChild = new int[n];
+        previousSibling = new int[n];
+        nextSibling = new int[n];
+        tagNames = new String[n];
+        ids = new String[n];
+        classes = new String[n][];
+        attributes = new String[n][];
+        content = new boolean[n];
+        pseudoClasses = new long[n];
+    }
+
+    /**
+     * Adds a new element as the last child of the given parent.
+     * @param parentNode the parent node or {@link TreeAccess#NONE} for the root element
+     * @param tagName the element name
+     * @return the new node
+     * @throws IllegalArgumentException when a second root element is added
+     */
+    public int addElement(int parentNode, String tagName)
+    {
+        if (parentNode == NONE && count > 0)
+            throw new IllegalArgumentException("The root element already exists");
+        if (count == parent.length)
+            grow(count * 2);
+        final int node = count++;
+        parent[node] = parentNode;
+        firstChild[node] = NONE;
+        lastChild[node] = NONE;
+        previousSibling[node] = NONE;
+        nextSibling[node] = NONE;
+        tagNames[node] = tagName;
+        if (parentNode != NONE)
+        {
+            final int last = lastChild[parentNode];
+            if (last == NONE)
+                firstChild[parentNode] = node;
+            else
+            {
+                nextSibling[last] = node;
+                previousSibling[node] = last;
+            }
+            lastChild[parentNode] = node;
+            content[parentNode] = true;
+        }
+        return node;
+    }
+
+    /**
+     * Sets the element ID.
+     * @param node the node
+     * @param id the new ID or {@code null}
+     */
+    public void setID(int node, String id)
+    {
+        ids[node] = id;
+    }
+
+    /**
+     * Adds a class to the element.
+     * @param node the node
+     * @param className the class name
+     */
+    public void addClass(int node, String className)
+    {
+        final String[] cur = classes[node];
+        if (cur == null)
+            classes[node] = new String[] {className};
+        else
+        {
+            final String[] nc = Arrays.copyOf(cur, cur.length + 1);
+            nc[cur.length] = className;
+            classes[node] = nc;
+        }
+    }
+
+    /**
+     * Sets an attribute value. The {@code id} and {@code class} attributes set the element ID
+     * and classes as well.
+     * @param node the node
+     * @param name the attribute name
+     * @param value the attribute value
+     */
+    public void setAttribute(int node, String name, String value)
+    {
+        if ("id".equalsIgnoreCase(name))
+            ids[node] = value;
+        else if ("class".equalsIgnoreCase(name))
+        {
+            classes[node] = null;
+            for (String cname : value.split("\\s+"))
+            {
+                if (!cname.isEmpty())
+                    addClass(node, cname);
+            }
+        }
+        final String[] cur = attributes[node];
+        if (cur == null)
+            attributes[node] = new String[] {name, value};
+        else
+        {
+            for (int i = 0; i < cur.length; i += 2)
+            {
+                if (cur[i].equalsIgnoreCase(name))
+                {
+                    cur[i + 1] = value;
+                    return;
+                }
+            }
+            final String[] na = Arrays.copyOf(cur, cur.length + 2);
+            na[cur.length] = name;
+            na[cur.length + 1] = value;
+            attributes[node] = na;
+        }
+    }
+
+    /**
+     * Marks the element as containing a text.
+     * @param node the node
+     */
+    public void setHasText(int node)
+    {
+        content[node] = true;
+    }
+
+    /**
+     * Sets the state of a non-structural pseudo-class such as {@code :hover}.
+     * @param node the node
+     * @param type the pseudo-class type
+     * @param active {@code true} when the pseudo-class applies to the element
+     */
+    public void setPseudoClass(int node, PseudoClassType type, boolean active)
+    {
+        final long bit = 1L << type.ordinal();
+        if (active)
+            pseudoClasses[node] |= bit;
+        else
+            pseudoClasses[node] &= ~bit;
+    }
+
+    @Override
+    public int getNodeCount()
+    {
+        return count;
+    }
+
+    @Override
+    public int getRoot()
+    {
+        return (count == 0) ? NONE : 0;
+    }
+
+    @Override
+    public int getParent(int node)
+    {
+        return parent[node];
+    }
+
+    @Override
+    public int getFirstChild(int node)
+    {
+        return firstChild[node];
+    }
+
+    @Override
+    public int getPreviousSibling(int node)
+    {
+        return previousSibling[node];
+    }
+
+    @Override
+    public int getNextSibling(int node)
+    {
+        return nextSibling[node];
+    }
+
+    @Override
+    public String getTagName(int node)
+    {
+        return tagNames[node];
+    }
+
+    @Override
+    public String getID(int node)
+    {
+        return ids[node];
+    }
+
+    @Override
+    public Collection<String> getClasses(int node)
+    {
+        final String[] cur = classes[node];
+        if (cur == null)
+            return Collections.emptyList();
+        else
+            return Collections.unmodifiableList(Arrays.asList(cur));
+    }
+
+    @Override
+    public boolean hasClass(int node, String className)
+    {
+        final String[] cur = classes[node];
+        if (cur != null)
+        {
+            for (String c : cur)
+                if (c.equals(className))
+                    return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String getAttribute(int node, String name)
+    {
+        final String[] cur = attributes[node];
+        if (cur != null)
+        {
+            for (int i = 0; i < cur.length; i += 2)
+                if (cur[i].equalsIgnoreCase(name))
+                    return cur[i + 1];
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasContent(int node)
+    {
+        return content[node];
+    }
+
+    @Override
+    public boolean matchesPseudoClass(int node, Selector.PseudoClass pseudo)
+    {
+        return pseudo.getType() != null && (pseudoClasses[node] & (1L << pseudo.getType().ordinal())) != 0;
+    }
+
+    @Override
+    public Object getSourceNode(int node)
+    {
+        return null;
+    }
+
+    //===============================================================================================
+
+    private void grow(int capacity)
+    {
+        parent = Arrays.copyOf(parent, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        previousSibling = Arrays.copyOf(previousSibling, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        tagNames = Arrays.copyOf(tagNames, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        classes = Arrays.copyOf(classes, capacity);
+        attributes = Arrays.copyOf(attributes, capacity);
+        content = Arrays.copyOf(content, capacity);
+        pseudoClasses = Arrays.copyOf(pseudoClasses, capacity);
+    }
+
+}
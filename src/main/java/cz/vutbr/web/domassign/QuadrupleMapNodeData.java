@@ -10,9 +10,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
 
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.CSSProperty;
 import cz.vutbr.web.css.Declaration;
 import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.NodeDataFactory;
 import cz.vutbr.web.css.Term;
 import cz.vutbr.web.csskit.OutputUtil;
 
@@ -35,7 +37,24 @@ public class QuadrupleMapNodeData extends BaseNodeDataImpl {
 	private Map<String,Declaration> sourcesOwn;
     private Map<String,Declaration> sourcesInh;
 	
+	/** The factory that creates the instances for a context */
+	public static final NodeDataFactory FACTORY = new NodeDataFactory() {
+		@Override
+		public NodeData createNodeData(CSSContext context) {
+			return new QuadrupleMapNodeData(context);
+		}
+	};
+	
 	public QuadrupleMapNodeData() {
+		init();
+	}
+	
+	public QuadrupleMapNodeData(CSSContext context) {
+		super(context);
+		init();
+	}
+	
+	private void init() {
 		this.propertiesOwn = new HashMap<String, CSSProperty>(css.getTotalProperties(), 1.0f);
 		this.propertiesInh = new HashMap<String, CSSProperty>(css.getTotalProperties(), 1.0f);
 		this.valuesOwn = new HashMap<String, Term<?>>(css.getTotalProperties(), 1.0f);
@@ -0,0 +1,473 @@
+package cz.vutbr.web.domassign;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.KeyframeBlock;
+import cz.vutbr.web.css.MatchCondition;
+import cz.vutbr.web.css.Rule;
+import cz.vutbr.web.css.RuleBlock;
+import cz.vutbr.web.css.RuleFactory;
+import cz.vutbr.web.css.RuleFontFace;
+import cz.vutbr.web.css.RuleKeyframes;
+import cz.vutbr.web.css.RuleMedia;
+import cz.vutbr.web.css.RulePage;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.RuleViewport;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.Term;
+import cz.vutbr.web.css.TermIdent;
+import cz.vutbr.web.css.TermString;
+import cz.vutbr.web.csskit.ConcurrentIdentityMap;
+
+/**
+ * Records which rules and selectors have matched at least one element when computing the styles
+ * using an {@link Analyzer}. A single coverage may be registered with any number of analyzers
+ * using {@link Analyzer#setRuleCoverage(RuleCoverage)} (or {@link BatchStyler#setRuleCoverage(RuleCoverage)})
+ * in order to collect the results over many documents and media specifications.
+ * <p>
+ * The collected data may be used for creating a coverage report and for pruning the style sheets:
+ * the pruned sheets contain only the selectors that have matched, together with the {@code @media} rules
+ * that contain them and the {@code @font-face} and {@code @keyframes} rules referenced by them. Note that
+ * the selectors are evaluated by the {@link MatchCondition} of the analyzer; the selectors that depend
+ * on a dynamic state that has not been in effect during the evaluation (e.g. {@code :hover}) are
+ * considered unused.
+ */
+public class RuleCoverage
+{
+    private final ConcurrentIdentityMap<CombinedSelector, LongAdder> selectors;
+
+    /**
+     * Creates an empty coverage.
+     */
+    public RuleCoverage()
+    {
+        selectors = new ConcurrentIdentityMap<CombinedSelector, LongAdder>() {
+            @Override
+            protected LongAdder createValue(CombinedSelector key)
+            {
+                return new LongAdder();
+            }
+        };
+    }
+
+    /**
+     * Records that a selector has matched an element. The method may be called by several
+     * threads at once without blocking.
+     * @param selector the matching selector
+     */
+    public void matched(CombinedSelector selector)
+    {
+        selectors.get(selector).increment();
+    }
+
+    /**
+     * Checks whether any selector of the rule has matched.
+     * @param rule the rule set
+     * @return {@code true} when the rule has been used
+     */
+    public boolean isUsed(RuleSet rule)
+    {
+        for (CombinedSelector s : rule.getSelectors())
+        {
+            if (isUsed(s))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the selector has matched.
+     * @param selector the selector
+     * @return {@code true} when the selector has been used
+     */
+    public boolean isUsed(CombinedSelector selector)
+    {
+        return getMatches(selector) > 0;
+    }
+
+    /**
+     * Obtains the number of elements (and pseudo-elements) matched by a selector.
+     * @param selector the selector
+     * @return the number of matches
+     */
+    public long getMatches(CombinedSelector selector)
+    {
+        final LongAdder cnt = selectors.peek(selector);
+        return (cnt == null) ? 0 : cnt.sum();
+    }
+
+    /**
+     * Clears all the collected data.
+     */
+    public void reset()
+    {
+        selectors.clear();
+    }
+
+    /**
+     * Creates a copy of a style sheet that contains the used rules only. The unused rule sets and
+     * the unused selectors of the used rule sets are omitted as well as the {@code @media} rules that
+     * contain no used rule sets. The {@code @font-face} and {@code @keyframes} rules are kept when their
+     * font family or name is referenced by a used rule set and the page and viewport rules are always
+     * copied. The declarations are shared with the original style sheet. The rules of any other kinds
+     * are shared as well; they remain owned by the original style sheet.
+     * @param sheet the style sheet to prune
+     * @return the pruned style sheet
+     */
+    public StyleSheet prune(StyleSheet sheet)
+    {
+        return prune(sheet, findReferences(Collections.singletonList(sheet)));
+    }
+
+    /**
+     * Creates the pruned copies of a list of style sheets. The {@code @font-face} and {@code @keyframes}
+     * rules may be referenced from any of the sheets.
+     * @param sheets the style sheets to prune
+     * @return the list of the pruned style sheets in the same order
+     * @see #prune(StyleSheet)
+     */
+    public List<StyleSheet> prune(List<StyleSheet> sheets)
+    {
+        final Set<String> refs = findReferences(sheets);
+        final List<StyleSheet> ret = new ArrayList<StyleSheet>(sheets.size());
+        for (StyleSheet sheet : sheets)
+            ret.add(prune(sheet, refs));
+        return ret;
+    }
+
+    /**
+     * Creates the coverage report for the given style sheets.
+     * @param sheets the style sheets to report
+     * @return the report
+     */
+    public Report getReport(List<StyleSheet> sheets)
+    {
+        final Report ret = new Report();
+        for (StyleSheet sheet : sheets)
+        {
+            for (RuleBlock<?> rule : sheet)
+            {
+                if (rule instanceof RuleSet)
+                    addEntries(ret, (RuleSet) rule);
+                else if (rule instanceof RuleMedia)
+                {
+                    for (RuleSet set : (RuleMedia) rule)
+                        addEntries(ret, set);
+                }
+            }
+        }
+        return ret;
+    }
+
+    //====================================================================================
+
+    private void addEntries(Report report, RuleSet rule)
+    {
+        report.totalRules++;
+        if (isUsed(rule))
+            report.usedRules++;
+        for (CombinedSelector s : rule.getSelectors())
+        {
+            final long matches = getMatches(s);
+            report.entries.add(new Entry(rule, s, matches));
+            report.totalSelectors++;
+            if (matches > 0)
+                report.usedSelectors++;
+        }
+    }
+
+    private StyleSheet prune(StyleSheet sheet, Set<String> refs)
+    {
+        final RuleFactory rf = CSSFactory.getRuleFactory();
+        final StyleSheet ret = (StyleSheet) rf.createStyleSheet(sheet.getOrigin()).unlock();
+        for (RuleBlock<?> rule : sheet)
+        {
+            if (rule instanceof RuleSet)
+            {
+                final RuleSet set = pruneRuleSet(rf, (RuleSet) rule);
+                if (set != null)
+                    ret.add(set);
+            }
+            else if (rule instanceof RuleMedia)
+            {
+                final RuleMedia media = (RuleMedia) rule;
+                final RuleMedia copy = (RuleMedia) rf.createMedia().unlock();
+                copy.setMediaQueries(media.getMediaQueries());
+                for (RuleSet set : media)
+                {
+                    final RuleSet pruned = pruneRuleSet(rf, set);
+                    if (pruned != null)
+                        copy.add(pruned);
+                }
+                if (!copy.isEmpty())
+                    ret.add(copy);
+            }
+            else if (rule instanceof RuleFontFace)
+            {
+                final String family = ((RuleFontFace) rule).getFontFamily();
+                if (family != null && refs.contains(family.toLowerCase()))
+                    ret.add((RuleFontFace) rf.createFontFace().replaceAll(new ArrayList<Declaration>((RuleFontFace) rule)));
+            }
+            else if (rule instanceof RuleKeyframes)
+            {
+                final RuleKeyframes keyframes = (RuleKeyframes) rule;
+                if (keyframes.getName() != null && refs.contains(keyframes.getName().toLowerCase()))
+                    ret.add((RuleKeyframes) rf.createKeyframes().setName(keyframes.getName()).replaceAll(new ArrayList<KeyframeBlock>(keyframes)));
+            }
+            else if (rule instanceof RulePage)
+            {
+                final RulePage page = (RulePage) rule;
+                ret.add((RulePage) rf.createPage().setName(page.getName()).setPseudo(page.getPseudo()).replaceAll(new ArrayList<Rule<?>>(page)));
+            }
+            else if (rule instanceof RuleViewport)
+                ret.add((RuleViewport) rf.createViewport().replaceAll(new ArrayList<Declaration>((RuleViewport) rule)));
+            else
+            {
+                // unknown kind of rule: it cannot be copied, keep its original owner
+                final StyleSheet owner = rule.getStyleSheet();
+                ret.add(rule);
+                rule.setStyleSheet(owner);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Creates a copy of a rule set that contains the used selectors only.
+     * @return the new rule set or {@code null} when no selector has been used
+     */
+    private RuleSet pruneRuleSet(RuleFactory rf, RuleSet rule)
+    {
+        final List<CombinedSelector> used = new ArrayList<CombinedSelector>();
+        for (CombinedSelector s : rule.getSelectors())
+        {
+            if (isUsed(s))
+                used.add(s);
+        }
+        if (used.isEmpty())
+            return null;
+        final RuleSet ret = rf.createSet();
+        ret.setSelectors(used);
+        ret.replaceAll(new ArrayList<Declaration>(rule));
+        return ret;
+    }
+
+    /**
+     * Finds the font family and animation names used by the used rule sets. The names are collected
+     * from the individual identifiers and strings as well as from the sequences of identifiers
+     * (multi-word font family names) so that the result may contain some additional names.
+     */
+    private Set<String> findReferences(List<StyleSheet> sheets)
+    {
+        final Set<String> ret = new HashSet<String>();
+        for (StyleSheet sheet : sheets)
+        {
+            for (RuleBlock<?> rule : sheet)
+            {
+                if (rule instanceof RuleSet)
+                    findReferences((RuleSet) rule, ret);
+                else if (rule instanceof RuleMedia)
+                {
+                    for (RuleSet set : (RuleMedia) rule)
+                        findReferences(set, ret);
+                }
+            }
+        }
+        return ret;
+    }
+
+    private void findReferences(RuleSet rule, Set<String> dest)
+    {
+        if (!isUsed(rule))
+            return;
+        for (Declaration d : rule)
+        {
+            final String name = d.getProperty();
+            if (name.equals("font-family") || name.equals("font")
+                    || name.equals("animation-name") || name.equals("animation"))
+            {
+                StringBuilder words = null;
+                for (Term<?> term : d)
+                {
+                    if (term.getOperator() == Term.Operator.COMMA)
+                        words = null;
+                    if (term instanceof TermIdent)
+                    {
+                        final String value = ((TermIdent) term).getValue().toLowerCase();
+                        dest.add(value);
+                        words = (words == null) ? new StringBuilder(value) : words.append(' ').append(value);
+                        dest.add(words.toString());
+                    }
+                    else
+                    {
+                        if (term instanceof TermString)
+                            dest.add(((TermString) term).getValue().toLowerCase());
+                        words = null;
+                    }
+                }
+            }
+        }
+    }
+
+    //====================================================================================
+
+    /**
+     * The coverage of a set of style sheets.
+     */
+    public static class Report
+    {
+        private final List<Entry> entries = new ArrayList<Entry>();
+        private int totalRules;
+        private int usedRules;
+        private int totalSelectors;
+        private int usedSelectors;
+
+        /** @return the entries for all the selectors in the style sheet order */
+        public List<Entry> getEntries()
+        {
+            return entries;
+        }
+
+        /** @return the entries of the selectors that have never matched */
+        public List<Entry> getUnused()
+        {
+            final List<Entry> ret = new ArrayList<Entry>();
+            for (Entry entry : entries)
+            {
+                if (entry.matches == 0)
+                    ret.add(entry);
+            }
+            return ret;
+        }
+
+        /** @return the total number of rule sets */
+        public int getTotalRules()
+        {
+            return totalRules;
+        }
+
+        /** @return the number of rule sets with at least one used selector */
+        public int getUsedRules()
+        {
+            return usedRules;
+        }
+
+        /** @return the total number of selectors */
+        public int getTotalSelectors()
+        {
+            return totalSelectors;
+        }
+
+        /** @return the number of used selectors */
+        public int getUsedSelectors()
+        {
+            return usedSelectors;
+        }
+
+        /**
+         * Writes the report as a JSON object with the rule and selector counts and the
+         * {@code selectors} array of objects with the {@code selector} and {@code matches} properties.
+         * @param out the output to write the report to
+         * @throws IOException when writing fails
+         */
+        public void writeJSON(Appendable out) throws IOException
+        {
+            out.append("{\"totalRules\": ").append(String.valueOf(totalRules));
+            out.append(", \"usedRules\": ").append(String.valueOf(usedRules));
+            out.append(", \"totalSelectors\": ").append(String.valueOf(totalSelectors));
+            out.append(", \"usedSelectors\": ").append(String.valueOf(usedSelectors));
+            out.append(", \"selectors\": [");
+            boolean first = true;
+            for (Entry entry : entries)
+            {
+                if (!first)
+                    out.append(',');
+                out.append("\n  {\"selector\": ");
+                SelectorProfiler.appendString(out, entry.selector.toString());
+                out.append(", \"matches\": ").append(String.valueOf(entry.matches));
+                out.append('}');
+                first = false;
+            }
+            out.append(first ? "]}" : "\n]}");
+        }
+
+        /**
+         * Creates the report in the JSON format.
+         * @return the JSON string
+         * @see #writeJSON(Appendable)
+         */
+        public String toJSON()
+        {
+            final StringBuilder sb = new StringBuilder();
+            try {
+                writeJSON(sb);
+            } catch (IOException e) {
+                // cannot happen for a StringBuilder
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString()
+        {
+            return "rules " + usedRules + "/" + totalRules + " selectors " + usedSelectors + "/" + totalSelectors;
+        }
+    }
+
+    /**
+     * The coverage of a single selector.
+     */
+    public static class Entry
+    {
+        private final RuleSet rule;
+        private final CombinedSelector selector;
+        private final long matches;
+
+        protected Entry(RuleSet rule, CombinedSelector selector, long matches)
+        {
+            this.rule = rule;
+            this.selector = selector;
+            this.matches = matches;
+        }
+
+        /** @return the rule that contains the selector */
+        public RuleSet getRule()
+        {
+            return rule;
+        }
+
+        /** @return the selector */
+        public CombinedSelector getSelector()
+        {
+            return selector;
+        }
+
+        /** @return the number of matched elements */
+        public long getMatches()
+        {
+            return matches;
+        }
+
+        /** @return {@code true} when the selector has matched at least one element */
+        public boolean isUsed()
+        {
+            return matches > 0;
+        }
+
+        @Override
+        public String toString()
+        {
+            return selector + " matches=" + matches;
+        }
+    }
+
+}
@@ -0,0 +1,243 @@
+package cz.vutbr.web.domassign;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.Rule;
+import cz.vutbr.web.css.RuleMedia;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.StyleSheet;
+
+/**
+ * The summary of the element properties read by the selectors of a set of style sheets.
+ * It is used for deciding which elements must be restyled when some properties of an element
+ * change. The class names, IDs and attribute names are collected separately for the individual
+ * positions of the simple selector within the combined selectors:
+ * <ul>
+ * <li>{@link #SUBJECT} &ndash; the last simple selector that applies to the styled element itself,</li>
+ * <li>{@link #ANCESTOR} &ndash; the simple selectors that apply to the ancestors of the styled element,</li>
+ * <li>{@link #SIBLING} &ndash; the simple selectors followed by a sibling combinator somewhere later
+ * in the combined selector; they apply to the preceding siblings of the styled element or to
+ * the preceding siblings of its ancestors.</li>
+ * </ul>
+ * Class names and IDs are stored in lower case.
+ */
+final class SelectorDependencies
+{
+    /** The simple selector applies to the styled element */
+    public static final int SUBJECT = 0;
+    /** The simple selector applies to an ancestor of the styled element */
+    public static final int ANCESTOR = 1;
+    /** The simple selector applies to a preceding sibling of the styled element or its ancestor */
+    public static final int SIBLING = 2;
+
+    private static final int POSITIONS = 3;
+
+    private final Set<String>[] classes;
+    private final Set<String>[] ids;
+    private final Set<String>[] attributes;
+    /** Pseudo-classes evaluated by the match condition that may read any element property */
+    private final boolean[] conditional;
+    /** Pseudo-classes that depend on the element siblings (first-child, nth-of-type, etc.) */
+    private final boolean[] structural;
+    /** The :empty pseudo-class that depends on the element child nodes */
+    private final boolean[] empty;
+    /** Sibling combinators are used */
+    private boolean siblingCombinators;
+    /** Some selector cannot be analyzed */
+    private boolean unsupported;
+
+    public SelectorDependencies(List<StyleSheet> sheets)
+    {
+        classes = createSets();
+        ids = createSets();
+        attributes = createSets();
+        conditional = new boolean[POSITIONS];
+        structural = new boolean[POSITIONS];
+        empty = new boolean[POSITIONS];
+        for (StyleSheet sheet : sheets)
+        {
+            for (Rule<?> rule : sheet)
+            {
+                if (rule instanceof RuleSet)
+                    addRuleSet((RuleSet) rule);
+                else if (rule instanceof RuleMedia)
+                {
+                    for (RuleSet rs : (RuleMedia) rule)
+                        addRuleSet(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a change of the given class name may change the matching of a simple selector
+     * at the given position.
+     * @param position the selector position
+     * @param name the class name or {@code null} when the changed class is not known
+     * @return {@code true} when the matching may be affected
+     */
+    public boolean dependsOnClass(int position, String name)
+    {
+        return depends(classes[position], name) || dependsOnAttribute(position, "class");
+    }
+
+    /**
+     * Checks whether a change of the element ID may change the matching of a simple selector
+     * at the given position.
+     * @param position the selector position
+     * @param id the old or new ID or {@code null} when not known
+     * @return {@code true} when the matching may be affected
+     */
+    public boolean dependsOnID(int position, String id)
+    {
+        return depends(ids[position], id) || dependsOnAttribute(position, "id");
+    }
+
+    /**
+     * Checks whether a change of the given attribute may change the matching of a simple selector
+     * at the given position.
+     * @param position the selector position
+     * @param name the attribute name or {@code null} when not known
+     * @return {@code true} when the matching may be affected
+     */
+    public boolean dependsOnAttribute(int position, String name)
+    {
+        return conditional[position] || depends(attributes[position], name);
+    }
+
+    /**
+     * Checks whether the simple selectors at the given position depend on the position of the element
+     * among its siblings.
+     * @param position the selector position
+     * @return {@code true} when structural pseudo-classes are used at this position
+     */
+    public boolean isStructural(int position)
+    {
+        return structural[position];
+    }
+
+    /**
+     * Checks whether the simple selectors at the given position depend on the presence of child nodes.
+     * @param position the selector position
+     * @return {@code true} when the :empty pseudo-class is used at this position
+     */
+    public boolean dependsOnChildren(int position)
+    {
+        return empty[position];
+    }
+
+    /**
+     * Checks whether any selector uses a sibling combinator.
+     * @return {@code true} when sibling combinators are used
+     */
+    public boolean hasSiblingCombinators()
+    {
+        return siblingCombinators;
+    }
+
+    /**
+     * Checks whether some selectors may depend on the descendants of the matched element
+     * (the :has() pseudo-class). In that case, the dependencies cannot be used for limiting
+     * the restyled elements.
+     * @return {@code true} when the incremental restyling is not possible
+     */
+    public boolean isUnsupported()
+    {
+        return unsupported;
+    }
+
+    //===============================================================================================
+
+    private boolean depends(Set<String> names, String name)
+    {
+        if (name == null)
+            return !names.isEmpty();
+        else
+            return names.contains(name.toLowerCase());
+    }
+
+    private void addRuleSet(RuleSet rule)
+    {
+        for (CombinedSelector cs : rule.getSelectors())
+        {
+            //the combinator of a selector binds it to the preceding one
+            int position = SUBJECT;
+            for (int i = cs.size() - 1; i >= 0; i--)
+            {
+                final Selector sel = cs.get(i);
+                addSelector(sel, position);
+                final Selector.Combinator comb = sel.getCombinator();
+                if (comb == Selector.Combinator.ADJACENT || comb == Selector.Combinator.PRECEDING)
+                {
+                    siblingCombinators = true;
+                    position = SIBLING;
+                }
+                else if (comb != null && position == SUBJECT)
+                    position = ANCESTOR;
+            }
+        }
+    }
+
+    private void addSelector(Selector sel, int position)
+    {
+        for (Selector.SelectorPart part : sel)
+        {
+            if (part instanceof Selector.ElementClass)
+                classes[position].add(((Selector.ElementClass) part).getClassName().toLowerCase());
+            else if (part instanceof Selector.ElementID)
+                ids[position].add(((Selector.ElementID) part).getID().toLowerCase());
+            else if (part instanceof Selector.ElementAttribute)
+                attributes[position].add(((Selector.ElementAttribute) part).getAttribute().toLowerCase());
+            else if (part instanceof Selector.PseudoClass)
+            {
+                final Selector.PseudoClass pc = (Selector.PseudoClass) part;
+                if (pc.getType() == null)
+                    continue; //never matches
+                switch (pc.getType())
+                {
+                    case FIRST_CHILD:
+                    case LAST_CHILD:
+                    case ONLY_CHILD:
+                    case FIRST_OF_TYPE:
+                    case LAST_OF_TYPE:
+                    case ONLY_OF_TYPE:
+                    case NTH_CHILD:
+                    case NTH_LAST_CHILD:
+                    case NTH_OF_TYPE:
+                    case NTH_LAST_OF_TYPE:
+                        structural[position] = true;
+                        break;
+                    case EMPTY:
+                        empty[position] = true;
+                        break;
+                    case ROOT:
+                        break; //cannot change for an element in the document
+                    case NOT:
+                        if (pc.getNestedSelector() != null)
+                            addSelector(pc.getNestedSelector(), position);
+                        break;
+                    case HAS:
+                        unsupported = true;
+                        break;
+                    default:
+                        conditional[position] = true;
+                        break;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Set<String>[] createSets()
+    {
+        final Set<String>[] ret = new Set[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++)
+            ret[i] = new HashSet<String>();
+        return ret;
+    }
+
+}
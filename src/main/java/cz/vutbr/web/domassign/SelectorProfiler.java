@@ -0,0 +1,108 @@
+package cz.vutbr.web.domassign;
+
+import java.io.IOException;
+import java.util.List;
+
+import cz.vutbr.web.csskit.StyleMetricsCollector;
+
+/**
+ * Collects the cost of the individual selectors when matched by an {@link Analyzer} or
+ * a {@link DirectAnalyzer}. For each combined selector, it records how many times its rule
+ * has been a candidate for an element, the number of match attempts, the number of DOM
+ * nodes visited by the combinators, the number of successful matches and the total time.
+ * The resulting report is ranked by the time and may be written in the JSON format.
+ *
+ * The profiler is a {@link StyleMetricsCollector}; it is enabled by registering it as the metrics
+ * listener using {@link Analyzer#registerMetrics(cz.vutbr.web.css.StyleMetrics)}.
+ */
+public class SelectorProfiler extends StyleMetricsCollector
+{
+
+    /**
+     * Creates the report of all the profiled selectors ranked by their total matching time.
+     * @return the list of selector statistics sorted by the time in the descending order
+     */
+    public List<SelectorStats> getReport()
+    {
+        return getMostExpensiveSelectors(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates the report of the most expensive selectors.
+     * @param count the maximal number of entries
+     * @return the list of selector statistics sorted by the time in the descending order
+     */
+    public List<SelectorStats> getReport(int count)
+    {
+        return getMostExpensiveSelectors(count);
+    }
+
+    /**
+     * Writes the ranked report as a JSON array of objects with the {@code selector}, {@code candidates},
+     * {@code attempts}, {@code visited}, {@code matches} and {@code nanos} properties.
+     * @param out the output to write the report to
+     * @throws IOException when writing fails
+     */
+    public void writeJSON(Appendable out) throws IOException
+    {
+        out.append('[');
+        boolean first = true;
+        for (SelectorStats entry : getReport())
+        {
+            if (!first)
+                out.append(',');
+            out.append("\n  {\"selector\": ");
+            appendString(out, entry.getSelector().toString());
+            out.append(", \"candidates\": ").append(String.valueOf(entry.getCandidates()));
+            out.append(", \"attempts\": ").append(String.valueOf(entry.getTests()));
+            out.append(", \"visited\": ").append(String.valueOf(entry.getVisited()));
+            out.append(", \"matches\": ").append(String.valueOf(entry.getMatches()));
+            out.append(", \"nanos\": ").append(String.valueOf(entry.getTime()));
+            out.append('}');
+            first = false;
+        }
+        out.append(first ? "]" : "\n]");
+    }
+
+    /**
+     * Creates the ranked report in the JSON format.
+     * @return the JSON string
+     * @see #writeJSON(Appendable)
+     */
+    public String toJSON()
+    {
+        final StringBuilder sb = new StringBuilder();
+        try {
+            writeJSON(sb);
+        } catch (IOException e) {
+            // cannot happen for a StringBuilder
+        }
+        return sb.toString();
+    }
+
+    //====================================================================================
+
+    static void appendString(Appendable out, String s) throws IOException
+    {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            final char c = s.charAt(i);
+            switch (c)
+            {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20)
+                        out.append(String.format("\\u%04x", (int) c));
+                    else
+                        out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+}
@@ -8,9 +8,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import cz.vutbr.web.css.CSSContext;
 import cz.vutbr.web.css.CSSProperty;
 import cz.vutbr.web.css.Declaration;
 import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.NodeDataFactory;
 import cz.vutbr.web.css.Term;
 import cz.vutbr.web.csskit.OutputUtil;
 
@@ -27,10 +29,23 @@ public class SingleMapNodeData extends BaseNodeDataImpl {
 	
 	private Map<String, Quadruple> map;
 	
+	/** The factory that creates the instances for a context */
+	public static final NodeDataFactory FACTORY = new NodeDataFactory() {
+		@Override
+		public NodeData createNodeData(CSSContext context) {
+			return new SingleMapNodeData(context);
+		}
+	};
+	
 	public SingleMapNodeData() {
 		this.map = new HashMap<String, Quadruple>(css.getTotalProperties(), 1.0f);
 	}
 	
+	public SingleMapNodeData(CSSContext context) {
+		super(context);
+		this.map = new HashMap<String, Quadruple>(css.getTotalProperties(), 1.0f);
+	}
+	
 	public <T extends CSSProperty> T getProperty(String name) {
 		// until java 7 compiler is not able to infer correct type 
 		// this is an ugly workaround
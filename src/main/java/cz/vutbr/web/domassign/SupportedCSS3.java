@@ -1,8 +1,10 @@
 package cz.vutbr.web.domassign;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -20,6 +22,12 @@ import cz.vutbr.web.css.CSSProperty.*;
 
 /**
  * Contains default values for properties supported by parser (CSS 3)
+ * <p>
+ * The property names and the default values are kept in static tables. The names are available
+ * immediately; the default properties and values are split into groups (text, box, positioning, etc.)
+ * and every group is initialized on its first use only. This way, the {@link CSSProperty} implementations
+ * of the unused groups are never loaded and no reflection is involved, which keeps the start-up
+ * cheap and the class usable with ahead-of-time compilation.
  * 
  * @author kapy
  * @author burgetr
@@ -27,82 +35,113 @@ import cz.vutbr.web.css.CSSProperty.*;
 public class SupportedCSS3 implements SupportedCSS {
 	private static final Logger log = LoggerFactory.getLogger(SupportedCSS3.class);
 
-	private static final int TOTAL_SUPPORTED_DECLARATIONS = 177;
-
 	private static final TermFactory tf = CSSFactory.getTermFactory();
 
-	private static final CSSProperty DEFAULT_UA_FONT_FAMILY = FontFamily.SANS_SERIF;
-	private static final CSSProperty DEFAULT_UA_TEXT_ALIGN = TextAlign.BY_DIRECTION;
-    private static final Term<?> DEFAULT_UA_COLOR = tf.createColor("#000000");
-    private static final Term<?> DEFAULT_UA_OPACITY = tf.createNumber(1.0f);
-	private static final Term<?> DEFAULT_UA_TEXT_IDENT = tf.createLength(0.0f);
-	private static final Term<?> DEFAULT_UA_TAB_SIZE = tf.createInteger(8);
-	private static final Term<?> DEFAULT_UA_MARGIN = tf.createLength(0.0f);
-	private static final Term<?> DEFAULT_UA_PADDING = tf.createLength(0.0f);
-	private static final Term<?> DEFAULT_UA_MIN_WIDTH = tf.createLength(0.0f);
-	private static final Term<?> DEFAULT_UA_MIN_HEIGHT = tf.createLength(0.0f);
-    private static final Term<?> DEFAULT_BORDER_COLOR = tf.createColor(tf.createIdent("currentColor"));
-	private static final Term<?> DEFAULT_BACKGROUND_COLOR = tf.createColor(tf.createIdent("transparent"));
-	private static final TermList DEFAULT_UA_BACKGROUND_POSITION = tf.createList(2);
-
-    private static final Term<?> DEFAULT_FLEX_SHRINK = tf.createNumber(1.0f);
-    private static final Term<?> DEFAULT_FLEX_GROW = tf.createNumber(0.0f);
-    private static final Term<?> DEFAULT_ORDER = tf.createInteger(0);
-    private static final Term<?> DEFAULT_TIME = tf.createTime(0f);
-    private static final Term<?> DEFAULT_ITERATION_COUNT = tf.createInteger(1);
-
-	static {
-		DEFAULT_UA_BACKGROUND_POSITION.add(tf.createPercent(0.0f));
-		DEFAULT_UA_BACKGROUND_POSITION.add(tf.createPercent(0.0f));
-	}
-    private static final TermList DEFAULT_UA_BACKGROUND_SIZE = tf.createList(2);
-    static {
-        DEFAULT_UA_BACKGROUND_SIZE.add(tf.createIdent("auto"));
-        DEFAULT_UA_BACKGROUND_SIZE.add(tf.createIdent("auto"));
-    }
-	private static final TermList DEFAULT_UA_BORDER_RADIUS = tf.createList(2);
-    static {
-        DEFAULT_UA_BORDER_RADIUS.add(tf.createLength(0.0f));
-        DEFAULT_UA_BORDER_RADIUS.add(tf.createLength(0.0f));
-    }
-	private static final TermList DEFAULT_UA_BORDER_SPACING = tf.createList(2);
+	/** Names of the supported properties divided to the property groups; the group tables below follow the same order */
+	private static final String[][] GROUP_NAMES = {
+		// text type and text spacing
+		{
+			"color", "opacity", "font", "font-family", "font-size", "font-style", "font-variant",
+			"font-weight", "text-decoration", "text-transform", "white-space", "text-align", "text-indent",
+			"line-height", "word-spacing", "letter-spacing", "vertical-align", "direction", "unicode-bidi",
+			"tab-size"
+		},
+		// layout box
+		{
+			"margin", "margin-top", "margin-right", "margin-bottom", "margin-left", "padding", "padding-top",
+			"padding-right", "padding-bottom", "padding-left", "border", "border-top", "border-right",
+			"border-bottom", "border-left", "border-width", "border-top-width", "border-right-width",
+			"border-bottom-width", "border-left-width", "border-style", "border-top-style",
+			"border-right-style", "border-bottom-style", "border-left-style", "border-color",
+			"border-top-color", "border-right-color", "border-bottom-color", "border-left-color",
+			"border-radius", "border-top-left-radius", "border-top-right-radius",
+			"border-bottom-right-radius", "border-bottom-left-radius", "width", "min-width", "max-width",
+			"height", "min-height", "max-height", "overflow", "overflow-x", "overflow-y", "clip",
+			"box-sizing", "box-shadow"
+		},
+		// positioning and transformations
+		{
+			"display", "position", "top", "right", "bottom", "left", "float", "clear", "z-index",
+			"visibility", "transform", "transform-origin"
+		},
+		// background
+		{
+			"background", "background-attachment", "background-color", "background-image",
+			"background-position", "background-size", "background-repeat", "background-origin"
+		},
+		// lists, tables and generated content
+		{
+			"list-style", "list-style-type", "list-style-position", "list-style-image", "border-collapse",
+			"border-spacing", "empty-cells", "table-layout", "caption-side", "content", "quotes",
+			"counter-increment", "counter-reset"
+		},
+		// filters, cursor, outline and paging
+		{
+			"filter", "backdrop-filter", "cursor", "outline", "outline-width", "outline-style",
+			"outline-color", "page-break", "page-break-before", "page-break-after", "page-break-inside",
+			"widows", "orphans"
+		},
+		// aural properties (CSS 2.1)
+		{
+			"azimuth", "cue", "cue-before", "cue-after", "elevation", "pause", "pause-before", "pause-after",
+			"pitch-range", "pitch", "play-during", "richness", "speak-header", "speak-numeral",
+			"speak-punctuation", "speak", "speech-rate", "stress", "voice-family", "volume"
+		},
+		// flexbox
+		{
+			"flex", "flex-flow", "flex-direction", "flex-wrap", "flex-basis", "flex-grow", "flex-shrink",
+			"order", "justify-content", "align-content", "align-items", "align-self"
+		},
+		// grid layout
+		{
+			"grid", "grid-gap", "grid-row-gap", "grid-column-gap", "grid-area", "grid-row", "grid-column",
+			"grid-row-start", "grid-column-start", "grid-row-end", "grid-column-end", "grid-template",
+			"grid-template-areas", "grid-template-rows", "grid-template-columns", "grid-auto-flow",
+			"grid-auto-rows", "grid-auto-columns"
+		},
+		// animations and transitions
+		{
+			"animation", "animation-delay", "animation-direction", "animation-duration",
+			"animation-fill-mode", "animation-iteration-count", "animation-name", "animation-play-state",
+			"animation-timing-function", "transition", "transition-delay", "transition-duration",
+			"transition-property", "transition-timing-function"
+		}
+	};
+
+	/** Names of the supported properties, the array index is the property ordinal */
+	private static final String[] NAMES;
+	/** The first ordinal of every property group, followed by the total number of properties */
+	private static final int[] GROUP_START;
+
+	/** Property name to ordinal mapping */
+	private static final Map<String, Integer> ORDINALS;
+	/** Property group of every ordinal */
+	private static final byte[] GROUPS;
+	/** The read-only set of the defined property names */
+	private static final Set<String> NAME_SET;
 	static {
-		DEFAULT_UA_BORDER_SPACING.add(tf.createLength(0.0f));
-		DEFAULT_UA_BORDER_SPACING.add(tf.createLength(0.0f));
+		GROUP_START = new int[GROUP_NAMES.length + 1];
+		for (int g = 0; g < GROUP_NAMES.length; g++)
+			GROUP_START[g + 1] = GROUP_START[g] + GROUP_NAMES[g].length;
+		NAMES = new String[GROUP_START[GROUP_NAMES.length]];
+		for (int g = 0; g < GROUP_NAMES.length; g++)
+			System.arraycopy(GROUP_NAMES[g], 0, NAMES, GROUP_START[g], GROUP_NAMES[g].length);
+		ORDINALS = new HashMap<String, Integer>(NAMES.length * 4 / 3 + 1);
+		GROUPS = new byte[NAMES.length];
+		for (int g = 0; g < GROUP_START.length - 1; g++) {
+			for (int i = GROUP_START[g]; i < GROUP_START[g + 1]; i++) {
+				ORDINALS.put(NAMES[i], i);
+				GROUPS[i] = (byte) g;
+			}
+		}
+		NAME_SET = Collections.unmodifiableSet(new LinkedHashSet<String>(Arrays.asList(NAMES)));
 	}
-    private static final TermList DEFAULT_UA_TRANSFORM_ORIGIN = tf.createList(3);
-    static {
-        DEFAULT_UA_TRANSFORM_ORIGIN.add(tf.createPercent(50.0f));
-        DEFAULT_UA_TRANSFORM_ORIGIN.add(tf.createPercent(50.0f));
-        DEFAULT_UA_TRANSFORM_ORIGIN.add(tf.createLength(0.0f));
-    }
-	private static final Term<?> DEFAULT_UA_WIDOWS = tf.createInteger(2);
-	private static final Term<?> DEFAULT_UA_ORPHANS = tf.createInteger(2);
-	private static final Term<?> DEFAULT_UA_PAUSE_BEFORE = tf.createTime(0.0f);
-	private static final Term<?> DEFAULT_UA_PAUSE_AFTER = tf.createTime(0.0f);
-	private static final Term<?> DEFAULT_UA_RICHNESS = tf.createNumber(50.0f);
-	private static final Term<?> DEFAULT_UA_PITCH_RANGE = tf
-			.createNumber(50.0f);
-	private static final Term<?> DEFAULT_UA_STRESS = tf.createNumber(50.0f);
-
-	private static final CSSProperty DEFAULT_UA_VOICE_FAMILY = VoiceFamily.MALE;
 
     private final static SupportedCSS3 instance;
 	static {
 		instance = new SupportedCSS3();
 	}
 
-	/**
-	 * Contains names of supported elements and default values according to <a
-	 * href="http://www.culturedcode.com/css/reference.html">
-	 * http://www.culturedcode.com/css/reference.html</a>
-	 */
-	private Map<String, CSSProperty> defaultCSSproperties;
-	private Map<String, Term<?>> defaultCSSvalues;
-
-	private Map<String, Integer> ordinals;
-	private Map<Integer, String> ordinalsRev;
-
 	private Set<String> supportedMedia;
 
 	/**
@@ -115,8 +154,6 @@ public class SupportedCSS3 implements SupportedCSS {
 	}
 
 	private SupportedCSS3() {
-		this.setSupportedCSS();
-		this.setOridinals();
 		this.setSupportedAtKeywords();
 	}
 
@@ -128,25 +165,27 @@ public class SupportedCSS3 implements SupportedCSS {
 	}
 
 	public final boolean isSupportedCSSProperty(String property) {
-		return defaultCSSproperties.get(property) != null;
+		return ORDINALS.containsKey(property);
 	}
 
 	public final CSSProperty getDefaultProperty(String property) {
-		CSSProperty value = defaultCSSproperties.get(property);
+		final int o = getOrdinal(property);
+		CSSProperty value = (o == -1) ? null : getGroupProperties(GROUPS[o])[o - GROUP_START[GROUPS[o]]];
 		log.debug("Asked for property {}'s default value: {}", property, value);
 		return value;
 	}
 
 	public final Term<?> getDefaultValue(String property) {
-		return defaultCSSvalues.get(property);
+		final int o = getOrdinal(property);
+		return (o == -1) ? null : getGroupValues(GROUPS[o])[o - GROUP_START[GROUPS[o]]];
 	}
 
 	public final int getTotalProperties() {
-		return defaultCSSproperties.size();
+		return NAMES.length;
 	}
 
 	public final Set<String> getDefinedPropertyNames() {
-		return defaultCSSproperties.keySet();
+		return NAME_SET;
 	}
 
 	public String getRandomPropertyName() {
@@ -156,309 +195,59 @@ public class SupportedCSS3 implements SupportedCSS {
 	}
 
 	public int getOrdinal(String propertyName) {
-		Integer i = ordinals.get(propertyName);
+		Integer i = ORDINALS.get(propertyName);
 		return (i == null) ? -1 : i.intValue();
 	}
 
 	public String getPropertyName(int o) {
-		return ordinalsRev.get(o);
+		return (o >= 0 && o < NAMES.length) ? NAMES[o] : null;
 	}
 
 	/**
-	 * Constructs maps of CSSProperties and its values (Term<?) according to CSS
-	 * 2.1 definition. Called during construction of object.
+	 * Obtains the default properties of a property group. The group table is created
+	 * on the first call for the given group.
 	 */
-	private void setSupportedCSS() {
-
-		Map<String, CSSProperty> props = new HashMap<String, CSSProperty>(
-				TOTAL_SUPPORTED_DECLARATIONS, 1.0f);
-
-		Map<String, Term<?>> values = new HashMap<String, Term<?>>(
-				TOTAL_SUPPORTED_DECLARATIONS, 1.0f);
-
-		// text type
-		props.put("color", Color.color);
-		values.put("color", DEFAULT_UA_COLOR);
-		props.put("opacity", Opacity.number);
-		values.put("opacity", DEFAULT_UA_OPACITY);
-		props.put("font", Font.component_values);
-		props.put("font-family", DEFAULT_UA_FONT_FAMILY);
-		props.put("font-size", FontSize.MEDIUM);
-		props.put("font-style", FontStyle.NORMAL);
-		props.put("font-variant", FontVariant.NORMAL);
-		props.put("font-weight", FontWeight.NORMAL);
-		props.put("text-decoration", TextDecoration.NONE);
-		props.put("text-transform", TextTransform.NONE);
-
-		// text spacing
-		props.put("white-space", WhiteSpace.NORMAL);
-		props.put("text-align", DEFAULT_UA_TEXT_ALIGN);
-		props.put("text-indent", TextIndent.length);
-		values.put("text-indent", DEFAULT_UA_TEXT_IDENT);
-		props.put("line-height", LineHeight.NORMAL);
-		props.put("word-spacing", WordSpacing.NORMAL);
-		props.put("letter-spacing", LetterSpacing.NORMAL);
-		props.put("vertical-align", VerticalAlign.BASELINE);
-		props.put("direction", Direction.LTR);
-		props.put("unicode-bidi", UnicodeBidi.NORMAL);
-		props.put("tab-size", TabSize.integer);
-		values.put("tab-size", DEFAULT_UA_TAB_SIZE);
-
-		// layout box
-		props.put("margin", Margin.component_values);
-		props.put("margin-top", Margin.length);
-		values.put("margin-top", DEFAULT_UA_MARGIN);
-		props.put("margin-right", Margin.length);
-		values.put("margin-right", DEFAULT_UA_MARGIN);
-		props.put("margin-bottom", Margin.length);
-		values.put("margin-bottom", DEFAULT_UA_MARGIN);
-		props.put("margin-left", Margin.length);
-		values.put("margin-left", DEFAULT_UA_MARGIN);
-
-		props.put("padding", Padding.component_values);
-		props.put("padding-top", Padding.length);
-		values.put("padding-top", DEFAULT_UA_PADDING);
-		props.put("padding-right", Padding.length);
-		values.put("padding-right", DEFAULT_UA_PADDING);
-		props.put("padding-bottom", Padding.length);
-		values.put("padding-bottom", DEFAULT_UA_PADDING);
-		props.put("padding-left", Padding.length);
-		values.put("padding-left", DEFAULT_UA_PADDING);
-
-		props.put("border", Border.component_values);
-		props.put("border-top", Border.component_values);
-		props.put("border-right", Border.component_values);
-		props.put("border-bottom", Border.component_values);
-		props.put("border-left", Border.component_values);
-
-		props.put("border-width", BorderWidth.component_values);
-		props.put("border-top-width", BorderWidth.MEDIUM);
-		props.put("border-right-width", BorderWidth.MEDIUM);
-		props.put("border-bottom-width", BorderWidth.MEDIUM);
-		props.put("border-left-width", BorderWidth.MEDIUM);
-		props.put("border-style", BorderStyle.component_values);
-		props.put("border-top-style", BorderStyle.NONE);
-		props.put("border-right-style", BorderStyle.NONE);
-		props.put("border-bottom-style", BorderStyle.NONE);
-		props.put("border-left-style", BorderStyle.NONE);
-
-		props.put("border-color", BorderColor.component_values);
-		props.put("border-top-color", BorderColor.color);
-        values.put("border-top-color", DEFAULT_BORDER_COLOR);
-		props.put("border-right-color", BorderColor.color);
-		values.put("border-right-color", DEFAULT_BORDER_COLOR);
-		props.put("border-bottom-color", BorderColor.color);
-		values.put("border-bottom-color", DEFAULT_BORDER_COLOR);
-		props.put("border-left-color", BorderColor.color);
-		values.put("border-left-color", DEFAULT_BORDER_COLOR);
-
-        props.put("border-radius", BorderRadius.component_values);
-		props.put("border-top-left-radius", BorderRadius.list_values);
-		values.put("border-top-left-radius", DEFAULT_UA_BORDER_RADIUS);
-        props.put("border-top-right-radius", BorderRadius.list_values);
-        values.put("border-top-right-radius", DEFAULT_UA_BORDER_RADIUS);
-        props.put("border-bottom-right-radius", BorderRadius.list_values);
-        values.put("border-bottom-right-radius", DEFAULT_UA_BORDER_RADIUS);
-        props.put("border-bottom-left-radius", BorderRadius.list_values);
-        values.put("border-bottom-left-radius", DEFAULT_UA_BORDER_RADIUS);
-		
-		props.put("width", Width.AUTO);
-		props.put("min-width", MinWidth.length);
-		values.put("min-width", DEFAULT_UA_MIN_WIDTH);
-		props.put("max-width", MaxWidth.NONE);
-		props.put("height", Height.AUTO);
-		props.put("min-height", MinHeight.length);
-		values.put("min-height", DEFAULT_UA_MIN_HEIGHT);
-		props.put("max-height", MaxHeight.NONE);
-		props.put("overflow", Overflow.component_values);
-        props.put("overflow-x", Overflow.VISIBLE);
-        props.put("overflow-y", Overflow.VISIBLE);
-		props.put("clip", Clip.AUTO);
-		props.put("box-sizing", BoxSizing.CONTENT_BOX);
-        props.put("box-shadow", BoxShadow.NONE);
-
-		// positioning
-		props.put("display", Display.INLINE);
-		props.put("position", Position.STATIC);
-		props.put("top", Top.AUTO);
-		props.put("right", Right.AUTO);
-		props.put("bottom", Bottom.AUTO);
-		props.put("left", Left.AUTO);
-		props.put("float", CSSProperty.Float.NONE);
-		props.put("clear", Clear.NONE);
-		props.put("z-index", ZIndex.AUTO);
-		props.put("visibility", Visibility.VISIBLE);
-		props.put("transform", Transform.NONE);
-		props.put("transform-origin", TransformOrigin.list_values);
-		values.put("transform-origin", DEFAULT_UA_TRANSFORM_ORIGIN);
-
-		// background
-		props.put("background", Background.component_values);
-		props.put("background-attachment", BackgroundAttachment.SCROLL);
-		props.put("background-color", BackgroundColor.color);
-		values.put("background-color", DEFAULT_BACKGROUND_COLOR);
-		props.put("background-image", BackgroundImage.NONE);
-		props.put("background-position", BackgroundPosition.list_values);
-		values.put("background-position", DEFAULT_UA_BACKGROUND_POSITION);
-		props.put("background-size", BackgroundSize.list_values);
-        values.put("background-size", DEFAULT_UA_BACKGROUND_SIZE);
-		props.put("background-repeat", BackgroundRepeat.REPEAT);
-		props.put("background-origin", BackgroundOrigin.PADDING_BOX);
-		
-		// box shadow
-		props.put("box-shadow", BoxShadow.NONE);
-
-		// elements
-		props.put("list-style", ListStyle.component_values);
-		props.put("list-style-type", ListStyleType.DISC);
-		props.put("list-style-position", ListStylePosition.OUTSIDE);
-		props.put("list-style-image", ListStyleImage.NONE);
-
-		props.put("border-collapse", BorderCollapse.SEPARATE);
-		props.put("border-spacing", BorderSpacing.list_values);
-		values.put("border-spacing", DEFAULT_UA_BORDER_SPACING);
-		props.put("empty-cells", EmptyCells.SHOW);
-		props.put("table-layout", TableLayout.AUTO);
-		props.put("caption-side", CaptionSide.TOP);
-
-		// other supported by tables (width, vertical-align)
-		// are already defined
-		props.put("content", Content.NORMAL);
-		props.put("quotes", Quotes.NONE);
-		props.put("counter-increment", CounterIncrement.NONE);
-		props.put("counter-reset", CounterReset.NONE);
-
-		// filter
-		props.put("filter", Filter.NONE);
-        props.put("backdrop-filter", BackdropFilter.NONE);
-		
-		// miscellaneous
-		props.put("cursor", Cursor.AUTO);
-		props.put("outline", Outline.component_values);
-		props.put("outline-width", OutlineWidth.MEDIUM);
-		props.put("outline-style", OutlineStyle.NONE);
-		props.put("outline-color", OutlineColor.INVERT);
-
-		props.put("page-break", PageBreak.AUTO);
-		props.put("page-break-before", PageBreak.AUTO);
-		props.put("page-break-after", PageBreak.AUTO);
-		props.put("page-break-inside", PageBreakInside.AUTO);
-
-		props.put("widows", Widows.integer);
-		values.put("widows", DEFAULT_UA_WIDOWS);
-		props.put("orphans", Orphans.integer);
-		values.put("orphans", DEFAULT_UA_ORPHANS);
-
-		// other values according to
-		// http://www.w3.org/TR/CSS21/propidx.html
-
-		props.put("azimuth", Azimuth.CENTER);
-		props.put("cue", Cue.component_values);
-		props.put("cue-before", Cue.NONE);
-		props.put("cue-after", Cue.NONE);
-		props.put("elevation", Elevation.LEVEL);
-		props.put("pause", Pause.component_values);
-		props.put("pause-before", Pause.time);
-		values.put("pause-before", DEFAULT_UA_PAUSE_BEFORE);
-		props.put("pause-after", Pause.time);
-		values.put("pause-after", DEFAULT_UA_PAUSE_AFTER);
-		props.put("pitch-range", PitchRange.number);
-		values.put("pitch-range", DEFAULT_UA_PITCH_RANGE);
-		props.put("pitch", Pitch.MEDIUM);
-		props.put("play-during", PlayDuring.AUTO);
-		props.put("richness", Richness.number);
-		values.put("richness", DEFAULT_UA_RICHNESS);
-		props.put("speak-header", SpeakHeader.ONCE);
-		props.put("speak-numeral", SpeakNumeral.CONTINUOUS);
-		props.put("speak-punctuation", SpeakPunctuation.NONE);
-		props.put("speak", Speak.NORMAL);
-		props.put("speech-rate", SpeechRate.MEDIUM);
-		props.put("stress", Stress.number);
-		values.put("stress", DEFAULT_UA_STRESS);
-		props.put("voice-family", DEFAULT_UA_VOICE_FAMILY);
-		props.put("volume", Volume.MEDIUM);
-
-		// Flexbox
-        props.put("flex", Flex.component_values);
-        props.put("flex-flow", FlexFlow.component_values);
-		props.put("flex-direction", FlexDirection.ROW);
-		props.put("flex-wrap", FlexWrap.NOWRAP);
-		props.put("flex-basis", FlexBasis.AUTO);
-		props.put("flex-grow", FlexGrow.number);
-		values.put("flex-grow", DEFAULT_FLEX_GROW);
-		props.put("flex-shrink", FlexShrink.number);
-		values.put("flex-shrink", DEFAULT_FLEX_SHRINK);
-		props.put("order", Order.integer);
-		values.put("order", DEFAULT_ORDER);
-		props.put("justify-content", JustifyContent.FLEX_START);
-		props.put("align-content", AlignContent.STRETCH);
-		props.put("align-items", AlignItems.STRETCH);
-		props.put("align-self", AlignSelf.AUTO);
-
-        // grid layout
-        props.put("grid", Grid.component_values);
-        props.put("grid-gap", GridGap.component_values);
-        props.put("grid-row-gap", GridGap.NORMAL);
-        props.put("grid-column-gap", GridGap.NORMAL);
-        props.put("grid-area", Grid.component_values);
-        props.put("grid-row", Grid.component_values);
-        props.put("grid-column", Grid.component_values);
-        props.put("grid-row-start", GridStartEnd.AUTO);
-        props.put("grid-column-start", GridStartEnd.AUTO);
-        props.put("grid-row-end", GridStartEnd.AUTO);
-        props.put("grid-column-end", GridStartEnd.AUTO);
-        props.put("grid-template", Grid.component_values);
-        props.put("grid-template-areas", GridTemplateAreas.NONE);
-        props.put("grid-template-rows", GridTemplateRowsColumns.NONE);
-        props.put("grid-template-columns", GridTemplateRowsColumns.NONE);
-        props.put("grid-auto-flow", GridAutoFlow.ROW);
-        props.put("grid-auto-rows", GridAutoRowsColumns.AUTO);
-        props.put("grid-auto-columns", GridAutoRowsColumns.AUTO);
-        
-        // animation
-        props.put("animation", Animation.component_values);
-        props.put("animation-delay", AnimationDelay.time);
-        values.put("animation-delay", DEFAULT_TIME);
-        props.put("animation-direction", AnimationDirection.NORMAL);
-        props.put("animation-duration", AnimationDuration.time);
-        values.put("animation-duration", DEFAULT_TIME);
-        props.put("animation-fill-mode", AnimationFillMode.NONE);
-        props.put("animation-iteration-count", AnimationIterationCount.number);
-        values.put("animation-iteration-count", DEFAULT_ITERATION_COUNT);
-        props.put("animation-name", AnimationName.NONE);
-        props.put("animation-play-state", AnimationPlayState.RUNNING);
-        props.put("animation-timing-function", AnimationTimingFunction.EASE);
-        
-        // transition
-        props.put("transition", Transition.component_values);
-        props.put("transition-delay", TransitionDelay.time);
-        values.put("transition-delay", DEFAULT_TIME);
-        props.put("transition-duration", TransitionDuration.time);
-        values.put("transition-duration", DEFAULT_TIME);
-        props.put("transition-property", TransitionProperty.ALL);
-        props.put("transition-timing-function", TransitionTimingFunction.EASE);
-
-		this.defaultCSSproperties = props;
-		this.defaultCSSvalues = values;
+	private static CSSProperty[] getGroupProperties(int group) {
+		switch (group) {
+			case 0: return TextProperties.PROPERTIES;
+			case 1: return BoxProperties.PROPERTIES;
+			case 2: return PositionProperties.PROPERTIES;
+			case 3: return BackgroundProperties.PROPERTIES;
+			case 4: return ContentProperties.PROPERTIES;
+			case 5: return MiscProperties.PROPERTIES;
+			case 6: return AuralProperties.PROPERTIES;
+			case 7: return FlexProperties.PROPERTIES;
+			case 8: return GridProperties.PROPERTIES;
+			case 9: return AnimationProperties.PROPERTIES;
+			default: throw new IndexOutOfBoundsException("No property group " + group);
+		}
 	}
 
-	private void setOridinals() {
-
-		Map<String, Integer> ords = new HashMap<String, Integer>(
-				getTotalProperties(), 1.0f);
-		Map<Integer, String> ordsRev = new HashMap<Integer, String>(
-				getTotalProperties(), 1.0f);
-
-		int i = 0;
-		for (String key : defaultCSSproperties.keySet()) {
-			ords.put(key, i);
-			ordsRev.put(i, key);
-			i++;
+	/**
+	 * Obtains the default values of a property group. The group table is created
+	 * on the first call for the given group.
+	 */
+	private static Term<?>[] getGroupValues(int group) {
+		switch (group) {
+			case 0: return TextProperties.VALUES;
+			case 1: return BoxProperties.VALUES;
+			case 2: return PositionProperties.VALUES;
+			case 3: return BackgroundProperties.VALUES;
+			case 4: return ContentProperties.VALUES;
+			case 5: return MiscProperties.VALUES;
+			case 6: return AuralProperties.VALUES;
+			case 7: return FlexProperties.VALUES;
+			case 8: return GridProperties.VALUES;
+			case 9: return AnimationProperties.VALUES;
+			default: throw new IndexOutOfBoundsException("No property group " + group);
 		}
+	}
 
-		this.ordinals = ords;
-		this.ordinalsRev = ordsRev;
-
+	private static TermList list(Term<?>... terms) {
+		final TermList ret = tf.createList(terms.length);
+		for (Term<?> term : terms)
+			ret.add(term);
+		return ret;
 	}
 
 	private void setSupportedAtKeywords() {
@@ -478,4 +267,480 @@ public class SupportedCSS3 implements SupportedCSS {
 		this.supportedMedia = set;
 	}
 
+	//=================================================================================================
+	// Property groups: the CSSProperty[] and Term[] tables are indexed by (ordinal - GROUP_START[group])
+
+	/** Text type and text spacing */
+	private static final class TextProperties {
+		static final Term<?> DEFAULT_UA_COLOR = tf.createColor("#000000");
+		static final Term<?> DEFAULT_UA_OPACITY = tf.createNumber(1.0f);
+		static final CSSProperty DEFAULT_UA_FONT_FAMILY = FontFamily.SANS_SERIF;
+		static final CSSProperty DEFAULT_UA_TEXT_ALIGN = TextAlign.BY_DIRECTION;
+		static final Term<?> DEFAULT_UA_TEXT_IDENT = tf.createLength(0.0f);
+		static final Term<?> DEFAULT_UA_TAB_SIZE = tf.createInteger(8);
+
+		static final CSSProperty[] PROPERTIES = {
+			Color.color, // color
+			Opacity.number, // opacity
+			Font.component_values, // font
+			DEFAULT_UA_FONT_FAMILY, // font-family
+			FontSize.MEDIUM, // font-size
+			FontStyle.NORMAL, // font-style
+			FontVariant.NORMAL, // font-variant
+			FontWeight.NORMAL, // font-weight
+			TextDecoration.NONE, // text-decoration
+			TextTransform.NONE, // text-transform
+			WhiteSpace.NORMAL, // white-space
+			DEFAULT_UA_TEXT_ALIGN, // text-align
+			TextIndent.length, // text-indent
+			LineHeight.NORMAL, // line-height
+			WordSpacing.NORMAL, // word-spacing
+			LetterSpacing.NORMAL, // letter-spacing
+			VerticalAlign.BASELINE, // vertical-align
+			Direction.LTR, // direction
+			UnicodeBidi.NORMAL, // unicode-bidi
+			TabSize.integer // tab-size
+		};
+		static final Term<?>[] VALUES = {
+			DEFAULT_UA_COLOR, // color
+			DEFAULT_UA_OPACITY, // opacity
+			null, // font
+			null, // font-family
+			null, // font-size
+			null, // font-style
+			null, // font-variant
+			null, // font-weight
+			null, // text-decoration
+			null, // text-transform
+			null, // white-space
+			null, // text-align
+			DEFAULT_UA_TEXT_IDENT, // text-indent
+			null, // line-height
+			null, // word-spacing
+			null, // letter-spacing
+			null, // vertical-align
+			null, // direction
+			null, // unicode-bidi
+			DEFAULT_UA_TAB_SIZE // tab-size
+		};
+	}
+
+	/** Layout box: margins, paddings, borders, dimensions and overflow */
+	private static final class BoxProperties {
+		static final Term<?> DEFAULT_UA_MARGIN = tf.createLength(0.0f);
+		static final Term<?> DEFAULT_UA_PADDING = tf.createLength(0.0f);
+		static final Term<?> DEFAULT_BORDER_COLOR = tf.createColor(tf.createIdent("currentColor"));
+		static final TermList DEFAULT_UA_BORDER_RADIUS = list(tf.createLength(0.0f), tf.createLength(0.0f));
+		static final Term<?> DEFAULT_UA_MIN_WIDTH = tf.createLength(0.0f);
+		static final Term<?> DEFAULT_UA_MIN_HEIGHT = tf.createLength(0.0f);
+
+		static final CSSProperty[] PROPERTIES = {
+			Margin.component_values, // margin
+			Margin.length, // margin-top
+			Margin.length, // margin-right
+			Margin.length, // margin-bottom
+			Margin.length, // margin-left
+			Padding.component_values, // padding
+			Padding.length, // padding-top
+			Padding.length, // padding-right
+			Padding.length, // padding-bottom
+			Padding.length, // padding-left
+			Border.component_values, // border
+			Border.component_values, // border-top
+			Border.component_values, // border-right
+			Border.component_values, // border-bottom
+			Border.component_values, // border-left
+			BorderWidth.component_values, // border-width
+			BorderWidth.MEDIUM, // border-top-width
+			BorderWidth.MEDIUM, // border-right-width
+			BorderWidth.MEDIUM, // border-bottom-width
+			BorderWidth.MEDIUM, // border-left-width
+			BorderStyle.component_values, // border-style
+			BorderStyle.NONE, // border-top-style
+			BorderStyle.NONE, // border-right-style
+			BorderStyle.NONE, // border-bottom-style
+			BorderStyle.NONE, // border-left-style
+			BorderColor.component_values, // border-color
+			BorderColor.color, // border-top-color
+			BorderColor.color, // border-right-color
+			BorderColor.color, // border-bottom-color
+			BorderColor.color, // border-left-color
+			BorderRadius.component_values, // border-radius
+			BorderRadius.list_values, // border-top-left-radius
+			BorderRadius.list_values, // border-top-right-radius
+			BorderRadius.list_values, // border-bottom-right-radius
+			BorderRadius.list_values, // border-bottom-left-radius
+			Width.AUTO, // width
+			MinWidth.length, // min-width
+			MaxWidth.NONE, // max-width
+			Height.AUTO, // height
+			MinHeight.length, // min-height
+			MaxHeight.NONE, // max-height
+			Overflow.component_values, // overflow
+			Overflow.VISIBLE, // overflow-x
+			Overflow.VISIBLE, // overflow-y
+			Clip.AUTO, // clip
+			BoxSizing.CONTENT_BOX, // box-sizing
+			BoxShadow.NONE // box-shadow
+		};
+		static final Term<?>[] VALUES = {
+			null, // margin
+			DEFAULT_UA_MARGIN, // margin-top
+			DEFAULT_UA_MARGIN, // margin-right
+			DEFAULT_UA_MARGIN, // margin-bottom
+			DEFAULT_UA_MARGIN, // margin-left
+			null, // padding
+			DEFAULT_UA_PADDING, // padding-top
+			DEFAULT_UA_PADDING, // padding-right
+			DEFAULT_UA_PADDING, // padding-bottom
+			DEFAULT_UA_PADDING, // padding-left
+			null, // border
+			null, // border-top
+			null, // border-right
+			null, // border-bottom
+			null, // border-left
+			null, // border-width
+			null, // border-top-width
+			null, // border-right-width
+			null, // border-bottom-width
+			null, // border-left-width
+			null, // border-style
+			null, // border-top-style
+			null, // border-right-style
+			null, // border-bottom-style
+			null, // border-left-style
+			null, // border-color
+			DEFAULT_BORDER_COLOR, // border-top-color
+			DEFAULT_BORDER_COLOR, // border-right-color
+			DEFAULT_BORDER_COLOR, // border-bottom-color
+			DEFAULT_BORDER_COLOR, // border-left-color
+			null, // border-radius
+			DEFAULT_UA_BORDER_RADIUS, // border-top-left-radius
+			DEFAULT_UA_BORDER_RADIUS, // border-top-right-radius
+			DEFAULT_UA_BORDER_RADIUS, // border-bottom-right-radius
+			DEFAULT_UA_BORDER_RADIUS, // border-bottom-left-radius
+			null, // width
+			DEFAULT_UA_MIN_WIDTH, // min-width
+			null, // max-width
+			null, // height
+			DEFAULT_UA_MIN_HEIGHT, // min-height
+			null, // max-height
+			null, // overflow
+			null, // overflow-x
+			null, // overflow-y
+			null, // clip
+			null, // box-sizing
+			null // box-shadow
+		};
+	}
+
+	/** Positioning and transformations */
+	private static final class PositionProperties {
+		static final TermList DEFAULT_UA_TRANSFORM_ORIGIN = list(tf.createPercent(50.0f), tf.createPercent(50.0f), tf.createLength(0.0f));
+
+		static final CSSProperty[] PROPERTIES = {
+			Display.INLINE, // display
+			Position.STATIC, // position
+			Top.AUTO, // top
+			Right.AUTO, // right
+			Bottom.AUTO, // bottom
+			Left.AUTO, // left
+			CSSProperty.Float.NONE, // float
+			Clear.NONE, // clear
+			ZIndex.AUTO, // z-index
+			Visibility.VISIBLE, // visibility
+			Transform.NONE, // transform
+			TransformOrigin.list_values // transform-origin
+		};
+		static final Term<?>[] VALUES = {
+			null, // display
+			null, // position
+			null, // top
+			null, // right
+			null, // bottom
+			null, // left
+			null, // float
+			null, // clear
+			null, // z-index
+			null, // visibility
+			null, // transform
+			DEFAULT_UA_TRANSFORM_ORIGIN // transform-origin
+		};
+	}
+
+	/** Background */
+	private static final class BackgroundProperties {
+		static final Term<?> DEFAULT_BACKGROUND_COLOR = tf.createColor(tf.createIdent("transparent"));
+		static final TermList DEFAULT_UA_BACKGROUND_POSITION = list(tf.createPercent(0.0f), tf.createPercent(0.0f));
+		static final TermList DEFAULT_UA_BACKGROUND_SIZE = list(tf.createIdent("auto"), tf.createIdent("auto"));
+
+		static final CSSProperty[] PROPERTIES = {
+			Background.component_values, // background
+			BackgroundAttachment.SCROLL, // background-attachment
+			BackgroundColor.color, // background-color
+			BackgroundImage.NONE, // background-image
+			BackgroundPosition.list_values, // background-position
+			BackgroundSize.list_values, // background-size
+			BackgroundRepeat.REPEAT, // background-repeat
+			BackgroundOrigin.PADDING_BOX // background-origin
+		};
+		static final Term<?>[] VALUES = {
+			null, // background
+			null, // background-attachment
+			DEFAULT_BACKGROUND_COLOR, // background-color
+			null, // background-image
+			DEFAULT_UA_BACKGROUND_POSITION, // background-position
+			DEFAULT_UA_BACKGROUND_SIZE, // background-size
+			null, // background-repeat
+			null // background-origin
+		};
+	}
+
+	/** Lists, tables and generated content */
+	private static final class ContentProperties {
+		static final TermList DEFAULT_UA_BORDER_SPACING = list(tf.createLength(0.0f), tf.createLength(0.0f));
+
+		static final CSSProperty[] PROPERTIES = {
+			ListStyle.component_values, // list-style
+			ListStyleType.DISC, // list-style-type
+			ListStylePosition.OUTSIDE, // list-style-position
+			ListStyleImage.NONE, // list-style-image
+			BorderCollapse.SEPARATE, // border-collapse
+			BorderSpacing.list_values, // border-spacing
+			EmptyCells.SHOW, // empty-cells
+			TableLayout.AUTO, // table-layout
+			CaptionSide.TOP, // caption-side
+			Content.NORMAL, // content
+			Quotes.NONE, // quotes
+			CounterIncrement.NONE, // counter-increment
+			CounterReset.NONE // counter-reset
+		};
+		static final Term<?>[] VALUES = {
+			null, // list-style
+			null, // list-style-type
+			null, // list-style-position
+			null, // list-style-image
+			null, // border-collapse
+			DEFAULT_UA_BORDER_SPACING, // border-spacing
+			null, // empty-cells
+			null, // table-layout
+			null, // caption-side
+			null, // content
+			null, // quotes
+			null, // counter-increment
+			null // counter-reset
+		};
+	}
+
+	/** Filters, cursor, outline and paging */
+	private static final class MiscProperties {
+		static final Term<?> DEFAULT_UA_WIDOWS = tf.createInteger(2);
+		static final Term<?> DEFAULT_UA_ORPHANS = tf.createInteger(2);
+
+		static final CSSProperty[] PROPERTIES = {
+			Filter.NONE, // filter
+			BackdropFilter.NONE, // backdrop-filter
+			Cursor.AUTO, // cursor
+			Outline.component_values, // outline
+			OutlineWidth.MEDIUM, // outline-width
+			OutlineStyle.NONE, // outline-style
+			OutlineColor.INVERT, // outline-color
+			PageBreak.AUTO, // page-break
+			PageBreak.AUTO, // page-break-before
+			PageBreak.AUTO, // page-break-after
+			PageBreakInside.AUTO, // page-break-inside
+			Widows.integer, // widows
+			Orphans.integer // orphans
+		};
+		static final Term<?>[] VALUES = {
+			null, // filter
+			null, // backdrop-filter
+			null, // cursor
+			null, // outline
+			null, // outline-width
+			null, // outline-style
+			null, // outline-color
+			null, // page-break
+			null, // page-break-before
+			null, // page-break-after
+			null, // page-break-inside
+			DEFAULT_UA_WIDOWS, // widows
+			DEFAULT_UA_ORPHANS // orphans
+		};
+	}
+
+	/** Aural properties (CSS 2.1) */
+	private static final class AuralProperties {
+		static final Term<?> DEFAULT_UA_PAUSE_BEFORE = tf.createTime(0.0f);
+		static final Term<?> DEFAULT_UA_PAUSE_AFTER = tf.createTime(0.0f);
+		static final Term<?> DEFAULT_UA_PITCH_RANGE = tf.createNumber(50.0f);
+		static final Term<?> DEFAULT_UA_RICHNESS = tf.createNumber(50.0f);
+		static final Term<?> DEFAULT_UA_STRESS = tf.createNumber(50.0f);
+		static final CSSProperty DEFAULT_UA_VOICE_FAMILY = VoiceFamily.MALE;
+
+		static final CSSProperty[] PROPERTIES = {
+			Azimuth.CENTER, // azimuth
+			Cue.component_values, // cue
+			Cue.NONE, // cue-before
+			Cue.NONE, // cue-after
+			Elevation.LEVEL, // elevation
+			Pause.component_values, // pause
+			Pause.time, // pause-before
+			Pause.time, // pause-after
+			PitchRange.number, // pitch-range
+			Pitch.MEDIUM, // pitch
+			PlayDuring.AUTO, // play-during
+			Richness.number, // richness
+			SpeakHeader.ONCE, // speak-header
+			SpeakNumeral.CONTINUOUS, // speak-numeral
+			SpeakPunctuation.NONE, // speak-punctuation
+			Speak.NORMAL, // speak
+			SpeechRate.MEDIUM, // speech-rate
+			Stress.number, // stress
+			DEFAULT_UA_VOICE_FAMILY, // voice-family
+			Volume.MEDIUM // volume
+		};
+		static final Term<?>[] VALUES = {
+			null, // azimuth
+			null, // cue
+			null, // cue-before
+			null, // cue-after
+			null, // elevation
+			null, // pause
+			DEFAULT_UA_PAUSE_BEFORE, // pause-before
+			DEFAULT_UA_PAUSE_AFTER, // pause-after
+			DEFAULT_UA_PITCH_RANGE, // pitch-range
+			null, // pitch
+			null, // play-during
+			DEFAULT_UA_RICHNESS, // richness
+			null, // speak-header
+			null, // speak-numeral
+			null, // speak-punctuation
+			null, // speak
+			null, // speech-rate
+			DEFAULT_UA_STRESS, // stress
+			null, // voice-family
+			null // volume
+		};
+	}
+
+	/** Flexbox */
+	private static final class FlexProperties {
+		static final Term<?> DEFAULT_FLEX_GROW = tf.createNumber(0.0f);
+		static final Term<?> DEFAULT_FLEX_SHRINK = tf.createNumber(1.0f);
+		static final Term<?> DEFAULT_ORDER = tf.createInteger(0);
+
+		static final CSSProperty[] PROPERTIES = {
+			Flex.component_values, // flex
+			FlexFlow.component_values, // flex-flow
+			FlexDirection.ROW, // flex-direction
+			FlexWrap.NOWRAP, // flex-wrap
+			FlexBasis.AUTO, // flex-basis
+			FlexGrow.number, // flex-grow
+			FlexShrink.number, // flex-shrink
+			Order.integer, // order
+			JustifyContent.FLEX_START, // justify-content
+			AlignContent.STRETCH, // align-content
+			AlignItems.STRETCH, // align-items
+			AlignSelf.AUTO // align-self
+		};
+		static final Term<?>[] VALUES = {
+			null, // flex
+			null, // flex-flow
+			null, // flex-direction
+			null, // flex-wrap
+			null, // flex-basis
+			DEFAULT_FLEX_GROW, // flex-grow
+			DEFAULT_FLEX_SHRINK, // flex-shrink
+			DEFAULT_ORDER, // order
+			null, // justify-content
+			null, // align-content
+			null, // align-items
+			null // align-self
+		};
+	}
+
+	/** Grid layout */
+	private static final class GridProperties {
+		static final CSSProperty[] PROPERTIES = {
+			Grid.component_values, // grid
+			GridGap.component_values, // grid-gap
+			GridGap.NORMAL, // grid-row-gap
+			GridGap.NORMAL, // grid-column-gap
+			Grid.component_values, // grid-area
+			Grid.component_values, // grid-row
+			Grid.component_values, // grid-column
+			GridStartEnd.AUTO, // grid-row-start
+			GridStartEnd.AUTO, // grid-column-start
+			GridStartEnd.AUTO, // grid-row-end
+			GridStartEnd.AUTO, // grid-column-end
+			Grid.component_values, // grid-template
+			GridTemplateAreas.NONE, // grid-template-areas
+			GridTemplateRowsColumns.NONE, // grid-template-rows
+			GridTemplateRowsColumns.NONE, // grid-template-columns
+			GridAutoFlow.ROW, // grid-auto-flow
+			GridAutoRowsColumns.AUTO, // grid-auto-rows
+			GridAutoRowsColumns.AUTO // grid-auto-columns
+		};
+		static final Term<?>[] VALUES = {
+			null, // grid
+			null, // grid-gap
+			null, // grid-row-gap
+			null, // grid-column-gap
+			null, // grid-area
+			null, // grid-row
+			null, // grid-column
+			null, // grid-row-start
+			null, // grid-column-start
+			null, // grid-row-end
+			null, // grid-column-end
+			null, // grid-template
+			null, // grid-template-areas
+			null, // grid-template-rows
+			null, // grid-template-columns
+			null, // grid-auto-flow
+			null, // grid-auto-rows
+			null // grid-auto-columns
+		};
+	}
+
+	/** Animations and transitions */
+	private static final class AnimationProperties {
+		static final Term<?> DEFAULT_TIME = tf.createTime(0f);
+		static final Term<?> DEFAULT_ITERATION_COUNT = tf.createInteger(1);
+
+		static final CSSProperty[] PROPERTIES = {
+			Animation.component_values, // animation
+			AnimationDelay.time, // animation-delay
+			AnimationDirection.NORMAL, // animation-direction
+			AnimationDuration.time, // animation-duration
+			AnimationFillMode.NONE, // animation-fill-mode
+			AnimationIterationCount.number, // animation-iteration-count
+			AnimationName.NONE, // animation-name
+			AnimationPlayState.RUNNING, // animation-play-state
+			AnimationTimingFunction.EASE, // animation-timing-function
+			Transition.component_values, // transition
+			TransitionDelay.time, // transition-delay
+			TransitionDuration.time, // transition-duration
+			TransitionProperty.ALL, // transition-property
+			TransitionTimingFunction.EASE // transition-timing-function
+		};
+		static final Term<?>[] VALUES = {
+			null, // animation
+			DEFAULT_TIME, // animation-delay
+			null, // animation-direction
+			DEFAULT_TIME, // animation-duration
+			null, // animation-fill-mode
+			DEFAULT_ITERATION_COUNT, // animation-iteration-count
+			null, // animation-name
+			null, // animation-play-state
+			null, // animation-timing-function
+			null, // transition
+			DEFAULT_TIME, // transition-delay
+			DEFAULT_TIME, // transition-duration
+			null, // transition-property
+			null // transition-timing-function
+		};
+	}
+
 }
@@ -1,5 +1,7 @@
 package cz.vutbr.web.domassign;
 
+import java.util.Arrays;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.traversal.DocumentTraversal;
@@ -7,7 +9,9 @@ import org.w3c.dom.traversal.TreeWalker;
 
 /**
  * This class implements traversal of DOM tree with simplified Visitor
- * pattern.
+ * pattern. The traversal is iterative so that the depth of the tree is not
+ * limited by the stack size. The ancestors of the currently processed node
+ * are available in {@link #ancestors} during the processing.
  * 
  * @author kapy
  * 
@@ -16,6 +20,10 @@ public abstract class Traversal<T>
 {
     protected Object source;
     protected TreeWalker walker;
+    /** The ancestors of the currently processed node (the parent is the last one) */
+    protected Node[] ancestors = new Node[32];
+    /** The number of valid items in {@link #ancestors} */
+    protected int depth;
 
     public Traversal(TreeWalker walker, Object source) {
         this.source = source;
@@ -32,34 +40,91 @@ public abstract class Traversal<T>
         this.source = source;
     }
 
+    /**
+     * Processes all the nodes in the subtree of the current walker node except the
+     * current node itself in the document order.
+     * @param result the result object passed to {@link #processNode(Object, Node, Object)}
+     */
     public void listTraversal(T result) {
-
-        // tree traversal as nodes are found inside
-        Node current, checkpoint = null;
-        current = walker.nextNode();
-        while (current != null) {
-            // this method can change position in walker
-            checkpoint = walker.getCurrentNode();
-            processNode(result, current, source);
-            walker.setCurrentNode(checkpoint);
-            current = walker.nextNode();
-        }
+        traverse(result, false);
     }
 
+    /**
+     * Processes the current walker node and all the nodes in its subtree in the document
+     * order. Each node is processed after its parent.
+     * @param result the result object passed to {@link #processNode(Object, Node, Object)}
+     */
     public void levelTraversal(T result) {
+        traverse(result, true);
+    }
+
+    /**
+     * Obtains the number of ancestors of the currently processed node that are visible
+     * by the walker.
+     * @return the number of ancestors
+     */
+    public int getDepth() {
+        return depth;
+    }
 
-        // this method can change position in walker
-        final Node checkpoint = walker.getCurrentNode();
-        processNode(result, checkpoint, source);
-        walker.setCurrentNode(checkpoint);
+    /**
+     * Obtains the ancestors of the currently processed node. Only the elements at the indices
+     * {@code 0..getDepth()-1} are valid; the parent is at the index {@code getDepth()-1}.
+     * @return the array of ancestors
+     */
+    public Node[] getAncestors() {
+        return ancestors;
+    }
+
+    /**
+     * Iterative depth-first traversal that uses the walker as a cursor and maintains
+     * the array of ancestors of the current node.
+     */
+    private void traverse(T result, boolean includeRoot) {
 
-        // traverse children:
-        for (Node n = walker.firstChild(); n != null; n = walker.nextSibling()) {
-            levelTraversal(result);
+        final Node root = walker.getCurrentNode();
+        initAncestors(root);
+        Node current = root;
+        while (current != null) {
+            if (includeRoot || current != root) {
+                // this method can change position in walker
+                processNode(result, current, source);
+                walker.setCurrentNode(current);
+            }
+            // move to the next node in the document order
+            Node next = walker.firstChild();
+            if (next != null)
+                pushAncestor(current);
+            else {
+                while (current != root && (next = walker.nextSibling()) == null) {
+                    current = walker.parentNode();
+                    depth--;
+                }
+            }
+            current = next;
         }
+        // return position to the root
+        walker.setCurrentNode(root);
+        depth = 0;
+    }
+
+    private void initAncestors(Node root) {
+        depth = 0;
+        for (Node p = walker.parentNode(); p != null; p = walker.parentNode())
+            pushAncestor(p);
+        // reverse to the top-down order
+        for (int i = 0, j = depth - 1; i < j; i++, j--) {
+            final Node tmp = ancestors[i];
+            ancestors[i] = ancestors[j];
+            ancestors[j] = tmp;
+        }
+        walker.setCurrentNode(root);
+    }
 
-        // return position to the current (level up):
-        walker.setCurrentNode(checkpoint);
+    private void pushAncestor(Node node) {
+        if (depth == ancestors.length)
+            ancestors = Arrays.copyOf(ancestors, depth * 2);
+        ancestors[depth++] = node;
     }
 
     protected abstract void processNode(T result, Node current, Object source);
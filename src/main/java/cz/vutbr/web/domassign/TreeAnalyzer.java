@@ -0,0 +1,237 @@
+package cz.vutbr.web.domassign;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+
+import cz.vutbr.web.css.CSSContext;
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.TreeAccess;
+import cz.vutbr.web.domassign.Analyzer.Holder;
+import cz.vutbr.web.domassign.Analyzer.OrderedRule;
+
+/**
+ * An analyzer that computes the styles of the elements of any tree accessible through the
+ * {@link TreeAccess} interface, e.g. a {@link NodeStore} or a {@link DOMTreeAccess}.
+ * It uses the same rule classification and cascade as the {@link Analyzer}; only the selector
+ * matching and the traversal use the tree access instead of the DOM.
+ */
+public class TreeAnalyzer
+{
+	private static final Logger log = LoggerFactory.getLogger(TreeAnalyzer.class);
+
+	/** The style sheets to be processed. */
+	protected List<StyleSheet> sheets;
+
+	/** The context that provides the NodeData implementation */
+	private final CSSContext context;
+
+	/** The rules classified for {@link #rulesMedia} */
+	private Holder rules;
+
+	/** The media specification used for classifying the rules */
+	private MediaSpec rulesMedia;
+
+	/**
+	 * Creates the analyzer for a single style sheet.
+	 * @param sheet The stylesheet that will be used as the source of rules.
+	 */
+	public TreeAnalyzer(StyleSheet sheet) {
+		this(new ArrayList<StyleSheet>(Collections.singletonList(sheet)), CSSContext.current());
+	}
+
+	/**
+	 * Creates the analyzer for multiple style sheets.
+	 * @param sheets A list of stylesheets that will be used as the source of rules.
+	 */
+	public TreeAnalyzer(List<StyleSheet> sheets) {
+		this(sheets, CSSContext.current());
+	}
+
+	/**
+	 * Creates the analyzer for multiple style sheets that uses the given context.
+	 * @param sheets A list of stylesheets that will be used as the source of rules.
+	 * @param context The context that provides the configuration.
+	 */
+	public TreeAnalyzer(List<StyleSheet> sheets, CSSContext context) {
+		this.sheets = sheets;
+		this.context = context;
+	}
+
+	/**
+	 * Computes the styles of all the nodes of a tree. The rules are classified when the analyzer
+	 * is used with a media specification for the first time and the classification is reused
+	 * by the subsequent evaluations for the same media specification.
+	 *
+	 * @param tree
+	 *            The tree to be styled
+	 * @param media
+	 *            Media
+	 * @param inherit
+	 *            Use inheritance
+	 * @return The styles of the nodes
+	 */
+	public TreeStyleMap evaluate(TreeAccess tree, MediaSpec media, boolean inherit) {
+
+		final Holder rules = classifyAllSheets(media);
+		final TreeStyleMap result = new TreeStyleMap(tree.getNodeCount());
+
+		// iterative traversal in the document order; parents are always evaluated before their children
+		final int root = tree.getRoot();
+		int node = root;
+		while (node != TreeAccess.NONE) {
+			evaluateNode(result, tree, node, rules, inherit);
+			int next = tree.getFirstChild(node);
+			while (next == TreeAccess.NONE && node != root) {
+				next = tree.getNextSibling(node);
+				if (next == TreeAccess.NONE)
+					node = tree.getParent(node);
+			}
+			node = next;
+		}
+		return result;
+	}
+
+	/**
+	 * Obtains the rules of all the style sheets classified for the given media. The rules are
+	 * only classified again when the media specification changes.
+	 * @param mediaspec The specification of the media for evaluating the media queries.
+	 * @return the classified rules
+	 */
+	protected Holder classifyAllSheets(MediaSpec mediaspec) {
+		if (rules == null || rulesMedia != mediaspec) {
+			final Holder holder = new Holder();
+			AnalyzerUtil.classifyAllSheets(sheets, holder, mediaspec);
+			rules = holder;
+			rulesMedia = mediaspec;
+		}
+		return rules;
+	}
+
+	/**
+	 * Computes the style of a single node and its pseudo-elements.
+	 */
+	protected void evaluateNode(TreeStyleMap result, TreeAccess tree, int node, Holder rules, boolean inherit) {
+
+		// declarations of the main element and the pseudo-elements
+		final List<Declaration> eldecl = new ArrayList<Declaration>();
+		final Map<PseudoElementType, List<Declaration>> pseudos =
+				new EnumMap<PseudoElementType, List<Declaration>>(PseudoElementType.class);
+		if (!rules.isEmpty()) {
+			for (OrderedRule orule : getCandidates(tree, node, rules)) {
+				final RuleSet rule = orule.getRule();
+				final CombinedSelector[] selectors = rule.getSelectors();
+				for (int si = 0; si < selectors.length; si++) {
+					final CombinedSelector s = selectors[si];
+					if (!matchSelector(s, node, tree))
+						continue;
+					final PseudoElementType pseudo = s.getPseudoElementType();
+					List<Declaration> dest = eldecl;
+					if (pseudo != null) {
+						dest = pseudos.get(pseudo);
+						if (dest == null) {
+							dest = new ArrayList<Declaration>();
+							pseudos.put(pseudo, dest);
+						}
+					}
+					Collections.addAll(dest, orule.getAssignedDeclarations(si));
+				}
+			}
+		}
+
+		NodeData main = context.createNodeData();
+		CascadeKey.sort(eldecl);
+		for (Declaration d : eldecl)
+			main.push(d);
+		if (inherit) {
+			final int parent = tree.getParent(node);
+			if (parent != TreeAccess.NONE)
+				main.inheritFrom(result.get(parent));
+		}
+		result.put(node, null, main.concretize());
+
+		for (Map.Entry<PseudoElementType, List<Declaration>> entry : pseudos.entrySet()) {
+			final NodeData pdata = context.createNodeData();
+			final List<Declaration> pdecl = entry.getValue();
+			CascadeKey.sort(pdecl);
+			for (Declaration d : pdecl)
+				pdata.push(d);
+			pdata.inheritFrom(main); //always inherit from the main element style
+			result.put(node, entry.getKey(), pdata.concretize());
+		}
+	}
+
+	/**
+	 * Obtains the rules that may apply to a node sorted by their order.
+	 */
+	protected List<OrderedRule> getCandidates(TreeAccess tree, int node, Holder holder) {
+
+		final Object source = tree.getSourceNode(node);
+		final List<OrderedRule> clist = holder.getCandidates(tree.getClasses(node), tree.getID(node),
+				tree.getTagName(node), (source instanceof Element) ? (Element) source : null);
+		log.trace("Node {}: {} candidates", node, clist.size());
+		return clist;
+	}
+
+	/**
+	 * Matches a combined selector against a node of the tree.
+	 *
+	 * @param sel
+	 *            The selector
+	 * @param node
+	 *            The node
+	 * @param tree
+	 *            The tree
+	 * @return {@code true} when the selector matches the node
+	 */
+	protected boolean matchSelector(CombinedSelector sel, int node, TreeAccess tree) {
+
+		boolean retval = false;
+		Selector.Combinator combinator = null;
+		int current = node;
+		// traverse simple selector backwards
+		for (int i = sel.size() - 1; i >= 0; i--) {
+			final Selector s = sel.get(i);
+
+			if (combinator == null) {
+				retval = s.matches(current, tree);
+			} else if (combinator == Selector.Combinator.ADJACENT) {
+				current = tree.getPreviousSibling(current);
+				retval = current != TreeAccess.NONE && s.matches(current, tree);
+			} else if (combinator == Selector.Combinator.PRECEDING) {
+				retval = false;
+				while (!retval && (current = tree.getPreviousSibling(current)) != TreeAccess.NONE)
+					retval = s.matches(current, tree);
+			} else if (combinator == Selector.Combinator.DESCENDANT) {
+				retval = false;
+				while (!retval && (current = tree.getParent(current)) != TreeAccess.NONE)
+					retval = s.matches(current, tree);
+			} else if (combinator == Selector.Combinator.CHILD) {
+				current = tree.getParent(current);
+				retval = current != TreeAccess.NONE && s.matches(current, tree);
+			}
+
+			// set combinator for next loop
+			combinator = s.getCombinator();
+
+			// leave loop if not matched
+			if (!retval)
+				break;
+		}
+		return retval;
+	}
+
+}
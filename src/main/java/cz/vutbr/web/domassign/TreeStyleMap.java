@@ -0,0 +1,107 @@
+package cz.vutbr.web.domassign;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.TreeAccess;
+
+/**
+ * The styles of the nodes of a {@link TreeAccess} tree computed by the {@link TreeAnalyzer}.
+ * The styles are stored in arrays indexed by the node handles and the pseudo-element ordinals.
+ */
+public class TreeStyleMap
+{
+    private static final PseudoElementType[] PSEUDO_TYPES = PseudoElementType.values();
+
+    private final NodeData[] main;
+    /** The pseudo-element styles indexed by the pseudo-element ordinals; {@code null} for nodes with no pseudo-elements */
+    private final NodeData[][] pseudo;
+
+    /**
+     * Creates an empty map.
+     * @param nodeCount the number of nodes of the tree
+     */
+    public TreeStyleMap(int nodeCount)
+    {
+        main = new NodeData[nodeCount];
+        pseudo = new NodeData[nodeCount][];
+    }
+
+    /**
+     * Obtains the style of a node.
+     * @param node the node
+     * @return the style or {@code null} when no style has been computed
+     */
+    public NodeData get(int node)
+    {
+        return main[node];
+    }
+
+    /**
+     * Obtains the style of a node or its pseudo-element.
+     * @param node the node
+     * @param pseudoElement the pseudo-element or {@code null} for the node itself
+     * @return the style or {@code null} when no style has been computed
+     */
+    public NodeData get(int node, PseudoElementType pseudoElement)
+    {
+        if (pseudoElement == null)
+            return main[node];
+        final NodeData[] styles = pseudo[node];
+        return (styles == null) ? null : styles[pseudoElement.ordinal()];
+    }
+
+    /**
+     * Obtains the pseudo-elements available for a node.
+     * @param node the node
+     * @return the set of pseudo-elements
+     */
+    public Set<PseudoElementType> pseudoSet(int node)
+    {
+        final NodeData[] styles = pseudo[node];
+        if (styles == null)
+            return Collections.<PseudoElementType>emptySet();
+        final Set<PseudoElementType> ret = EnumSet.noneOf(PseudoElementType.class);
+        for (int i = 0; i < styles.length; i++)
+        {
+            if (styles[i] != null)
+                ret.add(PSEUDO_TYPES[i]);
+        }
+        return ret;
+    }
+
+    /**
+     * Stores the style of a node or its pseudo-element.
+     * @param node the node
+     * @param pseudoElement the pseudo-element or {@code null} for the node itself
+     * @param data the style
+     */
+    public void put(int node, PseudoElementType pseudoElement, NodeData data)
+    {
+        if (pseudoElement == null)
+            main[node] = data;
+        else
+        {
+            NodeData[] styles = pseudo[node];
+            if (styles == null)
+            {
+                styles = new NodeData[PSEUDO_TYPES.length];
+                pseudo[node] = styles;
+            }
+            styles[pseudoElement.ordinal()] = data;
+        }
+    }
+
+    /**
+     * Obtains the number of nodes.
+     * @return the number of nodes
+     */
+    public int size()
+    {
+        return main.length;
+    }
+
+}
@@ -151,9 +151,9 @@ public class BorderRadiusRepeater extends Repeater {
         if (src.getOperator() == Operator.SLASH)
         {
             if (src instanceof TermLength)
-                return tf.createLength((java.lang.Float) src.getValue(), ((TermLength) src).getUnit());
+                return tf.createLength(((TermLength) src).getFloatValue(), ((TermLength) src).getUnit());
             else if (src instanceof TermPercent)
-                return tf.createPercent((java.lang.Float) src.getValue());
+                return tf.createPercent(((TermPercent) src).getFloatValue());
             else
                 return src;
         }
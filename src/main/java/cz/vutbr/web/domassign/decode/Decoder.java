@@ -22,6 +22,7 @@ import cz.vutbr.web.css.TermInteger;
 import cz.vutbr.web.css.TermLength;
 import cz.vutbr.web.css.TermList;
 import cz.vutbr.web.css.TermNumber;
+import cz.vutbr.web.css.TermNumeric;
 import cz.vutbr.web.css.TermPercent;
 import cz.vutbr.web.css.TermTime;
 
@@ -75,15 +76,10 @@ public class Decoder
     public static <T extends CSSProperty> T genericPropertyRaw(Class<T> type,
             Set<T> intersection, TermIdent term) {
 
-        try {
-            String name = term.getValue().replace("-", "_").toUpperCase();
-            T property = CSSProperty.Translator.valueOf(type, name);
-            if (intersection != null && intersection.contains(property))
-                return property;
+        T property = CSSProperty.Translator.valueOfKeyword(type, term.getValue());
+        if (intersection != null && intersection.contains(property))
             return property;
-        } catch (Exception e) {
-            return null;
-        }
+        return property;
     }
 
     /**
@@ -187,9 +183,9 @@ public class Decoder
             Map<String, CSSProperty> properties, Map<String, Term<?>> values) {
 
         if (term instanceof TermInteger  && ((TermInteger) term).getUnit().equals(TermNumber.Unit.none)) {
-            if (CSSFactory.getImplyPixelLength() || ((TermInteger) term).getValue() == 0) { //0 is always allowed with no units
+            if (CSSFactory.getImplyPixelLength() || ((TermInteger) term).getIntValue() == 0) { //0 is always allowed with no units
                 // convert to length with units of px
-                TermLength tl = tf.createLength(((TermInteger) term).getValue(), TermNumber.Unit.px);
+                TermLength tl = tf.createLength(((TermInteger) term).getFloatValue(), TermNumber.Unit.px);
                 return genericTerm(TermLength.class, tl, propertyName, lengthIdentification, range, properties, values);
             } else {
                 return false;
@@ -235,39 +231,18 @@ public class Decoder
         // check type
         if (termType.isInstance(term)) {
             // sanity check
-            if (range != ValueRange.ALLOW_ALL) {
-                // check for integer
-                if (term.getValue() instanceof Integer) {
-                    final Integer zero = 0;
-                    int result = zero.compareTo((Integer) term.getValue());
-                    if (result > 0) {
-                        // return false is also possibility
-                        // but we will change to zero
-                        if (range == ValueRange.TRUNCATE_NEGATIVE)
-                            ((TermInteger) term).setZero();
-                        else
-                            return false;
-                    } else if(result == 0) {
-                        if(range == ValueRange.DISALLOW_ZERO) {
-                            return false;
-                        }
-                    }
-                }
-                // check for float
-                else if (term.getValue() instanceof java.lang.Float) {
-                    final java.lang.Float zero = 0f;
-                    int result = zero.compareTo((java.lang.Float) term.getValue());
-                    if (result > 0) {
-                        // return false is also possibility
-                        // but we will change to zero
-                        if (range == ValueRange.TRUNCATE_NEGATIVE)
-                            ((TermFloatValue) term).setZero();
-                        else
-                            return false;
-                    } else if(result == 0) {
-                        if(range == ValueRange.DISALLOW_ZERO) {
-                            return false;
-                        }
+            if (range != ValueRange.ALLOW_ALL && term instanceof TermNumeric) {
+                final float value = ((TermNumeric<?>) term).getFloatValue();
+                if (value < 0) {
+                    // return false is also possibility
+                    // but we will change to zero
+                    if (range == ValueRange.TRUNCATE_NEGATIVE)
+                        ((TermNumeric<?>) term).setZero();
+                    else
+                        return false;
+                } else if (value == 0) {
+                    if (range == ValueRange.DISALLOW_ZERO) {
+                        return false;
                     }
                 }
             }
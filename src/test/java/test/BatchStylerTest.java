@@ -0,0 +1,150 @@
+package test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.TermColor;
+import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.css.TermLength;
+import cz.vutbr.web.css.TermNumeric.Unit;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.BatchStyler;
+import cz.vutbr.web.domassign.StyleMap;
+
+public class BatchStylerTest {
+	private static final Logger log = LoggerFactory.getLogger(BatchStylerTest.class);
+
+	private static TermFactory tf = CSSFactory.getTermFactory();
+
+	private static final String SHARED = "p { color: red; width: 10px; height: 10px } .a { color: blue }";
+	private static final String HTML = "<html><head>"
+			+ "<link rel=\"stylesheet\" href=\"data:text/css,p%20%7Bheight%3A%205px%7D\" />"
+			+ "<style>p.b { color: green }</style>"
+			+ "</head><body><p class=\"a\">one</p><p class=\"b\" style=\"width: 20px\">two</p></body></html>";
+
+	private static final MediaSpec media = new MediaSpec("screen");
+
+	@BeforeClass
+	public static void init() throws SAXException, IOException {
+		log.info("\n\n\n == BatchStyler test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void sameAsSingleDocument() throws Exception {
+		final StyleSheet shared = CSSFactory.parseString(SHARED, null);
+		final BatchStyler styler = new BatchStyler(Collections.singletonList(shared), media);
+
+		final List<BatchStyler.Source> docs = new ArrayList<BatchStyler.Source>();
+		for (int i = 0; i < 20; i++)
+			docs.add(new BatchStyler.Source(parse(), new URL("http://www.example.org/doc" + i)));
+		final List<BatchStyler.Result> results = styler.styleAll(docs);
+
+		assertThat(results.size(), is(docs.size()));
+		assertThat(styler.getCachedSheetCount(), is(1)); //the linked sheet is parsed once
+		for (int i = 0; i < results.size(); i++) {
+			final BatchStyler.Result result = results.get(i);
+			assertThat(result.getIndex(), is(i));
+			assertNull(result.getError());
+			assertThat(result.getDocument(), is(docs.get(i).getDocument()));
+			assertThat(result.getParseTime() >= 0 && result.getStyleTime() >= 0, is(true));
+
+			final StyleMap expected = styleSingle(shared, result.getDocument());
+			for (Element p : paragraphs(result.getDocument()))
+				assertThat(result.getStyles().get(p).toString(), is(expected.get(p).toString()));
+
+			final List<Element> ps = paragraphs(result.getDocument());
+			final NodeData one = result.getStyles().get(ps.get(0));
+			final NodeData two = result.getStyles().get(ps.get(1));
+			assertThat(one.getValue(TermColor.class, "color"), is(tf.createColor(0, 0, 255)));
+			assertThat(one.getValue(TermLength.class, "height"), is(tf.createLength(5.0f, Unit.px)));
+			assertThat(two.getValue(TermColor.class, "color"), is(tf.createColor(0, 128, 0)));
+			assertThat(two.getValue(TermLength.class, "width"), is(tf.createLength(20.0f, Unit.px)));
+		}
+	}
+
+	@Test
+	public void backPressure() throws Exception {
+		final StyleSheet shared = CSSFactory.parseString(SHARED, null);
+		final BatchStyler styler = new BatchStyler(Collections.singletonList(shared), media);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		styler.setExecutor(executor);
+		styler.setMaxPending(2);
+		styler.setDocumentStyles(false);
+
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		final AtomicInteger done = new AtomicInteger();
+		final List<BatchStyler.Source> docs = new ArrayList<BatchStyler.Source>();
+		for (int i = 0; i < 30; i++)
+			docs.add(new BatchStyler.Source(parse(), null));
+		try {
+			styler.styleAll(docs.iterator(), new BatchStyler.Listener() {
+				@Override
+				public void documentStyled(BatchStyler.Result result) {
+					final int cnt = running.incrementAndGet();
+					synchronized (maxRunning) {
+						if (cnt > maxRunning.get())
+							maxRunning.set(cnt);
+					}
+					assertNotNull(result.getStyles());
+					NodeData data = result.getStyles().get(paragraphs(result.getDocument()).get(1));
+					if (data.getValue(TermColor.class, "color").equals(tf.createColor(255, 0, 0)))
+						done.incrementAndGet(); //no document styles used
+					running.decrementAndGet();
+				}
+			});
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(done.get(), is(docs.size()));
+		assertThat(maxRunning.get() <= 2, is(true));
+		assertThat(styler.getCachedSheetCount(), is(0));
+	}
+
+	private static Document parse() throws SAXException, IOException {
+		return new DOMSource(new ByteArrayInputStream(HTML.getBytes())).parse();
+	}
+
+	private static StyleMap styleSingle(StyleSheet shared, Document doc) throws IOException, CSSException {
+		final List<StyleSheet> sheets = new ArrayList<StyleSheet>();
+		sheets.add(shared);
+		sheets.add(CSSFactory.getUsedStyles(doc, null, null, media));
+		return new Analyzer(sheets).evaluateDOM(doc, media, true);
+	}
+
+	private static List<Element> paragraphs(Document doc) {
+		final NodeList list = doc.getElementsByTagName("p");
+		final List<Element> ret = new ArrayList<Element>();
+		for (int i = 0; i < list.getLength(); i++)
+			ret.add((Element) list.item(i));
+		return ret;
+	}
+
+}
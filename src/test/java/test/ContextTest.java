@@ -0,0 +1,144 @@
+package test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSContext;
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.css.TermLength;
+import cz.vutbr.web.css.TermNumeric.Unit;
+import cz.vutbr.web.domassign.QuadrupleMapNodeData;
+import cz.vutbr.web.domassign.SingleMapNodeData;
+import cz.vutbr.web.domassign.StyleMap;
+
+public class ContextTest {
+	private static final Logger log = LoggerFactory.getLogger(ContextTest.class);
+
+	private static TermFactory tf = CSSFactory.getTermFactory();
+
+	private static final String HTML = "<html><body><p>text</p></body></html>";
+	private static final String CSS = "p { width: 10; height: 20px }";
+
+	@BeforeClass
+	public static void init() throws SAXException, IOException {
+		log.info("\n\n\n == Context test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void independentContexts() throws SAXException, IOException, CSSException {
+		final CSSContext pixels = CSSContext.builder().setImplyPixelLength(true)
+				.setNodeDataClass(QuadrupleMapNodeData.class).build();
+		final CSSContext strict = CSSContext.builder().build();
+
+		NodeData data = style(pixels);
+		assertThat(data instanceof QuadrupleMapNodeData, is(true));
+		assertThat(data.getValue(TermLength.class, "width"), is(tf.createLength(10.0f, Unit.px)));
+		assertThat(data.getValue(TermLength.class, "height"), is(tf.createLength(20.0f, Unit.px)));
+
+		data = style(strict);
+		assertNull(data.getValue(TermLength.class, "width"));
+		assertThat(data.getValue(TermLength.class, "height"), is(tf.createLength(20.0f, Unit.px)));
+
+		// the default configuration is not affected
+		assertThat(CSSFactory.getImplyPixelLength(), is(false));
+	}
+
+	@Test
+	public void nodeDataFactory() throws SAXException, IOException, CSSException {
+		final CSSContext quadruple = CSSContext.builder().setImplyPixelLength(true)
+				.setNodeDataFactory(QuadrupleMapNodeData.FACTORY).build();
+		assertThat(quadruple.createNodeData() instanceof QuadrupleMapNodeData, is(true));
+		assertThat(CSSContext.builder().build().createNodeData() instanceof SingleMapNodeData, is(true));
+
+		final NodeData data = style(quadruple);
+		assertThat(data instanceof QuadrupleMapNodeData, is(true));
+		assertThat(data.getValue(TermLength.class, "width"), is(tf.createLength(10.0f, Unit.px)));
+	}
+
+
+	@Test
+	public void binding() {
+		final CSSContext pixels = CSSContext.builder().setImplyPixelLength(true).build();
+		assertSame(CSSContext.getDefault(), CSSContext.current());
+		final CSSContext previous = pixels.bind();
+		try {
+			assertSame(pixels, CSSContext.current());
+			assertThat(CSSFactory.getImplyPixelLength(), is(true));
+		} finally {
+			CSSContext.unbind(previous);
+		}
+		assertSame(CSSContext.getDefault(), CSSContext.current());
+		assertThat(CSSFactory.getImplyPixelLength(), is(false));
+	}
+
+	@Test
+	public void registration() {
+		final CSSContext before = CSSContext.getDefault();
+		CSSFactory.setImplyPixelLength(true);
+		try {
+			assertThat(CSSContext.getDefault().getImplyPixelLength(), is(true));
+			assertThat(before.getImplyPixelLength(), is(false)); // the contexts are immutable
+			assertSame(before.getTermFactory(), CSSContext.getDefault().getTermFactory());
+		} finally {
+			CSSFactory.setImplyPixelLength(false);
+		}
+	}
+
+	@Test
+	public void concurrentContexts() throws Exception {
+		final CSSContext pixels = CSSContext.builder().setImplyPixelLength(true).build();
+		final CSSContext strict = CSSContext.builder().build();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 40; i++) {
+				final CSSContext context = (i % 2 == 0) ? pixels : strict;
+				results.add(executor.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() throws Exception {
+						return style(context).getValue(TermLength.class, "width") != null;
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++)
+				assertThat("Task " + i, results.get(i).get(), is(i % 2 == 0));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static NodeData style(CSSContext context) throws SAXException, IOException, CSSException {
+		final Document doc = new DOMSource(new ByteArrayInputStream(HTML.getBytes())).parse();
+		final StyleSheet sheet = context.parseString(CSS, null);
+		final StyleMap styles = context.createAnalyzer(Collections.singletonList(sheet))
+				.evaluateDOM(doc, new MediaSpec("screen"), true);
+		return styles.get((Element) doc.getElementsByTagName("p").item(0));
+	}
+
+}
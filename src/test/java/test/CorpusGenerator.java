@@ -0,0 +1,475 @@
+package test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import cz.vutbr.web.css.NetworkProcessor;
+
+/**
+ * A deterministic generator of synthetic style sheets and documents for scale testing.
+ * The style sheets and the documents share the same vocabulary of element names, class names,
+ * identifiers and attributes so that a configurable part of the selectors matches the elements.
+ * The same configuration and seed always produce the same output.
+ *
+ * <p>When imports are enabled, the rules are distributed among the imported style sheets whose
+ * contents are provided by {@link #getNetworkProcessor()}; the main style sheet should be parsed
+ * with the base URL {@link #getBaseUrl()}.</p>
+ */
+public class CorpusGenerator
+{
+    /** The base URL of the generated style sheets */
+    public static final String BASE = "http://corpus.example/";
+
+    private static final String[] ELEMENTS = {"div", "p", "span", "a", "ul", "li", "section", "article", "h1", "h2", "table", "td"};
+    private static final String[] ATTRIBUTES = {"data-a", "data-b", "title", "lang"};
+    private static final String[] PSEUDO_CLASSES = {":first-child", ":last-child", ":only-child", ":empty",
+        ":nth-child(2n+1)", ":nth-child(3)", ":nth-last-child(2)", ":nth-of-type(2n)", ":first-of-type", ":last-of-type"};
+    private static final String[] DISPLAY = {"block", "inline", "inline-block", "none", "flex"};
+
+    private final long seed;
+
+    private int ruleCount = 1000;
+    private int maxSelectorDepth = 3;
+    private float attributeRatio = 0.1f;
+    private float pseudoClassRatio = 0.1f;
+    private float mediaRatio = 0.1f;
+    private int importCount = 0;
+
+    private int elementCount = 1000;
+    private int maxDepth = 12;
+    private int fanOut = 4;
+    private int classCount = 100;
+    private float idRatio = 0.1f;
+    private float inlineStyleRatio = 0.05f;
+
+    /** The imported style sheets created by the last {@link #generateCss()} call */
+    private Map<String, String> imports;
+
+    /**
+     * Creates a generator with the default configuration.
+     * @param seed the seed of the random number generator
+     */
+    public CorpusGenerator(long seed)
+    {
+        this.seed = seed;
+        this.imports = new HashMap<String, String>();
+    }
+
+    /**
+     * Sets the total number of the generated rule sets (the default is 1000).
+     */
+    public void setRuleCount(int ruleCount)
+    {
+        this.ruleCount = ruleCount;
+    }
+
+    public int getRuleCount()
+    {
+        return ruleCount;
+    }
+
+    /**
+     * Sets the maximal number of the compound selectors in a combined selector (the default is 3).
+     * The compound selectors are combined using the descendant and child combinators.
+     */
+    public void setMaxSelectorDepth(int maxSelectorDepth)
+    {
+        this.maxSelectorDepth = maxSelectorDepth;
+    }
+
+    public int getMaxSelectorDepth()
+    {
+        return maxSelectorDepth;
+    }
+
+    /**
+     * Sets the probability of an attribute selector in a compound selector (the default is 0.1).
+     */
+    public void setAttributeRatio(float attributeRatio)
+    {
+        this.attributeRatio = attributeRatio;
+    }
+
+    public float getAttributeRatio()
+    {
+        return attributeRatio;
+    }
+
+    /**
+     * Sets the probability of a structural pseudo-class in a compound selector (the default is 0.1).
+     */
+    public void setPseudoClassRatio(float pseudoClassRatio)
+    {
+        this.pseudoClassRatio = pseudoClassRatio;
+    }
+
+    public float getPseudoClassRatio()
+    {
+        return pseudoClassRatio;
+    }
+
+    /**
+     * Sets the part of the rule sets that are placed in media rules (the default is 0.1).
+     */
+    public void setMediaRatio(float mediaRatio)
+    {
+        this.mediaRatio = mediaRatio;
+    }
+
+    public float getMediaRatio()
+    {
+        return mediaRatio;
+    }
+
+    /**
+     * Sets the number of the imported style sheets (the default is 0). When non-zero, the main
+     * style sheet contains the imports only and the rules are distributed among the imported sheets.
+     */
+    public void setImportCount(int importCount)
+    {
+        this.importCount = importCount;
+    }
+
+    public int getImportCount()
+    {
+        return importCount;
+    }
+
+    /**
+     * Sets the number of the generated elements in the document body (the default is 1000).
+     * Fewer elements are generated when the tree reaches the maximal depth.
+     */
+    public void setElementCount(int elementCount)
+    {
+        this.elementCount = elementCount;
+    }
+
+    public int getElementCount()
+    {
+        return elementCount;
+    }
+
+    /**
+     * Sets the maximal depth of the body subtree (the default is 12).
+     */
+    public void setMaxDepth(int maxDepth)
+    {
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth()
+    {
+        return maxDepth;
+    }
+
+    /**
+     * Sets the average number of the child elements (the default is 4).
+     */
+    public void setFanOut(int fanOut)
+    {
+        this.fanOut = fanOut;
+    }
+
+    public int getFanOut()
+    {
+        return fanOut;
+    }
+
+    /**
+     * Sets the number of the class names used by the selectors and the elements (the default is 100).
+     */
+    public void setClassCount(int classCount)
+    {
+        this.classCount = classCount;
+    }
+
+    public int getClassCount()
+    {
+        return classCount;
+    }
+
+    /**
+     * Sets the part of the elements that have an identifier (the default is 0.1).
+     */
+    public void setIdRatio(float idRatio)
+    {
+        this.idRatio = idRatio;
+    }
+
+    public float getIdRatio()
+    {
+        return idRatio;
+    }
+
+    /**
+     * Sets the part of the elements that have an inline style (the default is 0.05).
+     */
+    public void setInlineStyleRatio(float inlineStyleRatio)
+    {
+        this.inlineStyleRatio = inlineStyleRatio;
+    }
+
+    public float getInlineStyleRatio()
+    {
+        return inlineStyleRatio;
+    }
+
+    /**
+     * Obtains the base URL of the generated style sheets.
+     */
+    public URL getBaseUrl()
+    {
+        try {
+            return new URL(BASE);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Obtains a network processor that provides the imported style sheets created by the last
+     * {@link #generateCss()} call.
+     */
+    public NetworkProcessor getNetworkProcessor()
+    {
+        return new NetworkProcessor() {
+            @Override
+            public InputStream fetch(URL url) throws IOException
+            {
+                final String css = imports.get(url.toString());
+                if (css == null)
+                    throw new IOException("Not found: " + url);
+                return new ByteArrayInputStream(css.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    //===========================================================================================
+
+    /**
+     * Generates the main style sheet. The imported style sheets (if any) are generated as well.
+     * @return the style sheet source
+     */
+    public String generateCss()
+    {
+        final Random rnd = new Random(seed);
+        final Map<String, String> newImports = new HashMap<String, String>();
+        final StringBuilder main = new StringBuilder();
+        if (importCount <= 0)
+            generateRules(rnd, ruleCount, main);
+        else
+        {
+            for (int i = 0; i < importCount; i++)
+            {
+                final String name = "import" + i + ".css";
+                final int count = ruleCount / importCount + (i < ruleCount % importCount ? 1 : 0);
+                final StringBuilder sb = new StringBuilder();
+                generateRules(rnd, count, sb);
+                newImports.put(BASE + name, sb.toString());
+                main.append("@import \"").append(name).append("\";\n");
+            }
+        }
+        imports = newImports;
+        return main.toString();
+    }
+
+    /**
+     * Generates the document. The body contains the generated elements, the head is empty.
+     * @return the new document
+     */
+    public Document generateDocument()
+    {
+        final Random rnd = new Random(seed + 1);
+        final Document doc;
+        try {
+            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+        final Element html = doc.createElement("html");
+        doc.appendChild(html);
+        html.appendChild(doc.createElement("head"));
+        final Element body = doc.createElement("body");
+        html.appendChild(body);
+
+        // breadth-first so that the element count is reached before the maximal depth if possible
+        final Deque<Element> queue = new ArrayDeque<Element>();
+        final Deque<Integer> depths = new ArrayDeque<Integer>();
+        queue.add(body);
+        depths.add(0);
+        int count = 0;
+        while (count < elementCount && !queue.isEmpty())
+        {
+            final Element parent = queue.poll();
+            final int depth = depths.poll();
+            final int children = 1 + rnd.nextInt(Math.max(1, 2 * fanOut - 1));
+            for (int i = 0; i < children && count < elementCount; i++)
+            {
+                final Element e = createElement(doc, rnd, count++);
+                parent.appendChild(e);
+                if (depth + 1 < maxDepth)
+                {
+                    queue.add(e);
+                    depths.add(depth + 1);
+                }
+            }
+        }
+        return doc;
+    }
+
+    //===========================================================================================
+
+    private void generateRules(Random rnd, int count, StringBuilder sb)
+    {
+        int i = 0;
+        while (i < count)
+        {
+            if (rnd.nextFloat() < mediaRatio)
+            {
+                // a media rule with several rule sets
+                final int n = Math.min(count - i, 1 + rnd.nextInt(5));
+                sb.append("@media ").append(mediaQuery(rnd)).append(" {\n");
+                for (int j = 0; j < n; j++)
+                    generateRuleSet(rnd, sb.append("  "));
+                sb.append("}\n");
+                i += n;
+            }
+            else
+            {
+                generateRuleSet(rnd, sb);
+                i++;
+            }
+        }
+    }
+
+    private void generateRuleSet(Random rnd, StringBuilder sb)
+    {
+        generateSelector(rnd, sb);
+        if (rnd.nextInt(5) == 0)
+            generateSelector(rnd, sb.append(", "));
+        sb.append(" { ");
+        final int n = 1 + rnd.nextInt(4);
+        for (int i = 0; i < n; i++)
+            generateDeclaration(rnd, sb);
+        sb.append("}\n");
+    }
+
+    private void generateSelector(Random rnd, StringBuilder sb)
+    {
+        final int depth = 1 + rnd.nextInt(Math.max(1, maxSelectorDepth));
+        for (int i = 0; i < depth; i++)
+        {
+            if (i > 0)
+                sb.append(rnd.nextInt(4) == 0 ? " > " : " ");
+            boolean empty = true;
+            if (rnd.nextBoolean())
+            {
+                sb.append(ELEMENTS[rnd.nextInt(ELEMENTS.length)]);
+                empty = false;
+            }
+            if (rnd.nextFloat() < 0.05f)
+            {
+                sb.append("#e").append(rnd.nextInt(Math.max(1, elementCount)));
+                empty = false;
+            }
+            else if (empty || rnd.nextFloat() < 0.7f)
+                sb.append(".c").append(rnd.nextInt(classCount));
+            if (rnd.nextFloat() < attributeRatio)
+                attributeSelector(rnd, sb);
+            if (rnd.nextFloat() < pseudoClassRatio)
+                sb.append(PSEUDO_CLASSES[rnd.nextInt(PSEUDO_CLASSES.length)]);
+        }
+    }
+
+    private void attributeSelector(Random rnd, StringBuilder sb)
+    {
+        final String name = ATTRIBUTES[rnd.nextInt(ATTRIBUTES.length)];
+        switch (rnd.nextInt(4))
+        {
+            case 0: sb.append('[').append(name).append(']'); break;
+            case 1: sb.append('[').append(name).append("=\"v").append(rnd.nextInt(10)).append("\"]"); break;
+            case 2: sb.append('[').append(name).append("^=\"v").append("\"]"); break;
+            default: sb.append('[').append(name).append("*=\"").append(rnd.nextInt(10)).append("\"]"); break;
+        }
+    }
+
+    private String mediaQuery(Random rnd)
+    {
+        switch (rnd.nextInt(4))
+        {
+            case 0: return "print";
+            case 1: return "(min-width: " + (320 + 100 * rnd.nextInt(16)) + "px)";
+            case 2: return "screen and (max-width: " + (320 + 100 * rnd.nextInt(16)) + "px)";
+            default: return "screen and (orientation: landscape)";
+        }
+    }
+
+    private void generateDeclaration(Random rnd, StringBuilder sb)
+    {
+        switch (rnd.nextInt(10))
+        {
+            case 0: sb.append("color: ").append(color(rnd)); break;
+            case 1: sb.append("background-color: ").append(color(rnd)); break;
+            case 2: sb.append("margin: ").append(rnd.nextInt(20)).append("px ").append(rnd.nextInt(20)).append("px"); break;
+            case 3: sb.append("padding: ").append(rnd.nextInt(10)).append("px"); break;
+            case 4: sb.append("width: ").append(10 * rnd.nextInt(11)).append('%'); break;
+            case 5: sb.append("font-size: ").append(0.5f + rnd.nextInt(16) / 10.0f).append("em"); break;
+            case 6: sb.append("display: ").append(DISPLAY[rnd.nextInt(DISPLAY.length)]); break;
+            case 7: sb.append("border: ").append(1 + rnd.nextInt(3)).append("px solid ").append(color(rnd)); break;
+            case 8: sb.append("line-height: ").append(1.0f + rnd.nextInt(10) / 10.0f); break;
+            default: sb.append("height: calc(").append(rnd.nextInt(100)).append("% - ").append(rnd.nextInt(50)).append("px)"); break;
+        }
+        sb.append("; ");
+    }
+
+    private static String color(Random rnd)
+    {
+        final String hex = Integer.toHexString(0x1000000 | rnd.nextInt(0x1000000));
+        return "#" + hex.substring(1);
+    }
+
+    private Element createElement(Document doc, Random rnd, int index)
+    {
+        final Element e = doc.createElement(ELEMENTS[rnd.nextInt(ELEMENTS.length)]);
+        if (rnd.nextFloat() < idRatio)
+            e.setAttribute("id", "e" + index);
+        final int classes = rnd.nextInt(3);
+        if (classes > 0)
+        {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < classes; i++)
+            {
+                if (i > 0) sb.append(' ');
+                sb.append('c').append(rnd.nextInt(classCount));
+            }
+            e.setAttribute("class", sb.toString());
+        }
+        if (rnd.nextFloat() < attributeRatio)
+            e.setAttribute(ATTRIBUTES[rnd.nextInt(ATTRIBUTES.length)], "v" + rnd.nextInt(10));
+        if (rnd.nextFloat() < inlineStyleRatio)
+        {
+            final StringBuilder sb = new StringBuilder();
+            generateDeclaration(rnd, sb);
+            e.setAttribute("style", sb.toString().trim());
+        }
+        if (rnd.nextInt(3) == 0)
+            e.appendChild(doc.createTextNode("text " + index));
+        return e;
+    }
+
+}
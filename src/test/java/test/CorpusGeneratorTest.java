@@ -0,0 +1,134 @@
+package test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.RuleBlock;
+import cz.vutbr.web.css.RuleMedia;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.StyleMap;
+
+public class CorpusGeneratorTest {
+	private static final Logger log = LoggerFactory.getLogger(CorpusGeneratorTest.class);
+
+	@BeforeClass
+	public static void init() throws SAXException, IOException {
+		log.info("\n\n\n == CorpusGenerator test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void deterministic() throws IOException {
+		final CorpusGenerator one = createGenerator(42);
+		final CorpusGenerator two = createGenerator(42);
+		final CorpusGenerator other = createGenerator(43);
+		assertThat(one.generateCss(), is(two.generateCss()));
+		other.generateCss();
+		assertThat(importedSheet(one), is(importedSheet(two)));
+		assertThat(importedSheet(other).equals(importedSheet(one)), is(false));
+		assertThat(describe(one.generateDocument()), is(describe(two.generateDocument())));
+	}
+
+	@Test
+	public void parseAndCascade() throws IOException, CSSException {
+		final CorpusGenerator gen = createGenerator(1);
+		final StyleSheet sheet = CSSFactory.parseString(gen.generateCss(), gen.getBaseUrl(), gen.getNetworkProcessor());
+		assertThat(countRuleSets(sheet), is(gen.getRuleCount())); //all the imports resolved
+
+		final Document doc = gen.generateDocument();
+		final NodeList elements = doc.getElementsByTagName("*");
+		assertThat(elements.getLength(), is(gen.getElementCount() + 3)); //html, head, body
+
+		final MediaSpec media = new MediaSpec("screen");
+		final List<StyleSheet> sheets = new ArrayList<StyleSheet>();
+		sheets.add(sheet);
+		sheets.add(CSSFactory.getUsedStyles(doc, null, gen.getBaseUrl(), media)); //inline styles
+		final StyleMap styles = new Analyzer(sheets).evaluateDOM(doc, media, true);
+		int styled = 0;
+		int inline = 0;
+		for (int i = 0; i < elements.getLength(); i++) {
+			final Element e = (Element) elements.item(i);
+			final NodeData data = styles.get(e);
+			if (data.getProperty("color", false) != null || data.getProperty("display", false) != null)
+				styled++;
+			if (!e.getAttribute("style").isEmpty()) {
+				inline++;
+				assertTrue(data.getProperty(inlineProperty(e), false) instanceof CSSProperty);
+			}
+		}
+		log.debug("{} styled elements, {} inline styles", styled, inline);
+		assertTrue(styled > 0);
+		assertTrue(inline > 0);
+	}
+
+	private static CorpusGenerator createGenerator(long seed) {
+		final CorpusGenerator gen = new CorpusGenerator(seed);
+		gen.setRuleCount(500);
+		gen.setImportCount(4);
+		gen.setMediaRatio(0.2f);
+		gen.setElementCount(2000);
+		gen.setClassCount(50);
+		return gen;
+	}
+
+	private static String importedSheet(CorpusGenerator gen) throws IOException {
+		final Scanner scanner = new Scanner(gen.getNetworkProcessor().fetch(new URL(CorpusGenerator.BASE + "import0.css")), "UTF-8");
+		final String ret = scanner.useDelimiter("\\A").next();
+		scanner.close();
+		return ret;
+	}
+
+	private static int countRuleSets(StyleSheet sheet) {
+		int ret = 0;
+		for (RuleBlock<?> rule : sheet) {
+			if (rule instanceof RuleSet)
+				ret++;
+			else if (rule instanceof RuleMedia)
+				ret += ((RuleMedia) rule).size();
+		}
+		return ret;
+	}
+
+	private static String inlineProperty(Element e) {
+		final String style = e.getAttribute("style");
+		final String name = style.substring(0, style.indexOf(':'));
+		return name.equals("margin") ? "margin-top" : name.equals("padding") ? "padding-top"
+				: name.equals("border") ? "border-top-width" : name;
+	}
+
+	private static String describe(Document doc) {
+		final StringBuilder sb = new StringBuilder();
+		final NodeList elements = doc.getElementsByTagName("*");
+		for (int i = 0; i < elements.getLength(); i++) {
+			final Element e = (Element) elements.item(i);
+			sb.append(e.getNodeName()).append(e.getParentNode().getNodeName()).append('|')
+				.append(e.getAttribute("id")).append('|').append(e.getAttribute("class")).append('|')
+				.append(e.getAttribute("style")).append('\n');
+		}
+		return sb.toString();
+	}
+
+}
@@ -6,17 +6,26 @@
 package test;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import cz.vutbr.web.css.CSSFactory;
 import cz.vutbr.web.css.MediaSpec;
 import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.StyleSheet;
 import cz.vutbr.web.css.TermColor;
 import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.AnalyzerUtil;
 import cz.vutbr.web.domassign.StyleMap;
 
 import org.junit.BeforeClass;
@@ -80,6 +89,45 @@ public class DOMAssignMediaTest {
         
     }
     
+    @Test
+    public void multipleMedia() throws SAXException, IOException {  
+
+        DOMSource ds = new DOMSource(getClass().getResourceAsStream("/media/media1.html"));
+        Document doc = ds.parse();
+        ElementMap elements = new ElementMap(doc);
+        
+        StyleSheet style = CSSFactory.getUsedStyles(doc, null, getClass().getResource("/media/media1.html"), new MediaSpec("screen"));
+        List<StyleSheet> sheets = Collections.singletonList(style);
+        assertArrayEquals(new float[] {400.0f}, AnalyzerUtil.getMediaBreakpoints(sheets, MediaSpec.Feature.WIDTH), 0.0f);
+        assertArrayEquals(new float[] {300.0f}, AnalyzerUtil.getMediaBreakpoints(sheets, MediaSpec.Feature.HEIGHT), 0.0f);
+        
+        List<MediaSpec> specs = new ArrayList<MediaSpec>();
+        for (int width : new int[] {320, 480, 1024, 360})
+        {
+            MediaSpec spec = new MediaSpec("screen");
+            spec.setWidth(width);
+            specs.add(spec);
+        }
+        specs.add(new MediaSpec("print"));
+        
+        Analyzer analyzer = new Analyzer(style);
+        List<StyleMap> maps = analyzer.evaluateDOM(doc, specs, true);
+        assertEquals("There is a style map for each media", specs.size(), maps.size());
+        assertSame("The equivalent media share the style map", maps.get(0), maps.get(3));
+        assertSame("The equivalent media share the style map", maps.get(1), maps.get(2));
+        
+        TermColor[] expected = {tf.createColor(255, 0, 0), tf.createColor(0, 0, 255),
+                tf.createColor(0, 0, 255), tf.createColor(255, 0, 0), tf.createColor(0, 128, 0)};
+        for (int i = 0; i < specs.size(); i++)
+        {
+            NodeData data = maps.get(i).get(elements.getElementById("test"));
+            assertNotNull("Data for #test exist", data);
+            assertThat(data.getValue(TermColor.class, "color"), is(expected[i]));
+            NodeData single = new Analyzer(style).evaluateDOM(doc, specs.get(i), true).get(elements.getElementById("test"));
+            assertEquals("The same style as for the individual evaluation", single.toString(), data.toString());
+        }
+    }
+    
     //================================================================================================
     
     private NodeData evaluateForMedia(MediaSpec spec) throws SAXException, IOException
@@ -1,31 +1,55 @@
 package test;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import cz.vutbr.web.css.CSSException;
 import cz.vutbr.web.css.CSSFactory;
 import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.ComputedLengths;
+import cz.vutbr.web.css.MediaSpec;
 import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.StyleSheet;
 import cz.vutbr.web.css.TermColor;
 import cz.vutbr.web.css.TermFactory;
 import cz.vutbr.web.css.TermLength;
 import cz.vutbr.web.css.TermList;
 import cz.vutbr.web.css.TermNumeric.Unit;
+import cz.vutbr.web.csskit.StyleMetricsCollector;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.Analyzer.Holder;
+import cz.vutbr.web.domassign.AnalyzerUtil;
+import cz.vutbr.web.domassign.CompactStyleMap;
+import cz.vutbr.web.domassign.DirectAnalyzer;
+import cz.vutbr.web.domassign.ElementChange;
+import cz.vutbr.web.domassign.SelectorProfiler;
 import cz.vutbr.web.domassign.StyleMap;
 
 public class DOMAssignTest {
@@ -255,6 +279,61 @@ public class DOMAssignTest {
         }
     }
 
+    @Test
+    public void inlineStyles() throws SAXException, IOException, CSSException {
+
+        final String html = "<html><head><style>"
+                + "p {color: blue} #p3 {color: green !important}"
+                + "</style></head><body>"
+                + "  <p id='p1' style='color: red'>Lorem Ipsum</p>"
+                + "  <p id='p2' style='color: red'>Lorem Ipsum</p>"
+                + "  <p id='p3' style='color: red'>Lorem Ipsum</p>"
+                + "  <p id='p4'>Lorem Ipsum</p>"
+                + "</body></html> ";
+
+        final InputStream is = new ByteArrayInputStream(html.getBytes());
+        final DOMSource ds = new DOMSource(is);
+        final Document doc = ds.parse();
+        final ElementMap elements = new ElementMap(doc);
+
+        // each element has its own bucket of inline rules
+        final StyleSheet style = CSSFactory.getUsedStyles(doc, null, null, new MediaSpec("screen"));
+        final Holder holder = AnalyzerUtil.getClassifiedRules(Collections.singletonList(style), new MediaSpec("screen"));
+        assertThat(holder.get(elements.getElementById("p1")).size(), is(1));
+        assertThat(holder.get(elements.getElementById("p2")).size(), is(1));
+        assertNull(holder.get(elements.getElementById("p4")));
+        
+        StyleMap decl = CSSFactory.assignDOM(doc, null, null, "screen", true);
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        assertThat(getStyleById(elements, decl, "p2").getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        assertThat(getStyleById(elements, decl, "p3").getValue(TermColor.class, "color"), is(tf.createColor(0, 0x80, 0)));
+        assertThat(getStyleById(elements, decl, "p4").getValue(TermColor.class, "color"), is(tf.createColor(0, 0, 255)));
+    }
+
+    @Test
+    public void sharedDeclarations() throws SAXException, IOException, CSSException {
+
+        final String html = "<html><head><style>"
+                + ".g {grid-template: 10px 20px / 30px}"
+                + "</style></head><body>"
+                + "  <div id='g1' class='g'>Lorem Ipsum</div>"
+                + "  <div id='g2' class='g'>Lorem Ipsum</div>"
+                + "</body></html> ";
+
+        final InputStream is = new ByteArrayInputStream(html.getBytes());
+        final DOMSource ds = new DOMSource(is);
+        final Document doc = ds.parse();
+        final ElementMap elements = new ElementMap(doc);
+        StyleMap decl = CSSFactory.assignDOM(doc, null, null, "screen", true);
+
+        // the assigned declarations are shared by both elements and must not be changed by the first one
+        for (String id : new String[] {"g1", "g2"}) {
+            final NodeData data = getStyleById(elements, decl, id);
+            assertThat(id, data.getProperty("grid-template-rows"), is((CSSProperty) CSSProperty.GridTemplateRowsColumns.list_values));
+            assertThat(id, data.getProperty("grid-template-columns"), is((CSSProperty) CSSProperty.GridTemplateRowsColumns.list_values));
+        }
+    }
+
     @Test
     public void invalidValues() throws SAXException, IOException {  
         
@@ -275,6 +354,316 @@ public class DOMAssignTest {
         assertThat("Negative margin accepted", data.getValue(TermLength.class, "margin-bottom"), is(tf.createLength(-5.0f, Unit.em)));
     }
     
+    /**
+     * Specificity levels that exceed the packed cascade key range must still be compared exactly.
+     */
+    @Test
+    public void largeSpecificity() throws SAXException, IOException, CSSException {
+        final StringBuilder css = new StringBuilder();
+        for (int i = 0; i < 200; i++)
+            css.append(".c");
+        css.append(" {color: red}\nbody ");
+        for (int i = 0; i < 150; i++)
+            css.append(".c");
+        css.append(" {color: blue}");
+        final String html = "<html><body><p id='p1' class='c'>A</p></body></html>";
+        Document doc = new DOMSource(new ByteArrayInputStream(html.getBytes())).parse();
+        ElementMap elements = new ElementMap(doc);
+        StyleSheet style = CSSFactory.parseString(css.toString(), null);
+        
+        StyleMap decl = new Analyzer(style).evaluateDOM(doc, "screen", true);
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        NodeData direct = new DirectAnalyzer(style).getElementStyle(elements.getElementById("p1"), null, "screen");
+        assertThat(direct.getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+    }
+    
+    @Test
+    public void restyle() throws SAXException, IOException, CSSException {
+
+        final String css = ".hl p {color: red} .a + p {font-weight: bold} li:first-child {color: green} li {margin: 1px}";
+        final String html = "<html><body>"
+                + "<div id='d'><p id='p1'>A</p><p id='p2'>B</p></div>"
+                + "<ul id='u'><li id='l1'>1</li><li id='l2'>2</li></ul>"
+                + "</body></html>";
+
+        final InputStream is = new ByteArrayInputStream(html.getBytes());
+        final DOMSource ds = new DOMSource(is);
+        final Document doc = ds.parse();
+        final ElementMap elements = new ElementMap(doc);
+        final StyleSheet sheet = CSSFactory.parseString(css, null);
+        final Analyzer analyzer = new Analyzer(sheet);
+        analyzer.setRestylable(true);
+        final StyleMap styles = analyzer.evaluateDOM(doc, "screen", true);
+
+        // modify the document
+        final Element d = elements.getElementById("d");
+        final Element p1 = elements.getElementById("p1");
+        final Element u = elements.getElementById("u");
+        final Element l2 = elements.getElementById("l2");
+        d.setAttribute("class", "hl");
+        p1.setAttribute("class", "a");
+        final Element l0 = doc.createElement("li");
+        u.insertBefore(l0, u.getFirstChild());
+        u.removeChild(l2);
+
+        final List<ElementChange> changes = new ArrayList<ElementChange>();
+        changes.add(new ElementChange(d, ElementChange.Kind.CLASS, "hl"));
+        changes.add(new ElementChange(p1, ElementChange.Kind.ATTRIBUTE, "class"));
+        changes.add(new ElementChange(l0, ElementChange.Kind.INSERTED));
+        changes.add(new ElementChange(l2, u));
+        final Set<Element> restyled = analyzer.restyle(styles, changes);
+
+        // the result must be equal to a complete evaluation
+        final StyleMap full = new Analyzer(sheet).evaluateDOM(doc, "screen", true);
+        final NodeList all = doc.getElementsByTagName("*");
+        for (int i = 0; i < all.getLength(); i++) {
+            final Element e = (Element) all.item(i);
+            assertEquals(e.getAttribute("id"), String.valueOf(full.get(e)), String.valueOf(styles.get(e)));
+        }
+        assertNull("Removed element", styles.get(l2));
+        assertThat(styles.get(l0).getValue(TermColor.class, "color"), is(tf.createColor(0, 128, 0)));
+        assertFalse("Unaffected element", restyled.contains(u.getParentNode()));
+
+        // restyling must be enabled before the evaluation
+        final Analyzer plain = new Analyzer(sheet);
+        final StyleMap plainStyles = plain.evaluateDOM(doc, "screen", true);
+        try {
+            plain.restyle(plainStyles, changes);
+            fail("Restyling without setRestylable()");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void compactStyleMap() throws SAXException, IOException, CSSException {
+
+        final StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 100; i++)
+            html.append("<p class='c").append(i % 3).append("'>Item <b>").append(i).append("</b></p>");
+        html.append("</body></html>");
+        final String css = "p {margin: 1px} .c1 {color: red} .c2 b {color: blue} p::before {content: 'x'}";
+
+        final Document doc = new DOMSource(new ByteArrayInputStream(html.toString().getBytes())).parse();
+        final StyleSheet sheet = CSSFactory.parseString(css, null);
+        final StyleMap hashed = new Analyzer(sheet).evaluateDOM(doc, "screen", true);
+        final Analyzer analyzer = new Analyzer(sheet);
+        analyzer.setCompactStyleMaps(true);
+        final StyleMap compact = analyzer.evaluateDOM(doc, "screen", true);
+        assertThat(compact instanceof CompactStyleMap, is(true));
+
+        final NodeList all = doc.getElementsByTagName("*");
+        assertThat(compact.size(), is(all.getLength()));
+        assertThat(compact.keySet().size(), is(all.getLength()));
+        for (int i = 0; i < all.getLength(); i++) {
+            final Element e = (Element) all.item(i);
+            assertThat(compact.keySet().contains(e), is(true));
+            assertEquals(String.valueOf(hashed.get(e)), String.valueOf(compact.get(e)));
+            assertEquals(hashed.pseudoSet(e), compact.pseudoSet(e));
+            assertEquals(String.valueOf(hashed.get(e, PseudoElementType.BEFORE)),
+                    String.valueOf(compact.get(e, PseudoElementType.BEFORE)));
+        }
+        // the indices follow the document order
+        final CompactStyleMap cmap = (CompactStyleMap) compact;
+        assertThat(cmap.getElement(0), is(doc.getDocumentElement()));
+        assertThat(cmap.indexOf(doc.getDocumentElement()), is(0));
+
+        // removal keeps the remaining elements
+        final Element first = (Element) doc.getElementsByTagName("p").item(0);
+        compact.remove(first);
+        assertNull(compact.get(first));
+        assertThat(compact.hasPseudo(first, PseudoElementType.BEFORE), is(false));
+        assertThat(compact.size(), is(all.getLength() - 1));
+        assertNotNull(compact.get(doc.getDocumentElement()));
+    }
+    
+    @Test
+    public void deepDocument() throws SAXException, IOException, CSSException {
+
+        final Document doc = new DOMSource(new ByteArrayInputStream("<html><body></body></html>".getBytes())).parse();
+        Element current = (Element) doc.getElementsByTagName("body").item(0);
+        for (int i = 0; i < 20000; i++) {
+            final Element div = doc.createElement("div");
+            if (i == 0)
+                div.setAttribute("class", "top");
+            current.appendChild(div);
+            current = div;
+        }
+        final StyleSheet sheet = CSSFactory.parseString(".top div {color: red} body > div {margin: 1px} div {width: 10px}", null);
+        final StyleMap styles = new Analyzer(sheet).evaluateDOM(doc, "screen", true);
+
+        final NodeData deepest = styles.get(current);
+        assertNotNull(deepest);
+        assertThat(deepest.getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        assertNull(deepest.getValue(TermLength.class, "margin-top"));
+        final NodeData top = styles.get((Element) doc.getElementsByTagName("body").item(0).getFirstChild());
+        assertThat(top.getValue(TermLength.class, "margin-top"), is(tf.createLength(1.0f, Unit.px)));
+    }
+    
+    @Test
+    public void computedLengths() throws SAXException, IOException, CSSException {
+
+        final String html = "<html><body><div id='outer'><p id='inner'><span id='s'>x</span></p></div></body></html>";
+        final String css = "body {font-size: 20px; margin: 1in} "
+                + "#outer {font-size: 150%; width: calc(100% - 2em); padding: 1rem 2vw; border-top: thin solid; line-height: 1.5} "
+                + "#inner {font-size: 0.5em; margin-left: 10%; height: 50vh} "
+                + "#s {line-height: 2em; letter-spacing: 0.1em}";
+        final Document doc = new DOMSource(new ByteArrayInputStream(html.getBytes())).parse();
+        final StyleSheet sheet = CSSFactory.parseString(css, null);
+        final MediaSpec media = new MediaSpec("screen");
+        media.setDimensions(1000, 800);
+        final Analyzer analyzer = new Analyzer(sheet);
+        assertNull(analyzer.evaluateDOM(doc, media, true).get(doc.getDocumentElement()).getComputedLengths());
+        analyzer.setResolveLengths(true);
+        final StyleMap styles = analyzer.evaluateDOM(doc, media, true);
+        final ElementMap elements = new ElementMap(doc);
+
+        final ComputedLengths body = styles.get(elements.getLastElementByName("body")).getComputedLengths();
+        assertEquals(20.0f, body.getFontSize(), 0.001f);
+        assertEquals(96.0f, body.get("margin-left"), 0.001f);
+        assertEquals(0.0f, body.get("border-top-width"), 0.001f); // no border style
+        assertThat(body.isResolved("width"), is(false)); // auto
+
+        final ComputedLengths outer = styles.get(elements.getElementById("outer")).getComputedLengths();
+        assertEquals(30.0f, outer.getFontSize(), 0.001f);
+        assertEquals(16.0f, outer.get("padding-top"), 0.001f);
+        assertEquals(20.0f, outer.get("padding-left"), 0.001f);
+        assertEquals(1.0f, outer.get("border-top-width"), 0.001f);
+        assertEquals(45.0f, outer.get("line-height"), 0.001f);
+        assertThat(outer.isRelative("width"), is(true));
+        assertThat(Float.isNaN(outer.get("width")), is(true));
+        assertEquals(440.0f, outer.get("width", 500.0f), 0.001f);
+
+        final ComputedLengths inner = styles.get(elements.getElementById("inner")).getComputedLengths();
+        assertEquals(15.0f, inner.getFontSize(), 0.001f);
+        assertEquals(400.0f, inner.get("height"), 0.001f);
+        assertEquals(50.0f, inner.get("margin-left", 500.0f), 0.001f);
+        assertEquals(22.5f, inner.get("line-height"), 0.001f); // the number is inherited
+
+        final ComputedLengths span = styles.get(elements.getElementById("s")).getComputedLengths();
+        assertEquals(15.0f, span.getFontSize(), 0.001f);
+        assertEquals(30.0f, span.get("line-height"), 0.001f);
+        assertEquals(1.5f, span.get("letter-spacing"), 0.001f);
+        assertEquals(0.0f, span.get("word-spacing"), 0.001f);
+        assertEquals(16.0f, span.getRootFontSize(), 0.001f); // html
+    }
+    
+    @Test
+    public void metrics() throws SAXException, IOException, CSSException {
+
+        final StyleMetricsCollector metrics = new StyleMetricsCollector();
+        final StyleSheet sheet;
+        CSSFactory.registerMetrics(metrics);
+        try {
+            sheet = CSSFactory.parseString("p {color: red; margin: 1px} .a, .b p {color: blue} @media print { p {color: black} }", null);
+        } finally {
+            CSSFactory.registerMetrics(null);
+        }
+        assertThat(metrics.getSheets(), is(1L));
+        assertThat(metrics.getRules(), is(4L)); // three rule sets and a media rule
+        assertThat(metrics.getDeclarations(), is(4L));
+
+        final Document doc = new DOMSource(new ByteArrayInputStream(
+                "<html><body><p class='a'>x</p><div class='b'><p>y</p></div></body></html>".getBytes())).parse();
+        final Analyzer analyzer = new Analyzer(sheet);
+        assertNull(analyzer.getMetrics());
+        analyzer.registerMetrics(metrics);
+        analyzer.evaluateDOM(doc, "screen", true);
+
+        assertThat(metrics.getClassifications(), is(1L));
+        assertThat(metrics.getClassifiedSelectors(), is(3L));
+        assertThat(metrics.getMatchedElements(), is(6L));
+        assertThat(metrics.getStyledElements(), is(6L));
+        // the first p has three candidates (the second rule is classified both by '.a' and by 'p'),
+        // the second p has two; all the selectors of a candidate rule are tested
+        assertThat(metrics.getCandidates(), is(5L));
+        assertThat(metrics.getSelectorTests(), is(8L));
+        assertThat(metrics.getSelectorMatches(), is(5L));
+        final RuleSet first = (RuleSet) sheet.get(0);
+        final RuleSet second = (RuleSet) sheet.get(1);
+        assertEquals(1.0, metrics.getMatchRate(first), 0.0);
+        assertEquals(0.5, metrics.getMatchRate(second), 0.0);
+        assertThat(metrics.getMostExpensiveSelectors(10).size(), is(3));
+        assertThat(metrics.getMostExpensiveSelectors(1).size(), is(1));
+
+        metrics.reset();
+        assertThat(metrics.getSelectorTests(), is(0L));
+        assertThat(metrics.getMostExpensiveSelectors(10).size(), is(0));
+    }
+    
+    @Test
+    public void metricsConcurrent() throws Exception {
+
+        final StyleSheet sheet = CSSFactory.parseString("p {color: red} .a {color: blue}", null);
+        final RuleSet first = (RuleSet) sheet.get(0);
+        final RuleSet second = (RuleSet) sheet.get(1);
+        final StyleMetricsCollector metrics = new StyleMetricsCollector();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        metrics.selectorTested(first, first.getSelectors()[0], true, 0, 1);
+                        metrics.selectorTested(second, second.getSelectors()[0], j % 2 == 0, 1, 2);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertThat(metrics.getMatchTime(), is(12000L));
+        assertThat(metrics.getSelectorStats(first.getSelectors()[0]).getTests(), is(4000L));
+        assertThat(metrics.getSelectorStats(second.getSelectors()[0]).getMatches(), is(2000L));
+        assertThat(metrics.getMostExpensiveSelectors(1).get(0).getRule(), is(second));
+
+        metrics.reset();
+        assertNull(metrics.getSelectorStats(first.getSelectors()[0]));
+        metrics.selectorTested(first, first.getSelectors()[0], true, 0, 1);
+        assertThat(metrics.getSelectorStats(first.getSelectors()[0]).getTests(), is(1L));
+    }
+    
+    @Test
+    public void selectorProfiler() throws SAXException, IOException, CSSException {
+
+        final StyleSheet sheet = CSSFactory.parseString(".a span {color: red} p > span {margin: 1px} div {width: 1px}", null);
+        final Document doc = new DOMSource(new ByteArrayInputStream(
+                "<html><body><div class='a'><p><span>x</span></p></div></body></html>".getBytes())).parse();
+        final Element span = (Element) doc.getElementsByTagName("span").item(0);
+        final CombinedSelector descendant = ((RuleSet) sheet.get(0)).getSelectors()[0];
+        final CombinedSelector child = ((RuleSet) sheet.get(1)).getSelectors()[0];
+
+        final SelectorProfiler profiler = new SelectorProfiler();
+        final Analyzer analyzer = new Analyzer(sheet);
+        analyzer.registerMetrics(profiler);
+        analyzer.evaluateDOM(doc, "screen", true);
+
+        StyleMetricsCollector.SelectorStats entry = profiler.getSelectorStats(descendant);
+        assertThat(entry.getCandidates(), is(1L));
+        assertThat(entry.getTests(), is(1L));
+        assertThat(entry.getVisited(), is(2L)); // p and div
+        assertThat(entry.getMatches(), is(1L));
+        assertThat(profiler.getSelectorStats(child).getVisited(), is(1L));
+        assertThat(profiler.getReport().size(), is(3));
+        assertThat(profiler.getReport(2).size(), is(2));
+        final String json = profiler.toJSON();
+        assertTrue(json.startsWith("[") && json.endsWith("]"));
+        assertTrue(json.contains("{\"selector\": \".a span\", \"candidates\": 1, \"attempts\": 1, \"visited\": 2, \"matches\": 1, \"nanos\": "));
+
+        // the direct analyzer walks the DOM
+        profiler.reset();
+        assertThat(new SelectorProfiler().toJSON(), is("[]"));
+        final DirectAnalyzer direct = new DirectAnalyzer(sheet);
+        direct.registerMetrics(profiler);
+        final NodeData data = direct.getElementStyle(span, null, "screen");
+        assertThat(data.getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        entry = profiler.getSelectorStats(descendant);
+        assertThat(entry.getTests(), is(1L));
+        assertThat(entry.getVisited(), is(2L));
+        assertThat(entry.getMatches(), is(1L));
+    }
+    
     private NodeData getStyleById(ElementMap elements, StyleMap decl, String id)
     {
         NodeData data = decl.get(elements.getElementById(id));
@@ -2,6 +2,7 @@ package test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.IOException;
 import java.util.Date;
@@ -142,6 +143,17 @@ public class DecoderTest
         }
     }
 
+    @Test
+    public void keywordTranslation() {
+        assertEquals(CSSProperty.Azimuth.LEFT_SIDE, CSSProperty.Translator.valueOfKeyword(CSSProperty.Azimuth.class, "left-side"));
+        assertEquals(CSSProperty.Azimuth.LEFT_SIDE, CSSProperty.Translator.valueOfKeyword(CSSProperty.Azimuth.class, "Left-Side"));
+        assertEquals(CSSProperty.Azimuth.LEFT_SIDE, CSSProperty.Translator.valueOf(CSSProperty.Azimuth.class, "LEFT_SIDE"));
+        assertEquals(CSSProperty.Azimuth.INHERIT, CSSProperty.Translator.createInherit(CSSProperty.Azimuth.class));
+        assertNull("Value constants are not keywords", CSSProperty.Translator.valueOfKeyword(CSSProperty.Azimuth.class, "angle"));
+        assertNull(CSSProperty.Translator.valueOfKeyword(CSSProperty.Azimuth.class, "nonsense"));
+        assertEquals("Non-enum properties are supported", "foo",
+                CSSProperty.Translator.valueOfKeyword(CSSProperty.GenericCSSPropertyProxy.class, "foo").toString());
+    }
     
     private TermLength stripOperator(TermLength src) {
         src.setOperator(null);
@@ -1,7 +1,10 @@
 package test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Date;
@@ -27,6 +30,7 @@ import cz.vutbr.web.css.TermNumeric.Unit;
 import cz.vutbr.web.css.TermRect;
 import cz.vutbr.web.css.TermString;
 import cz.vutbr.web.csskit.CalcArgs;
+import cz.vutbr.web.csskit.CompiledCalc;
 import cz.vutbr.web.csskit.fn.AttrImpl;
 import cz.vutbr.web.csskit.fn.BlurImpl;
 import cz.vutbr.web.csskit.fn.BrightnessImpl;
@@ -308,6 +312,54 @@ public class FunctionsTest {
         }
     }
     
+    @Test
+    public void calcCompiled() throws IOException, CSSException
+    {
+        PxEvaluator eval = new PxEvaluator();
+        for (int i = 0; i < TEST_CALC_L.length; i++)
+        {
+            StyleSheet ss = CSSFactory.parseString(TEST_CALC_L[i], null);
+            Declaration d = (Declaration) ss.get(0).get(0);
+            CompiledCalc compiled = ((TermCalc) d.get(0)).getArgs().compile();
+            assertTrue("Expression is linear [" + i + "]", compiled.isLinear());
+            assertEquals("Experssion result is correct [" + i + "]", 60.0, compiled.evaluate(eval), 0.000001);
+        }
+        DegEvaluator deval = new DegEvaluator();
+        for (int i = 0; i < TEST_CALC_A.length; i++)
+        {
+            StyleSheet ss = CSSFactory.parseString(TEST_CALC_A[i], null);
+            Declaration d = (Declaration) ss.get(0).get(0);
+            CompiledCalc compiled = ((TermCalc) d.get(0)).getArgs().compile();
+            assertEquals("Experssion result is correct [" + i + "]", 33.0, compiled.evaluate(deval), 0.000001);
+        }
+        
+        StyleSheet ss = CSSFactory.parseString("p { width: calc(100% - 2em - 10px + 3em * 2 - 4%); }", null);
+        CalcArgs args = ((TermCalc) ((Declaration) ss.get(0).get(0)).get(0)).getArgs();
+        CompiledCalc compiled = args.compile();
+        assertSame("Compiled form is cached", compiled, args.compile());
+        assertEquals("Units are merged", 3, compiled.getTermCount());
+        assertEquals("Result matches the interpreter", args.evaluate(eval), compiled.evaluate(eval), 0.000001);
+        
+        ss = CSSFactory.parseString("p { width: calc(10px / (2 - 1em / 1em)); }", null);
+        args = ((TermCalc) ((Declaration) ss.get(0).get(0)).get(0)).getArgs();
+        compiled = args.compile();
+        assertFalse("Division by a length is not linear", compiled.isLinear());
+        assertEquals("Result matches the interpreter", args.evaluate(eval), compiled.evaluate(eval), 0.000001);
+        assertEquals("Repeated evaluation gives the same result", args.evaluate(eval), compiled.evaluate(eval), 0.000001);
+        
+        //an evaluator that evaluates another program while resolving the values
+        final CompiledCalc inner = compiled;
+        final PxEvaluator ieval = new PxEvaluator();
+        CalcArgs.DoubleEvaluator neval = new CalcArgs.DoubleEvaluator() {
+            @Override
+            public double resolveValue(TermFloatValue val)
+            {
+                return ieval.resolveValue(val) + inner.evaluate(ieval) - 10.0;
+            }
+        };
+        assertEquals("Nested evaluation gives the same result", compiled.evaluate(eval), compiled.evaluate(neval), 0.000001);
+    }
+    
     @Test
     public void calcInvalid() throws IOException, CSSException
     {
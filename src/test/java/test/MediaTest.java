@@ -182,4 +182,66 @@ public class MediaTest
         assertTrue("MediaSpecAll matches the empty media query", (new MediaSpecAll()).matchesEmpty());
         assertFalse("MediaSpecNone does not match the empty media query", (new MediaSpecNone()).matchesEmpty());
     }
+
+    @Test
+    public void compiledQueries() throws IOException, CSSException
+    {
+        final String[] queries = {
+                "screen", "print", "not screen", "not all", "all and (min-width: 800px)",
+                "screen and (max-width: 50em)", "(width: 1100px)", "(min-width: 10in) and (orientation: landscape)",
+                "(orientation: portrait)", "(orientation: sideways)", "(min-aspect-ratio: 4/3)",
+                "(device-aspect-ratio: 16/10)", "(min-color: 8)", "(color-index)", "(monochrome: 0)",
+                "(min-resolution: 2dppx)", "(max-resolution: 100dpi)", "(resolution: 1dppx)",
+                "(scan: interlace)", "tv and (scan: progressive)", "(grid: 0)", "(grid: 2)",
+                "(min-grid: 0)", "(min-orientation: portrait)", "(unknown: 1)", "(min-width: 12)" };
+        final MediaSpec[] specs = { new MediaSpec("screen"), new MediaSpec("print"), new MediaSpec("tv"),
+                new MediaSpecAll(), new MediaSpecNone() };
+        specs[1].setDimensions(500, 800);
+        specs[1].setResolution(300);
+        specs[2].setScanInterlace(true);
+        
+        for (String query : queries)
+        {
+            final StyleSheet ss = CSSFactory.parseString("@media " + query + " { p { color: red; } }", null);
+            final RuleMedia rm = (RuleMedia) ss.get(0);
+            for (MediaSpec spec : specs)
+            {
+                assertEquals("Compiled query " + query + " for " + spec,
+                        spec.matchesOneOf(rm.getMediaQueries()),
+                        spec.matchesOneOf(rm.getMediaPredicates()));
+            }
+        }
+    }
+
+    @Test
+    public void compiledQueriesModified() throws IOException, CSSException
+    {
+        final StyleSheet ss = CSSFactory.parseString("@media print { p { color: red; } }", null);
+        final RuleMedia rm = (RuleMedia) ss.get(0);
+        final MediaSpec screen = new MediaSpec("screen");
+        assertFalse("Print query does not match screen", screen.matchesOneOf(rm.getMediaPredicates()));
+        final MediaQuery q = rm.getMediaQueries().get(0);
+        q.setType("screen");
+        rm.getMediaQueries().set(0, q);
+        assertTrue("Modified query matches screen", screen.matchesOneOf(rm.getMediaPredicates()));
+        rm.getMediaQueries().clear();
+        assertEquals("No compiled queries after clearing", 0, rm.getMediaPredicates().length);
+    }
+
+    @Test
+    public void compiledQueriesCustomSpec() throws IOException, CSSException
+    {
+        //a media specification that only customizes matching of the expressions
+        final MediaSpec spec = new MediaSpec("screen") {
+            @Override
+            public boolean matches(MediaExpression e)
+            {
+                return "custom-feature".equals(e.getFeature());
+            }
+        };
+        final StyleSheet ss = CSSFactory.parseString("@media (custom-feature: 1) { p { color: red; } }", null);
+        final RuleMedia rm = (RuleMedia) ss.get(0);
+        assertTrue("Custom expression matching is used", spec.matchesOneOf(rm.getMediaQueries()));
+        assertTrue("Custom expression matching is used for compiled queries", spec.matchesOneOf(rm.getMediaPredicates()));
+    }
 }
@@ -23,6 +23,7 @@ import org.xml.sax.SAXException;
 import cz.vutbr.web.css.CSSException;
 import cz.vutbr.web.css.CSSFactory;
 import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.ComputedLengths;
 import cz.vutbr.web.css.Declaration;
 import cz.vutbr.web.css.NodeData;
 import cz.vutbr.web.css.StyleSheet;
@@ -320,6 +321,15 @@ public class NodeDataVariantTest {
             return null;
         }
 
+        @Override
+        public ComputedLengths getComputedLengths() {
+            return null;
+        }
+
+        @Override
+        public void setComputedLengths(ComputedLengths lengths) {
+        }
+
         @Override
         public <T extends CSSProperty> T getProperty(String name, int index) {
             return null;
@@ -0,0 +1,147 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CSSProperty;
+import cz.vutbr.web.css.CSSProperty.BackgroundOrigin;
+import cz.vutbr.web.css.CSSProperty.BoxShadow;
+import cz.vutbr.web.css.CSSProperty.Display;
+import cz.vutbr.web.css.CSSProperty.FontFamily;
+import cz.vutbr.web.css.CSSProperty.GenericCSSPropertyProxy;
+import cz.vutbr.web.css.CSSProperty.GridAutoRowsColumns;
+import cz.vutbr.web.css.CSSProperty.Margin;
+import cz.vutbr.web.css.CSSProperty.TransitionTimingFunction;
+import cz.vutbr.web.css.CSSProperty.VoiceFamily;
+import cz.vutbr.web.css.Declaration;
+import cz.vutbr.web.css.SupportedCSS;
+import cz.vutbr.web.css.Term;
+import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.css.TermList;
+import cz.vutbr.web.domassign.DeclarationTransformerImpl;
+import cz.vutbr.web.domassign.SupportedCSS3;
+
+/**
+ * Checks the consistency of the static property tables and of the declaration processing dispatch.
+ */
+public class PropertyTableTest {
+	private static final Logger log = LoggerFactory.getLogger(PropertyTableTest.class);
+
+	private static final SupportedCSS css = CSSFactory.getSupportedCSS();
+	private static final TermFactory tf = CSSFactory.getTermFactory();
+
+	@BeforeClass
+	public static void init() {
+		log.info("\n\n\n == PropertyTableTest test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void ordinals() {
+		final Set<String> names = css.getDefinedPropertyNames();
+		assertEquals(css.getTotalProperties(), names.size());
+		int ordinal = 0;
+		for (String name : names) {
+			assertTrue(css.isSupportedCSSProperty(name));
+			assertEquals(name, ordinal, css.getOrdinal(name));
+			assertEquals(name, css.getPropertyName(ordinal));
+			ordinal++;
+		}
+		assertFalse(css.isSupportedCSSProperty("no-such-property"));
+		assertEquals(-1, css.getOrdinal("no-such-property"));
+		assertNull(css.getPropertyName(-1));
+		assertNull(css.getPropertyName(names.size()));
+	}
+
+	@Test
+	public void defaults() {
+		for (String name : css.getDefinedPropertyNames())
+			assertNotNull(name, css.getDefaultProperty(name));
+		//samples from all the property groups
+		assertEquals(FontFamily.SANS_SERIF, css.getDefaultProperty("font-family"));
+		assertEquals(tf.createColor("#000000"), css.getDefaultValue("color"));
+		assertNull(css.getDefaultValue("font"));
+		assertEquals(Margin.length, css.getDefaultProperty("margin-left"));
+		assertEquals(tf.createLength(0.0f), css.getDefaultValue("margin-left"));
+		assertEquals(BoxShadow.NONE, css.getDefaultProperty("box-shadow"));
+		assertEquals(Display.INLINE, css.getDefaultProperty("display"));
+		assertEquals(3, ((TermList) css.getDefaultValue("transform-origin")).size());
+		assertEquals(BackgroundOrigin.PADDING_BOX, css.getDefaultProperty("background-origin"));
+		assertEquals(2, ((TermList) css.getDefaultValue("border-spacing")).size());
+		assertEquals(tf.createInteger(2), css.getDefaultValue("orphans"));
+		assertEquals(VoiceFamily.MALE, css.getDefaultProperty("voice-family"));
+		assertEquals(tf.createInteger(0), css.getDefaultValue("order"));
+		assertEquals(GridAutoRowsColumns.AUTO, css.getDefaultProperty("grid-auto-columns"));
+		assertEquals(TransitionTimingFunction.EASE, css.getDefaultProperty("transition-timing-function"));
+		assertNull(css.getDefaultValue("transition-timing-function"));
+		assertNull(css.getDefaultProperty("no-such-property"));
+		assertNull(css.getDefaultValue("no-such-property"));
+	}
+
+	/**
+	 * The group tables must have exactly one default for every property name of the group.
+	 */
+	@Test
+	public void groups() throws Exception {
+		final Field names = SupportedCSS3.class.getDeclaredField("GROUP_NAMES");
+		names.setAccessible(true);
+		final Method props = SupportedCSS3.class.getDeclaredMethod("getGroupProperties", int.class);
+		props.setAccessible(true);
+		final Method values = SupportedCSS3.class.getDeclaredMethod("getGroupValues", int.class);
+		values.setAccessible(true);
+		final String[][] groups = (String[][]) names.get(null);
+		assertEquals(10, groups.length);
+		int total = 0;
+		for (int g = 0; g < groups.length; g++) {
+			assertEquals("group " + g, groups[g].length, ((CSSProperty[]) props.invoke(null, g)).length);
+			assertEquals("group " + g, groups[g].length, ((Term<?>[]) values.invoke(null, g)).length);
+			total += groups[g].length;
+		}
+		assertEquals(css.getTotalProperties(), total);
+	}
+
+	/**
+	 * Every property that has its own processing method must be dispatched to it
+	 * rather than to the generic property processing.
+	 */
+	@Test
+	public void dispatch() {
+		final Set<String> methods = new HashSet<String>();
+		for (Method m : DeclarationTransformerImpl.class.getDeclaredMethods())
+			methods.add(m.getName());
+
+		final DeclarationTransformerImpl transformer = DeclarationTransformerImpl.getInstance();
+		int cnt = 0;
+		for (String name : css.getDefinedPropertyNames()) {
+			if (methods.contains(DeclarationTransformerImpl.camelCase("process-" + name))) {
+				final Declaration d = DeclarationsUtil.createDeclaration(name, tf.createIdent("inherit"));
+				final Map<String, CSSProperty> properties = new HashMap<String, CSSProperty>();
+				final Map<String, Term<?>> values = new HashMap<String, Term<?>>();
+				//the generic processing would accept any identifier
+				if (transformer.parseDeclaration(d, properties, values))
+					assertFalse(name, properties.isEmpty());
+				for (CSSProperty property : properties.values())
+					assertFalse(name, property instanceof GenericCSSPropertyProxy);
+				cnt++;
+			}
+		}
+		assertTrue(cnt > 0);
+	}
+
+}
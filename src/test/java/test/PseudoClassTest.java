@@ -1,20 +1,25 @@
 package test;
 
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Date;
+import java.util.Set;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
 import cz.vutbr.web.css.CSSException;
@@ -29,6 +34,7 @@ import cz.vutbr.web.css.StyleSheet;
 import cz.vutbr.web.css.TermColor;
 import cz.vutbr.web.css.TermFactory;
 import cz.vutbr.web.csskit.MatchConditionOnElements;
+import cz.vutbr.web.domassign.Analyzer;
 import cz.vutbr.web.domassign.DirectAnalyzer;
 import cz.vutbr.web.domassign.StyleMap;
 import java.util.List;
@@ -294,6 +300,64 @@ public class PseudoClassTest {
         }
     }
     
+    @Test
+    public void pseudoClassRestyle() throws SAXException, IOException, CSSException {
+        final String css = "div:hover {color: red} div:hover p {color: blue} span {color: green}";
+        final String html = "<html><body><div id='d1'><p id='p1'>A</p><span id='s1'>B</span></div>"
+                + "<div id='d2'><p id='p2'>C</p></div></body></html>";
+        Document doc = new DOMSource(new ByteArrayInputStream(html.getBytes())).parse();
+        ElementMap elements = new ElementMap(doc);
+        StyleSheet style = CSSFactory.parseString(css, null);
+        
+        MatchConditionOnElements cond = new MatchConditionOnElements();
+        Analyzer analyzer = new Analyzer(style);
+        analyzer.registerMatchCondition(cond);
+        analyzer.setRestylable(true);
+        StyleMap decl = analyzer.evaluateDOM(doc, "screen", true);
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is((TermColor) null));
+        
+        Element d1 = elements.getElementById("d1");
+        cond.addMatch(d1, PseudoClassType.HOVER);
+        Set<Element> restyled = analyzer.restyle(decl, d1, PseudoClassType.HOVER);
+        assertThat(getStyleById(elements, decl, "d1").getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is(tf.createColor(0, 0, 255)));
+        assertThat(getStyleById(elements, decl, "s1").getValue(TermColor.class, "color"), is(tf.createColor(0, 128, 0)));
+        assertTrue(restyled.contains(elements.getElementById("p1")));
+        assertFalse(restyled.contains(elements.getElementById("d2")));
+        assertFalse(restyled.contains(elements.getElementById("p2")));
+        
+        cond.removeMatch(d1, PseudoClassType.HOVER);
+        analyzer.restyle(decl, d1, PseudoClassType.HOVER);
+        assertThat(getStyleById(elements, decl, "d1").getValue(TermColor.class, "color"), is((TermColor) null));
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is((TermColor) null));
+    }
+    
+    @Test
+    public void negatedPseudoClassRestyle() throws SAXException, IOException, CSSException {
+        final String css = "div:not(:hover) {color: red} div:not(:hover) p {color: blue}";
+        final String html = "<html><body><div id='d1'><p id='p1'>A</p></div><div id='d2'><p id='p2'>B</p></div></body></html>";
+        Document doc = new DOMSource(new ByteArrayInputStream(html.getBytes())).parse();
+        ElementMap elements = new ElementMap(doc);
+        StyleSheet style = CSSFactory.parseString(css, null);
+        
+        MatchConditionOnElements cond = new MatchConditionOnElements();
+        Analyzer analyzer = new Analyzer(style);
+        analyzer.registerMatchCondition(cond);
+        analyzer.setRestylable(true);
+        StyleMap decl = analyzer.evaluateDOM(doc, "screen", true);
+        assertThat(getStyleById(elements, decl, "d1").getValue(TermColor.class, "color"), is(tf.createColor(255, 0, 0)));
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is(tf.createColor(0, 0, 255)));
+        
+        Element d1 = elements.getElementById("d1");
+        cond.addMatch(d1, PseudoClassType.HOVER);
+        Set<Element> restyled = analyzer.restyle(decl, d1, PseudoClassType.HOVER);
+        assertThat(getStyleById(elements, decl, "d1").getValue(TermColor.class, "color"), is((TermColor) null));
+        assertThat(getStyleById(elements, decl, "p1").getValue(TermColor.class, "color"), is((TermColor) null));
+        assertThat(getStyleById(elements, decl, "p2").getValue(TermColor.class, "color"), is(tf.createColor(0, 0, 255)));
+        assertTrue(restyled.contains(elements.getElementById("p1")));
+        assertFalse(restyled.contains(elements.getElementById("d2")));
+    }
+    
     private NodeData getStyleById(ElementMap elements, StyleMap decl, String id)
     {
         NodeData data = decl.get(elements.getElementById(id));
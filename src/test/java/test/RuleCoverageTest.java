@@ -0,0 +1,158 @@
+package test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.RuleFontFace;
+import cz.vutbr.web.css.RuleKeyframes;
+import cz.vutbr.web.css.RuleMedia;
+import cz.vutbr.web.css.RulePage;
+import cz.vutbr.web.css.RuleSet;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.RuleCoverage;
+import cz.vutbr.web.domassign.StyleMap;
+
+public class RuleCoverageTest {
+	private static final Logger log = LoggerFactory.getLogger(RuleCoverageTest.class);
+
+	private static final String CSS = "p, h1 { color: red; font-family: \"My Font\", serif; animation: spin 1s }\n"
+			+ ".none, p.a { margin: 1px }\n"
+			+ "div > p { width: 10px }\n"
+			+ "@media print { p { color: black } }\n"
+			+ "@media screen { p { height: 5px } .none { height: 1px } }\n"
+			+ "@font-face { font-family: \"My Font\"; src: url(my.woff) }\n"
+			+ "@font-face { font-family: Other; src: url(other.woff) }\n"
+			+ "@keyframes spin { from { width: 0px } to { width: 10px } }\n"
+			+ "@keyframes fade { from { opacity: 0 } to { opacity: 1 } }\n"
+			+ "@page { margin: 1cm }\n";
+
+	private static final String HTML = "<html><body><p class=\"a\">one</p><div><span>two</span></div></body></html>";
+
+	private static final MediaSpec screen = new MediaSpec("screen");
+	private static final MediaSpec print = new MediaSpec("print");
+
+	@BeforeClass
+	public static void init() throws SAXException, IOException {
+		log.info("\n\n\n == RuleCoverage test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void report() throws Exception {
+		final StyleSheet sheet = CSSFactory.parseString(CSS, null);
+		final RuleCoverage coverage = new RuleCoverage();
+		evaluate(parse(), sheet, coverage, screen);
+
+		final RuleCoverage.Report report = coverage.getReport(Collections.singletonList(sheet));
+		log.debug("Coverage: {}", report.toJSON());
+		assertThat(report.getTotalRules(), is(6));
+		assertThat(report.getUsedRules(), is(3)); //p,h1; .none,p.a; @media screen p
+		assertThat(report.getTotalSelectors(), is(8));
+		assertThat(report.getUsedSelectors(), is(3));
+		assertThat(report.getUnused().size(), is(5));
+		assertTrue(coverage.isUsed((RuleSet) sheet.get(0)));
+		assertThat(coverage.getMatches(((RuleSet) sheet.get(0)).getSelectors()[0]), is(1L));
+		assertThat(coverage.isUsed(((RuleSet) sheet.get(0)).getSelectors()[1]), is(false));
+		assertThat(coverage.isUsed((RuleSet) sheet.get(2)), is(false));
+		assertTrue(report.toJSON().startsWith("{\"totalRules\": 6"));
+
+		//another media type adds the print rules
+		evaluate(parse(), sheet, coverage, print);
+		assertThat(coverage.getReport(Collections.singletonList(sheet)).getUsedRules(), is(4));
+		coverage.reset();
+		assertThat(coverage.getReport(Collections.singletonList(sheet)).getUsedRules(), is(0));
+	}
+
+	@Test
+	public void prune() throws Exception {
+		final StyleSheet sheet = CSSFactory.parseString(CSS, null);
+		final RuleCoverage coverage = new RuleCoverage();
+		final Document doc = parse();
+		final StyleMap expected = evaluate(doc, sheet, coverage, screen);
+		final StyleSheet pruned = coverage.prune(sheet);
+		log.debug("Pruned: {}", pruned);
+
+		assertThat(pruned.size(), is(6));
+		assertTrue(pruned.get(0) instanceof RuleSet);
+		assertTrue(pruned.get(1) instanceof RuleSet);
+		assertTrue(pruned.get(2) instanceof RuleMedia);
+		assertTrue(pruned.get(3) instanceof RuleFontFace);
+		assertTrue(pruned.get(4) instanceof RuleKeyframes);
+		assertTrue(pruned.get(5) instanceof RulePage);
+		assertThat(((RuleSet) pruned.get(0)).getSelectors().length, is(1));
+		assertThat(((RuleSet) pruned.get(1)).getSelectors()[0].toString(), is("p.a"));
+		assertThat(((RuleMedia) pruned.get(2)).size(), is(1));
+		assertThat(((RuleFontFace) pruned.get(3)).getFontFamily(), is("My Font"));
+		assertThat(((RuleKeyframes) pruned.get(4)).getName(), is("spin"));
+		//the original sheet is not modified
+		assertThat(sheet.size(), is(10));
+		assertTrue(((RuleSet) sheet.get(0)).getStyleSheet() == sheet);
+
+		//the pruned sheet gives the same styles
+		final StyleMap actual = evaluate(doc, pruned, null, screen);
+		for (Element e : elements(doc))
+			assertThat(e.getTagName(), actual.get(e).toString(), is(expected.get(e).toString()));
+	}
+
+	@Test
+	public void concurrent() throws Exception {
+		final StyleSheet sheet = CSSFactory.parseString(CSS, null);
+		final RuleSet rule = (RuleSet) sheet.get(0);
+		final RuleCoverage coverage = new RuleCoverage();
+		final Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++)
+						coverage.matched(rule.getSelectors()[0]);
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread t : threads)
+			t.join();
+		assertThat(coverage.getMatches(rule.getSelectors()[0]), is(4000L));
+		assertTrue(coverage.isUsed(rule));
+		assertThat(coverage.isUsed(rule.getSelectors()[1]), is(false));
+	}
+
+	private static Document parse() throws SAXException, IOException {
+		return new DOMSource(new ByteArrayInputStream(HTML.getBytes())).parse();
+	}
+
+	private static StyleMap evaluate(Document doc, StyleSheet sheet, RuleCoverage coverage, MediaSpec media) throws CSSException {
+		final Analyzer analyzer = new Analyzer(sheet);
+		analyzer.setRuleCoverage(coverage);
+		return analyzer.evaluateDOM(doc, media, true);
+	}
+
+	private static List<Element> elements(Document doc) {
+		final NodeList list = doc.getElementsByTagName("*");
+		final List<Element> ret = new ArrayList<Element>();
+		for (int i = 0; i < list.getLength(); i++)
+			ret.add((Element) list.item(i));
+		return ret;
+	}
+
+}
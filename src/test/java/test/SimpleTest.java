@@ -4,6 +4,7 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -51,6 +52,9 @@ public class SimpleTest {
 	public static final String TEST_HASH_COLOR2 =
 		"DIV, P { color: #CCC;}";
 	
+	public static final String TEST_HASH_COLOR3 =
+		"P { color: #0A08; background-color: #00AA8580; border-color: #00AA8G; }";
+	
 	public static final String TEST_RGBFUNCTION1 =
 		"BODY { color: rgb(192,64,32);}";
 	
@@ -320,12 +324,34 @@ public class SimpleTest {
 				rule.asList());
 	}
 	
+	@Test
+	public void testHashColorAlpha() throws IOException, CSSException   {
+		
+		StyleSheet ss = CSSFactory.parseString(TEST_HASH_COLOR3, null);
+		assertEquals("One rule is set", 1, ss.size());
+		
+		final RuleSet rule = (RuleSet) ss.get(0);				
+		
+		assertEquals("Rule contains two valid declarations {color: #0A08; background-color: #00AA8580;}",
+				DeclarationsUtil.appendDeclaration(
+						DeclarationsUtil.appendDeclaration(null, "color", 
+								tf.createColor(0, 170, 0, 136)),
+						"background-color", tf.createColor(0, 170, 133, 128)),
+				rule.asList());
+	}
+	
 	@Test
 	public void testUnit() throws IOException, CSSException {
 		StyleSheet ss = CSSFactory.parseString(TEST_UNIT, null);
 		
 		assertEquals("There is one rule", 1, ss.size());
 		
+		TermLength length = (TermLength) ((Declaration) ss.get(0).get(0)).get(0);
+		assertEquals("Unit is em", Unit.em, length.getUnit());
+		assertEquals("Primitive value is 5", 5.0f, length.getFloatValue(), 0.0f);
+		assertEquals("Integer value is 5", 5, length.getIntValue());
+		assertEquals("Boxed value equals the primitive one", Float.valueOf(5.0f), length.getValue());
+		assertEquals("Term equals an equivalent created one", tf.createLength(5.0f, Unit.em), length);
 	}
 	
 	@Test
@@ -455,4 +481,31 @@ public class SimpleTest {
 				rule2.asList());
 	}
 
+	@Test
+	public void testSharedIdentifiers() throws IOException, CSSException {
+		StyleSheet ss = CSSFactory.parseString(
+				".note { display: none; border-style: none } p.note { display: none; f\\6f nt-style: italic }", null);
+		RuleSet rule1 = (RuleSet) ss.get(0);
+		RuleSet rule2 = (RuleSet) ss.get(1);
+		// equal identifiers are represented by the same instances
+		assertSame(rule1.get(0).getProperty(), rule2.get(0).getProperty());
+		assertSame(rule1.get(0).get(0).getValue(), rule1.get(1).get(0).getValue());
+		assertSame(rule1.get(0).get(0).getValue(), rule2.get(0).get(0).getValue());
+		assertSame(rule1.getSelectors()[0].get(0).getClassName(), rule2.getSelectors()[0].get(0).getClassName());
+		// the supported property names are shared with the supported CSS definition
+		assertTrue(CSSFactory.getSupportedCSS().getDefinedPropertyNames().contains("display"));
+		for (String name : CSSFactory.getSupportedCSS().getDefinedPropertyNames()) {
+			if (name.equals("display"))
+				assertSame(name, rule1.get(0).getProperty());
+		}
+		// escapes are still decoded
+		assertEquals("font-style", rule2.get(1).getProperty());
+		// function names are lower-cased before they are shared
+		StyleSheet fs = CSSFactory.parseString("p { transform: ROTATE(45deg) } a { transform: rotate(10deg) }", null);
+		TermFunction f1 = (TermFunction) ((RuleSet) fs.get(0)).get(0).get(0);
+		TermFunction f2 = (TermFunction) ((RuleSet) fs.get(1)).get(0).get(0);
+		assertEquals("rotate", f1.getFunctionName());
+		assertSame(f1.getFunctionName(), f2.getFunctionName());
+	}
+
 }
@@ -0,0 +1,160 @@
+package test;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import cz.vutbr.web.css.CSSException;
+import cz.vutbr.web.css.CSSFactory;
+import cz.vutbr.web.css.CombinedSelector;
+import cz.vutbr.web.css.ElementMatcher;
+import cz.vutbr.web.css.MatchCondition;
+import cz.vutbr.web.css.MediaSpec;
+import cz.vutbr.web.css.NodeData;
+import cz.vutbr.web.css.Selector;
+import cz.vutbr.web.css.Selector.PseudoClassType;
+import cz.vutbr.web.css.Selector.PseudoElementType;
+import cz.vutbr.web.css.StyleSheet;
+import cz.vutbr.web.css.TermColor;
+import cz.vutbr.web.css.TermFactory;
+import cz.vutbr.web.css.TermLength;
+import cz.vutbr.web.css.TermNumeric.Unit;
+import cz.vutbr.web.css.TreeAccess;
+import cz.vutbr.web.domassign.Analyzer;
+import cz.vutbr.web.domassign.DOMTreeAccess;
+import cz.vutbr.web.domassign.NodeStore;
+import cz.vutbr.web.domassign.StyleMap;
+import cz.vutbr.web.domassign.TreeAnalyzer;
+import cz.vutbr.web.domassign.TreeStyleMap;
+
+public class TreeAccessTest {
+	private static final Logger log = LoggerFactory.getLogger(TreeAccessTest.class);
+
+	private static TermFactory tf = CSSFactory.getTermFactory();
+
+	@BeforeClass
+	public static void init() throws SAXException, IOException {
+		log.info("\n\n\n == TreeAccess test at {} == \n\n\n", new Date());
+	}
+
+	@Test
+	public void domAdapter() throws SAXException, IOException {
+		compareWithAnalyzer("/simple/child-pseudo.html");
+		compareWithAnalyzer("/profiling/lidovky2.html");
+	}
+
+	@Test
+	public void nodeStore() throws CSSException, IOException {
+		final StyleSheet sheet = CSSFactory.parseString(
+				"li {margin: 1px} li:first-child {color: red} ul > li + li {color: blue} "
+				+ ".x {color: green} #last {color: yellow} li[data-k|=a] {margin: 2px} "
+				+ "li:hover {margin: 4px} ul li:empty {margin: 3px} li::before {content: 'x'}", null);
+
+		final NodeStore store = new NodeStore(2);
+		final int html = store.addElement(TreeAccess.NONE, "html");
+		final int ul = store.addElement(html, "ul");
+		final int l1 = store.addElement(ul, "li");
+		store.setHasText(l1);
+		final int l2 = store.addElement(ul, "li");
+		store.setHasText(l2);
+		store.setAttribute(l2, "data-k", "a-b");
+		final int l3 = store.addElement(ul, "li");
+		store.setAttribute(l3, "class", "y x");
+		final int l4 = store.addElement(ul, "LI");
+		store.setID(l4, "last");
+		store.setPseudoClass(l4, PseudoClassType.HOVER, true);
+		store.setPseudoClass(l4, PseudoClassType.HOVER, false);
+		store.setHasText(l4);
+		assertThat(store.getNodeCount(), is(6));
+
+		final TreeStyleMap styles = new TreeAnalyzer(sheet).evaluate(store, new MediaSpec("screen"), true);
+		assertThat(color(styles.get(l1)), is(tf.createColor(255, 0, 0)));
+		assertThat(color(styles.get(l2)), is(tf.createColor(0, 0, 255)));
+		assertThat(color(styles.get(l3)), is(tf.createColor(0, 128, 0)));
+		assertThat(color(styles.get(l4)), is(tf.createColor(255, 255, 0)));
+		assertThat(styles.get(l1).getValue(TermLength.class, "margin-top"), is(tf.createLength(1.0f, Unit.px)));
+		assertThat(styles.get(l2).getValue(TermLength.class, "margin-top"), is(tf.createLength(2.0f, Unit.px)));
+		assertThat(styles.get(l3).getValue(TermLength.class, "margin-top"), is(tf.createLength(3.0f, Unit.px)));
+		assertNotNull(styles.get(l1, PseudoElementType.BEFORE));
+		assertNull(styles.get(ul, PseudoElementType.BEFORE));
+		assertNull(color(styles.get(ul)));
+		assertThat(styles.get(l4).getValue(TermLength.class, "margin-top"), is(tf.createLength(1.0f, Unit.px)));
+
+		store.setPseudoClass(l4, PseudoClassType.HOVER, true);
+		final TreeStyleMap hovered = new TreeAnalyzer(sheet).evaluate(store, new MediaSpec("screen"), true);
+		assertThat(hovered.get(l4).getValue(TermLength.class, "margin-top"), is(tf.createLength(4.0f, Unit.px)));
+	}
+
+	@Test
+	public void treeMatching() throws CSSException, IOException {
+		final StyleSheet sheet = CSSFactory.parseString(
+				"p[data-t~=b] {color: red} p[data-t~='a b'] {color: blue} p::after {content: 'x'}", null);
+
+		final NodeStore store = new NodeStore();
+		final int body = store.addElement(TreeAccess.NONE, "body");
+		final int p1 = store.addElement(body, "p");
+		store.setAttribute(p1, "data-t", " a\tb  c");
+		final int p2 = store.addElement(body, "p");
+		store.setAttribute(p2, "data-t", "a bb");
+
+		final TreeAnalyzer analyzer = new TreeAnalyzer(sheet);
+		final MediaSpec media = new MediaSpec("screen");
+		for (int i = 0; i < 2; i++) {
+			final TreeStyleMap styles = analyzer.evaluate(store, media, true);
+			assertThat(color(styles.get(p1)), is(tf.createColor(255, 0, 0)));
+			assertNull(color(styles.get(p2)));
+			assertThat(styles.pseudoSet(p1), is(Collections.singleton(PseudoElementType.AFTER)));
+			assertThat(styles.pseudoSet(body).isEmpty(), is(true));
+		}
+
+		// parts with no tree matching do not match the nodes with no DOM element
+		final Selector.SelectorPart custom = new Selector.SelectorPart() {
+			@Override
+			public boolean matches(Element e, ElementMatcher matcher, MatchCondition cond) {
+				return true;
+			}
+			@Override
+			public void computeSpecificity(CombinedSelector.Specificity spec) {
+			}
+		};
+		assertThat(custom.matches(p1, store), is(false));
+	}
+
+	private void compareWithAnalyzer(String src) throws SAXException, IOException {
+		final URL url = getClass().getResource(src);
+		final Document doc = new DOMSource(url.openStream()).parse();
+		final StyleSheet style = CSSFactory.getUsedStyles(doc, null, url, new MediaSpec("screen"));
+		final StyleMap expected = new Analyzer(style).evaluateDOM(doc, "screen", true);
+
+		final DOMTreeAccess tree = new DOMTreeAccess(doc);
+		final TreeStyleMap styles = new TreeAnalyzer(style).evaluate(tree, new MediaSpec("screen"), true);
+		assertThat(src, tree.getNodeCount(), is(expected.size()));
+		for (int node = 0; node < tree.getNodeCount(); node++) {
+			final Element e = tree.getElement(node);
+			assertThat(tree.indexOf(e), is(node));
+			assertEquals(src + ": " + e.getTagName(), String.valueOf(expected.get(e)), String.valueOf(styles.get(node)));
+			for (PseudoElementType pseudo : expected.pseudoSet(e))
+				assertEquals(String.valueOf(expected.get(e, pseudo)), String.valueOf(styles.get(node, pseudo)));
+		}
+	}
+
+	private TermColor color(NodeData data) {
+		return data.getValue(TermColor.class, "color");
+	}
+
+}